@@ -1,7 +1,9 @@
 package com.uade.corehub.channels;
 
+import com.uade.corehub.messaging.compression.PayloadCodec;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
 import java.util.List;
 
 @ConfigurationProperties(prefix = "corehub")
@@ -14,6 +16,17 @@ public class ChannelRegistryProperties {
 		private String name;
 		private String exchange;
 		private String routingKey;
+		// Compresión de payloads (AMQP y payload_store) a partir de compressionThreshold bytes UTF-8
+		private PayloadCodec compression = PayloadCodec.NONE;
+		private int compressionThreshold = 1024;
+		// Claim-check (sólo en modo outbox): payloads de este tamaño (bytes UTF-8) o más viajan por AMQP sólo como referencia a payload_store (0 = nunca)
+		private int claimCheckThreshold = 0;
+		// Payloads guardados una sola vez por contenido (payload_blobs): para canales que repiten payloads idénticos
+		private boolean contentAddressed = false;
+		// Retención en message_log/payload_store; null usa corehub.partitioning.default-retention
+		private Duration retention;
+		// Versión del JSON Schema registrado (/channels/{name}/schemas) que deben cumplir los payloads; null no valida
+		private String schemaVersion;
 
 		public String getName() {return name;}
 		public void setName(String name){this.name=name;}
@@ -21,5 +34,17 @@ public class ChannelRegistryProperties {
 		public void setExchange(String exchange){this.exchange=exchange;}
 		public String getRoutingKey(){return routingKey;}
 		public void setRoutingKey(String routingKey){this.routingKey=routingKey;}
+		public PayloadCodec getCompression(){return compression;}
+		public void setCompression(PayloadCodec compression){this.compression=compression;}
+		public int getCompressionThreshold(){return compressionThreshold;}
+		public void setCompressionThreshold(int compressionThreshold){this.compressionThreshold=compressionThreshold;}
+		public int getClaimCheckThreshold(){return claimCheckThreshold;}
+		public void setClaimCheckThreshold(int claimCheckThreshold){this.claimCheckThreshold=claimCheckThreshold;}
+		public boolean isContentAddressed(){return contentAddressed;}
+		public void setContentAddressed(boolean contentAddressed){this.contentAddressed=contentAddressed;}
+		public Duration getRetention(){return retention;}
+		public void setRetention(Duration retention){this.retention=retention;}
+		public String getSchemaVersion(){return schemaVersion;}
+		public void setSchemaVersion(String schemaVersion){this.schemaVersion=schemaVersion;}
 	}
 }
@@ -0,0 +1,27 @@
+package com.uade.corehub.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Archivo frío de payloads en segmentos comprimidos en disco (corehub.archive.*)
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "corehub.archive")
+public class ArchiveProperties {
+
+    private boolean enabled = false;
+    // Directorio raíz de los segmentos (debe ser compartido si hay más de un nodo)
+    private String directory = "./data/payload-archive";
+    // Antigüedad a partir de la cual un payload sale de payload_store
+    private Duration age = Duration.ofDays(3);
+    private Duration interval = Duration.ofMinutes(10);
+    // Filas archivadas por transacción
+    private int batchSize = 5_000;
+    // Segmentos con índice mapeado en memoria mantenidos abiertos
+    private int openSegments = 256;
+}
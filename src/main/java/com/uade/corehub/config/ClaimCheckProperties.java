@@ -0,0 +1,17 @@
+package com.uade.corehub.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Lectura de payloads enviados por claim-check (claimCheckThreshold en channels.yaml), corehub.claim-check.*
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "corehub.claim-check")
+public class ClaimCheckProperties {
+
+    // Tope del cache local de payloads ya leídos de payload_store (bytes UTF-8 de JSON)
+    private long cacheSize = 32L * 1024 * 1024;
+}
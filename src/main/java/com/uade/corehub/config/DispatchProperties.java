@@ -0,0 +1,109 @@
+package com.uade.corehub.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Entrega de eventos a webhooks (corehub.dispatch.*)
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "corehub.dispatch")
+public class DispatchProperties {
+
+    // Entregas simultáneas por mensaje (una por suscripción, en virtual threads)
+    private int maxConcurrency = 16;
+    private Http http = new Http();
+    private Retry retry = new Retry();
+    private Breaker breaker = new Breaker();
+
+    @Data
+    public static class Http {
+        // Conexiones abiertas por host de suscriptor (con HTTP/2 cada una multiplexa varios requests)
+        private int maxConnectionsPerHost = 20;
+        // Conexiones abiertas en total, entre todos los hosts
+        private int maxConnections = 200;
+        // Espera máxima por una conexión libre del pool del host
+        private Duration poolTimeout = Duration.ofSeconds(5);
+        private Duration connectTimeout = Duration.ofSeconds(5);
+        // Espera máxima de la respuesta del webhook
+        private Duration responseTimeout = Duration.ofSeconds(10);
+        // Keep-alive cuando el suscriptor no manda el header Keep-Alive
+        private Duration keepAlive = Duration.ofSeconds(30);
+        // Las conexiones ociosas por más de esto se cierran
+        private Duration idleTimeout = Duration.ofSeconds(60);
+        // Vida máxima de una conexión (así se vuelve a resolver DNS aunque haya tráfico continuo)
+        private Duration connectionTtl = Duration.ofMinutes(5);
+        // Negocia HTTP/2 por ALPN con los suscriptores https que lo soportan; false fuerza HTTP/1.1
+        private boolean http2 = true;
+    }
+
+    @Data
+    public static class Breaker {
+        // Circuit breaker por suscripción; false: se intenta siempre
+        private boolean enabled = true;
+        // Últimos resultados de entrega que se evalúan por suscripción (en cada nodo)
+        private int windowSize = 20;
+        // Resultados mínimos en la ventana antes de poder abrir el circuito (a lo sumo windowSize)
+        private int minimumCalls = 10;
+        // Porcentaje de fallos en la ventana que abre el circuito (y suspende la suscripción)
+        private double failureRateThreshold = 50;
+        // Tiempo con el circuito abierto antes de probar el webhook con una entrega (half-open)
+        private Duration openDuration = Duration.ofSeconds(30);
+        // Exchange fanout por el que los nodos se avisan los cambios de estado
+        private String exchange = "corehub.x.breaker";
+    }
+
+    @Data
+    public static class Retry {
+        // Una entrega fallida se reintenta desde el broker; false: un único intento
+        private boolean enabled = true;
+        // Espera antes del primer reintento; cada reintento siguiente espera multiplier veces más
+        private Duration initialDelay = Duration.ofSeconds(1);
+        private double multiplier = 2.0;
+        // Variación aleatoria (±fracción) de cada espera, así los reintentos de un mismo corte no llegan juntos
+        private double jitter = 0.2;
+        // Pasado este tiempo desde el primer fallo la entrega se da por agotada
+        private Duration maxAge = Duration.ofHours(24);
+        // Una cola de espera por demora (TTL + dead-letter); la mayor es la espera máxima entre reintentos
+        private List<Duration> delays = List.of(Duration.ofSeconds(1), Duration.ofSeconds(5), Duration.ofSeconds(30),
+                Duration.ofMinutes(2), Duration.ofMinutes(10), Duration.ofHours(1));
+        // Exchange donde se publican los reintentos (direct, routing key = demora)
+        private String exchange = "corehub.x.retry";
+        // Exchange de dead-letter de las colas de espera y cola de la que se consumen los reintentos vencidos
+        private String dueExchange = "corehub.x.retry.due";
+        private String dueQueue = "corehub.retry.due";
+        private String queuePrefix = "corehub.retry.";
+        // Espera máxima del publisher confirm al encolar un reintento
+        private Duration publishTimeout = Duration.ofSeconds(5);
+
+        /**
+         * Routing key de la cola de espera de una demora (1s, 30s, 2m, 1h...)
+         */
+        public String routingKeyFor(Duration delay) {
+            long ms = delay.toMillis();
+            if (ms % 3_600_000 == 0) {
+                return ms / 3_600_000 + "h";
+            }
+            if (ms % 60_000 == 0) {
+                return ms / 60_000 + "m";
+            }
+            if (ms % 1_000 == 0) {
+                return ms / 1_000 + "s";
+            }
+            return ms + "ms";
+        }
+
+        /**
+         * Nombre de la cola de espera de una demora: cambiar una demora crea otra cola en vez de
+         * chocar con los argumentos (TTL) de la existente
+         */
+        public String queueFor(Duration delay) {
+            return queuePrefix + routingKeyFor(delay);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.uade.corehub.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Cache de validación de infraestructura por canal (corehub.infrastructure-validation.*)
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "corehub.infrastructure-validation")
+public class InfrastructureValidationProperties {
+
+    // Vigencia de un resultado positivo (exchange y cola existen)
+    private Duration ttl = Duration.ofSeconds(60);
+    // Vigencia de un resultado negativo: más corta, así una cola creada después se detecta pronto
+    private Duration negativeTtl = Duration.ofSeconds(5);
+    // Frecuencia del barrido que refresca en segundo plano las entradas vencidas o por vencer
+    private Duration refreshInterval = Duration.ofSeconds(5);
+}
@@ -0,0 +1,33 @@
+package com.uade.corehub.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Particionado por created_at de message_log y payload_store (corehub.partitioning.*)
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "corehub.partitioning")
+public class PartitioningProperties {
+
+    // Rango de cada partición (límites en UTC; WEEKLY arranca los lunes)
+    private Granularity granularity = Granularity.DAILY;
+    // Particiones creadas por adelantado a partir de la actual
+    private int premake = 7;
+    // Retención de los canales sin retention propio en channels.yaml
+    private Duration defaultRetention = Duration.ofDays(30);
+    // Cuánto tiempo se recuerdan los messageIds en message_dedupe (rechazo de reintentos)
+    private Duration dedupeWindow = Duration.ofDays(7);
+    private Duration maintenanceInterval = Duration.ofHours(1);
+    // Filas borradas por sentencia al podar (message_dedupe, payload_blobs y retención por canal)
+    private int dedupePurgeBatchSize = 10_000;
+
+    public enum Granularity {
+        DAILY,
+        WEEKLY
+    }
+}
@@ -0,0 +1,128 @@
+package com.uade.corehub.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configuración del pipeline de publicación (corehub.publish.*)
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "corehub.publish")
+public class PublishProperties {
+
+    // DIRECT: publica al broker dentro del request; OUTBOX: sólo persiste PENDING y publica el relay.
+    // En ambos el messageId se reserva en message_dedupe antes del envío: si dos nodos lo reciben a la vez se publica una vez
+    private Mode mode = Mode.DIRECT;
+    private Batch batch = new Batch();
+    private Outbox outbox = new Outbox();
+    private Confirms confirms = new Confirms();
+    private Idempotency idempotency = new Idempotency();
+    private Async async = new Async();
+    private Stream stream = new Stream();
+    private GroupCommit groupCommit = new GroupCommit();
+    private Returns returns = new Returns();
+
+    public boolean outboxMode() {
+        return mode == Mode.OUTBOX;
+    }
+
+    public enum Mode {
+        DIRECT,
+        OUTBOX
+    }
+
+    @Data
+    public static class Batch {
+        // Máximo de envelopes aceptados en un POST /publish/batch
+        private int maxSize = 1000;
+        // Filas por sentencia JDBC al insertar message_log / payload_store (message_log: a lo sumo 2520, tope de parámetros de Postgres)
+        private int jdbcBatchSize = 500;
+    }
+
+    @Data
+    public static class Stream {
+        // Envelopes por bloque en POST /publish/stream (acota el heap usado por request)
+        private int chunkSize = 500;
+    }
+
+    @Data
+    public static class GroupCommit {
+        // POST /publish agrupa las escrituras de requests concurrentes en una sola transacción
+        private boolean enabled = true;
+        // Espera máxima para juntar un grupo desde la primera escritura
+        private Duration window = Duration.ofMillis(5);
+        // Mensajes por grupo (cierra el grupo antes de que venza la ventana)
+        private int maxRows = 500;
+        // Hilos que vuelcan grupos (cada uno usa una conexión a la vez)
+        private int flushers = 2;
+        private int queueCapacity = 10_000;
+    }
+
+    @Data
+    public static class Returns {
+        // Returns (mandatory) pendientes de procesar; lleno -> se descartan y se cuentan
+        private int bufferSize = 10_000;
+        // Estaciona los mensajes no enrutables en holdingQueue y los re-envía periódicamente
+        private boolean parkEnabled = false;
+        private String holdingQueue = "corehub.q.unroutable";
+        private Duration redeliveryInterval = Duration.ofMinutes(1);
+    }
+
+    @Data
+    public static class Outbox {
+        // Hilos del relay por nodo (cada uno reclama lotes con FOR UPDATE SKIP LOCKED)
+        private int relayThreads = 2;
+        private int batchSize = 200;
+        // Espera entre sondeos cuando no hay filas PENDING
+        private Duration pollInterval = Duration.ofMillis(500);
+        // Intentos de envío antes de marcar la fila como FAILED
+        private int maxAttempts = 10;
+        // Cada cuánto se buscan filas PUBLISHING cuyo confirm no llegó en confirms.timeout (nodo caído), en ambos modos
+        private Duration recoveryInterval = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Confirms {
+        // Con confirms, message_log pasa a PUBLISHED recién cuando el broker hace ack
+        private boolean enabled = true;
+        // Mensajes sin confirmar permitidos antes de aplicar backpressure al publicador
+        private int maxInFlight = 10_000;
+        // Espera máxima de un confirm (y de un permiso cuando se alcanza maxInFlight)
+        private Duration timeout = Duration.ofSeconds(30);
+        // Modo directo: espera del confirm antes de escribir message_log; si vence, la fila se escribe
+        // PUBLISHING y el ack la actualiza después (si el nodo cae antes, PublishingRecovery la pasa a FAILED)
+        private Duration persistAfter = Duration.ofSeconds(1);
+    }
+
+    @Data
+    public static class Idempotency {
+        // Filtro en memoria delante de message_log (Bloom con ventana + cache de ids recientes)
+        private boolean enabled = true;
+        // Ids esperados dentro de la ventana (dimensiona el Bloom filter)
+        private long expectedInsertions = 2_000_000;
+        private double falsePositiveRate = 0.01;
+        // Ventana de deduplicación cubierta por el filtro
+        private Duration window = Duration.ofHours(24);
+        // Generaciones en que se divide la ventana (rotación = window / generations)
+        private int generations = 4;
+        // Capacidad del cache de ids recientes (duplicados seguros)
+        private int recentCacheSize = 100_000;
+    }
+
+    @Data
+    public static class Async {
+        // POST /publish responde 202 apenas encola; el estado se consulta en GET /publish/{messageId}
+        private boolean enabled = false;
+        // Capacidad del ring buffer; lleno -> 429 con Retry-After
+        private int bufferSize = 10_000;
+        // Virtual threads que drenan el buffer
+        private int workers = 64;
+        private Duration retryAfter = Duration.ofSeconds(1);
+        // Tiempo para drenar el buffer al apagar la aplicación; pasado el plazo se interrumpen los workers
+        private Duration shutdownTimeout = Duration.ofSeconds(10);
+    }
+}
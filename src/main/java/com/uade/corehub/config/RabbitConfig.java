@@ -1,6 +1,9 @@
 package com.uade.corehub.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uade.corehub.channels.ChannelRegistry;
+import com.uade.corehub.messaging.broker.CompressingMessageConverter;
+import com.uade.corehub.messaging.compression.PayloadCompressor;
 import com.uade.corehub.messaging.infrastructure.RabbitMQInfrastructureValidator;
 import com.uade.corehub.messaging.infrastructure.RabbitMQInfrastructureInitializer;
 import org.springframework.amqp.core.MessageDeliveryMode;
@@ -19,11 +22,13 @@ import org.springframework.amqp.rabbit.annotation.EnableRabbit;
 public class RabbitConfig {
 
 	@Bean
-	public MessageConverter jacksonMessageConverter(ObjectMapper mapper) {
+	public MessageConverter jacksonMessageConverter(ObjectMapper mapper, ChannelRegistry channelRegistry,
+													PayloadCompressor payloadCompressor, PublishProperties publishProperties) {
 		// Usa el ObjectMapper de Spring (respeta config global, módulos JavaTime, etc.)
 		Jackson2JsonMessageConverter conv = new Jackson2JsonMessageConverter(mapper);
 		conv.setCreateMessageIds(true);
-		return conv;
+		// Compresión por canal (compression en channels.yaml) indicada en contentEncoding; claim-check en modo outbox
+		return new CompressingMessageConverter(conv, channelRegistry, payloadCompressor, publishProperties);
 	}
 
 	@Bean
@@ -35,16 +40,7 @@ public class RabbitConfig {
 			m.getMessageProperties().setDeliveryMode(MessageDeliveryMode.PERSISTENT);
 			return m;
 		});
-		
-		// Callback para mensajes no enrutados
-		tpl.setReturnsCallback(returned -> {
-			System.err.println("Message not routed: " + returned.getMessage());
-			System.err.println("Reply code: " + returned.getReplyCode());
-			System.err.println("Reply text: " + returned.getReplyText());
-			System.err.println("Exchange: " + returned.getExchange());
-			System.err.println("Routing key: " + returned.getRoutingKey());
-		});
-		
+		// Los mensajes no enrutados (mandatory) los procesa ReturnedMessageHandler
 		return tpl;
 	}
 
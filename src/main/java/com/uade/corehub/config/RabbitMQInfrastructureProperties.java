@@ -30,6 +30,8 @@ public class RabbitMQInfrastructureProperties {
         private boolean durable;
         private boolean autoDelete;
         private String description;
+        // Cola a la que el broker pasa los mensajes rechazados sin requeue (vacío: sin DLQ)
+        private String deadLetterQueue;
     }
 
     @Data
@@ -0,0 +1,32 @@
+package com.uade.corehub.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Re-envío de mensajes almacenados en message_log/payload_store (corehub.replay.*)
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "corehub.replay")
+public class ReplayProperties {
+
+    // Jobs de replay ejecutándose a la vez por nodo
+    private int workers = 2;
+    // Filas leídas por página (cursor keyset sobre created_at, id)
+    private int pageSize = 500;
+    // Mensajes por segundo cuando el request no indica ratePerSecond, y tope permitido
+    private int defaultRate = 200;
+    private int maxRate = 5_000;
+    // Máximo de messageIds explícitos por job
+    private int maxMessageIds = 10_000;
+    // Máximo de mensajes que mueve un pedido de redrive de una DLQ a su cola
+    private int maxQueueRedrive = 1_000;
+    // Un job sin renovar su lease durante este tiempo lo retoma otro nodo desde el último checkpoint
+    private Duration lease = Duration.ofSeconds(60);
+    // Frecuencia con que cada nodo busca jobs RUNNING sin dueño
+    private Duration pollInterval = Duration.ofSeconds(5);
+}
@@ -0,0 +1,23 @@
+package com.uade.corehub.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Validación de payloads contra el JSON Schema de cada canal (corehub.schemas.*)
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "corehub.schemas")
+public class SchemaProperties {
+
+    // Validadores compilados en memoria (LRU por canal y versión)
+    private int cacheSize = 256;
+    // Cuánto se recuerda que una versión referenciada no está registrada antes de volver a consultarla
+    private Duration missingTtl = Duration.ofSeconds(30);
+    // Errores de validación incluidos en la respuesta
+    private int maxErrors = 10;
+}
@@ -1,25 +0,0 @@
-package com.uade.corehub.config;
-
-import org.springframework.boot.web.client.RestTemplateBuilder;
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
-import org.springframework.web.client.RestTemplate;
-
-
-@Configuration
-public class WebClientConfig {
-
-    @Bean
-    public RestTemplate webhookRestTemplate(RestTemplateBuilder builder) {
-        return builder
-                .requestFactory(() -> {
-                    var factory = new org.springframework.http.client.SimpleClientHttpRequestFactory();
-                    factory.setConnectTimeout(5_000);
-                    factory.setReadTimeout(10_000);
-                    return factory;
-                })
-                .build();
-    }
-}
-
-
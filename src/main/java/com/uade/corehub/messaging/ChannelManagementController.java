@@ -60,7 +60,7 @@ public class ChannelManagementController {
         }
 
         try {
-            boolean success = infrastructureValidator.validateInfrastructureForChannel(channelName);
+            boolean success = infrastructureValidator.revalidate(channelName);
             
             Map<String, Object> result = Map.of(
                 "channelName", channelName,
@@ -0,0 +1,119 @@
+package com.uade.corehub.messaging;
+
+import com.uade.corehub.config.ReplayProperties;
+import com.uade.corehub.messaging.dto.ParkedDeliveryResponse;
+import com.uade.corehub.messaging.dto.RedriveRequest;
+import com.uade.corehub.messaging.dto.ReplayJobResponse;
+import com.uade.corehub.messaging.infrastructure.DeadLetterQueueService;
+import com.uade.corehub.messaging.replay.ReplayService;
+import com.uade.corehub.messaging.store.ParkingLotStore;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DLQs de los canales y parking lot de entregas a webhooks: consulta, descarte y redrive.
+ * El redrive del parking lot es un job de replay (se pausa, reanuda y cancela desde /replays).
+ */
+@Slf4j
+@RestController
+@RequestMapping("/dead-letters")
+@RequiredArgsConstructor
+@Tag(name = "Dead letters", description = "Mensajes y entregas que no se pudieron procesar")
+public class DeadLetterController {
+
+	private final DeadLetterQueueService deadLetterQueueService;
+	private final ParkingLotStore parkingLotStore;
+	private final ReplayService replayService;
+	private final ReplayProperties replayProperties;
+
+	@Operation(summary = "Listar DLQs", description = "Cada cola de canal con su DLQ y los mensajes que tiene")
+	@GetMapping("/queues")
+	public List<DeadLetterQueueService.DeadLetterQueueStatus> queues() {
+		return deadLetterQueueService.list();
+	}
+
+	@Operation(summary = "Devolver mensajes de una DLQ a su cola",
+			description = "Mueve hasta limit mensajes (tope corehub.replay.max-queue-redrive) al ritmo indicado, esperando el confirm del broker por cada uno; responde al terminar")
+	@PostMapping("/queues/{queue}/redrive")
+	public ResponseEntity<Map<String, Object>> redriveQueue(@PathVariable String queue,
+															@RequestParam(defaultValue = "100") int limit,
+															@RequestParam(defaultValue = "100") int ratePerSecond) {
+		if (limit <= 0 || ratePerSecond <= 0) {
+			return ResponseEntity.badRequest().build();
+		}
+		try {
+			int moved = deadLetterQueueService.redrive(queue, Math.min(limit, replayProperties.getMaxQueueRedrive()),
+					Math.min(ratePerSecond, replayProperties.getMaxRate()));
+			return ResponseEntity.ok(Map.of("queue", queue, "redriven", moved));
+		} catch (IllegalArgumentException e) {
+			log.warn("DLQ redrive rejected - Queue: '{}', Error: {}", queue, e.getMessage());
+			return ResponseEntity.badRequest().build();
+		}
+	}
+
+	@Operation(summary = "Listar entregas estacionadas", description = "Por id ascendente; paginar con afterId")
+	@GetMapping("/parked")
+	public List<ParkedDeliveryResponse> parked(@RequestParam(required = false) String channel,
+											   @RequestParam(required = false) String subscriptionId,
+											   @RequestParam(defaultValue = ParkingLotStore.PARKED) String status,
+											   @RequestParam(defaultValue = "0") long afterId,
+											   @RequestParam(defaultValue = "100") int limit) {
+		return parkingLotStore.list(status, channel, subscriptionId, afterId, Math.max(1, Math.min(limit, 500))).stream()
+				.map(ParkedDeliveryResponse::fromParked)
+				.toList();
+	}
+
+	@Operation(summary = "Entregas estacionadas por canal y suscripción")
+	@GetMapping("/parked/summary")
+	public List<ParkingLotStore.ParkedGroup> summary() {
+		return parkingLotStore.summary();
+	}
+
+	@Operation(summary = "Entrega estacionada con su envelope")
+	@GetMapping("/parked/{id}")
+	public ResponseEntity<ParkedDeliveryResponse> get(@PathVariable long id) {
+		return parkingLotStore.find(id)
+				.map(ParkedDeliveryResponse::fromParked)
+				.map(ResponseEntity::ok)
+				.orElseGet(() -> ResponseEntity.notFound().build());
+	}
+
+	@Operation(summary = "Descartar una entrega estacionada", description = "Queda DISCARDED y no se re-envía")
+	@DeleteMapping("/parked/{id}")
+	public ResponseEntity<Void> discard(@PathVariable long id) {
+		if (parkingLotStore.discard(id)) {
+			return ResponseEntity.noContent().build();
+		}
+		return parkingLotStore.find(id).isPresent()
+				? ResponseEntity.status(HttpStatus.CONFLICT).build()
+				: ResponseEntity.notFound().build();
+	}
+
+	@Operation(summary = "Re-enviar entregas estacionadas",
+			description = "Crea un job de redrive hacia la suscripción original de cada entrega o hacia targetUrl")
+	@PostMapping("/parked/redrive")
+	public ResponseEntity<ReplayJobResponse> redrive(@Valid @RequestBody RedriveRequest request) {
+		try {
+			var job = replayService.createRedrive(request);
+			URI location = ServletUriComponentsBuilder.fromCurrentContextPath()
+					.path("/replays/{jobId}")
+					.buildAndExpand(job.getId())
+					.toUri();
+			return ResponseEntity.accepted().location(location).body(ReplayJobResponse.fromJob(job));
+		} catch (IllegalArgumentException e) {
+			log.warn("Redrive request rejected - Channel: '{}', Error: {}", request.channel(), e.getMessage());
+			return ResponseEntity.badRequest().build();
+		}
+	}
+}
@@ -0,0 +1,38 @@
+package com.uade.corehub.messaging;
+
+import com.uade.corehub.messaging.dto.MessageEnvelope;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Validación Bean Validation de envelopes recibidos en lote o en streaming,
+ * donde un envelope inválido no debe rechazar el request completo
+ */
+@Component
+@RequiredArgsConstructor
+public class EnvelopeValidator {
+
+	private final Validator validator;
+
+	/**
+	 * @return descripción de las violaciones, o null si el envelope es válido
+	 */
+	public String validate(MessageEnvelope envelope) {
+		if (envelope == null) {
+			return "Envelope is null";
+		}
+		Set<ConstraintViolation<MessageEnvelope>> violations = validator.validate(envelope);
+		if (violations.isEmpty()) {
+			return null;
+		}
+		return violations.stream()
+				.map(v -> v.getPropertyPath() + " " + v.getMessage())
+				.sorted()
+				.collect(Collectors.joining("; "));
+	}
+}
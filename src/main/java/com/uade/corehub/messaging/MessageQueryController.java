@@ -0,0 +1,105 @@
+package com.uade.corehub.messaging;
+
+import com.uade.corehub.messaging.dto.MessagePageResponse;
+import com.uade.corehub.messaging.dto.MessageStatusBatchResponse;
+import com.uade.corehub.messaging.dto.MessageStatusResponse;
+import com.uade.corehub.messaging.store.MessageLog;
+import com.uade.corehub.messaging.store.MessageLogQueryStore;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Consulta de message_log para operación: listado paginado con filtros y estados en lote
+ */
+@Slf4j
+@RestController
+@RequestMapping("/messages")
+@RequiredArgsConstructor
+@Tag(name = "Mensajes", description = "Consulta del historial de mensajes publicados")
+public class MessageQueryController {
+
+	private static final int DEFAULT_LIMIT = 100;
+	private static final int MAX_LIMIT = 1000;
+	private static final int MAX_STATUS_IDS = 1000;
+
+	private final MessageLogQueryStore queryStore;
+
+	@Operation(summary = "Listar mensajes",
+			description = "Más nuevos primero, paginado por cursor: pasar nextCursor de la respuesta para la página siguiente")
+	@GetMapping
+	public ResponseEntity<MessagePageResponse> list(
+			@RequestParam(required = false) String channel,
+			@RequestParam(required = false) String status,
+			@RequestParam(required = false) String correlationId,
+			@Parameter(description = "created_at desde (inclusive)")
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+			@Parameter(description = "created_at hasta (exclusivo)")
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+			@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = "" + DEFAULT_LIMIT) int limit) {
+		if (limit < 1 || limit > MAX_LIMIT) {
+			return ResponseEntity.badRequest().build();
+		}
+		OffsetDateTime afterCreatedAt = null;
+		Long afterId = null;
+		if (cursor != null && !cursor.isBlank()) {
+			try {
+				String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 2);
+				afterCreatedAt = OffsetDateTime.parse(parts[0]);
+				afterId = Long.parseLong(parts[1]);
+			} catch (RuntimeException e) {
+				log.warn("Invalid message cursor '{}': {}", cursor, e.getMessage());
+				return ResponseEntity.badRequest().build();
+			}
+		}
+
+		var filter = new MessageLogQueryStore.Filter(blankToNull(channel), blankToNull(status), blankToNull(correlationId),
+				from, to, afterCreatedAt, afterId);
+		// Se pide una fila de más para saber si hay página siguiente
+		List<MessageLog> rows = queryStore.find(filter, limit + 1);
+		String nextCursor = null;
+		if (rows.size() > limit) {
+			rows = rows.subList(0, limit);
+			MessageLog last = rows.get(limit - 1);
+			nextCursor = Base64.getUrlEncoder().withoutPadding()
+					.encodeToString((last.getCreatedAt() + "|" + last.getId()).getBytes(StandardCharsets.UTF_8));
+		}
+		return ResponseEntity.ok(new MessagePageResponse(
+				rows.stream().map(MessageStatusResponse::fromMessageLog).toList(), nextCursor));
+	}
+
+	@Operation(summary = "Estados de varios mensajes",
+			description = "Recibe una lista de messageIds y devuelve sus estados en una sola consulta")
+	@PostMapping("/status")
+	public ResponseEntity<MessageStatusBatchResponse> statuses(@RequestBody List<String> messageIds) {
+		if (messageIds == null || messageIds.isEmpty()) {
+			return ResponseEntity.badRequest().build();
+		}
+		if (messageIds.size() > MAX_STATUS_IDS) {
+			return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+		}
+		Set<String> requested = new LinkedHashSet<>(messageIds);
+		List<MessageLog> rows = queryStore.findByMessageIds(requested);
+		rows.forEach(row -> requested.remove(row.getMessageId()));
+		return ResponseEntity.ok(new MessageStatusBatchResponse(
+				rows.stream().map(MessageStatusResponse::fromMessageLog).toList(), List.copyOf(requested)));
+	}
+
+	private static String blankToNull(String value) {
+		return value == null || value.isBlank() ? null : value;
+	}
+}
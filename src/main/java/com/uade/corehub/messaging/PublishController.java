@@ -1,10 +1,24 @@
 package com.uade.corehub.messaging;
 
+import com.uade.corehub.channels.ChannelRegistryProperties;
+import com.uade.corehub.config.PublishProperties;
+import com.uade.corehub.messaging.async.AsyncPublishQueue;
+import com.uade.corehub.messaging.dto.BatchPublishResponse;
 import com.uade.corehub.messaging.dto.MessageEnvelope;
+import com.uade.corehub.messaging.dto.MessageStatusResponse;
+import com.uade.corehub.messaging.schema.PayloadSchemaException;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Slf4j
 @RestController
@@ -12,9 +26,13 @@ import org.springframework.web.bind.annotation.*;
 public class PublishController {
 
 	private final PublishService service;
+	private final PublishProperties publishProperties;
+	private final AsyncPublishQueue asyncQueue;
 
-	public PublishController(PublishService service) {
+	public PublishController(PublishService service, PublishProperties publishProperties, AsyncPublishQueue asyncQueue) {
 		this.service = service;
+		this.publishProperties = publishProperties;
+		this.asyncQueue = asyncQueue;
 	}
 
 	@PostMapping
@@ -23,10 +41,17 @@ public class PublishController {
 		log.info("Received publish request - MessageId: '{}', Channel: '{}', CorrelationId: '{}'", 
 				envelope.messageId(), envelope.destination().channel(), correlationId);
 		
+		if (asyncQueue.isEnabled()) {
+			return publishAsync(envelope, correlationId);
+		}
+
 		try {
 			service.publish(envelope, correlationId);
 			log.info("Publish request completed - MessageId: '{}'", envelope.messageId());
 			return ResponseEntity.accepted().build();
+		} catch (PayloadSchemaException e) {
+			log.warn("Publish request rejected - MessageId: '{}', Error: {}", envelope.messageId(), e.getMessage());
+			return ResponseEntity.unprocessableEntity().body(Map.of("messageId", envelope.messageId(), "error", e.getMessage()));
 		} catch (IllegalArgumentException e) {
 			log.warn("Publish request failed - MessageId: '{}', Error: {}", envelope.messageId(), e.getMessage());
 			return ResponseEntity.notFound().build();
@@ -35,4 +60,73 @@ public class PublishController {
 			return ResponseEntity.internalServerError().build();
 		}
 	}
+
+	/**
+	 * Estado de un mensaje según message_log (o QUEUED si fue aceptado en modo async y aún no se procesó)
+	 */
+	@GetMapping("/{messageId}")
+	public ResponseEntity<MessageStatusResponse> getStatus(@PathVariable String messageId) {
+		return service.findMessage(messageId)
+				.map(MessageStatusResponse::fromMessageLog)
+				.or(() -> asyncQueue.isQueued(messageId)
+						? Optional.of(MessageStatusResponse.queued(messageId))
+						: Optional.<MessageStatusResponse>empty())
+				.map(ResponseEntity::ok)
+				.orElseGet(() -> ResponseEntity.notFound().build());
+	}
+
+	/**
+	 * Publica un lote de envelopes. Los envelopes inválidos se reportan como INVALID
+	 * sin afectar al resto; la respuesta trae un estado por mensaje en el orden recibido.
+	 */
+	@PostMapping("/batch")
+	public ResponseEntity<BatchPublishResponse> publishBatch(@RequestBody List<MessageEnvelope> envelopes,
+																			@RequestHeader(value = "X-Correlation-Id", required = false) String correlationId) {
+		if (envelopes == null || envelopes.isEmpty()) {
+			return ResponseEntity.badRequest().build();
+		}
+		if (envelopes.size() > publishProperties.getBatch().getMaxSize()) {
+			log.warn("Batch publish rejected - Size: {}, Max: {}", envelopes.size(), publishProperties.getBatch().getMaxSize());
+			return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+		}
+		log.info("Received batch publish request - Size: {}, CorrelationId: '{}'", envelopes.size(), correlationId);
+
+		try {
+			return ResponseEntity.accepted().body(BatchPublishResponse.of(service.publishBatch(envelopes, correlationId)));
+		} catch (Exception e) {
+			log.error("Batch publish request failed - Size: {}, Error: {}", envelopes.size(), e.getMessage(), e);
+			return ResponseEntity.internalServerError().build();
+		}
+	}
+
+	/**
+	 * Modo async: valida el canal, encola y responde 202 con Location al recurso de estado.
+	 * Con el buffer lleno responde 429 + Retry-After.
+	 */
+	private ResponseEntity<?> publishAsync(MessageEnvelope envelope, String correlationId) {
+		ChannelRegistryProperties.Channel channel;
+		try {
+			channel = service.resolveChannel(envelope);
+		} catch (PayloadSchemaException e) {
+			log.warn("Publish request rejected - MessageId: '{}', Error: {}", envelope.messageId(), e.getMessage());
+			return ResponseEntity.unprocessableEntity().body(Map.of("messageId", envelope.messageId(), "error", e.getMessage()));
+		} catch (IllegalArgumentException e) {
+			log.warn("Publish request failed - MessageId: '{}', Error: {}", envelope.messageId(), e.getMessage());
+			return ResponseEntity.notFound().build();
+		}
+
+		URI location = ServletUriComponentsBuilder.fromCurrentRequestUri()
+				.path("/{messageId}")
+				.buildAndExpand(envelope.messageId())
+				.toUri();
+		if (!asyncQueue.offer(envelope, channel, correlationId)) {
+			long retryAfter = Math.max(1, publishProperties.getAsync().getRetryAfter().toSeconds());
+			log.warn("Publish buffer full, rejecting - MessageId: '{}'", envelope.messageId());
+			return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+					.header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+					.build();
+		}
+		log.info("Publish request accepted asynchronously - MessageId: '{}'", envelope.messageId());
+		return ResponseEntity.accepted().location(location).build();
+	}
 }
@@ -2,17 +2,44 @@ package com.uade.corehub.messaging;
 
 import com.uade.corehub.channels.ChannelRegistry;
 import com.uade.corehub.channels.ChannelRegistryProperties;
+import com.uade.corehub.config.PublishProperties;
+import com.uade.corehub.messaging.broker.OutboundMessage;
+import com.uade.corehub.messaging.broker.PublisherConfirmTracker;
 import com.uade.corehub.messaging.broker.RabbitPublisher;
+import com.uade.corehub.messaging.compression.PayloadCodec;
+import com.uade.corehub.messaging.compression.PayloadCompressor;
+import com.uade.corehub.messaging.dto.BatchPublishResult;
 import com.uade.corehub.messaging.dto.MessageEnvelope;
+import com.uade.corehub.messaging.dto.RawPayload;
+import com.uade.corehub.messaging.idempotency.IdempotencyFilter;
+import com.uade.corehub.messaging.idempotency.SingleFlight;
 import com.uade.corehub.messaging.infrastructure.RabbitMQInfrastructureValidator;
+import com.uade.corehub.messaging.schema.PayloadSchemaException;
+import com.uade.corehub.messaging.schema.PayloadSchemaValidator;
 import com.uade.corehub.messaging.store.*;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Slf4j
 @Service
@@ -21,13 +48,52 @@ public class PublishService {
 
 	private final ChannelRegistry channelRegistry;
 	private final RabbitPublisher rabbitPublisher;
-	private final MessageLogRepository messageLogRepo;
-	private final PayloadStoreRepository payloadRepo;
 	private final RabbitMQInfrastructureValidator infrastructureValidator;
+	private final MessageLogRepository messageLogRepo;
+	private final MessageBatchWriter batchWriter;
+	private final GroupCommitWriter groupCommitWriter;
+	private final PublishProperties publishProperties;
+	private final IdempotencyFilter idempotencyFilter;
+	private final TransactionTemplate transactionTemplate;
+	private final EnvelopeValidator envelopeValidator;
+	private final PayloadCompressor payloadCompressor;
+	private final PayloadSchemaValidator schemaValidator;
+	private final PayloadCanonicalizer payloadCanonicalizer;
+	private final SingleFlight<String, Boolean> singleFlight = new SingleFlight<>();
 
-	@Transactional
+	/**
+	 * Publica un envelope. Requests concurrentes con el mismo messageId se agrupan en proceso
+	 * (single-flight): sólo uno ejecuta y el resto recibe su resultado sin tocar la base.
+	 * La persistencia inicial va por GroupCommitWriter, compartiendo transacción con otros requests.
+	 * <p>
+	 * Deduplicación entre nodos: el messageId queda en message_dedupe antes de llegar al broker, así que
+	 * un id recibido a la vez por dos nodos se publica una sola vez. En modo outbox la reserva es el
+	 * INSERT de la fila PENDING; en modo directo es un INSERT en message_dedupe previo al envío, y
+	 * message_log se escribe una sola vez después, con el resultado del broker. Si el nodo cae entre la
+	 * reserva y esa escritura, el id queda registrado sin fila en message_log hasta que vence dedupe-window.
+	 */
 	public void publish(MessageEnvelope env, String correlationId) {
+		publish(env, null, correlationId);
+	}
+
+	/**
+	 * Publica un envelope cuyo canal ya se resolvió y validó con {@link #resolveChannel} (modo async):
+	 * no se vuelve a validar el schema ni la infraestructura
+	 */
+	public void publish(MessageEnvelope env, ChannelRegistryProperties.Channel ch, String correlationId) {
+		var result = singleFlight.execute(env.messageId(), () -> doPublish(env, ch, correlationId));
+		if (result.shared()) {
+			log.info("Publish coalesced with in-flight request - MessageId: '{}'", env.messageId());
+		}
+	}
 
+	/**
+	 * Valida el canal, su infraestructura y el payload contra el schema del canal sin persistir nada
+	 * (usado antes de aceptar en modo async)
+	 * @throws IllegalArgumentException si el canal o su infraestructura no existen
+	 * @throws PayloadSchemaException si el payload no cumple el schema del canal
+	 */
+	public ChannelRegistryProperties.Channel resolveChannel(MessageEnvelope env) {
 		// 1) Canal válido (NO crear dinámicamente)
 		var ch = channelRegistry.find(env.destination().channel())
 				.orElseThrow(() -> new IllegalArgumentException("Channel not found: " + env.destination().channel()));
@@ -38,60 +104,409 @@ public class PublishService {
 					". Please ensure the exchange, queue and binding exist in RabbitMQ.");
 		}
 
-		// 3) Idempotencia
-		var existing = messageLogRepo.findByMessageId(env.messageId());
-		if (existing.isPresent()) {
-			return;
-		}
+		// 3) Payload conforme al JSON Schema del canal, antes de persistir o publicar
+		schemaValidator.validate(ch, env.payload());
+		return ch;
+	}
+
+	public Optional<MessageLog> findMessage(String messageId) {
+		return messageLogRepo.findByMessageId(messageId);
+	}
 
-		// 4) Persistencia inicial
+	/**
+	 * @return true si el mensaje se insertó, false si era un duplicado
+	 */
+	private Boolean doPublish(MessageEnvelope env, ChannelRegistryProperties.Channel resolved, String correlationId) {
+
+		// 1-2) Canal válido, infraestructura existente y payload conforme al schema (salvo que ya venga resuelto)
+		var ch = resolved != null ? resolved : resolveChannel(env);
+
+		// 3) Idempotencia antes de tocar el broker: cache de recientes, Bloom y message_dedupe
+		//    (en modo directo, la reserva del id; en modo outbox, una consulta si el filtro no decide)
 		var now = OffsetDateTime.now();
-		var messageLog = MessageLog.builder()
-						.messageId(env.messageId())
-						.channel(ch.getName())
-						.routingKey(ch.getRoutingKey())
-						.status("PUBLISHING")
-						.attempts(0)
-						.correlationId(correlationId)
-						.producedAt(env.timestamp())
-						.createdAt(now)
-						.build();
-		messageLog = messageLogRepo.save(messageLog);
-
-		@SuppressWarnings("unchecked")
-		Map<String, Object> payload = (env.payload() instanceof java.util.Map<?,?> m) ? 
-			(java.util.Map<String, Object>) m : 
-			java.util.Map.of("value", env.payload());
-
-		payloadRepo.save(PayloadStore.builder()
-						.messageId(env.messageId())
-						.payload(payload)
-						.schemaVer(null)
-						.createdAt(now)
-						.build());
-
-		// 5) Publicar usando el routing key específico del canal
+		boolean duplicate = publishProperties.outboxMode() ? isKnown(env.messageId()) : !reserve(env.messageId(), now);
+		if (duplicate) {
+			log.info("Duplicate message ignored - MessageId: '{}'", env.messageId());
+			return false;
+		}
+
+		var row = newMessageLog(env, ch, correlationId, now);
+		var payload = newPayload(env, ch, now);
+
+		// 4) Modo outbox: la fila PENDING se persiste (group commit) y el OutboxRelay la publica
+		if (publishProperties.outboxMode()) {
+			if (!persist(row, payload)) {
+				log.info("Duplicate message ignored - MessageId: '{}'", env.messageId());
+				return false;
+			}
+			log.info("Message stored in outbox - MessageId: '{}'", env.messageId());
+			return true;
+		}
+
+		// 5) Modo directo: id reservado, primero el broker; message_log se escribe una sola vez, con el resultado
+		log.info("Publishing message - Exchange: '{}', RoutingKey: '{}', MessageId: '{}'",
+				ch.getExchange(), ch.getRoutingKey(), env.messageId());
+		CompletableFuture<PublisherConfirmTracker.Confirmation> confirmation;
 		try {
-			log.info("Publishing message - Exchange: '{}', RoutingKey: '{}', MessageId: '{}'", 
-					ch.getExchange(), ch.getRoutingKey(), env.messageId());
-			
-			// Publicar el envelope completo (como estaba originalmente)
-			rabbitPublisher.publish(ch.getExchange(), ch.getRoutingKey(), env);
-			
-			messageLog.setStatus("PUBLISHED");
-			messageLog.setAttempts(messageLog.getAttempts() + 1);
-			messageLog.setPublishedAt(OffsetDateTime.now());
-			messageLogRepo.save(messageLog);
-			
-			log.info("Message published successfully - MessageId: '{}'", env.messageId());
+			confirmation = rabbitPublisher.publishDeferred(env.messageId(), ch.getExchange(), ch.getRoutingKey(), env);
 		} catch (Exception ex) {
 			log.error("Failed to publish message - MessageId: '{}', Error: {}", env.messageId(), ex.getMessage(), ex);
-			messageLog.setStatus("FAILED");
-			messageLog.setAttempts(messageLog.getAttempts() + 1);
-			messageLog.setErrorMessage(ex.getMessage());
-			messageLogRepo.save(messageLog);
+			applyConfirmation(row, new PublisherConfirmTracker.Confirmation(PublisherConfirmTracker.Outcome.NACKED, ex.getMessage()));
+			persistReserved(row, payload);
 			throw ex;
 		}
+
+		// 6) Sin confirm dentro de persistAfter la fila queda PUBLISHING y el ack la actualiza después
+		var result = awaitConfirmation(confirmation, System.nanoTime() + persistAfterNanos());
+		if (result != null) {
+			applyConfirmation(row, result);
+		}
+		try {
+			persistReserved(row, payload);
+		} catch (RuntimeException e) {
+			rabbitPublisher.settleDeferred(env.messageId());
+			throw e;
+		}
+		if (result == null) {
+			rabbitPublisher.handOffDeferred(env.messageId());
+			log.info("Message sent, awaiting broker confirm - MessageId: '{}'", env.messageId());
+			return true;
+		}
+		rabbitPublisher.settleDeferred(env.messageId());
+
+		switch (result.outcome()) {
+			case ACKED -> log.info("Message published successfully - MessageId: '{}'", env.messageId());
+			case UNROUTABLE -> log.warn("Message unroutable - MessageId: '{}', Reason: {}", env.messageId(), result.error());
+			default -> throw new AmqpException("Broker did not confirm message '" + env.messageId() + "': " + result.error());
+		}
+		return true;
+	}
+
+	/**
+	 * Publica un lote de envelopes con pocos round trips: envío en pipeline al broker e
+	 * INSERTs multi-fila en message_log/payload_store con el estado final de cada mensaje
+	 * (la idempotencia sale del RETURNING, ver MessageBatchWriter).
+	 * @return un resultado por envelope (INVALID si no pasa Bean Validation), en el mismo orden recibido
+	 */
+	public List<BatchPublishResult> publishBatch(List<MessageEnvelope> envelopes, String correlationId) {
+		// Los envelopes inválidos se reportan como INVALID sin afectar al resto del lote
+		List<BatchPublishResult> results = new ArrayList<>(envelopes.size());
+		List<MessageEnvelope> valid = new ArrayList<>(envelopes.size());
+		for (MessageEnvelope envelope : envelopes) {
+			String error = envelopeValidator.validate(envelope);
+			results.add(error == null ? null : BatchPublishResult.invalid(envelope == null ? null : envelope.messageId(), error));
+			if (error == null) {
+				valid.add(envelope);
+			}
+		}
+		if (!valid.isEmpty()) {
+			Iterator<BatchPublishResult> published = publishValidBatch(valid, correlationId).iterator();
+			results.replaceAll(r -> r == null ? published.next() : r);
+		}
+		return results;
+	}
+
+	private List<BatchPublishResult> publishValidBatch(List<MessageEnvelope> envelopes, String correlationId) {
+		BatchPublishResult[] results = new BatchPublishResult[envelopes.size()];
+		Map<String, Boolean> infrastructureByChannel = new HashMap<>();
+		Map<String, Integer> candidates = new LinkedHashMap<>();
+
+		// 1) Canal e infraestructura (validados una vez por canal), schema + duplicados dentro del lote
+		for (int i = 0; i < envelopes.size(); i++) {
+			var env = envelopes.get(i);
+			String channelName = env.destination().channel();
+			var ch = channelRegistry.find(channelName);
+			if (ch.isEmpty()) {
+				results[i] = BatchPublishResult.rejected(env.messageId(), "Channel not found: " + channelName);
+			} else if (!infrastructureByChannel.computeIfAbsent(channelName, infrastructureValidator::validateInfrastructureForChannel)) {
+				results[i] = BatchPublishResult.rejected(env.messageId(), "Infrastructure not found for channel: " + channelName);
+			} else if (candidates.containsKey(env.messageId())) {
+				results[i] = BatchPublishResult.duplicate(env.messageId());
+			} else {
+				try {
+					schemaValidator.validate(ch.get(), env.payload());
+					candidates.put(env.messageId(), i);
+				} catch (PayloadSchemaException e) {
+					results[i] = BatchPublishResult.invalid(env.messageId(), e.getMessage());
+				}
+			}
+		}
+
+		// 2) Duplicados ya registrados: se descartan antes de publicar (una sola sentencia). En modo outbox
+		//    se consultan sólo los dudosos; en modo directo se reservan todos y sólo se envían los reservados
+		List<String> unknown = new ArrayList<>();
+		candidates.entrySet().removeIf(e -> switch (idempotencyFilter.check(e.getKey())) {
+			case DUPLICATE -> {
+				results[e.getValue()] = BatchPublishResult.duplicate(e.getKey());
+				yield true;
+			}
+			case UNKNOWN -> {
+				unknown.add(e.getKey());
+				yield false;
+			}
+			case NEW -> false;
+		});
+		var now = OffsetDateTime.now();
+		Set<String> known = publishProperties.outboxMode()
+				? lookupKnown(unknown)
+				: reserveAll(candidates.keySet(), now);
+		candidates.entrySet().removeIf(e -> {
+			if (known.contains(e.getKey())) {
+				results[e.getValue()] = BatchPublishResult.duplicate(e.getKey());
+				return true;
+			}
+			return false;
+		});
+		if (candidates.isEmpty()) {
+			return List.of(results);
+		}
+
+		Map<String, MessageLog> logs = new LinkedHashMap<>(candidates.size() * 2);
+		List<PayloadStore> payloads = new ArrayList<>(candidates.size());
+		List<OutboundMessage> outbound = new ArrayList<>(candidates.size());
+		for (int index : candidates.values()) {
+			var env = envelopes.get(index);
+			var ch = channelRegistry.find(env.destination().channel()).orElseThrow();
+			logs.put(env.messageId(), newMessageLog(env, ch, correlationId, now));
+			payloads.add(newPayload(env, ch, now));
+			outbound.add(new OutboundMessage(env.messageId(), ch.getExchange(), ch.getRoutingKey(), env));
+		}
+
+		if (publishProperties.outboxMode()) {
+			Set<String> inserted = insertRows(logs.values(), payloads, false);
+			candidates.forEach((messageId, index) -> results[index] = inserted.contains(messageId)
+					? BatchPublishResult.accepted(messageId)
+					: BatchPublishResult.duplicate(messageId));
+			log.info("Batch stored in outbox - Accepted: {}, Total: {}", inserted.size(), envelopes.size());
+			return List.of(results);
+		}
+
+		// 3) Envío en pipeline; cada fila toma el resultado del broker (PUBLISHING si el confirm no llegó a tiempo)
+		Map<String, CompletableFuture<PublisherConfirmTracker.Confirmation>> confirmations = new HashMap<>(candidates.size() * 2);
+		Map<String, Exception> failures = rabbitPublisher.publishAllDeferred(outbound, confirmations);
+		long deadline = System.nanoTime() + persistAfterNanos();
+		logs.forEach((messageId, row) -> {
+			Exception error = failures.get(messageId);
+			var result = error != null
+					? new PublisherConfirmTracker.Confirmation(PublisherConfirmTracker.Outcome.NACKED, error.getMessage())
+					: awaitConfirmation(confirmations.get(messageId), deadline);
+			if (result != null) {
+				applyConfirmation(row, result);
+			}
+		});
+
+		// 4) Una sola escritura por mensaje
+		Set<String> inserted;
+		try {
+			inserted = insertRows(logs.values(), payloads, true);
+		} catch (RuntimeException e) {
+			confirmations.keySet().forEach(rabbitPublisher::settleDeferred);
+			throw e;
+		}
+		int published = 0;
+		for (var entry : candidates.entrySet()) {
+			String messageId = entry.getKey();
+			MessageLog row = logs.get(messageId);
+			boolean awaiting = "PUBLISHING".equals(row.getStatus());
+			if (awaiting && inserted.contains(messageId)) {
+				rabbitPublisher.handOffDeferred(messageId);
+			} else {
+				rabbitPublisher.settleDeferred(messageId);
+			}
+			if (!inserted.contains(messageId)) {
+				results[entry.getValue()] = BatchPublishResult.duplicate(messageId);
+				continue;
+			}
+			results[entry.getValue()] = switch (row.getStatus()) {
+				case "PUBLISHED" -> BatchPublishResult.published(messageId);
+				case "PUBLISHING" -> BatchPublishResult.publishing(messageId);
+				case "UNROUTABLE" -> BatchPublishResult.unroutable(messageId, row.getErrorMessage());
+				default -> BatchPublishResult.failed(messageId, row.getErrorMessage());
+			};
+			if (!"FAILED".equals(row.getStatus())) {
+				published++;
+			}
+		}
+		log.info("Batch published - Sent: {}, Failed: {}, Total: {}", published, inserted.size() - published, envelopes.size());
+		return List.of(results);
+	}
+
+	/**
+	 * @return true si el id ya está registrado (cache de recientes o, para los dudosos, message_dedupe)
+	 */
+	private boolean isKnown(String messageId) {
+		var verdict = idempotencyFilter.check(messageId);
+		if (verdict != IdempotencyFilter.Verdict.UNKNOWN) {
+			return verdict == IdempotencyFilter.Verdict.DUPLICATE;
+		}
+		boolean found = !batchWriter.findKnownIds(List.of(messageId)).isEmpty();
+		idempotencyFilter.recordLookup(messageId, found);
+		return found;
+	}
+
+	/**
+	 * Modo directo: reserva el messageId en message_dedupe (la consulta de isKnown pasa a ser la reserva)
+	 * @return false si ya estaba registrado
+	 */
+	private boolean reserve(String messageId, OffsetDateTime now) {
+		if (idempotencyFilter.check(messageId) == IdempotencyFilter.Verdict.DUPLICATE) {
+			return false;
+		}
+		return !reserveAll(List.of(messageId), now).contains(messageId);
+	}
+
+	/**
+	 * @return los ids que ya estaban registrados en message_dedupe
+	 */
+	private Set<String> lookupKnown(List<String> messageIds) {
+		Set<String> known = batchWriter.findKnownIds(messageIds);
+		messageIds.forEach(id -> idempotencyFilter.recordLookup(id, known.contains(id)));
+		return known;
+	}
+
+	/**
+	 * Reserva los ids en message_dedupe
+	 * @return los que no se pudieron reservar porque ya estaban registrados
+	 */
+	private Set<String> reserveAll(Collection<String> messageIds, OffsetDateTime now) {
+		Set<String> reserved = batchWriter.reserveIds(messageIds, now);
+		Set<String> known = new HashSet<>();
+		for (String messageId : messageIds) {
+			if (!reserved.contains(messageId)) {
+				known.add(messageId);
+				idempotencyFilter.recordLookup(messageId, true);
+			}
+		}
+		return known;
+	}
+
+	/**
+	 * Persiste un mensaje vía group commit
+	 * @return true si se insertó, false si otro request ya había registrado el messageId
+	 */
+	private boolean persist(MessageLog row, PayloadStore payload) {
+		boolean inserted = awaitWrite(groupCommitWriter.submit(row, payload));
+		if (inserted) {
+			idempotencyFilter.record(row.getMessageId());
+		}
+		return inserted;
+	}
+
+	/**
+	 * Persiste un mensaje cuyo id ya se reservó en message_dedupe (modo directo)
+	 */
+	private void persistReserved(MessageLog row, PayloadStore payload) {
+		awaitWrite(groupCommitWriter.submitReserved(row, payload));
+		idempotencyFilter.record(row.getMessageId());
+	}
+
+	/**
+	 * @param reserved true si los ids ya se reservaron en message_dedupe (modo directo)
+	 */
+	private Set<String> insertRows(Collection<MessageLog> logs, List<PayloadStore> payloads, boolean reserved) {
+		Set<String> inserted = transactionTemplate.execute(status -> {
+			Set<String> ids = reserved
+					? batchWriter.insertReservedMessageLogs(List.copyOf(logs))
+					: batchWriter.insertMessageLogsIfAbsent(List.copyOf(logs));
+			batchWriter.insertPayloads(payloads.stream().filter(p -> ids.contains(p.getMessageId())).toList());
+			return ids;
+		});
+		inserted.forEach(idempotencyFilter::record);
+		return inserted;
+	}
+
+	private static boolean awaitWrite(CompletableFuture<Boolean> write) {
+		try {
+			return write.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * @return el confirm, o null si no llegó antes del deadline (System.nanoTime)
+	 */
+	private static PublisherConfirmTracker.Confirmation awaitConfirmation(
+			CompletableFuture<PublisherConfirmTracker.Confirmation> confirmation, long deadline) {
+		try {
+			return confirmation.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+		} catch (TimeoutException | ExecutionException e) {
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
 	}
 
+	/**
+	 * Vuelca el resultado del broker en la fila antes de su único INSERT
+	 */
+	private static void applyConfirmation(MessageLog row, PublisherConfirmTracker.Confirmation confirmation) {
+		row.setAttempts(row.getAttempts() + 1);
+		switch (confirmation.outcome()) {
+			case ACKED -> {
+				row.setStatus("PUBLISHED");
+				row.setPublishedAt(OffsetDateTime.now());
+			}
+			case UNROUTABLE -> {
+				row.setStatus("UNROUTABLE");
+				row.setErrorMessage(confirmation.error());
+			}
+			default -> {
+				row.setStatus("FAILED");
+				row.setErrorMessage(confirmation.error());
+			}
+		}
+	}
+
+	private long persistAfterNanos() {
+		return publishProperties.getConfirms().getPersistAfter().toNanos();
+	}
+
+	/**
+	 * Fila inicial de message_log: PENDING en modo outbox, PUBLISHING en modo directo
+	 */
+	private MessageLog newMessageLog(MessageEnvelope env, ChannelRegistryProperties.Channel ch,
+									 String correlationId, OffsetDateTime now) {
+		return MessageLog.builder()
+				.messageId(env.messageId())
+				.channel(ch.getName())
+				.routingKey(ch.getRoutingKey())
+				.status(publishProperties.outboxMode() ? "PENDING" : "PUBLISHING")
+				.attempts(0)
+				.correlationId(correlationId)
+				.source(env.source())
+				.eventName(env.destination().eventName())
+				.metadata(env.metadata())
+				.producedAt(env.timestamp())
+				.createdAt(now)
+				.build();
+	}
+
+	/**
+	 * Fila de payload_store: jsonb, o bytes comprimidos si el canal lo configura y se supera el umbral.
+	 * En canales contentAddressed el payload es el JSON canónico con su hash: MessageBatchWriter lo guarda
+	 * en payload_blobs (una vez por contenido) y la fila sólo lleva la referencia.
+	 * schema_ver es la versión contra la que ya se validó el payload (resolveChannel / publishValidBatch).
+	 */
+	private PayloadStore newPayload(MessageEnvelope env, ChannelRegistryProperties.Channel ch, OffsetDateTime now) {
+		var row = PayloadStore.builder()
+				.messageId(env.messageId())
+				.schemaVer(PayloadSchemaValidator.versionOf(ch))
+				.createdAt(now);
+		RawPayload payload = env.payload();
+		if (ch.isContentAddressed()) {
+			payload = RawPayload.of(payloadCanonicalizer.canonicalize(payload.json()));
+			row.payloadHash(payloadCanonicalizer.hash(payload.json()));
+		}
+		PayloadCodec codec = payloadCompressor.codecFor(ch, payload.utf8Length());
+		if (codec == PayloadCodec.NONE) {
+			return row.payload(payload).build();
+		}
+		byte[] compressed = payloadCompressor.compress(codec, payload.json().getBytes(StandardCharsets.UTF_8), PayloadCompressor.TARGET_STORAGE);
+		return row.payloadCompressed(compressed).compression(codec.encoding()).build();
+	}
 }
@@ -0,0 +1,91 @@
+package com.uade.corehub.messaging;
+
+import com.uade.corehub.messaging.dto.ReplayJobResponse;
+import com.uade.corehub.messaging.dto.ReplayRequest;
+import com.uade.corehub.messaging.replay.ReplayService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+import java.util.List;
+
+/**
+ * Replay de mensajes almacenados como jobs en segundo plano (reanudables y cancelables)
+ */
+@Slf4j
+@RestController
+@RequestMapping("/replays")
+@RequiredArgsConstructor
+@Tag(name = "Replay", description = "Re-envío de mensajes almacenados al broker o a un webhook")
+public class ReplayController {
+
+	private final ReplayService replayService;
+
+	@Operation(summary = "Crear un job de replay",
+			description = "Re-envía los mensajes de un canal en un rango de tiempo (o una lista de messageIds) al broker o a una suscripción puntual")
+	@PostMapping
+	public ResponseEntity<ReplayJobResponse> create(@Valid @RequestBody ReplayRequest request) {
+		try {
+			var job = replayService.create(request);
+			URI location = ServletUriComponentsBuilder.fromCurrentRequestUri()
+					.path("/{jobId}")
+					.buildAndExpand(job.getId())
+					.toUri();
+			return ResponseEntity.accepted().location(location).body(ReplayJobResponse.fromJob(job));
+		} catch (IllegalArgumentException e) {
+			log.warn("Replay request rejected - Channel: '{}', Error: {}", request.channel(), e.getMessage());
+			return ResponseEntity.badRequest().build();
+		}
+	}
+
+	@Operation(summary = "Listar jobs de replay", description = "Jobs más recientes primero")
+	@GetMapping
+	public List<ReplayJobResponse> list(@RequestParam(defaultValue = "50") int limit) {
+		return replayService.list(limit).stream().map(ReplayJobResponse::fromJob).toList();
+	}
+
+	@Operation(summary = "Estado y progreso de un job de replay")
+	@GetMapping("/{jobId}")
+	public ResponseEntity<ReplayJobResponse> get(@PathVariable String jobId) {
+		return replayService.find(jobId)
+				.map(ReplayJobResponse::fromJob)
+				.map(ResponseEntity::ok)
+				.orElseGet(() -> ResponseEntity.notFound().build());
+	}
+
+	@Operation(summary = "Pausar un job de replay", description = "El job conserva su cursor y puede reanudarse")
+	@PostMapping("/{jobId}/pause")
+	public ResponseEntity<ReplayJobResponse> pause(@PathVariable String jobId) {
+		return respond(jobId, replayService.pause(jobId));
+	}
+
+	@Operation(summary = "Reanudar un job pausado o fallido", description = "Continúa desde el último checkpoint")
+	@PostMapping("/{jobId}/resume")
+	public ResponseEntity<ReplayJobResponse> resume(@PathVariable String jobId) {
+		return respond(jobId, replayService.resume(jobId));
+	}
+
+	@Operation(summary = "Cancelar un job de replay")
+	@PostMapping("/{jobId}/cancel")
+	public ResponseEntity<ReplayJobResponse> cancel(@PathVariable String jobId) {
+		return respond(jobId, replayService.cancel(jobId));
+	}
+
+	/**
+	 * 200 con el estado si la transición se aplicó; 409 si el job existe en otro estado; 404 si no existe
+	 */
+	private ResponseEntity<ReplayJobResponse> respond(String jobId, boolean applied) {
+		return replayService.find(jobId)
+				.map(job -> applied
+						? ResponseEntity.ok(ReplayJobResponse.fromJob(job))
+						: ResponseEntity.status(HttpStatus.CONFLICT).body(ReplayJobResponse.fromJob(job)))
+				.orElseGet(() -> ResponseEntity.notFound().build());
+	}
+}
@@ -0,0 +1,78 @@
+package com.uade.corehub.messaging;
+
+import com.uade.corehub.channels.ChannelRegistry;
+import com.uade.corehub.channels.ChannelRegistryProperties;
+import com.uade.corehub.messaging.dto.SchemaRequest;
+import com.uade.corehub.messaging.dto.SchemaResponse;
+import com.uade.corehub.messaging.schema.PayloadSchemaValidator;
+import com.uade.corehub.messaging.schema.SchemaRegistry;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registro de JSON Schema versionados por canal. El canal elige la versión vigente con schemaVersion en channels.yaml.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/channels/{channelName}/schemas")
+@RequiredArgsConstructor
+@Tag(name = "Schemas", description = "JSON Schema versionados para validar los payloads de cada canal")
+public class SchemaController {
+
+	private final ChannelRegistry channelRegistry;
+	private final SchemaRegistry schemaRegistry;
+
+	@Operation(summary = "Registrar una versión de schema",
+			description = "Las versiones son inmutables: registrar el mismo contenido otra vez es idempotente, otro contenido responde 409")
+	@PostMapping
+	public ResponseEntity<?> register(@PathVariable String channelName, @Valid @RequestBody SchemaRequest request) {
+		var channel = channelRegistry.find(channelName);
+		if (channel.isEmpty()) {
+			return ResponseEntity.notFound().build();
+		}
+		try {
+			var schema = schemaRegistry.register(channelName, request.version(), request.schema());
+			return ResponseEntity.status(HttpStatus.CREATED).body(SchemaResponse.from(schema, activeVersion(channel.get())));
+		} catch (IllegalArgumentException e) {
+			log.warn("Schema registration rejected - Channel: '{}', Version: '{}', Error: {}", channelName, request.version(), e.getMessage());
+			return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+		} catch (IllegalStateException e) {
+			log.warn("Schema registration rejected - Channel: '{}', Version: '{}', Error: {}", channelName, request.version(), e.getMessage());
+			return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+		}
+	}
+
+	@Operation(summary = "Listar versiones de schema del canal", description = "Más recientes primero")
+	@GetMapping
+	public ResponseEntity<List<SchemaResponse>> list(@PathVariable String channelName) {
+		return channelRegistry.find(channelName)
+				.map(channel -> schemaRegistry.list(channelName).stream()
+						.map(s -> SchemaResponse.from(s, activeVersion(channel)))
+						.toList())
+				.map(ResponseEntity::ok)
+				.orElseGet(() -> ResponseEntity.notFound().build());
+	}
+
+	@Operation(summary = "Obtener una versión de schema")
+	@GetMapping("/{version}")
+	public ResponseEntity<SchemaResponse> get(@PathVariable String channelName, @PathVariable String version) {
+		return channelRegistry.find(channelName)
+				.flatMap(channel -> schemaRegistry.find(channelName, version)
+						.map(s -> SchemaResponse.from(s, activeVersion(channel))))
+				.map(ResponseEntity::ok)
+				.orElseGet(() -> ResponseEntity.notFound().build());
+	}
+
+	private static String activeVersion(ChannelRegistryProperties.Channel channel) {
+		return PayloadSchemaValidator.versionOf(channel);
+	}
+}
@@ -0,0 +1,106 @@
+package com.uade.corehub.messaging;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.uade.corehub.config.PublishProperties;
+import com.uade.corehub.messaging.dto.BatchPublishResult;
+import com.uade.corehub.messaging.dto.MessageEnvelope;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ingesta en streaming para productores que re-envían backlogs grandes.
+ * El body NDJSON se parsea de a un envelope con el parser de streaming de Jackson y se publica
+ * en bloques de corehub.publish.stream.chunk-size vía PublishService#publishBatch; los resultados
+ * se devuelven como NDJSON (una línea por envelope, en el orden recibido) a medida que cada
+ * bloque termina. El heap usado queda acotado por el tamaño del bloque, no por el del body.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/publish")
+@RequiredArgsConstructor
+@Tag(name = "Publicación", description = "Publicación de mensajes")
+public class StreamIngestionController {
+
+	private final PublishService service;
+	private final ObjectMapper objectMapper;
+	private final PublishProperties publishProperties;
+
+	@Operation(summary = "Publicar envelopes en streaming (NDJSON)")
+	@PostMapping(value = "/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public void publishStream(HttpServletRequest request, HttpServletResponse response,
+							  @RequestHeader(value = "X-Correlation-Id", required = false) String correlationId) throws IOException {
+		int chunkSize = Math.max(1, publishProperties.getStream().getChunkSize());
+		response.setStatus(HttpServletResponse.SC_OK);
+		response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+
+		long total = 0;
+		try (JsonParser parser = objectMapper.getFactory().createParser(request.getInputStream());
+			 MappingIterator<MessageEnvelope> envelopes = objectMapper.readerFor(MessageEnvelope.class).readValues(parser);
+			 SequenceWriter out = objectMapper.writer().withRootValueSeparator("\n").writeValues(response.getOutputStream())) {
+
+			List<MessageEnvelope> chunk = new ArrayList<>(chunkSize);
+			while (true) {
+				MessageEnvelope envelope;
+				try {
+					if (!envelopes.hasNextValue()) {
+						break;
+					}
+					envelope = envelopes.nextValue();
+				} catch (JsonProcessingException e) {
+					// Error de binding: MappingIterator se resincroniza en el próximo valor raíz.
+					// Se vacía el bloque en curso para conservar el orden de las líneas de respuesta.
+					total += flush(chunk, correlationId, out);
+					out.write(BatchPublishResult.invalid(null, e.getOriginalMessage()));
+					out.flush();
+					total++;
+					if (parser.isClosed() || !(e instanceof JsonMappingException)) {
+						// Error de sintaxis: no hay forma segura de encontrar el próximo envelope
+						break;
+					}
+					continue;
+				}
+				chunk.add(envelope);
+				if (chunk.size() >= chunkSize) {
+					total += flush(chunk, correlationId, out);
+				}
+			}
+			total += flush(chunk, correlationId, out);
+		}
+		log.info("Stream ingestion completed - Lines: {}, CorrelationId: '{}'", total, correlationId);
+	}
+
+	private int flush(List<MessageEnvelope> chunk, String correlationId, SequenceWriter out) throws IOException {
+		if (chunk.isEmpty()) {
+			return 0;
+		}
+		int size = chunk.size();
+		List<BatchPublishResult> results;
+		try {
+			results = service.publishBatch(chunk, correlationId);
+		} catch (Exception e) {
+			log.error("Stream ingestion chunk failed - Size: {}, Error: {}", size, e.getMessage(), e);
+			results = chunk.stream()
+					.map(env -> BatchPublishResult.failed(env.messageId(), e.getMessage()))
+					.toList();
+		}
+		out.writeAll(results);
+		out.flush();
+		chunk.clear();
+		return size;
+	}
+}
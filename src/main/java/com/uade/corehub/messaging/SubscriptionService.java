@@ -2,6 +2,7 @@ package com.uade.corehub.messaging;
 
 import com.uade.corehub.messaging.dto.SubscriptionRequest;
 import com.uade.corehub.messaging.dto.SubscriptionResponse;
+import com.uade.corehub.messaging.dispatcher.SubscriptionCircuitBreaker;
 import com.uade.corehub.messaging.store.Subscription;
 import com.uade.corehub.messaging.store.SubscriptionRepository;
 import lombok.RequiredArgsConstructor;
@@ -23,6 +24,7 @@ import java.util.regex.Pattern;
 public class SubscriptionService {
 
     private final SubscriptionRepository subscriptionRepository;
+    private final SubscriptionCircuitBreaker circuitBreaker;
 
     /**
      * Crea una nueva suscripción a un tópico
@@ -57,6 +59,7 @@ public class SubscriptionService {
                 .squadName(request.squadName())
                 .topic(request.topic())
                 .eventName(request.eventName())
+                .acceptGzip(Boolean.TRUE.equals(request.acceptGzip()))
                 .status(Subscription.SubscriptionStatus.ACTIVE)
                 .build();
 
@@ -92,6 +95,7 @@ public class SubscriptionService {
     /**
      * Busca suscripciones que coincidan con un tópico y evento específicos
      * Utiliza el sistema de wildcards para encontrar coincidencias
+     * Incluye las suspendidas por el circuit breaker: sus entregas se difieren o prueban el webhook
      * 
      * @param topic tópico a buscar
      * @param eventName nombre del evento a buscar
@@ -100,9 +104,10 @@ public class SubscriptionService {
     public List<Subscription> findMatchingSubscriptions(String topic, String eventName) {
         log.debug("Buscando suscripciones que coincidan con tópico: {} y evento: {}", topic, eventName);
         
-        List<Subscription> allActiveSubscriptions = findActiveSubscriptions();
+        List<Subscription> deliverableSubscriptions = subscriptionRepository.findByStatusOrStatusAndCircuitOpenUntilIsNotNull(
+                Subscription.SubscriptionStatus.ACTIVE, Subscription.SubscriptionStatus.SUSPENDED);
         
-        return allActiveSubscriptions.stream()
+        return deliverableSubscriptions.stream()
                 .filter(subscription -> matchesPattern(subscription.getTopic(), topic))
                 .filter(subscription -> matchesPattern(subscription.getEventName(), eventName))
                 .toList();
@@ -167,7 +172,10 @@ public class SubscriptionService {
         
         Subscription subscription = subscriptionOpt.get();
         subscription.setStatus(status);
+        // Un cambio manual reemplaza al del circuit breaker (SUSPENDED queda como suspensión manual)
+        subscription.setCircuitOpenUntil(null);
         subscriptionRepository.save(subscription);
+        circuitBreaker.reset(subscriptionId);
         
         log.info("Estado de suscripción {} actualizado exitosamente", subscriptionId);
         return true;
@@ -0,0 +1,169 @@
+package com.uade.corehub.messaging.archive;
+
+import com.uade.corehub.messaging.compression.PayloadCodec;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Segmento inmutable del archivo de payloads: un archivo de datos (.seg) y un índice hash (.idx).
+ * <pre>
+ * .seg  registros [int idLen][id UTF-8][byte codec][int dataLen][data]
+ * .idx  [int MAGIC][int slots] + slots de [long hash(id)][long offset + 1] (0 = vacío)
+ * </pre>
+ * El índice es una tabla de direccionamiento abierto con factor de carga <= 0.5: con ambos
+ * archivos mapeados en memoria una búsqueda es O(1) (hash, sonda lineal y verificación del id).
+ */
+final class ArchiveSegment {
+
+	static final String DATA_SUFFIX = ".seg";
+	static final String INDEX_SUFFIX = ".idx";
+
+	private static final int MAGIC = 0x43484131; // "CHA1"
+	private static final int HEADER_BYTES = 8;
+	private static final int SLOT_BYTES = 16;
+
+	private final MappedByteBuffer data;
+	private final MappedByteBuffer index;
+	private final int slots;
+
+	private ArchiveSegment(MappedByteBuffer data, MappedByteBuffer index) {
+		this.data = data;
+		this.index = index;
+		if (index.getInt(0) != MAGIC) {
+			throw new IllegalStateException("Invalid archive segment index");
+		}
+		this.slots = index.getInt(4);
+	}
+
+	/**
+	 * Escribe un segmento nuevo. Los archivos se escriben con nombre temporal, se sincronizan a disco
+	 * y recién entonces se renombran, así un segmento visible siempre está completo.
+	 */
+	static void write(Path base, List<ArchivedPayload> entries) throws IOException {
+		Files.createDirectories(base.getParent());
+		Path dataFile = sibling(base, DATA_SUFFIX);
+		Path indexFile = sibling(base, INDEX_SUFFIX);
+		Path dataTmp = sibling(base, DATA_SUFFIX + ".tmp");
+		Path indexTmp = sibling(base, INDEX_SUFFIX + ".tmp");
+
+		int slots = Integer.highestOneBit(Math.max(1, entries.size()) * 2 - 1) << 1;
+		ByteBuffer table = ByteBuffer.allocate(HEADER_BYTES + slots * SLOT_BYTES);
+		table.putInt(0, MAGIC).putInt(4, slots);
+
+		long offset = 0;
+		try (FileChannel channel = FileChannel.open(dataTmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+			 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024))) {
+			for (ArchivedPayload entry : entries) {
+				byte[] id = entry.messageId().getBytes(StandardCharsets.UTF_8);
+				long hash = hash(id);
+				int slot = (int) (hash & (slots - 1));
+				while (table.getLong(HEADER_BYTES + slot * SLOT_BYTES + 8) != 0) {
+					slot = (slot + 1) & (slots - 1);
+				}
+				table.putLong(HEADER_BYTES + slot * SLOT_BYTES, hash);
+				table.putLong(HEADER_BYTES + slot * SLOT_BYTES + 8, offset + 1);
+
+				out.writeInt(id.length);
+				out.write(id);
+				out.writeByte(entry.codec().ordinal());
+				out.writeInt(entry.data().length);
+				out.write(entry.data());
+				offset += 4 + id.length + 1 + 4 + entry.data().length;
+				if (offset > Integer.MAX_VALUE) {
+					throw new IllegalArgumentException("Archive segment exceeds 2 GB, archive smaller batches");
+				}
+			}
+			out.flush();
+			channel.force(true);
+		}
+		try (FileChannel channel = FileChannel.open(indexTmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+			 OutputStream out = Channels.newOutputStream(channel)) {
+			out.write(table.array());
+			out.flush();
+			channel.force(true);
+		}
+		Files.move(dataTmp, dataFile, StandardCopyOption.ATOMIC_MOVE);
+		Files.move(indexTmp, indexFile, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	static ArchiveSegment open(Path base) throws IOException {
+		return new ArchiveSegment(map(sibling(base, DATA_SUFFIX)), map(sibling(base, INDEX_SUFFIX)));
+	}
+
+	/**
+	 * @return el payload archivado, o null si el segmento no contiene ese messageId
+	 */
+	ArchivedPayload find(String messageId) {
+		byte[] id = messageId.getBytes(StandardCharsets.UTF_8);
+		long hash = hash(id);
+		int slot = (int) (hash & (slots - 1));
+		for (int probes = 0; probes < slots; probes++) {
+			int at = HEADER_BYTES + slot * SLOT_BYTES;
+			long offsetPlusOne = index.getLong(at + 8);
+			if (offsetPlusOne == 0) {
+				return null;
+			}
+			if (index.getLong(at) == hash) {
+				ArchivedPayload entry = readAt((int) (offsetPlusOne - 1), id);
+				if (entry != null) {
+					return entry;
+				}
+			}
+			slot = (slot + 1) & (slots - 1);
+		}
+		return null;
+	}
+
+	private ArchivedPayload readAt(int offset, byte[] expectedId) {
+		int idLength = data.getInt(offset);
+		byte[] id = new byte[idLength];
+		data.get(offset + 4, id);
+		if (!Arrays.equals(id, expectedId)) {
+			return null;
+		}
+		int at = offset + 4 + idLength;
+		PayloadCodec codec = PayloadCodec.values()[data.get(at)];
+		byte[] payload = new byte[data.getInt(at + 1)];
+		data.get(at + 5, payload);
+		return new ArchivedPayload(new String(id, StandardCharsets.UTF_8), codec, payload);
+	}
+
+	private static MappedByteBuffer map(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+
+	private static Path sibling(Path base, String suffix) {
+		return base.resolveSibling(base.getFileName() + suffix);
+	}
+
+	// FNV-1a de 64 bits
+	private static long hash(byte[] bytes) {
+		long h = 0xcbf29ce484222325L;
+		for (byte b : bytes) {
+			h ^= (b & 0xff);
+			h *= 0x100000001b3L;
+		}
+		return h;
+	}
+
+	/**
+	 * Payload tal como se guarda en un segmento (bytes comprimidos con codec)
+	 */
+	record ArchivedPayload(String messageId, PayloadCodec codec, byte[] data) {}
+}
@@ -0,0 +1,181 @@
+package com.uade.corehub.messaging.archive;
+
+import com.uade.corehub.config.ArchiveProperties;
+import com.uade.corehub.messaging.compression.PayloadCompressor;
+import com.uade.corehub.messaging.dto.RawPayload;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Archivo frío de payloads: segmentos append-only por canal y día en corehub.archive.directory.
+ * payload_store conserva sólo el puntero (archive_segment) y las lecturas pasan por aquí.
+ * Los segmentos son inmutables, así que sus índices mapeados se cachean; sólo salen del cache
+ * cuando se borran al vencer la retención (ver {@link #deleteSegmentsBefore}).
+ */
+@Slf4j
+@Component
+public class PayloadArchive {
+
+	private static final DateTimeFormatter BUCKET = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+	private final ArchiveProperties props;
+	private final PayloadCompressor compressor;
+	private final Path root;
+	private final Map<String, ArchiveSegment> openSegments;
+
+	public PayloadArchive(ArchiveProperties props, PayloadCompressor compressor) {
+		this.props = props;
+		this.compressor = compressor;
+		this.root = Path.of(props.getDirectory()).toAbsolutePath().normalize();
+		int capacity = Math.max(1, props.getOpenSegments());
+		this.openSegments = new LinkedHashMap<>(capacity * 2, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, ArchiveSegment> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * Escribe un segmento nuevo para un canal y el día (UTC) de createdAt
+	 * @return el puntero a guardar en payload_store.archive_segment
+	 */
+	public String writeSegment(String channel, OffsetDateTime createdAt, List<ArchiveSegment.ArchivedPayload> entries) {
+		String pointer = sanitize(channel) + "/" + BUCKET.format(createdAt.withOffsetSameInstant(ZoneOffset.UTC))
+				+ "/" + System.currentTimeMillis() + "-" + UUID.randomUUID().toString().substring(0, 8);
+		try {
+			ArchiveSegment.write(resolve(pointer), entries);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to write archive segment " + pointer, e);
+		}
+		return pointer;
+	}
+
+	/**
+	 * Lee un payload archivado
+	 * @return el payload, o null si el segmento no lo contiene
+	 */
+	public RawPayload read(String pointer, String messageId) {
+		ArchiveSegment.ArchivedPayload entry = segment(pointer).find(messageId);
+		if (entry == null) {
+			log.warn("Message '{}' not found in archive segment '{}'", messageId, pointer);
+			return null;
+		}
+		byte[] json = compressor.decompress(entry.codec(), entry.data());
+		return RawPayload.of(new String(json, StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Borra los segmentos de los días (UTC) que terminan antes del límite de su canal y los saca del cache.
+	 * Sólo debe llamarse cuando payload_store ya no tiene filas de esos días que apunten a ellos.
+	 * @param before límite de todos los canales; null si no hay uno común
+	 * @param channelBefore límite propio de algunos canales (el mayor de los dos es el que aplica)
+	 * @return cantidad de segmentos borrados
+	 */
+	public int deleteSegmentsBefore(OffsetDateTime before, Map<String, OffsetDateTime> channelBefore) {
+		if (!Files.isDirectory(root)) {
+			return 0;
+		}
+		Map<String, OffsetDateTime> bounds = new HashMap<>();
+		channelBefore.forEach((channel, bound) -> bounds.merge(sanitize(channel), bound, (a, b) -> a.isAfter(b) ? a : b));
+		int deleted = 0;
+		try (Stream<Path> channels = Files.list(root)) {
+			for (Path channelDir : channels.filter(Files::isDirectory).toList()) {
+				OffsetDateTime bound = later(before, bounds.get(channelDir.getFileName().toString()));
+				if (bound != null) {
+					deleted += deleteDays(channelDir, bound);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to delete expired archive segments", e);
+		}
+		return deleted;
+	}
+
+	private int deleteDays(Path channelDir, OffsetDateTime bound) throws IOException {
+		int deleted = 0;
+		try (Stream<Path> days = Files.list(channelDir)) {
+			for (Path dayDir : days.filter(Files::isDirectory).toList()) {
+				OffsetDateTime day;
+				try {
+					day = LocalDate.parse(dayDir.getFileName().toString(), BUCKET).atStartOfDay().atOffset(ZoneOffset.UTC);
+				} catch (DateTimeParseException e) {
+					continue;
+				}
+				if (day.plusDays(1).isAfter(bound)) {
+					continue;
+				}
+				String prefix = channelDir.getFileName() + "/" + dayDir.getFileName() + "/";
+				synchronized (openSegments) {
+					openSegments.keySet().removeIf(pointer -> pointer.startsWith(prefix));
+				}
+				try (Stream<Path> files = Files.list(dayDir)) {
+					for (Path file : files.toList()) {
+						if (file.getFileName().toString().endsWith(ArchiveSegment.DATA_SUFFIX)) {
+							deleted++;
+						}
+						Files.deleteIfExists(file);
+					}
+				}
+				Files.deleteIfExists(dayDir);
+				log.info("Deleted expired archive segments in {}", prefix);
+			}
+		}
+		return deleted;
+	}
+
+	private static OffsetDateTime later(OffsetDateTime a, OffsetDateTime b) {
+		if (a == null || b == null) {
+			return a == null ? b : a;
+		}
+		return a.isAfter(b) ? a : b;
+	}
+
+	private ArchiveSegment segment(String pointer) {
+		synchronized (openSegments) {
+			ArchiveSegment segment = openSegments.get(pointer);
+			if (segment == null) {
+				try {
+					segment = ArchiveSegment.open(resolve(pointer));
+				} catch (IOException e) {
+					throw new UncheckedIOException("Archive segment not readable: " + pointer, e);
+				}
+				openSegments.put(pointer, segment);
+			}
+			return segment;
+		}
+	}
+
+	private Path resolve(String pointer) {
+		Path path = root.resolve(pointer).normalize();
+		if (!path.startsWith(root)) {
+			throw new IllegalArgumentException("Invalid archive pointer: " + pointer);
+		}
+		return path;
+	}
+
+	private static String sanitize(String channel) {
+		return channel.replaceAll("[^A-Za-z0-9._-]", "_");
+	}
+
+	public boolean isEnabled() {
+		return props.isEnabled();
+	}
+}
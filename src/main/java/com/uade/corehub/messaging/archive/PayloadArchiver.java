@@ -0,0 +1,165 @@
+package com.uade.corehub.messaging.archive;
+
+import com.uade.corehub.config.ArchiveProperties;
+import com.uade.corehub.messaging.compression.PayloadCodec;
+import com.uade.corehub.messaging.compression.PayloadCompressor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mueve a PayloadArchive los payloads más viejos que corehub.archive.age.
+ * Cada lote se reclama con FOR UPDATE SKIP LOCKED, se escribe un segmento por canal y día
+ * (sincronizado a disco) y recién después se reemplaza el payload de la fila por el puntero,
+ * en la misma transacción. Si el UPDATE falla queda un segmento huérfano, nunca un puntero roto.
+ * Las filas que referencian payload_blobs no se archivan: el contenido es compartido.
+ */
+@Slf4j
+@Component
+public class PayloadArchiver {
+
+	private static final String CLAIM_EXPIRED = """
+			SELECT p.id, p.message_id, p.created_at, p.payload::text AS payload, p.payload_compressed, p.compression, m.channel
+			FROM payload_store p
+			JOIN message_log m ON m.message_id = p.message_id AND m.created_at = p.created_at
+			WHERE p.archive_segment IS NULL AND p.payload_hash IS NULL AND p.created_at < ?
+			ORDER BY p.created_at
+			LIMIT ?
+			FOR UPDATE OF p SKIP LOCKED""";
+
+	private static final String MARK_ARCHIVED = """
+			UPDATE payload_store
+			SET payload = NULL, payload_compressed = NULL, compression = NULL, archive_segment = ?
+			WHERE id = ? AND created_at = ?""";
+
+	private final ArchiveProperties props;
+	private final PayloadArchive archive;
+	private final PayloadCompressor compressor;
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final ScheduledExecutorService scheduler;
+
+	public PayloadArchiver(ArchiveProperties props,
+						   PayloadArchive archive,
+						   PayloadCompressor compressor,
+						   JdbcTemplate jdbcTemplate,
+						   PlatformTransactionManager transactionManager) {
+		this.props = props;
+		this.archive = archive;
+		this.compressor = compressor;
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "payload-archiver");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	@PostConstruct
+	void init() {
+		if (!props.isEnabled()) {
+			return;
+		}
+		long interval = Math.max(1_000, props.getInterval().toMillis());
+		scheduler.scheduleWithFixedDelay(this::runSafely, interval, interval, TimeUnit.MILLISECONDS);
+		log.info("Payload archiver enabled (age: {}, directory: {})", props.getAge(), props.getDirectory());
+	}
+
+	@PreDestroy
+	void shutdown() {
+		scheduler.shutdownNow();
+	}
+
+	private void runSafely() {
+		try {
+			long archived = run();
+			if (archived > 0) {
+				log.info("Archived {} payload(s) older than {}", archived, props.getAge());
+			}
+		} catch (Exception e) {
+			log.error("Payload archiving failed: {}", e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Archiva lotes hasta que no queden filas vencidas
+	 * @return cantidad de payloads archivados
+	 */
+	public long run() {
+		OffsetDateTime before = OffsetDateTime.now(ZoneOffset.UTC).minus(props.getAge());
+		int batchSize = Math.max(1, props.getBatchSize());
+		long total = 0;
+		int archived;
+		do {
+			archived = transactionTemplate.execute(status -> archiveBatch(before, batchSize));
+			total += archived;
+		} while (archived == batchSize && !Thread.currentThread().isInterrupted());
+		return total;
+	}
+
+	private int archiveBatch(OffsetDateTime before, int batchSize) {
+		List<Row> rows = jdbcTemplate.query(CLAIM_EXPIRED, (rs, i) -> new Row(
+				rs.getLong("id"),
+				rs.getString("message_id"),
+				rs.getObject("created_at", OffsetDateTime.class),
+				rs.getString("channel"),
+				toArchived(rs.getString("message_id"), rs.getString("payload"),
+						rs.getBytes("payload_compressed"), rs.getString("compression"))
+		), before, batchSize);
+		if (rows.isEmpty()) {
+			return 0;
+		}
+
+		// Un segmento por canal y día
+		Map<String, List<Row>> groups = new LinkedHashMap<>();
+		for (Row row : rows) {
+			String bucket = row.channel() + "|" + row.createdAt().withOffsetSameInstant(ZoneOffset.UTC).truncatedTo(ChronoUnit.DAYS);
+			groups.computeIfAbsent(bucket, k -> new ArrayList<>()).add(row);
+		}
+
+		List<Object[]> updates = new ArrayList<>(rows.size());
+		for (List<Row> group : groups.values()) {
+			Row first = group.get(0);
+			String pointer = archive.writeSegment(first.channel(), first.createdAt(),
+					group.stream().map(Row::payload).toList());
+			group.forEach(r -> updates.add(new Object[]{pointer, r.id(), r.createdAt()}));
+		}
+		jdbcTemplate.batchUpdate(MARK_ARCHIVED, updates);
+		return rows.size();
+	}
+
+	/**
+	 * Los payloads ya comprimidos se archivan tal cual; los jsonb se comprimen con zstd
+	 */
+	private ArchiveSegment.ArchivedPayload toArchived(String messageId, String json, byte[] compressed, String compression) {
+		if (compressed != null) {
+			PayloadCodec codec = PayloadCodec.fromEncoding(compression);
+			if (codec == null) {
+				throw new IllegalStateException("Unknown payload compression: " + compression);
+			}
+			return new ArchiveSegment.ArchivedPayload(messageId, codec, compressed);
+		}
+		byte[] data = compressor.compress(PayloadCodec.ZSTD, json.getBytes(StandardCharsets.UTF_8), PayloadCompressor.TARGET_ARCHIVE);
+		return new ArchiveSegment.ArchivedPayload(messageId, PayloadCodec.ZSTD, data);
+	}
+
+	private record Row(long id, String messageId, OffsetDateTime createdAt, String channel,
+					   ArchiveSegment.ArchivedPayload payload) {}
+}
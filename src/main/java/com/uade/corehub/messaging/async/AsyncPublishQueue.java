@@ -0,0 +1,169 @@
+package com.uade.corehub.messaging.async;
+
+import com.uade.corehub.channels.ChannelRegistryProperties;
+import com.uade.corehub.config.PublishProperties;
+import com.uade.corehub.messaging.PublishService;
+import com.uade.corehub.messaging.dto.MessageEnvelope;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aceptación asíncrona de publicaciones: el request sólo encola el envelope en un ring buffer
+ * acotado (ArrayBlockingQueue) y un pool de virtual threads hace la persistencia y el envío.
+ * Si el buffer está lleno, {@link #offer} devuelve false y el controller responde 429.
+ * Al detenerse deja de aceptar y los workers drenan el buffer antes de terminar; sólo se
+ * interrumpen si no terminan dentro de shutdownTimeout.
+ */
+@Slf4j
+@Component
+public class AsyncPublishQueue implements SmartLifecycle {
+
+    private final PublishService publishService;
+    private final PublishProperties.Async props;
+    private final BlockingQueue<Task> buffer;
+    // messageId -> tareas encoladas o en curso (el mismo id puede aceptarse más de una vez)
+    private final Map<String, Integer> queuedIds = new ConcurrentHashMap<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    public AsyncPublishQueue(PublishService publishService, PublishProperties publishProperties, MeterRegistry meterRegistry) {
+        this.publishService = publishService;
+        this.props = publishProperties.getAsync();
+        this.buffer = new ArrayBlockingQueue<>(Math.max(1, props.getBufferSize()));
+        Gauge.builder("corehub.publish.async.buffer.size", buffer, BlockingQueue::size)
+                .description("Envelopes aceptados pendientes de procesar")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return props.isEnabled();
+    }
+
+    /**
+     * Encola un envelope sin bloquear
+     * @param channel canal ya resuelto y validado por PublishService.resolveChannel
+     * @return false si el buffer está lleno (o el servicio se está deteniendo)
+     */
+    public boolean offer(MessageEnvelope envelope, ChannelRegistryProperties.Channel channel, String correlationId) {
+        if (!running) {
+            return false;
+        }
+        Task task = new Task(envelope, channel, correlationId);
+        queuedIds.merge(envelope.messageId(), 1, Integer::sum);
+        if (!buffer.offer(task)) {
+            release(envelope.messageId());
+            return false;
+        }
+        // stop() pudo empezar entre el chequeo y el offer: si ningún worker la tomó, se rechaza
+        if (!running && buffer.remove(task)) {
+            release(envelope.messageId());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Indica si el mensaje fue aceptado y su publicación todavía no terminó
+     */
+    public boolean isQueued(String messageId) {
+        return queuedIds.containsKey(messageId);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running || !props.isEnabled()) {
+            return;
+        }
+        running = true;
+        int count = Math.max(1, props.getWorkers());
+        for (int i = 0; i < count; i++) {
+            workers.add(Thread.ofVirtual().name("publish-worker-" + i).start(this::workLoop));
+        }
+        log.info("Async publish queue started - Buffer: {}, Workers: {}", props.getBufferSize(), count);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        // Deja de aceptar; los workers drenan lo ya aceptado y terminan solos con el buffer vacío
+        running = false;
+        long deadline = System.nanoTime() + props.getShutdownTimeout().toNanos();
+        for (Thread worker : workers) {
+            try {
+                worker.join(Duration.ofNanos(Math.max(1, deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        // Sólo los que siguen vivos pasado el plazo se interrumpen (a mitad de un confirm o de una escritura)
+        int stuck = 0;
+        for (Thread worker : workers) {
+            if (worker.isAlive()) {
+                worker.interrupt();
+                stuck++;
+            }
+        }
+        if (stuck > 0 || !buffer.isEmpty()) {
+            log.warn("Async publish queue stopped after {} - Interrupted workers: {}, Envelopes not processed: {}",
+                    props.getShutdownTimeout(), stuck, buffer.size());
+        }
+        workers.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Se detiene antes que los demás componentes (relay, listeners) para poder drenar
+        return Integer.MAX_VALUE - 1;
+    }
+
+    private void workLoop() {
+        while (true) {
+            Task task;
+            try {
+                // Detenido: se drena sin esperar y el worker termina con el buffer vacío
+                task = running ? buffer.poll(1, TimeUnit.SECONDS) : buffer.poll();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (task == null) {
+                if (!running) {
+                    return;
+                }
+                continue;
+            }
+            try {
+                publishService.publish(task.envelope(), task.channel(), task.correlationId());
+            } catch (Exception e) {
+                log.error("Async publish failed - MessageId: '{}', Error: {}", task.envelope().messageId(), e.getMessage(), e);
+            } finally {
+                release(task.envelope().messageId());
+            }
+        }
+    }
+
+    private void release(String messageId) {
+        queuedIds.computeIfPresent(messageId, (id, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private record Task(MessageEnvelope envelope, ChannelRegistryProperties.Channel channel, String correlationId) {}
+}
@@ -0,0 +1,29 @@
+package com.uade.corehub.messaging.broker;
+
+import com.uade.corehub.channels.ChannelRegistryProperties;
+import com.uade.corehub.messaging.dto.MessageEnvelope;
+
+/**
+ * Claim-check: un payload grande no viaja en el body AMQP. El envelope sale sin payload y con el
+ * header x-claim-check = messageId; el consumidor lo lee de payload_store cuando lo necesita.
+ * Se aplica sólo en modo outbox, donde la fila ya está commiteada cuando el relay publica.
+ */
+public final class ClaimCheck {
+
+	public static final String HEADER = "x-claim-check";
+
+	private ClaimCheck() {
+	}
+
+	/**
+	 * @return true si el payload del envelope supera el claimCheckThreshold del canal
+	 */
+	static boolean applies(ChannelRegistryProperties.Channel channel, MessageEnvelope env) {
+		return channel.getClaimCheckThreshold() > 0 && env.payload() != null
+				&& env.payload().utf8Length() >= channel.getClaimCheckThreshold();
+	}
+
+	static MessageEnvelope withoutPayload(MessageEnvelope env) {
+		return new MessageEnvelope(env.messageId(), env.timestamp(), env.source(), env.destination(), env.metadata(), null);
+	}
+}
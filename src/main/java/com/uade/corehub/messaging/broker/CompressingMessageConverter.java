@@ -0,0 +1,80 @@
+package com.uade.corehub.messaging.broker;
+
+import com.uade.corehub.channels.ChannelRegistry;
+import com.uade.corehub.config.PublishProperties;
+import com.uade.corehub.messaging.compression.PayloadCodec;
+import com.uade.corehub.messaging.compression.PayloadCompressor;
+import com.uade.corehub.messaging.dto.MessageEnvelope;
+import lombok.RequiredArgsConstructor;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+/**
+ * Comprime el body AMQP de los envelopes según la configuración de su canal.
+ * El contentEncoding queda como "codec:charset" (gzip:UTF-8, zstd:UTF-8), el mismo formato
+ * que usan los post processors de Spring AMQP, así otros consumidores pueden descomprimir.
+ * Al recibir, descomprime según el contentEncoding antes de delegar en el converter JSON.
+ * En modo outbox los payloads que superan claimCheckThreshold no se envían: ver ClaimCheck.
+ */
+@RequiredArgsConstructor
+public class CompressingMessageConverter implements MessageConverter {
+
+	private final MessageConverter delegate;
+	private final ChannelRegistry channelRegistry;
+	private final PayloadCompressor compressor;
+	private final PublishProperties publishProperties;
+
+	@Override
+	public Message toMessage(Object object, MessageProperties messageProperties) throws MessageConversionException {
+		if (!(object instanceof MessageEnvelope env) || env.destination() == null) {
+			return delegate.toMessage(object, messageProperties);
+		}
+		var channel = channelRegistry.find(env.destination().channel());
+		// Sólo en modo outbox la fila de payload_store está commiteada antes del envío (en modo directo se
+		// escribe después del confirm): el consumidor siempre la encuentra y por el broker viaja sólo la referencia
+		if (publishProperties.outboxMode() && channel.isPresent() && ClaimCheck.applies(channel.get(), env)) {
+			messageProperties.setHeader(ClaimCheck.HEADER, env.messageId());
+			return delegate.toMessage(ClaimCheck.withoutPayload(env), messageProperties);
+		}
+		Message message = delegate.toMessage(env, messageProperties);
+		byte[] body = message.getBody();
+		PayloadCodec codec = channel
+				.map(ch -> compressor.codecFor(ch, body.length))
+				.orElse(PayloadCodec.NONE);
+		if (codec == PayloadCodec.NONE) {
+			return message;
+		}
+		byte[] compressed = compressor.compress(codec, body, PayloadCompressor.TARGET_AMQP);
+		MessageProperties props = message.getMessageProperties();
+		String charset = props.getContentEncoding();
+		props.setContentEncoding(charset == null ? codec.encoding() : codec.encoding() + ":" + charset);
+		props.setContentLength(compressed.length);
+		return new Message(compressed, props);
+	}
+
+	@Override
+	public Object fromMessage(Message message) throws MessageConversionException {
+		MessageProperties props = message.getMessageProperties();
+		String encoding = props.getContentEncoding();
+		if (encoding == null) {
+			return delegate.fromMessage(message);
+		}
+		int colon = encoding.indexOf(':');
+		PayloadCodec codec = PayloadCodec.fromEncoding(colon < 0 ? encoding : encoding.substring(0, colon));
+		if (codec == null) {
+			// contentEncoding es sólo un charset (UTF-8): body sin comprimir
+			return delegate.fromMessage(message);
+		}
+		byte[] body;
+		try {
+			body = compressor.decompress(codec, message.getBody());
+		} catch (RuntimeException e) {
+			throw new MessageConversionException("Failed to decompress " + codec.encoding() + " message body", e);
+		}
+		props.setContentEncoding(colon < 0 ? null : encoding.substring(colon + 1));
+		props.setContentLength(body.length);
+		return delegate.fromMessage(new Message(body, props));
+	}
+}
@@ -0,0 +1,11 @@
+package com.uade.corehub.messaging.broker;
+
+/**
+ * Mensaje listo para enviarse al broker (exchange + routing key ya resueltos por canal)
+ */
+public record OutboundMessage(
+	String messageId,
+	String exchange,
+	String routingKey,
+	Object payload
+) {}
@@ -0,0 +1,319 @@
+package com.uade.corehub.messaging.broker;
+
+import com.uade.corehub.config.PublishProperties;
+import com.uade.corehub.messaging.store.MessageBatchWriter;
+import com.uade.corehub.messaging.store.OutboxStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Seguimiento asíncrono de publisher confirms.
+ * Cada envío lleva un CorrelationData con el messageId y queda "en vuelo" hasta que llega
+ * el ack/nack del broker; así se pipelinean muchos mensajes por canal sin esperar un round trip
+ * por mensaje. Los resultados se vuelcan en lote a message_log desde un hilo propio:
+ * ack -> PUBLISHED, ack con return (mandatory) -> UNROUTABLE, nack/timeout -> FAILED.
+ * Un resultado sólo se aplica después del commit de la transacción que insertó la fila.
+ * Los envíos diferidos (trackDeferred) todavía no tienen fila: el confirm completa un future y
+ * el llamador inserta la fila ya con su estado final; sólo si el confirm tarda más de
+ * confirms.persistAfter la fila se inserta PUBLISHING y el resultado vuelve a este flujo (handOff).
+ */
+@Slf4j
+@Component
+public class PublisherConfirmTracker {
+
+	private static final int FLUSH_BATCH = 500;
+
+	private final RabbitTemplate rabbitTemplate;
+	private final MessageBatchWriter batchWriter;
+	private final OutboxStore outboxStore;
+	private final PublishProperties publishProperties;
+	private final MeterRegistry meterRegistry;
+
+	private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+	private final BlockingQueue<InFlight> resolved = new LinkedBlockingQueue<>();
+	private final Semaphore permits;
+	private volatile Thread flusher;
+
+	public PublisherConfirmTracker(RabbitTemplate rabbitTemplate,
+								   MessageBatchWriter batchWriter,
+								   OutboxStore outboxStore,
+								   PublishProperties publishProperties,
+								   MeterRegistry meterRegistry) {
+		this.rabbitTemplate = rabbitTemplate;
+		this.batchWriter = batchWriter;
+		this.outboxStore = outboxStore;
+		this.publishProperties = publishProperties;
+		this.meterRegistry = meterRegistry;
+		this.permits = new Semaphore(Math.max(1, publishProperties.getConfirms().getMaxInFlight()));
+	}
+
+	@PostConstruct
+	void init() {
+		if (!isEnabled()) {
+			return;
+		}
+		rabbitTemplate.setConfirmCallback(this::onConfirm);
+		Gauge.builder("corehub.publisher.confirms.inflight", inFlight, Map::size)
+				.description("Mensajes enviados al broker pendientes de confirmación")
+				.register(meterRegistry);
+		flusher = new Thread(this::flushLoop, "publisher-confirms-flusher");
+		flusher.setDaemon(true);
+		flusher.start();
+		log.info("Publisher confirms tracking enabled (maxInFlight: {}, timeout: {})",
+				publishProperties.getConfirms().getMaxInFlight(), publishProperties.getConfirms().getTimeout());
+	}
+
+	@PreDestroy
+	void shutdown() {
+		if (flusher != null) {
+			flusher.interrupt();
+		}
+	}
+
+	public boolean isEnabled() {
+		return publishProperties.getConfirms().isEnabled();
+	}
+
+	/**
+	 * Registra un envío en vuelo y devuelve el CorrelationData a adjuntar al basic.publish.
+	 * Bloquea (hasta el timeout) si ya hay maxInFlight mensajes sin confirmar.
+	 */
+	public CorrelationData track(String messageId) {
+		acquire();
+
+		InFlight entry = register(messageId, null);
+
+		// El resultado espera al commit de la fila; sin transacción activa se da por commiteada
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					if (status == STATUS_COMMITTED) {
+						entry.countDown(resolved);
+					} else {
+						release(messageId, entry);
+					}
+				}
+			});
+		} else {
+			entry.countDown(resolved);
+		}
+		return new CorrelationData(messageId);
+	}
+
+	/**
+	 * Registra un envío en vuelo cuya fila en message_log todavía no existe.
+	 * El confirm sólo completa el future; el llamador termina con settle (escribió el estado final)
+	 * o con handOff (escribió PUBLISHING y el resultado se aplica como en track).
+	 */
+	public CorrelationData trackDeferred(String messageId, CompletableFuture<Confirmation> confirmation) {
+		acquire();
+		register(messageId, confirmation);
+		return new CorrelationData(messageId);
+	}
+
+	/**
+	 * El llamador persistió el resultado del confirm junto con la fila: se libera el envío
+	 */
+	public void settle(String messageId) {
+		cancel(messageId);
+	}
+
+	/**
+	 * El llamador persistió la fila como PUBLISHING sin tener el confirm: el resultado
+	 * (ya llegado o por llegar) lo escribe el flusher y entra en el vencimiento por timeout
+	 */
+	public void handOff(String messageId) {
+		InFlight entry = inFlight.get(messageId);
+		if (entry != null && entry.confirmation != null) {
+			entry.handedOff = true;
+			entry.countDown(resolved);
+		}
+	}
+
+	/**
+	 * Descarta un envío que falló antes de salir al broker (la excepción la maneja el llamador)
+	 */
+	public void cancel(String messageId) {
+		InFlight entry = inFlight.get(messageId);
+		if (entry != null) {
+			release(messageId, entry);
+		}
+	}
+
+	private void acquire() {
+		try {
+			if (!permits.tryAcquire(publishProperties.getConfirms().getTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+				throw new AmqpException("Too many unconfirmed messages in flight");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new AmqpException("Interrupted while waiting for publisher confirms capacity", e);
+		}
+	}
+
+	private InFlight register(String messageId, CompletableFuture<Confirmation> confirmation) {
+		InFlight entry = new InFlight(messageId, System.nanoTime(), publishProperties.outboxMode(), confirmation);
+		InFlight previous = inFlight.put(messageId, entry);
+		if (previous != null) {
+			permits.release();
+		}
+		return entry;
+	}
+
+	private void onConfirm(CorrelationData correlationData, boolean ack, String cause) {
+		if (correlationData == null || correlationData.getId() == null) {
+			return;
+		}
+		InFlight entry = inFlight.get(correlationData.getId());
+		if (entry == null) {
+			return;
+		}
+		ReturnedMessage returned = correlationData.getReturned();
+		if (!ack) {
+			entry.outcome = Outcome.NACKED;
+			entry.error = cause;
+		} else if (returned != null) {
+			entry.outcome = Outcome.UNROUTABLE;
+			entry.error = returned.getReplyCode() + " " + returned.getReplyText();
+		} else {
+			entry.outcome = Outcome.ACKED;
+		}
+		if (entry.confirmation != null) {
+			entry.confirmation.complete(new Confirmation(entry.outcome, entry.error));
+		}
+		entry.countDown(resolved);
+	}
+
+	private void release(String messageId, InFlight entry) {
+		if (inFlight.remove(messageId, entry)) {
+			permits.release();
+		}
+	}
+
+	private void flushLoop() {
+		List<InFlight> drained = new ArrayList<>(FLUSH_BATCH);
+		while (!Thread.currentThread().isInterrupted()) {
+			try {
+				InFlight first = resolved.poll(1, TimeUnit.SECONDS);
+				if (first != null) {
+					drained.add(first);
+					resolved.drainTo(drained, FLUSH_BATCH - 1);
+				}
+				expireTimedOut(drained);
+				if (!drained.isEmpty()) {
+					apply(drained);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (Exception e) {
+				log.error("Failed to apply publisher confirms to message_log: {}", e.getMessage(), e);
+			} finally {
+				drained.clear();
+			}
+		}
+	}
+
+	private void expireTimedOut(List<InFlight> drained) {
+		long timeoutNanos = publishProperties.getConfirms().getTimeout().toNanos();
+		long now = System.nanoTime();
+		inFlight.values().stream()
+				.filter(e -> now - e.sentAtNanos > timeoutNanos && e.outcome == null)
+				// Un envío diferido sin handOff todavía no tiene fila que actualizar
+				.filter(e -> e.confirmation == null || e.handedOff)
+				.forEach(e -> {
+					e.outcome = Outcome.TIMED_OUT;
+					e.error = "Publisher confirm timeout";
+					release(e.messageId, e);
+					drained.add(e);
+				});
+	}
+
+	private void apply(List<InFlight> drained) {
+		List<String> published = new ArrayList<>();
+		Map<String, String> unroutable = new LinkedHashMap<>();
+		Map<String, String> failed = new LinkedHashMap<>();
+		Map<String, String> retry = new LinkedHashMap<>();
+		for (InFlight e : drained) {
+			release(e.messageId, e);
+			switch (e.outcome) {
+				case ACKED -> published.add(e.messageId);
+				case UNROUTABLE -> unroutable.put(e.messageId, e.error);
+				default -> (e.outbox ? retry : failed).put(e.messageId, e.error);
+			}
+		}
+		if (!published.isEmpty()) {
+			batchWriter.markPublished(published, OffsetDateTime.now());
+		}
+		if (!unroutable.isEmpty()) {
+			batchWriter.markUnroutable(unroutable);
+			log.warn("{} message(s) confirmed as unroutable", unroutable.size());
+		}
+		if (!failed.isEmpty()) {
+			batchWriter.markFailed(failed);
+			log.warn("{} message(s) nacked or not confirmed by the broker", failed.size());
+		}
+		if (!retry.isEmpty()) {
+			outboxStore.markForRetry(retry, publishProperties.getOutbox().getMaxAttempts());
+		}
+	}
+
+	public enum Outcome { ACKED, UNROUTABLE, NACKED, TIMED_OUT }
+
+	/**
+	 * Resultado de un confirm entregado a un envío diferido
+	 */
+	public record Confirmation(Outcome outcome, String error) {
+		public static final Confirmation ACKED = new Confirmation(Outcome.ACKED, null);
+	}
+
+	/**
+	 * Mensaje en vuelo: se resuelve cuando llegan tanto el confirm como el commit de su fila
+	 */
+	private static final class InFlight {
+		private final String messageId;
+		private final long sentAtNanos;
+		private final boolean outbox;
+		private final CompletableFuture<Confirmation> confirmation;
+		private final AtomicInteger pending = new AtomicInteger(2);
+		private volatile Outcome outcome;
+		private volatile String error;
+		private volatile boolean handedOff;
+
+		private InFlight(String messageId, long sentAtNanos, boolean outbox, CompletableFuture<Confirmation> confirmation) {
+			this.messageId = messageId;
+			this.sentAtNanos = sentAtNanos;
+			this.outbox = outbox;
+			this.confirmation = confirmation;
+		}
+
+		private void countDown(BlockingQueue<InFlight> resolved) {
+			if (pending.decrementAndGet() == 0) {
+				resolved.add(this);
+			}
+		}
+	}
+}
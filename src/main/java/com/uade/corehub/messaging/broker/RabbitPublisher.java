@@ -3,9 +3,15 @@ package com.uade.corehub.messaging.broker;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 @Slf4j
 @Component
 @RequiredArgsConstructor
@@ -13,6 +19,7 @@ public class RabbitPublisher {
 
 	private final RabbitTemplate rabbitTemplate;
 	private final ObjectMapper objectMapper;
+	private final PublisherConfirmTracker confirmTracker;
 
 	public void publish(String exchange, String routingKey, Object payload) {
 		log.info("Publishing message to exchange: '{}' with routing key: '{}'", exchange, routingKey);
@@ -24,4 +31,105 @@ public class RabbitPublisher {
 			throw e;
 		}
 	}
+
+	/**
+	 * Indica si los envíos quedan pendientes de publisher confirm: en ese caso el estado
+	 * final en message_log lo escribe PublisherConfirmTracker y no el llamador
+	 */
+	public boolean isConfirmTracking() {
+		return confirmTracker.isEnabled();
+	}
+
+	/**
+	 * Publica sin que exista todavía la fila en message_log: el future se completa con el confirm
+	 * del broker (o de inmediato si los confirms están deshabilitados y el envío salió).
+	 * El llamador debe cerrar el envío con PublisherConfirmTracker#settle o #handOff.
+	 */
+	public CompletableFuture<PublisherConfirmTracker.Confirmation> publishDeferred(String messageId, String exchange, String routingKey, Object payload) {
+		if (!confirmTracker.isEnabled()) {
+			publish(exchange, routingKey, payload);
+			return CompletableFuture.completedFuture(PublisherConfirmTracker.Confirmation.ACKED);
+		}
+		log.info("Publishing deferred message '{}' to exchange: '{}' with routing key: '{}'", messageId, exchange, routingKey);
+		CompletableFuture<PublisherConfirmTracker.Confirmation> confirmation = new CompletableFuture<>();
+		CorrelationData correlation = confirmTracker.trackDeferred(messageId, confirmation);
+		try {
+			rabbitTemplate.convertAndSend(exchange, routingKey, payload, correlation);
+		} catch (Exception e) {
+			confirmTracker.cancel(messageId);
+			log.error("Failed to publish message '{}' to exchange: '{}' with routing key: '{}'", messageId, exchange, routingKey, e);
+			throw e;
+		}
+		return confirmation;
+	}
+
+	/**
+	 * Cierra un envío diferido cuyo resultado ya quedó escrito en message_log
+	 */
+	public void settleDeferred(String messageId) {
+		confirmTracker.settle(messageId);
+	}
+
+	/**
+	 * Cierra un envío diferido persistido como PUBLISHING: el confirm lo aplica PublisherConfirmTracker
+	 */
+	public void handOffDeferred(String messageId) {
+		confirmTracker.handOff(messageId);
+	}
+
+	/**
+	 * Envía un lote reutilizando un único canal AMQP (RabbitTemplate#invoke): los basic.publish
+	 * salen en pipeline sin hacer checkout de canal por mensaje. Con confirms habilitados cada
+	 * envío queda registrado en PublisherConfirmTracker.
+	 * @return errores por messageId de los envíos que fallaron (vacío si todos salieron)
+	 */
+	public Map<String, Exception> publishAll(List<OutboundMessage> messages) {
+		return publishAll(messages, null);
+	}
+
+	/**
+	 * Como publishAll, pero para mensajes sin fila en message_log (ver publishDeferred): cada envío
+	 * que sale deja en confirmations un future con su confirm
+	 * @return errores por messageId de los envíos que fallaron (vacío si todos salieron)
+	 */
+	public Map<String, Exception> publishAllDeferred(List<OutboundMessage> messages,
+												   Map<String, CompletableFuture<PublisherConfirmTracker.Confirmation>> confirmations) {
+		return publishAll(messages, confirmations);
+	}
+
+	private Map<String, Exception> publishAll(List<OutboundMessage> messages,
+											  Map<String, CompletableFuture<PublisherConfirmTracker.Confirmation>> confirmations) {
+		if (messages.isEmpty()) {
+			return Map.of();
+		}
+		log.info("Publishing batch of {} messages", messages.size());
+		boolean tracked = confirmTracker.isEnabled();
+		return rabbitTemplate.invoke(ops -> {
+			Map<String, Exception> failures = new LinkedHashMap<>();
+			for (OutboundMessage m : messages) {
+				try {
+					if (tracked && confirmations != null) {
+						CompletableFuture<PublisherConfirmTracker.Confirmation> confirmation = new CompletableFuture<>();
+						ops.convertAndSend(m.exchange(), m.routingKey(), m.payload(), confirmTracker.trackDeferred(m.messageId(), confirmation));
+						confirmations.put(m.messageId(), confirmation);
+					} else if (tracked) {
+						ops.convertAndSend(m.exchange(), m.routingKey(), m.payload(), confirmTracker.track(m.messageId()));
+					} else {
+						ops.convertAndSend(m.exchange(), m.routingKey(), m.payload());
+						if (confirmations != null) {
+							confirmations.put(m.messageId(), CompletableFuture.completedFuture(PublisherConfirmTracker.Confirmation.ACKED));
+						}
+					}
+				} catch (Exception e) {
+					if (tracked) {
+						confirmTracker.cancel(m.messageId());
+					}
+					log.error("Failed to publish message '{}' to exchange: '{}' with routing key: '{}'",
+							m.messageId(), m.exchange(), m.routingKey(), e);
+					failures.put(m.messageId(), e);
+				}
+			}
+			return failures;
+		});
+	}
 }
@@ -0,0 +1,313 @@
+package com.uade.corehub.messaging.broker;
+
+import com.uade.corehub.channels.ChannelRegistry;
+import com.uade.corehub.channels.ChannelRegistryProperties;
+import com.uade.corehub.config.PublishProperties;
+import com.uade.corehub.messaging.dto.MessageEnvelope;
+import com.uade.corehub.messaging.infrastructure.RabbitMQInfrastructureValidator;
+import com.uade.corehub.messaging.store.MessageBatchWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.connection.PublisherCallbackChannel;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pipeline de returns (mandatory) de RabbitTemplate.
+ * El callback corre en el hilo de I/O de AMQP, así que sólo encola (sin bloquear ni loguear);
+ * un hilo propio procesa en lotes:
+ * - cuenta los returns por canal (corehub.publisher.returns) y vence su validación de infraestructura
+ * - pasa a UNROUTABLE las filas de message_log de envíos sin publisher confirm
+ *   (con confirm el estado lo escribe PublisherConfirmTracker o el publicador)
+ * - opcionalmente estaciona el mensaje en holdingQueue; un job periódico lo re-envía a su
+ *   exchange/routing key original y, si vuelve a rebotar, regresa a la cola de espera
+ */
+@Slf4j
+@Component
+public class ReturnedMessageHandler {
+
+	static final String ORIGINAL_EXCHANGE = "x-original-exchange";
+	static final String ORIGINAL_ROUTING_KEY = "x-original-routing-key";
+	static final String ORIGINAL_MESSAGE_ID = "x-original-message-id";
+
+	private static final int DRAIN_BATCH = 500;
+	// Reintentos de una fila que todavía no existía cuando llegó el return (INSERT en vuelo)
+	private static final int MAX_MARK_ATTEMPTS = 5;
+
+	private final RabbitTemplate rabbitTemplate;
+	private final RabbitAdmin rabbitAdmin;
+	private final MessageConverter messageConverter;
+	private final MessageBatchWriter batchWriter;
+	private final ChannelRegistry channelRegistry;
+	private final PublisherConfirmTracker confirmTracker;
+	private final RabbitMQInfrastructureValidator infrastructureValidator;
+	private final PublishProperties.Returns props;
+	private final MeterRegistry meterRegistry;
+	private final BlockingQueue<ReturnedMessage> returned;
+	private final Counter dropped;
+	// Sólo los usa el hilo publisher-returns
+	private final Map<String, PendingMark> pendingMarks = new HashMap<>();
+	private final ScheduledExecutorService redelivery;
+	private volatile Thread drainer;
+	private volatile boolean holdingQueueDeclared;
+
+	public ReturnedMessageHandler(RabbitTemplate rabbitTemplate,
+								  RabbitAdmin rabbitAdmin,
+								  MessageConverter jacksonMessageConverter,
+								  MessageBatchWriter batchWriter,
+								  ChannelRegistry channelRegistry,
+								  PublisherConfirmTracker confirmTracker,
+								  RabbitMQInfrastructureValidator infrastructureValidator,
+								  PublishProperties publishProperties,
+								  MeterRegistry meterRegistry) {
+		this.rabbitTemplate = rabbitTemplate;
+		this.rabbitAdmin = rabbitAdmin;
+		this.messageConverter = jacksonMessageConverter;
+		this.batchWriter = batchWriter;
+		this.channelRegistry = channelRegistry;
+		this.confirmTracker = confirmTracker;
+		this.infrastructureValidator = infrastructureValidator;
+		this.props = publishProperties.getReturns();
+		this.meterRegistry = meterRegistry;
+		this.returned = new ArrayBlockingQueue<>(Math.max(1, props.getBufferSize()));
+		this.dropped = Counter.builder("corehub.publisher.returns.dropped")
+				.description("Returns descartados por buffer lleno")
+				.register(meterRegistry);
+		this.redelivery = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "unroutable-redelivery");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	@PostConstruct
+	void init() {
+		rabbitTemplate.setReturnsCallback(this::onReturn);
+		drainer = new Thread(this::drainLoop, "publisher-returns");
+		drainer.setDaemon(true);
+		drainer.start();
+		if (props.isParkEnabled()) {
+			long interval = Math.max(1_000, props.getRedeliveryInterval().toMillis());
+			redelivery.scheduleWithFixedDelay(this::redeliverSafely, interval, interval, TimeUnit.MILLISECONDS);
+			log.info("Unroutable messages will be parked in '{}' and redelivered every {}", props.getHoldingQueue(), props.getRedeliveryInterval());
+		}
+	}
+
+	@PreDestroy
+	void shutdown() {
+		redelivery.shutdownNow();
+		if (drainer != null) {
+			drainer.interrupt();
+		}
+	}
+
+	/**
+	 * Callback de RabbitTemplate (hilo de I/O): sólo encola
+	 */
+	private void onReturn(ReturnedMessage message) {
+		if (!returned.offer(message)) {
+			dropped.increment();
+		}
+	}
+
+	private void drainLoop() {
+		List<ReturnedMessage> batch = new ArrayList<>(DRAIN_BATCH);
+		while (!Thread.currentThread().isInterrupted()) {
+			try {
+				ReturnedMessage first = returned.poll(1, TimeUnit.SECONDS);
+				if (first != null) {
+					batch.add(first);
+					returned.drainTo(batch, DRAIN_BATCH - 1);
+					process(batch);
+				}
+				retryPendingMarks();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (Exception e) {
+				log.error("Failed to process returned messages: {}", e.getMessage(), e);
+			} finally {
+				batch.clear();
+			}
+		}
+	}
+
+	private void process(List<ReturnedMessage> batch) {
+		Map<String, String> untracked = new LinkedHashMap<>();
+		Map<String, Integer> byRoute = new LinkedHashMap<>();
+		Set<String> channels = new HashSet<>();
+		for (ReturnedMessage r : batch) {
+			String channel = channelOf(r.getExchange(), r.getRoutingKey());
+			channels.add(channel);
+			Counter.builder("corehub.publisher.returns")
+					.description("Mensajes devueltos por el broker (sin cola que los enrute)")
+					.tag("channel", channel)
+					.register(meterRegistry)
+					.increment();
+			byRoute.merge(r.getExchange() + "/" + r.getRoutingKey(), 1, Integer::sum);
+
+			String messageId = messageIdOf(r.getMessage());
+			// Con CorrelationData el resultado lo aplica quien esperaba el confirm
+			boolean tracked = r.getMessage().getMessageProperties()
+					.getHeader(PublisherCallbackChannel.RETURNED_MESSAGE_CORRELATION_KEY) != null;
+			if (messageId != null && !tracked) {
+				untracked.put(messageId, r.getReplyCode() + " " + r.getReplyText());
+			}
+			if (props.isParkEnabled()) {
+				park(r, messageId);
+			}
+		}
+		log.warn("{} message(s) returned as unroutable: {}", batch.size(), byRoute);
+		// La cola pudo haberse borrado: que el próximo publish no dependa de un resultado cacheado viejo
+		channels.forEach(infrastructureValidator::invalidate);
+		if (!untracked.isEmpty()) {
+			for (String missing : batchWriter.markUnroutable(untracked)) {
+				pendingMarks.put(missing, new PendingMark(untracked.get(missing), 1));
+			}
+		}
+	}
+
+	/**
+	 * El return puede llegar antes que el INSERT de la fila (group commit): se reintenta unas veces
+	 */
+	private void retryPendingMarks() {
+		if (pendingMarks.isEmpty()) {
+			return;
+		}
+		Map<String, String> retry = new LinkedHashMap<>();
+		pendingMarks.forEach((id, mark) -> retry.put(id, mark.error()));
+		var missing = batchWriter.markUnroutable(retry);
+		pendingMarks.keySet().removeIf(id -> !missing.contains(id));
+		pendingMarks.replaceAll((id, mark) -> new PendingMark(mark.error(), mark.attempts() + 1));
+		pendingMarks.values().removeIf(mark -> mark.attempts() >= MAX_MARK_ATTEMPTS);
+	}
+
+	private void park(ReturnedMessage r, String messageId) {
+		try {
+			Message parked = MessageBuilder.fromClonedMessage(r.getMessage())
+					.setHeader(ORIGINAL_EXCHANGE, r.getExchange())
+					.setHeader(ORIGINAL_ROUTING_KEY, r.getRoutingKey())
+					.setHeader(ORIGINAL_MESSAGE_ID, messageId)
+					.removeHeader(PublisherCallbackChannel.RETURNED_MESSAGE_CORRELATION_KEY)
+					.build();
+			rabbitTemplate.send("", holdingQueue(), parked);
+		} catch (Exception e) {
+			log.error("Failed to park unroutable message '{}': {}", messageId, e.getMessage());
+		}
+	}
+
+	private void redeliverSafely() {
+		try {
+			int redelivered = redeliver();
+			if (redelivered > 0) {
+				log.info("Redelivered {} parked message(s) from '{}'", redelivered, props.getHoldingQueue());
+			}
+		} catch (Exception e) {
+			log.error("Redelivery of parked messages failed: {}", e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Re-envía lo que hay en la cola de espera al iniciar la pasada; lo que vuelva a rebotar
+	 * se estaciona otra vez y se reintenta en la pasada siguiente
+	 */
+	int redeliver() {
+		Properties queue = rabbitAdmin.getQueueProperties(holdingQueue());
+		int pending = queue == null ? 0 : ((Number) queue.getOrDefault(RabbitAdmin.QUEUE_MESSAGE_COUNT, 0)).intValue();
+		int redelivered = 0;
+		for (int i = 0; i < pending; i++) {
+			Message parked = rabbitTemplate.receive(holdingQueue());
+			if (parked == null) {
+				break;
+			}
+			var headers = parked.getMessageProperties();
+			String exchange = headers.getHeader(ORIGINAL_EXCHANGE);
+			String routingKey = headers.getHeader(ORIGINAL_ROUTING_KEY);
+			String messageId = headers.getHeader(ORIGINAL_MESSAGE_ID);
+			Message message = MessageBuilder.fromClonedMessage(parked)
+					.removeHeader(ORIGINAL_EXCHANGE)
+					.removeHeader(ORIGINAL_ROUTING_KEY)
+					.removeHeader(ORIGINAL_MESSAGE_ID)
+					.build();
+			// Con confirms, el ack pasa la fila a PUBLISHED y un nuevo return la deja UNROUTABLE
+			if (messageId != null && confirmTracker.isEnabled()) {
+				CorrelationData correlation = confirmTracker.track(messageId);
+				try {
+					rabbitTemplate.send(exchange, routingKey, message, correlation);
+				} catch (Exception e) {
+					confirmTracker.cancel(messageId);
+					throw e;
+				}
+			} else {
+				rabbitTemplate.send(exchange, routingKey, message);
+				if (messageId != null) {
+					batchWriter.markPublished(List.of(messageId), OffsetDateTime.now());
+				}
+			}
+			redelivered++;
+		}
+		return redelivered;
+	}
+
+	private String holdingQueue() {
+		String name = props.getHoldingQueue();
+		if (!holdingQueueDeclared) {
+			rabbitAdmin.declareQueue(new Queue(name, true));
+			holdingQueueDeclared = true;
+		}
+		return name;
+	}
+
+	private String channelOf(String exchange, String routingKey) {
+		for (ChannelRegistryProperties.Channel channel : channelRegistry.getAllChannels().values()) {
+			if (channel.getExchange().equals(exchange) && channel.getRoutingKey().equals(routingKey)) {
+				return channel.getName();
+			}
+		}
+		return routingKey == null ? "unknown" : routingKey;
+	}
+
+	/**
+	 * messageId del envelope: el CorrelationData si el envío fue con confirm, si no el body
+	 */
+	private String messageIdOf(Message message) {
+		Object correlation = message.getMessageProperties().getHeader(PublisherCallbackChannel.RETURNED_MESSAGE_CORRELATION_KEY);
+		if (correlation != null) {
+			return correlation.toString();
+		}
+		try {
+			// Copia: el converter ajusta contentEncoding al descomprimir
+			Object body = messageConverter.fromMessage(MessageBuilder.fromClonedMessage(message).build());
+			return body instanceof MessageEnvelope env ? env.messageId() : null;
+		} catch (Exception e) {
+			log.debug("Returned message body is not an envelope: {}", e.getMessage());
+			return null;
+		}
+	}
+
+	private record PendingMark(String error, int attempts) {}
+}
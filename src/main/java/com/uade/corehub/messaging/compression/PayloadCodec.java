@@ -0,0 +1,99 @@
+package com.uade.corehub.messaging.compression;
+
+import com.github.luben.zstd.Zstd;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Algoritmos de compresión configurables por canal. El nombre de encoding es el que viaja en
+ * contentEncoding (AMQP), Content-Encoding (HTTP) y en payload_store.compression.
+ */
+public enum PayloadCodec {
+
+	NONE(null) {
+		@Override
+		byte[] compress(byte[] data) {
+			return data;
+		}
+
+		@Override
+		byte[] decompress(byte[] data) {
+			return data;
+		}
+	},
+
+	GZIP("gzip") {
+		@Override
+		byte[] compress(byte[] data) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+			try (GZIPOutputStream gzip = new GZIPOutputStream(out, 8192)) {
+				gzip.write(data);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return out.toByteArray();
+		}
+
+		@Override
+		byte[] decompress(byte[] data) {
+			try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(data), 8192)) {
+				return gzip.readAllBytes();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	},
+
+	ZSTD("zstd") {
+		@Override
+		byte[] compress(byte[] data) {
+			return Zstd.compress(data, ZSTD_LEVEL);
+		}
+
+		@Override
+		byte[] decompress(byte[] data) {
+			// Zstd.compress guarda el tamaño original en el frame
+			long size = Zstd.getFrameContentSize(data);
+			if (size < 0 || size > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("Invalid zstd frame (content size: " + size + ")");
+			}
+			return Zstd.decompress(data, (int) size);
+		}
+	};
+
+	private static final int ZSTD_LEVEL = 3;
+
+	private final String encoding;
+
+	PayloadCodec(String encoding) {
+		this.encoding = encoding;
+	}
+
+	public String encoding() {
+		return encoding;
+	}
+
+	abstract byte[] compress(byte[] data);
+
+	abstract byte[] decompress(byte[] data);
+
+	/**
+	 * @return el codec para un nombre de encoding, o null si no es uno de los soportados
+	 */
+	public static PayloadCodec fromEncoding(String encoding) {
+		if (encoding == null) {
+			return null;
+		}
+		for (PayloadCodec codec : values()) {
+			if (codec.encoding != null && codec.encoding.equalsIgnoreCase(encoding.trim())) {
+				return codec;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,87 @@
+package com.uade.corehub.messaging.compression;
+
+import com.uade.corehub.channels.ChannelRegistryProperties;
+import com.uade.corehub.messaging.dto.RawPayload;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compresión de payloads según la configuración del canal (compression + compressionThreshold).
+ * Registra el ratio obtenido por destino (amqp, storage, webhook) y el tiempo de
+ * cada operación, para poder decidir el codec de cada canal con datos.
+ */
+@Component
+@RequiredArgsConstructor
+public class PayloadCompressor {
+
+	public static final String TARGET_AMQP = "amqp";
+	public static final String TARGET_STORAGE = "storage";
+	public static final String TARGET_WEBHOOK = "webhook";
+	public static final String TARGET_ARCHIVE = "archive";
+
+	private final MeterRegistry meterRegistry;
+
+	/**
+	 * @return el codec a usar para un body de ese tamaño en el canal, o NONE si no corresponde comprimir
+	 */
+	public PayloadCodec codecFor(ChannelRegistryProperties.Channel channel, int size) {
+		if (channel == null || channel.getCompression() == null) {
+			return PayloadCodec.NONE;
+		}
+		return size >= channel.getCompressionThreshold() ? channel.getCompression() : PayloadCodec.NONE;
+	}
+
+	public byte[] compress(PayloadCodec codec, byte[] data, String target) {
+		if (codec == PayloadCodec.NONE) {
+			return data;
+		}
+		long start = System.nanoTime();
+		byte[] compressed = codec.compress(data);
+		timer(codec, "compress").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		DistributionSummary.builder("corehub.compression.ratio")
+				.description("Tamaño original / tamaño comprimido")
+				.tag("codec", codec.encoding())
+				.tag("target", target)
+				.register(meterRegistry)
+				.record(compressed.length == 0 ? 1.0 : (double) data.length / compressed.length);
+		return compressed;
+	}
+
+	public byte[] decompress(PayloadCodec codec, byte[] data) {
+		if (codec == PayloadCodec.NONE) {
+			return data;
+		}
+		long start = System.nanoTime();
+		byte[] plain = codec.decompress(data);
+		timer(codec, "decompress").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		return plain;
+	}
+
+	/**
+	 * Reconstruye el payload de una fila de payload_store (jsonb o variante comprimida)
+	 */
+	public RawPayload readStored(String json, byte[] compressed, String compression) {
+		if (compressed == null) {
+			return RawPayload.of(json);
+		}
+		PayloadCodec codec = PayloadCodec.fromEncoding(compression);
+		if (codec == null) {
+			throw new IllegalStateException("Unknown payload compression: " + compression);
+		}
+		return RawPayload.of(new String(decompress(codec, compressed), StandardCharsets.UTF_8));
+	}
+
+	private Timer timer(PayloadCodec codec, String operation) {
+		return Timer.builder("corehub.compression.time")
+				.description("Tiempo de compresión/descompresión de payloads (CPU-bound)")
+				.tag("codec", codec.encoding())
+				.tag("operation", operation)
+				.register(meterRegistry);
+	}
+}
@@ -0,0 +1,105 @@
+package com.uade.corehub.messaging.dispatcher;
+
+import com.uade.corehub.config.ClaimCheckProperties;
+import com.uade.corehub.messaging.compression.PayloadCompressor;
+import com.uade.corehub.messaging.dto.MessageEnvelope;
+import com.uade.corehub.messaging.dto.RawPayload;
+import com.uade.corehub.messaging.store.PayloadStore;
+import com.uade.corehub.messaging.store.PayloadStoreRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lee de payload_store los payloads que llegaron por claim-check (ver ClaimCheck).
+ * Se invoca sólo cuando hay suscripciones que reciben el mensaje; lo leído queda en un cache LRU
+ * acotado por tamaño, así una redelivery o un reintento no vuelven a la base.
+ */
+@Slf4j
+@Component
+public class ClaimCheckPayloadLoader {
+
+    private final PayloadStoreRepository payloadStoreRepository;
+    private final PayloadCompressor payloadCompressor;
+    private final ClaimCheckProperties props;
+    private final Timer fetchTimer;
+    private final LinkedHashMap<String, RawPayload> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private long cachedBytes;
+
+    public ClaimCheckPayloadLoader(PayloadStoreRepository payloadStoreRepository,
+                                   PayloadCompressor payloadCompressor,
+                                   ClaimCheckProperties props,
+                                   MeterRegistry meterRegistry) {
+        this.payloadStoreRepository = payloadStoreRepository;
+        this.payloadCompressor = payloadCompressor;
+        this.props = props;
+        this.fetchTimer = Timer.builder("corehub.claimcheck.fetch")
+                .description("Lecturas de payloads claim-check desde payload_store")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return el envelope con su payload; el mismo envelope si ya lo traía
+     * @throws AmqpRejectAndDontRequeueException si el payload no está en payload_store (va a la DLQ del canal, si tiene)
+     */
+    public MessageEnvelope resolve(MessageEnvelope envelope) {
+        if (envelope.payload() != null) {
+            return envelope;
+        }
+        RawPayload payload = load(envelope.messageId());
+        return new MessageEnvelope(envelope.messageId(), envelope.timestamp(), envelope.source(),
+                envelope.destination(), envelope.metadata(), payload);
+    }
+
+    private RawPayload load(String messageId) {
+        synchronized (cache) {
+            RawPayload cached = cache.get(messageId);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        long start = System.nanoTime();
+        // El relay (modo outbox) publica filas ya commiteadas: si no está, se perdió por retención
+        Optional<PayloadStore> row = payloadStoreRepository.findByMessageId(messageId);
+        fetchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (row.isEmpty()) {
+            log.error("Claim-check payload not found, rejecting message - MessageId: '{}'", messageId);
+            throw new AmqpRejectAndDontRequeueException("Claim-check payload not found for message " + messageId);
+        }
+
+        PayloadStore stored = row.get();
+        RawPayload payload = payloadCompressor.readStored(
+                stored.getPayload() == null ? null : stored.getPayload().json(),
+                stored.getPayloadCompressed(), stored.getCompression());
+        put(messageId, payload);
+        return payload;
+    }
+
+    private void put(String messageId, RawPayload payload) {
+        long size = payload.utf8Length();
+        if (size > props.getCacheSize()) {
+            return;
+        }
+        synchronized (cache) {
+            RawPayload previous = cache.put(messageId, payload);
+            if (previous != null) {
+                cachedBytes -= previous.utf8Length();
+            }
+            cachedBytes += size;
+            var it = cache.entrySet().iterator();
+            while (cachedBytes > props.getCacheSize() && it.hasNext()) {
+                Map.Entry<String, RawPayload> eldest = it.next();
+                cachedBytes -= eldest.getValue().utf8Length();
+                it.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.uade.corehub.messaging.dispatcher;
+
+import com.uade.corehub.messaging.dto.MessageEnvelope;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Component;
+
+/**
+ * Consume los reintentos vencidos (ver DeliveryRetryScheduler): un intento por mensaje contra la
+ * suscripción que falló; si vuelve a fallar se encola el siguiente reintento.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DeliveryRetryConsumer {
+
+    static final String LISTENER_ID = "delivery-retry";
+
+    private final WebhookDispatcherService dispatcherService;
+    private final DeliveryRetryScheduler retryScheduler;
+    private final RabbitListenerEndpointRegistry listenerRegistry;
+
+    /**
+     * La cola la declara RabbitMQInfrastructureInitializer al arrancar: el listener empieza después
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        MessageListenerContainer container = listenerRegistry.getListenerContainer(LISTENER_ID);
+        if (container != null && retryScheduler.isEnabled()) {
+            container.start();
+        }
+    }
+
+    @RabbitListener(id = LISTENER_ID, queues = "#{dispatchProperties.retry.dueQueue}", autoStartup = "false")
+    public void onRetry(MessageEnvelope envelope,
+                        @Header(DeliveryRetryScheduler.SUBSCRIPTION_HEADER) String subscriptionId,
+                        @Header(DeliveryRetryScheduler.ATTEMPT_HEADER) Integer failedAttempts,
+                        @Header(DeliveryRetryScheduler.FIRST_FAILED_AT_HEADER) Long firstFailedAt,
+                        @Header(name = DeliveryRetryScheduler.CORRELATION_HEADER, required = false) String correlationId) {
+        log.debug("Retrying webhook delivery subId={} msgId={} attempt={}", subscriptionId, envelope.messageId(), failedAttempts + 1);
+        dispatcherService.redeliver(subscriptionId, envelope, correlationId, failedAttempts, firstFailedAt);
+    }
+}
@@ -0,0 +1,150 @@
+package com.uade.corehub.messaging.dispatcher;
+
+import com.uade.corehub.config.DispatchProperties;
+import com.uade.corehub.messaging.dto.MessageEnvelope;
+import com.uade.corehub.messaging.store.Subscription;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reintentos de entregas fallidas desde el broker, sin ocupar hilos mientras se espera.
+ * El par (mensaje, suscripción) se publica en corehub.x.retry hacia la cola de espera de su demora
+ * (x-message-ttl + dead-letter, declaradas por RabbitMQInfrastructureInitializer); al vencer el TTL
+ * el broker lo pasa a la cola de reintentos vencidos que consume DeliveryRetryConsumer.
+ * <p>
+ * La demora crece exponencialmente con ±jitter y se aplica como expiration del mensaje dentro de la
+ * cola más chica que la contiene; como RabbitMQ expira sólo desde la cabeza de la cola, un reintento
+ * puede demorarse de más, como mucho, la demora de esa cola.
+ */
+@Slf4j
+@Component
+public class DeliveryRetryScheduler {
+
+    static final String SUBSCRIPTION_HEADER = "x-retry-subscription";
+    static final String ATTEMPT_HEADER = "x-retry-attempt";
+    static final String FIRST_FAILED_AT_HEADER = "x-retry-first-failed-at";
+    static final String CORRELATION_HEADER = "X-Correlation-Id";
+
+    private final RabbitTemplate rabbitTemplate;
+    private final DispatchProperties.Retry props;
+    private final List<Duration> delays;
+    private final MeterRegistry meterRegistry;
+
+    public DeliveryRetryScheduler(RabbitTemplate rabbitTemplate, DispatchProperties dispatchProperties, MeterRegistry meterRegistry) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.props = dispatchProperties.getRetry();
+        this.delays = props.getDelays().stream().filter(d -> d.toMillis() > 0).sorted().toList();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Resultado de pedir un reintento; salvo SCHEDULED, la entrega se estaciona con ese motivo
+     */
+    public enum Outcome {
+        SCHEDULED,
+        // Se superaría maxAge desde el primer fallo
+        EXHAUSTED,
+        // El broker no aceptó el reintento (nack, sin cola, timeout)
+        NOT_SCHEDULED,
+        DISABLED
+    }
+
+    public boolean isEnabled() {
+        return props.isEnabled() && !delays.isEmpty();
+    }
+
+    /**
+     * Encola el próximo reintento de una entrega fallida
+     * @param failedAttempts intentos fallidos hasta ahora (1 después del primero)
+     * @param firstFailedAt epoch millis del primer fallo
+     */
+    public Outcome schedule(MessageEnvelope envelope, Subscription subscription, String correlationId,
+                            int failedAttempts, long firstFailedAt) {
+        if (!isEnabled()) {
+            return Outcome.DISABLED;
+        }
+        long delayMs = nextDelay(failedAttempts);
+        if (System.currentTimeMillis() + delayMs - firstFailedAt > props.getMaxAge().toMillis()) {
+            count("exhausted");
+            log.warn("Retries exhausted for webhook subId={} msgId={} after {} attempt(s)",
+                    subscription.getId(), envelope.messageId(), failedAttempts);
+            return Outcome.EXHAUSTED;
+        }
+
+        Duration queueDelay = queueFor(delayMs);
+        String routingKey = props.routingKeyFor(queueDelay);
+        // Id propio: no choca con los messageId que sigue PublisherConfirmTracker (ignora los que no conoce)
+        CorrelationData correlation = new CorrelationData("retry:" + envelope.messageId() + ":" + subscription.getId() + ":" + failedAttempts);
+        try {
+            rabbitTemplate.convertAndSend(props.getExchange(), routingKey, envelope, m -> {
+                var headers = m.getMessageProperties();
+                headers.setHeader(SUBSCRIPTION_HEADER, subscription.getId());
+                headers.setHeader(ATTEMPT_HEADER, failedAttempts);
+                headers.setHeader(FIRST_FAILED_AT_HEADER, firstFailedAt);
+                if (correlationId != null) {
+                    headers.setHeader(CORRELATION_HEADER, correlationId);
+                }
+                headers.setExpiration(Long.toString(delayMs));
+                return m;
+            }, correlation);
+            CorrelationData.Confirm confirm = correlation.getFuture().get(props.getPublishTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            if (!confirm.isAck() || correlation.getReturned() != null) {
+                throw new IllegalStateException(correlation.getReturned() != null
+                        ? "retry queue '" + props.queueFor(queueDelay) + "' is not bound"
+                        : "broker nacked: " + confirm.getReason());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            count("failed");
+            return Outcome.NOT_SCHEDULED;
+        } catch (Exception e) {
+            count("failed");
+            log.error("Failed to schedule webhook retry subId={} msgId={} error={}",
+                    subscription.getId(), envelope.messageId(), e.toString());
+            return Outcome.NOT_SCHEDULED;
+        }
+        count("scheduled");
+        log.info("Scheduled webhook retry #{} subId={} msgId={} in {}ms", failedAttempts, subscription.getId(), envelope.messageId(), delayMs);
+        return Outcome.SCHEDULED;
+    }
+
+    /**
+     * initialDelay * multiplier^(intentos-1), acotado por la mayor demora, con ±jitter
+     */
+    long nextDelay(int failedAttempts) {
+        long max = delays.get(delays.size() - 1).toMillis();
+        double base = props.getInitialDelay().toMillis() * Math.pow(Math.max(1.0, props.getMultiplier()), Math.max(0, failedAttempts - 1));
+        double jitter = Math.min(1.0, Math.max(0.0, props.getJitter()));
+        double jittered = Math.min(base, max) * (1 + jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1));
+        return Math.max(1, Math.min(max, Math.round(jittered)));
+    }
+
+    /**
+     * La cola de espera más chica cuya demora cubre la del reintento
+     */
+    Duration queueFor(long delayMs) {
+        for (Duration delay : delays) {
+            if (delay.toMillis() >= delayMs) {
+                return delay;
+            }
+        }
+        return delays.get(delays.size() - 1);
+    }
+
+    private void count(String result) {
+        Counter.builder("corehub.dispatch.retries")
+                .description("Reintentos de webhooks: encolados, agotados (maxAge) o que no se pudieron encolar")
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+}
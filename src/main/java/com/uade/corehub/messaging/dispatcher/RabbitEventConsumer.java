@@ -1,32 +1,57 @@
 package com.uade.corehub.messaging.dispatcher;
 
 import com.uade.corehub.messaging.dto.MessageEnvelope;
+import com.uade.corehub.messaging.infrastructure.DeadLetterQueueService;
+import com.uade.corehub.messaging.store.MessageBatchWriter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
 
+import java.util.Map;
+
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class RabbitEventConsumer {
 
     private final WebhookDispatcherService dispatcherService;
+    private final DeadLetterQueueService deadLetterQueueService;
+    private final MessageBatchWriter batchWriter;
 
     // Listener genérico: una cola por canal (el nombre de la cola = nombre del canal)
     // Se podrían agregar más @RabbitListener si hay múltiples colas
     @RabbitListener(queues = "#{channelRegistry.getAllChannels().keySet().toArray(new String[0])}")
     public void onMessage(MessageEnvelope envelope,
-                          @Header(name = "X-Correlation-Id", required = false) String correlationId) {
+                          @Header(name = "X-Correlation-Id", required = false) String correlationId,
+                          @Header(name = AmqpHeaders.CONSUMER_QUEUE, required = false) String queue,
+                          @Header(name = AmqpHeaders.REDELIVERED, required = false) Boolean redelivered) {
         try {
             log.info("Received message for dispatch. messageId='{}' channel='{}'", envelope.messageId(), envelope.destination().channel());
             dispatcherService.dispatch(envelope, correlationId);
         } catch (Exception e) {
             log.error("Error processing message for dispatch msgId={} error={}", envelope.messageId(), e.toString(), e);
+            // Falló ya una vez (o se rechazó explícitamente): si el canal tiene DLQ el mensaje va ahí
+            // en vez de volver a la cola indefinidamente
+            boolean rejected = e instanceof AmqpRejectAndDontRequeueException;
+            if ((rejected || Boolean.TRUE.equals(redelivered))
+                    && queue != null && deadLetterQueueService.deadLetterQueueFor(queue).isPresent()) {
+                markDeadLettered(envelope, e);
+                throw rejected ? (AmqpRejectAndDontRequeueException) e
+                        : new AmqpRejectAndDontRequeueException("Dead-lettering message " + envelope.messageId(), e);
+            }
             throw e;
         }
     }
-}
-
 
+    private void markDeadLettered(MessageEnvelope envelope, Exception cause) {
+        try {
+            batchWriter.markDeadLettered(Map.of(envelope.messageId(), String.valueOf(cause.getMessage())));
+        } catch (Exception e) {
+            log.warn("Could not mark message '{}' as DLQ: {}", envelope.messageId(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.uade.corehub.messaging.dispatcher;
+
+import com.uade.corehub.config.DispatchProperties;
+import com.uade.corehub.messaging.store.Subscription;
+import com.uade.corehub.messaging.store.SubscriptionCircuitStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.ExchangeTypes;
+import org.springframework.amqp.rabbit.annotation.Exchange;
+import org.springframework.amqp.rabbit.annotation.Queue;
+import org.springframework.amqp.rabbit.annotation.QueueBinding;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Circuit breaker por suscripción.
+ * Cada nodo evalúa una ventana deslizante con los últimos resultados de entrega de cada suscripción;
+ * si la tasa de fallos supera el umbral el circuito se abre: la suscripción pasa a SUSPENDED con
+ * circuit_open_until y las entregas se difieren a reintentos sin llamar al webhook. Vencido ese plazo
+ * un único nodo toma la prueba (half-open) con la próxima entrega: si responde, la suscripción vuelve
+ * a ACTIVE; si no, el circuito sigue abierto otro período.
+ * <p>
+ * El estado vive en subscriptions (SubscriptionCircuitStore) y los cambios se avisan a los demás
+ * nodos por un exchange fanout, para que dejen de entregar (o reinicien su ventana) sin esperar a
+ * volver a leer la suscripción.
+ */
+@Slf4j
+@Component
+public class SubscriptionCircuitBreaker {
+
+    /**
+     * Resultado de pedir permiso para entregar
+     */
+    public enum Permit {
+        // Circuito cerrado: entrega normal, el resultado entra en la ventana
+        CLOSED,
+        // Prueba half-open: el resultado cierra el circuito o lo mantiene abierto
+        PROBE,
+        // Circuito abierto: no se llama al webhook
+        OPEN
+    }
+
+    private final DispatchProperties.Breaker props;
+    private final SubscriptionCircuitStore circuitStore;
+    private final RabbitTemplate rabbitTemplate;
+    private final MeterRegistry meterRegistry;
+    private final String node = UUID.randomUUID().toString();
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+    // Circuitos abiertos que conoce este nodo y hasta cuándo
+    private final Map<String, OffsetDateTime> openCircuits = new ConcurrentHashMap<>();
+    private final Counter rejected;
+
+    public SubscriptionCircuitBreaker(DispatchProperties dispatchProperties, SubscriptionCircuitStore circuitStore,
+                                      RabbitTemplate rabbitTemplate, MeterRegistry meterRegistry) {
+        this.props = dispatchProperties.getBreaker();
+        this.circuitStore = circuitStore;
+        this.rabbitTemplate = rabbitTemplate;
+        this.meterRegistry = meterRegistry;
+        this.rejected = Counter.builder("corehub.webhook.circuit.rejected")
+                .description("Entregas diferidas sin llamar al webhook por circuito abierto")
+                .register(meterRegistry);
+        Gauge.builder("corehub.webhook.circuit.open", openCircuits, Map::size)
+                .description("Suscripciones con el circuito abierto según este nodo")
+                .register(meterRegistry);
+        if (props.getMinimumCalls() > props.getWindowSize()) {
+            log.warn("Circuit breaker minimumCalls ({}) exceeds windowSize ({}), using windowSize",
+                    props.getMinimumCalls(), props.getWindowSize());
+        }
+    }
+
+    /**
+     * Suspendida por el breaker (y no manualmente): se le siguen difiriendo entregas y se la prueba
+     */
+    public static boolean isOpen(Subscription subscription) {
+        return subscription.getStatus() == Subscription.SubscriptionStatus.SUSPENDED && subscription.getCircuitOpenUntil() != null;
+    }
+
+    public Permit acquire(Subscription subscription) {
+        if (!props.isEnabled()) {
+            return Permit.CLOSED;
+        }
+        String id = subscription.getId();
+        OffsetDateTime openUntil = openCircuits.get(id);
+        if (openUntil == null && isOpen(subscription)) {
+            openUntil = subscription.getCircuitOpenUntil();
+            openCircuits.put(id, openUntil);
+        }
+        if (openUntil == null) {
+            return Permit.CLOSED;
+        }
+        if (OffsetDateTime.now().isBefore(openUntil)) {
+            rejected.increment();
+            return Permit.OPEN;
+        }
+
+        Optional<OffsetDateTime> probe = circuitStore.claimProbe(id, props.getOpenDuration());
+        if (probe.isPresent()) {
+            openCircuits.put(id, probe.get());
+            log.info("Probing webhook with open circuit subId={}", id);
+            return Permit.PROBE;
+        }
+        // Otro nodo tomó la prueba o ya cerró el circuito
+        Optional<OffsetDateTime> current = circuitStore.openUntil(id);
+        if (current.isEmpty()) {
+            openCircuits.remove(id);
+            return Permit.CLOSED;
+        }
+        openCircuits.put(id, current.get());
+        rejected.increment();
+        return Permit.OPEN;
+    }
+
+    /**
+     * Registra el resultado de una entrega hecha con el permiso de acquire
+     */
+    public void record(Subscription subscription, Permit permit, boolean success) {
+        if (!props.isEnabled() || permit == Permit.OPEN) {
+            return;
+        }
+        if (permit == Permit.PROBE) {
+            if (success) {
+                close(subscription);
+            } else {
+                transition("probe_failed");
+                log.warn("Webhook probe failed, circuit stays open subId={} until={}", subscription.getId(),
+                        openCircuits.get(subscription.getId()));
+            }
+            return;
+        }
+        Window window = windows.computeIfAbsent(subscription.getId(), id -> new Window(Math.max(1, props.getWindowSize())));
+        if (window.record(success, props.getMinimumCalls(), props.getFailureRateThreshold())) {
+            open(subscription);
+        }
+    }
+
+    /**
+     * Olvida el estado local de una suscripción en todos los nodos (su estado se cambió a mano)
+     */
+    public void reset(String subscriptionId) {
+        windows.remove(subscriptionId);
+        openCircuits.remove(subscriptionId);
+        broadcast(subscriptionId, null);
+    }
+
+    @RabbitListener(bindings = @QueueBinding(
+            value = @Queue,
+            exchange = @Exchange(name = "#{dispatchProperties.breaker.exchange}", type = ExchangeTypes.FANOUT)))
+    public void onStateChange(CircuitStateChange change) {
+        if (node.equals(change.node())) {
+            return;
+        }
+        windows.remove(change.subscriptionId());
+        if (change.openUntil() == null) {
+            openCircuits.remove(change.subscriptionId());
+        } else {
+            openCircuits.put(change.subscriptionId(), change.openUntil());
+        }
+        log.debug("Circuit state changed on another node subId={} openUntil={}", change.subscriptionId(), change.openUntil());
+    }
+
+    private void open(Subscription subscription) {
+        String id = subscription.getId();
+        windows.remove(id);
+        Optional<OffsetDateTime> openUntil = circuitStore.open(id, props.getOpenDuration());
+        if (openUntil.isEmpty()) {
+            // Ya lo abrió otro nodo, o la suscripción no está ACTIVE
+            circuitStore.openUntil(id).ifPresent(until -> openCircuits.put(id, until));
+            return;
+        }
+        openCircuits.put(id, openUntil.get());
+        subscription.setStatus(Subscription.SubscriptionStatus.SUSPENDED);
+        subscription.setCircuitOpenUntil(openUntil.get());
+        transition("open");
+        log.warn("Circuit opened, subscription suspended subId={} url={} until={} lastError={}",
+                id, subscription.getWebhookUrl(), openUntil.get(), subscription.getLastError());
+        broadcast(id, openUntil.get());
+    }
+
+    private void close(Subscription subscription) {
+        String id = subscription.getId();
+        windows.remove(id);
+        openCircuits.remove(id);
+        subscription.setStatus(Subscription.SubscriptionStatus.ACTIVE);
+        subscription.setCircuitOpenUntil(null);
+        if (circuitStore.close(id)) {
+            transition("closed");
+            log.info("Circuit closed, subscription reactivated subId={}", id);
+            broadcast(id, null);
+        }
+    }
+
+    private void broadcast(String subscriptionId, OffsetDateTime openUntil) {
+        try {
+            // Con CorrelationData propio: un return no se confunde con un mensaje de canal
+            rabbitTemplate.convertAndSend(props.getExchange(), "", new CircuitStateChange(subscriptionId, openUntil, node),
+                    new CorrelationData("breaker:" + subscriptionId + ":" + UUID.randomUUID()));
+        } catch (Exception e) {
+            // Los demás nodos lo ven igual al leer la suscripción o al intentar la prueba
+            log.warn("Could not broadcast circuit state subId={} error={}", subscriptionId, e.toString());
+        }
+    }
+
+    private void transition(String state) {
+        Counter.builder("corehub.webhook.circuit.transitions")
+                .description("Cambios de estado del circuit breaker de suscripciones")
+                .tag("state", state)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Aviso entre nodos; openUntil null = circuito cerrado
+     */
+    public record CircuitStateChange(String subscriptionId, OffsetDateTime openUntil, String node) {}
+
+    /**
+     * Últimos N resultados de una suscripción (buffer circular)
+     */
+    private static final class Window {
+
+        private final boolean[] failures;
+        private int next;
+        private int size;
+        private int failed;
+
+        Window(int size) {
+            this.failures = new boolean[size];
+        }
+
+        /**
+         * @return true si con este resultado la tasa de fallos alcanza el umbral
+         */
+        synchronized boolean record(boolean success, int minimumCalls, double failureRateThreshold) {
+            if (size == failures.length) {
+                if (failures[next]) {
+                    failed--;
+                }
+            } else {
+                size++;
+            }
+            failures[next] = !success;
+            if (!success) {
+                failed++;
+            }
+            next = (next + 1) % failures.length;
+            // minimumCalls mayor que la ventana no se alcanzaría nunca: se acota al tamaño de la ventana
+            int required = Math.min(failures.length, Math.max(1, minimumCalls));
+            return !success && size >= required && failed * 100.0 / size >= failureRateThreshold;
+        }
+    }
+}
@@ -1,19 +1,28 @@
 package com.uade.corehub.messaging.dispatcher;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.uade.corehub.messaging.SubscriptionService;
+import com.uade.corehub.messaging.compression.PayloadCodec;
+import com.uade.corehub.messaging.compression.PayloadCompressor;
 import com.uade.corehub.messaging.dto.MessageEnvelope;
+import com.uade.corehub.messaging.store.ParkingLotStore;
 import com.uade.corehub.messaging.store.Subscription;
+import com.uade.corehub.messaging.store.SubscriptionCircuitStore;
 import com.uade.corehub.channels.ChannelRegistry;
 import com.uade.corehub.channels.ChannelRegistryProperties;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.MediaType;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
 import java.util.List;
-import org.springframework.transaction.annotation.Transactional;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
 import com.uade.corehub.messaging.store.SubscriptionRepository;
 
 @Slf4j
@@ -22,17 +31,29 @@ import com.uade.corehub.messaging.store.SubscriptionRepository;
 public class WebhookDispatcherService {
 
     private final SubscriptionService subscriptionService;
-    private final RestTemplate webhookRestTemplate;
+    private final WebhookHttpClient webhookHttpClient;
     private final SubscriptionRepository subscriptionRepository;
     private final ChannelRegistry channelRegistry;
+    private final ObjectMapper objectMapper;
+    private final PayloadCompressor payloadCompressor;
+    private final ClaimCheckPayloadLoader claimCheckPayloadLoader;
+    private final WebhookFanOut webhookFanOut;
+    private final DeliveryRetryScheduler retryScheduler;
+    private final ParkingLotStore parkingLotStore;
+    private final SubscriptionCircuitBreaker circuitBreaker;
+    private final SubscriptionCircuitStore circuitStore;
+
+    /**
+     * Resultado de un intento de entrega
+     */
+    private enum Delivery { DELIVERED, FAILED, CIRCUIT_OPEN }
 
     public void dispatch(MessageEnvelope envelope, String correlationId) {
         String channelName = envelope.destination().channel();
         String eventName = envelope.destination().eventName();
 
-        String topic = channelRegistry.find(channelName)
-                .map(ChannelRegistryProperties.Channel::getRoutingKey)
-                .orElse(null);
+        ChannelRegistryProperties.Channel channel = channelRegistry.find(channelName).orElse(null);
+        String topic = channel == null ? null : channel.getRoutingKey();
         if (topic == null) {
             log.warn("Channel '{}' not found in registry; skipping dispatch for messageId='{}'", channelName, envelope.messageId());
             return;
@@ -46,59 +67,198 @@ public class WebhookDispatcherService {
 
         log.info("Dispatching messageId='{}' to {} webhook(s)", envelope.messageId(), targets.size());
 
-        for (Subscription sub : targets) {
-            sendToWebhook(sub, envelope, correlationId);
+        // Claim-check: el payload se lee de payload_store recién ahora que hay a quién entregarlo
+        envelope = claimCheckPayloadLoader.resolve(envelope);
+
+        // El body se serializa una sola vez y se reutiliza para todos los suscriptores
+        // (el payload viaja como RawPayload, sin re-parsear)
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(envelope);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize envelope for dispatch msgId={} error={}", envelope.messageId(), e.toString());
+            return;
+        }
+
+        // Versión gzip (una sola vez) para los suscriptores que la aceptan, si se supera el umbral del canal
+        byte[] gzipBody = null;
+        if (body.length >= channel.getCompressionThreshold() && targets.stream().anyMatch(s -> Boolean.TRUE.equals(s.getAcceptGzip()))) {
+            gzipBody = payloadCompressor.compress(PayloadCodec.GZIP, body, PayloadCompressor.TARGET_WEBHOOK);
+        }
+
+        // En paralelo (WebhookFanOut): el listener vuelve, y el mensaje se confirma, con todas las entregas resueltas
+        MessageEnvelope delivered = envelope;
+        byte[] plain = body;
+        byte[] gzipped = gzipBody;
+        int ok = webhookFanOut.deliverAll(targets, sub -> {
+            SubscriptionCircuitBreaker.Permit permit = circuitBreaker.acquire(sub);
+            if (permit == SubscriptionCircuitBreaker.Permit.OPEN) {
+                // Circuito abierto: sin llamar al webhook, directo a reintento (o al parking lot)
+                retryOrPark(sub, delivered, correlationId, 1, System.currentTimeMillis(), true);
+                return false;
+            }
+            boolean gzip = gzipped != null && Boolean.TRUE.equals(sub.getAcceptGzip());
+            if (sendToWebhook(sub, permit, delivered, gzip ? gzipped : plain, gzip, correlationId)) {
+                return true;
+            }
+            // Sólo esta suscripción se reintenta, desde el broker (DeliveryRetryScheduler)
+            retryOrPark(sub, delivered, correlationId, 1, System.currentTimeMillis(), false);
+            return false;
+        });
+        if (ok < targets.size()) {
+            log.warn("Delivered messageId='{}' to {}/{} webhook(s)", envelope.messageId(), ok, targets.size());
         }
     }
 
-    private void sendToWebhook(Subscription subscription, MessageEnvelope envelope, String correlationId) {
-        String url = subscription.getWebhookUrl();
+    /**
+     * Entrega un envelope a una única suscripción (usado por el replay), sin evaluar el matching
+     * ni encolar reintentos: el replay cuenta el fallo
+     * @return true si el webhook respondió OK; false también si el circuito de la suscripción está abierto
+     */
+    public boolean dispatchTo(Subscription subscription, MessageEnvelope envelope, String correlationId) {
+        return deliver(subscription, envelope, correlationId) == Delivery.DELIVERED;
+    }
 
+    private Delivery deliver(Subscription subscription, MessageEnvelope envelope, String correlationId) {
+        SubscriptionCircuitBreaker.Permit permit = circuitBreaker.acquire(subscription);
+        if (permit == SubscriptionCircuitBreaker.Permit.OPEN) {
+            log.debug("Skipping webhook with open circuit subId={} msgId={}", subscription.getId(), envelope.messageId());
+            return Delivery.CIRCUIT_OPEN;
+        }
+        envelope = claimCheckPayloadLoader.resolve(envelope);
+        ChannelRegistryProperties.Channel channel = channelRegistry.find(envelope.destination().channel()).orElse(null);
+        byte[] body;
         try {
-            org.springframework.http.HttpHeaders headers = new org.springframework.http.HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.add("X-Correlation-Id", correlationId == null ? "" : correlationId);
-            headers.add("X-Subscription-Id", subscription.getId());
-
-            org.springframework.http.HttpEntity<MessageEnvelope> entity = new org.springframework.http.HttpEntity<>(envelope, headers);
-
-            // Intento simple + reintentos básicos
-            int maxRetries = 3;
-            int attempt = 0;
-            while (true) {
-                try {
-                    attempt++;
-                    webhookRestTemplate.postForEntity(url, entity, Void.class);
-                    updateSuccess(subscription);
-                    break;
-                } catch (Exception ex) {
-                    if (attempt >= maxRetries) {
-                        updateFailure(subscription, ex, envelope, url);
-                        break;
-                    }
-                    log.warn("Retrying webhook {} attempt={}", url, attempt);
-                    try { Thread.sleep(300L * attempt); } catch (InterruptedException ignored) {}
-                }
-            }
+            body = objectMapper.writeValueAsBytes(envelope);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize envelope for dispatch msgId={} error={}", envelope.messageId(), e.toString());
+            return Delivery.FAILED;
+        }
+        boolean gzip = channel != null && Boolean.TRUE.equals(subscription.getAcceptGzip())
+                && body.length >= channel.getCompressionThreshold();
+        if (gzip) {
+            body = payloadCompressor.compress(PayloadCodec.GZIP, body, PayloadCompressor.TARGET_WEBHOOK);
+        }
+        return sendToWebhook(subscription, permit, envelope, body, gzip, correlationId) ? Delivery.DELIVERED : Delivery.FAILED;
+    }
 
+    /**
+     * Entrega un envelope a una URL arbitraria (redrive del parking lot hacia otro destino), sin
+     * gzip ni tocar las estadísticas de ninguna suscripción
+     * @return true si el webhook respondió OK
+     */
+    public boolean dispatchToUrl(String url, String subscriptionId, MessageEnvelope envelope, String correlationId) {
+        envelope = claimCheckPayloadLoader.resolve(envelope);
+        try {
+            post(url, subscriptionId, objectMapper.writeValueAsBytes(envelope), false, correlationId);
+            return true;
         } catch (Exception ex) {
-            updateFailure(subscription, ex, envelope, url);
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            log.warn("Webhook delivery failed url={} msgId={} error={}", url, envelope.messageId(), cause.toString());
+            return false;
+        }
+    }
+
+    /**
+     * Reintento de una entrega fallida (DeliveryRetryConsumer): un intento y, si falla, el próximo reintento
+     * @param failedAttempts intentos fallidos antes de éste
+     * @param firstFailedAt epoch millis del primer fallo
+     */
+    public void redeliver(String subscriptionId, MessageEnvelope envelope, String correlationId,
+                          int failedAttempts, long firstFailedAt) {
+        Subscription subscription = subscriptionRepository.findById(subscriptionId).orElse(null);
+        if (subscription == null) {
+            log.info("Dropping webhook retry for msgId='{}': subscription '{}' is gone", envelope.messageId(), subscriptionId);
+            return;
+        }
+        if (subscription.getStatus() != Subscription.SubscriptionStatus.ACTIVE && !SubscriptionCircuitBreaker.isOpen(subscription)) {
+            // Inactiva o suspendida a mano: se conserva para re-enviarla si la suscripción vuelve a activarse
+            park(subscription, envelope, correlationId, failedAttempts, "SUBSCRIPTION_" + subscription.getStatus(), firstFailedAt);
+            return;
+        }
+        Delivery delivery = deliver(subscription, envelope, correlationId);
+        if (delivery != Delivery.DELIVERED) {
+            retryOrPark(subscription, envelope, correlationId, failedAttempts + 1, firstFailedAt, delivery == Delivery.CIRCUIT_OPEN);
+        }
+    }
+
+    /**
+     * Encola el próximo reintento; si no hay (agotados, deshabilitados o el broker no lo aceptó)
+     * la entrega va al parking lot
+     * @param circuitOpen no se intentó por circuito abierto (es el motivo si se estaciona sin agotar los reintentos)
+     */
+    private void retryOrPark(Subscription subscription, MessageEnvelope envelope, String correlationId,
+                             int failedAttempts, long firstFailedAt, boolean circuitOpen) {
+        DeliveryRetryScheduler.Outcome outcome = retryScheduler.schedule(envelope, subscription, correlationId, failedAttempts, firstFailedAt);
+        if (outcome != DeliveryRetryScheduler.Outcome.SCHEDULED) {
+            String reason = circuitOpen && outcome != DeliveryRetryScheduler.Outcome.EXHAUSTED ? "CIRCUIT_OPEN" : outcome.name();
+            park(subscription, envelope, correlationId, failedAttempts, reason, firstFailedAt);
+        }
+    }
+
+    private void park(Subscription subscription, MessageEnvelope envelope, String correlationId,
+                      int failedAttempts, String reason, long firstFailedAt) {
+        try {
+            parkingLotStore.park(envelope, subscription, correlationId, failedAttempts, reason, subscription.getLastError(),
+                    OffsetDateTime.ofInstant(Instant.ofEpochMilli(firstFailedAt), ZoneOffset.UTC));
+            log.warn("Parked webhook delivery subId={} msgId={} after {} attempt(s) reason={}",
+                    subscription.getId(), envelope.messageId(), failedAttempts, reason);
+        } catch (Exception e) {
+            log.error("Giving up webhook delivery subId={} msgId={} after {} attempt(s), could not park it: {}",
+                    subscription.getId(), envelope.messageId(), failedAttempts, e.toString());
+        }
+    }
+
+    /**
+     * Un único intento; los reintentos esperan en el broker y no en este hilo
+     */
+    private boolean sendToWebhook(Subscription subscription, SubscriptionCircuitBreaker.Permit permit, MessageEnvelope envelope,
+                                  byte[] body, boolean gzip, String correlationId) {
+        String url = subscription.getWebhookUrl();
+
+        boolean success;
+        try {
+            post(url, subscription.getId(), body, gzip, correlationId);
+            updateSuccess(subscription);
+            success = true;
+        } catch (Exception ex) {
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            updateFailure(subscription, cause, envelope, url);
+            success = false;
+        }
+        circuitBreaker.record(subscription, permit, success);
+        return success;
+    }
+
+    private void post(String url, String subscriptionId, byte[] body, boolean gzip, String correlationId) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("X-Correlation-Id", correlationId == null ? "" : correlationId);
+        if (subscriptionId != null) {
+            headers.put("X-Subscription-Id", subscriptionId);
+        }
+        if (gzip) {
+            headers.put(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        // Conexión del pool de WebhookHttpClient; la espera ocupa sólo esta virtual thread
+        WebhookHttpClient.WebhookResponse response = webhookHttpClient.post(url, headers, body).join();
+        if (!response.isSuccess()) {
+            throw new IllegalStateException("Webhook responded HTTP " + response.status());
         }
     }
 
-    @Transactional
-    protected void updateSuccess(Subscription subscription) {
+    // Sólo las columnas de estadísticas: guardar la entidad pisaría el estado del circuit breaker
+    private void updateSuccess(Subscription subscription) {
         subscription.setFailedAttempts(0);
         subscription.setLastError(null);
         subscription.setLastSuccessfulDelivery(OffsetDateTime.now());
-        subscriptionRepository.save(subscription);
+        circuitStore.recordSuccess(subscription.getId());
     }
 
-    @Transactional
-    protected void updateFailure(Subscription subscription, Throwable ex, MessageEnvelope envelope, String url) {
+    private void updateFailure(Subscription subscription, Throwable ex, MessageEnvelope envelope, String url) {
         subscription.setFailedAttempts(subscription.getFailedAttempts() + 1);
         subscription.setLastError(ex.getMessage());
-        subscriptionRepository.save(subscription);
+        circuitStore.recordFailure(subscription.getId(), ex.getMessage());
         log.error("Webhook delivery failed url={} subId={} msgId={} error={}", url, subscription.getId(), envelope.messageId(), ex.toString());
     }
 }
@@ -0,0 +1,81 @@
+package com.uade.corehub.messaging.dispatcher;
+
+import com.uade.corehub.config.DispatchProperties;
+import com.uade.corehub.messaging.store.Subscription;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Predicate;
+
+/**
+ * Fan-out de un mensaje a sus suscripciones en paralelo, una virtual thread por entrega.
+ * Como mucho corehub.dispatch.max-concurrency entregas a la vez por mensaje; el hilo del listener
+ * espera a que todas terminen, así el mensaje AMQP se confirma recién con todas resueltas y su
+ * latencia es la del suscriptor más lento, no la suma de todos.
+ */
+@Slf4j
+@Component
+public class WebhookFanOut {
+
+    private final DispatchProperties props;
+    private final ExecutorService executor;
+    private final Timer fanOutTimer;
+
+    public WebhookFanOut(DispatchProperties props, MeterRegistry meterRegistry) {
+        this.props = props;
+        ThreadFactory factory = Thread.ofVirtual().name("webhook-", 0).factory();
+        this.executor = Executors.newThreadPerTaskExecutor(factory);
+        this.fanOutTimer = Timer.builder("corehub.dispatch.fanout")
+                .description("Duración de la entrega de un mensaje a todas sus suscripciones")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Entrega a todas las suscripciones y espera los resultados
+     * @param delivery entrega a una suscripción; true si el webhook respondió OK
+     * @return cantidad de entregas exitosas
+     */
+    public int deliverAll(List<Subscription> targets, Predicate<Subscription> delivery) {
+        if (targets.size() == 1) {
+            return delivery.test(targets.get(0)) ? 1 : 0;
+        }
+        return fanOutTimer.record(() -> {
+            Semaphore permits = new Semaphore(Math.max(1, props.getMaxConcurrency()));
+            List<CompletableFuture<Boolean>> outcomes = new ArrayList<>(targets.size());
+            for (Subscription sub : targets) {
+                permits.acquireUninterruptibly();
+                try {
+                    outcomes.add(CompletableFuture.supplyAsync(() -> {
+                        try {
+                            return delivery.test(sub);
+                        } catch (Exception e) {
+                            log.error("Webhook delivery crashed subId={} error={}", sub.getId(), e.toString(), e);
+                            return false;
+                        } finally {
+                            permits.release();
+                        }
+                    }, executor));
+                } catch (RuntimeException e) {
+                    permits.release();
+                    throw e;
+                }
+            }
+            return (int) outcomes.stream().filter(CompletableFuture::join).count();
+        });
+    }
+}
@@ -0,0 +1,217 @@
+package com.uade.corehub.messaging.dispatcher;
+
+import com.uade.corehub.config.DispatchProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.async.AsyncExecChainHandler;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.ChainElement;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.ssl.ClientTlsStrategyBuilder;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.ProtocolVersion;
+import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.net.NamedEndpoint;
+import org.apache.hc.core5.reactor.ssl.TransportSecurityLayer;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.stereotype.Component;
+
+import java.net.SocketAddress;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cliente HTTP de los webhooks (Apache HttpClient 5 asíncrono).
+ * Un pool de conexiones con límite por host y keep-alive, así las entregas a un mismo suscriptor
+ * reutilizan conexiones (y handshakes TLS) en lugar de abrir una por request; con suscriptores https
+ * que lo soportan se negocia HTTP/2 por ALPN y los requests se multiplexan sobre una conexión.
+ * El envío devuelve un future: ningún hilo queda tomado mientras el suscriptor responde.
+ * <p>
+ * Métricas: ocupación del pool (httpcomponents.httpclient.pool.*{httpclient=webhooks}), espera por
+ * una conexión (corehub.webhook.connection.acquire), handshakes TLS (corehub.webhook.tls.handshakes)
+ * y requests por protocolo y resultado (corehub.webhook.request).
+ */
+@Slf4j
+@Component
+public class WebhookHttpClient {
+
+    private static final String ACQUIRE_STARTED = WebhookHttpClient.class.getName() + ".acquireStarted";
+
+    private final CloseableHttpAsyncClient client;
+    private final MeterRegistry meterRegistry;
+    private final Timer acquireTimer;
+    private final Counter handshakes;
+
+    public WebhookHttpClient(DispatchProperties dispatchProperties, MeterRegistry meterRegistry) {
+        DispatchProperties.Http props = dispatchProperties.getHttp();
+        this.meterRegistry = meterRegistry;
+        this.acquireTimer = Timer.builder("corehub.webhook.connection.acquire")
+                .description("Espera por una conexión a un webhook: libre del pool o nueva (connect + TLS)")
+                .register(meterRegistry);
+        this.handshakes = Counter.builder("corehub.webhook.tls.handshakes")
+                .description("Handshakes TLS con suscriptores (conexiones https nuevas)")
+                .register(meterRegistry);
+
+        PoolingAsyncClientConnectionManager connectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
+                .setMaxConnPerRoute(Math.max(1, props.getMaxConnectionsPerHost()))
+                .setMaxConnTotal(Math.max(1, props.getMaxConnections()))
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(props.getConnectTimeout()))
+                        .setTimeToLive(TimeValue.of(props.getConnectionTtl()))
+                        .build())
+                .setDefaultTlsConfig(TlsConfig.custom()
+                        .setVersionPolicy(props.isHttp2() ? HttpVersionPolicy.NEGOTIATE : HttpVersionPolicy.FORCE_HTTP_1)
+                        .build())
+                .setTlsStrategy(new CountingTlsStrategy(ClientTlsStrategyBuilder.create().useSystemProperties().buildAsync(), handshakes))
+                // HTTP/2: los requests a un host comparten la conexión abierta en vez de tomar otra del pool
+                .setMessageMultiplexing(props.isHttp2())
+                .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "webhooks").bindTo(meterRegistry);
+
+        this.client = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(props.getPoolTimeout()))
+                        .setResponseTimeout(Timeout.of(props.getResponseTimeout()))
+                        .setDefaultKeepAlive(props.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS)
+                        .build())
+                .evictIdleConnections(TimeValue.of(props.getIdleTimeout()))
+                // Los reintentos los maneja el dispatcher; un POST no se reenvía solo
+                .disableAutomaticRetries()
+                .disableRedirectHandling()
+                .disableCookieManagement()
+                .addExecInterceptorBefore(ChainElement.CONNECT.name(), "acquire-start", acquireStart())
+                .addExecInterceptorAfter(ChainElement.CONNECT.name(), "acquire-end", acquireEnd())
+                .build();
+        this.client.start();
+        log.info("Webhook HTTP client started - MaxPerHost: {}, MaxTotal: {}, HTTP/2: {}",
+                props.getMaxConnectionsPerHost(), props.getMaxConnections(), props.isHttp2());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        client.close(CloseMode.GRACEFUL);
+    }
+
+    /**
+     * POST de un body JSON a un webhook
+     * @param headers headers adicionales (correlación, suscripción, Content-Encoding)
+     * @return future con el status y el protocolo de la respuesta; falla si no hubo respuesta
+     * (conexión, timeout, pool agotado)
+     */
+    public CompletableFuture<WebhookResponse> post(String url, Map<String, String> headers, byte[] body) {
+        SimpleRequestBuilder builder = SimpleRequestBuilder.post(url).setBody(body, ContentType.APPLICATION_JSON);
+        headers.forEach(builder::addHeader);
+        SimpleHttpRequest request = builder.build();
+
+        CompletableFuture<WebhookResponse> result = new CompletableFuture<>();
+        long start = System.nanoTime();
+        client.execute(request, new FutureCallback<>() {
+            @Override
+            public void completed(SimpleHttpResponse response) {
+                WebhookResponse outcome = new WebhookResponse(response.getCode(), protocolOf(response.getVersion()));
+                record(start, outcome.protocol(), outcome.statusClass());
+                result.complete(outcome);
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                record(start, "none", "error");
+                result.completeExceptionally(ex);
+            }
+
+            @Override
+            public void cancelled() {
+                record(start, "none", "error");
+                result.cancel(false);
+            }
+        });
+        return result;
+    }
+
+    private void record(long start, String protocol, String status) {
+        Timer.builder("corehub.webhook.request")
+                .description("Requests a webhooks por protocolo negociado y resultado")
+                .tag("protocol", protocol)
+                .tag("status", status)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private static String protocolOf(ProtocolVersion version) {
+        return version == null ? "unknown" : version.format();
+    }
+
+    private AsyncExecChainHandler acquireStart() {
+        return (request, entityProducer, scope, chain, callback) -> {
+            scope.clientContext.setAttribute(ACQUIRE_STARTED, System.nanoTime());
+            chain.proceed(request, entityProducer, scope, callback);
+        };
+    }
+
+    private AsyncExecChainHandler acquireEnd() {
+        return (request, entityProducer, scope, chain, callback) -> {
+            // Después de CONNECT el request ya tiene conexión: la del pool, la multiplexada o una recién abierta
+            if (scope.clientContext.getAttribute(ACQUIRE_STARTED) instanceof Long started) {
+                acquireTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            }
+            chain.proceed(request, entityProducer, scope, callback);
+        };
+    }
+
+    /**
+     * Respuesta de un webhook. Como con RestTemplate, sólo 4xx/5xx cuentan como fallo.
+     */
+    public record WebhookResponse(int status, String protocol) {
+
+        public boolean isSuccess() {
+            return status < 400;
+        }
+
+        String statusClass() {
+            return (status / 100) + "xx";
+        }
+    }
+
+    /**
+     * Cuenta los handshakes TLS; el resto lo resuelve la estrategia por defecto
+     */
+    private record CountingTlsStrategy(TlsStrategy delegate, Counter handshakes) implements TlsStrategy {
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public boolean upgrade(TransportSecurityLayer sessionLayer, HttpHost host, SocketAddress localAddress,
+                               SocketAddress remoteAddress, Object attachment, Timeout handshakeTimeout) {
+            boolean upgraded = delegate.upgrade(sessionLayer, host, localAddress, remoteAddress, attachment, handshakeTimeout);
+            if (upgraded) {
+                handshakes.increment();
+            }
+            return upgraded;
+        }
+
+        @Override
+        public void upgrade(TransportSecurityLayer sessionLayer, NamedEndpoint endpoint, Object attachment,
+                            Timeout handshakeTimeout, FutureCallback<TransportSecurityLayer> callback) {
+            handshakes.increment();
+            delegate.upgrade(sessionLayer, endpoint, attachment, handshakeTimeout, callback);
+        }
+    }
+}
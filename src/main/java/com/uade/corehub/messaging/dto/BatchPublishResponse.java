@@ -0,0 +1,36 @@
+package com.uade.corehub.messaging.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * Respuesta del endpoint POST /publish/batch
+ * Los resultados respetan el orden de los envelopes recibidos
+ */
+@Schema(description = "Resumen y estado por mensaje de una publicación por lotes")
+public record BatchPublishResponse(
+    @Schema(description = "Cantidad de envelopes recibidos", example = "500")
+    int total,
+
+    @Schema(description = "Cantidad publicada en el broker o encolada en el outbox", example = "498")
+    long accepted,
+
+    @Schema(description = "Cantidad descartada por idempotencia", example = "2")
+    long duplicates,
+
+    @Schema(description = "Cantidad inválida, rechazada o fallida", example = "0")
+    long errors,
+
+    @Schema(description = "Estado por mensaje, en el orden recibido")
+    List<BatchPublishResult> results
+) {
+    public static BatchPublishResponse of(List<BatchPublishResult> results) {
+        long accepted = results.stream()
+                .filter(r -> "PUBLISHED".equals(r.status()) || "ACCEPTED".equals(r.status()))
+                .count();
+        long duplicates = results.stream().filter(r -> "DUPLICATE".equals(r.status())).count();
+        return new BatchPublishResponse(results.size(), accepted, duplicates,
+                results.size() - accepted - duplicates, results);
+    }
+}
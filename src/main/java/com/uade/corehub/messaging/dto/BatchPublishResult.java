@@ -0,0 +1,52 @@
+package com.uade.corehub.messaging.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Resultado de publicación de un envelope dentro de un lote
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Resultado por mensaje de un POST /publish/batch")
+public record BatchPublishResult(
+    @Schema(description = "messageId del envelope", example = "msg-001")
+    String messageId,
+
+    @Schema(description = "PUBLISHED, PUBLISHING (confirm pendiente), UNROUTABLE, ACCEPTED (outbox), DUPLICATE, INVALID, REJECTED o FAILED", example = "PUBLISHED")
+    String status,
+
+    @Schema(description = "Detalle del error, si aplica")
+    String error
+) {
+    public static BatchPublishResult published(String messageId) {
+        return new BatchPublishResult(messageId, "PUBLISHED", null);
+    }
+
+    public static BatchPublishResult publishing(String messageId) {
+        return new BatchPublishResult(messageId, "PUBLISHING", null);
+    }
+
+    public static BatchPublishResult unroutable(String messageId, String error) {
+        return new BatchPublishResult(messageId, "UNROUTABLE", error);
+    }
+
+    public static BatchPublishResult accepted(String messageId) {
+        return new BatchPublishResult(messageId, "ACCEPTED", null);
+    }
+
+    public static BatchPublishResult duplicate(String messageId) {
+        return new BatchPublishResult(messageId, "DUPLICATE", null);
+    }
+
+    public static BatchPublishResult invalid(String messageId, String error) {
+        return new BatchPublishResult(messageId, "INVALID", error);
+    }
+
+    public static BatchPublishResult rejected(String messageId, String error) {
+        return new BatchPublishResult(messageId, "REJECTED", error);
+    }
+
+    public static BatchPublishResult failed(String messageId, String error) {
+        return new BatchPublishResult(messageId, "FAILED", error);
+    }
+}
@@ -11,7 +11,7 @@ public record MessageEnvelope(
 	@NotBlank String source,
 	@Valid @NotNull Destination destination,
 	Map<String, String> metadata,
-	@NotNull Object payload
+	@NotNull RawPayload payload
 ) {
 	public record Destination(
 		@NotBlank String channel,
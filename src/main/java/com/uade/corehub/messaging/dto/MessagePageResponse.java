@@ -0,0 +1,18 @@
+package com.uade.corehub.messaging.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * Página de GET /messages
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Página de mensajes de message_log, más nuevos primero")
+public record MessagePageResponse(
+    List<MessageStatusResponse> messages,
+
+    @Schema(description = "Cursor para pedir la página siguiente (ausente en la última página)")
+    String nextCursor
+) {}
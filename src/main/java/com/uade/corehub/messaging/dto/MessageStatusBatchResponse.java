@@ -0,0 +1,16 @@
+package com.uade.corehub.messaging.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * Respuesta de POST /messages/status
+ */
+@Schema(description = "Estados de varios mensajes consultados en una sola query")
+public record MessageStatusBatchResponse(
+    List<MessageStatusResponse> messages,
+
+    @Schema(description = "messageIds pedidos que no existen en message_log")
+    List<String> notFound
+) {}
@@ -0,0 +1,71 @@
+package com.uade.corehub.messaging.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.uade.corehub.messaging.store.MessageLog;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Estado de un mensaje publicado, expuesto en GET /publish/{messageId} y en /messages
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(
+    description = "Estado de un mensaje según message_log",
+    example = """
+    {
+      "messageId": "msg-001",
+      "channel": "payments.order.created",
+      "status": "PUBLISHED",
+      "attempts": 1,
+      "correlationId": "demo-123",
+      "producedAt": "2025-08-27T21:50:00Z",
+      "publishedAt": "2025-08-27T21:50:00.120Z",
+      "createdAt": "2025-08-27T21:50:00.080Z"
+    }
+    """
+)
+public record MessageStatusResponse(
+    @Schema(description = "messageId del envelope", example = "msg-001")
+    String messageId,
+
+    @Schema(description = "Canal de destino", example = "payments.order.created")
+    String channel,
+
+    @Schema(description = "QUEUED, PENDING, PUBLISHING, PUBLISHED, UNROUTABLE o FAILED", example = "PUBLISHED")
+    String status,
+
+    @Schema(description = "Intentos de envío al broker", example = "1")
+    Integer attempts,
+
+    @Schema(description = "Último error, si lo hubo")
+    String errorMessage,
+
+    @Schema(description = "Correlation id del request original", example = "demo-123")
+    String correlationId,
+
+    OffsetDateTime producedAt,
+    OffsetDateTime publishedAt,
+    OffsetDateTime createdAt
+) {
+    public static MessageStatusResponse fromMessageLog(MessageLog log) {
+        return new MessageStatusResponse(
+            log.getMessageId(),
+            log.getChannel(),
+            log.getStatus(),
+            log.getAttempts(),
+            log.getErrorMessage(),
+            log.getCorrelationId(),
+            log.getProducedAt(),
+            log.getPublishedAt(),
+            log.getCreatedAt()
+        );
+    }
+
+    /**
+     * Mensaje aceptado en modo async que todavía no llegó a message_log
+     */
+    public static MessageStatusResponse queued(String messageId) {
+        return new MessageStatusResponse(messageId, null, "QUEUED", null, null, null, null, null, null);
+    }
+}
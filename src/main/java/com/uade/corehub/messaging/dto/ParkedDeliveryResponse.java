@@ -0,0 +1,59 @@
+package com.uade.corehub.messaging.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.uade.corehub.messaging.store.ParkingLotStore;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Entrega estacionada en el parking lot
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Entrega a webhook que agotó sus reintentos")
+public record ParkedDeliveryResponse(
+    long id,
+    String messageId,
+    String channel,
+    String eventName,
+    String subscriptionId,
+    String webhookUrl,
+    String correlationId,
+
+    @Schema(description = "Intentos fallidos, incluidos los de redrive")
+    int attempts,
+
+    @Schema(description = "Por qué se estacionó: EXHAUSTED, NOT_SCHEDULED, DISABLED o SUBSCRIPTION_<estado>", example = "EXHAUSTED")
+    String reason,
+    String lastError,
+
+    @Schema(description = "PARKED, REDRIVEN o DISCARDED", example = "PARKED")
+    String status,
+    OffsetDateTime firstFailedAt,
+    OffsetDateTime parkedAt,
+    OffsetDateTime redrivenAt,
+    String redriveJobId,
+
+    @Schema(description = "Envelope completo (sólo al consultar por id)")
+    MessageEnvelope envelope
+) {
+    public static ParkedDeliveryResponse fromParked(ParkingLotStore.ParkedDelivery parked) {
+        return new ParkedDeliveryResponse(
+                parked.id(),
+                parked.messageId(),
+                parked.channel(),
+                parked.eventName(),
+                parked.subscriptionId(),
+                parked.webhookUrl(),
+                parked.correlationId(),
+                parked.attempts(),
+                parked.reason(),
+                parked.lastError(),
+                parked.status(),
+                parked.firstFailedAt(),
+                parked.parkedAt(),
+                parked.redrivenAt(),
+                parked.redriveJobId(),
+                parked.envelope());
+    }
+}
@@ -0,0 +1,100 @@
+package com.uade.corehub.messaging.dto;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Objects;
+
+/**
+ * Payload de un envelope conservado como texto JSON.
+ * Se copia una sola vez desde el parser (sin armar Map/List) y se escribe tal cual en
+ * payload_store (jsonb), en el body AMQP y en los POST a webhooks, sin volver a parsearlo.
+ */
+@Schema(type = "object", description = "Payload JSON del evento")
+@JsonSerialize(using = RawPayload.Serializer.class)
+@JsonDeserialize(using = RawPayload.Deserializer.class)
+public record RawPayload(String json) {
+
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	public RawPayload {
+		Objects.requireNonNull(json, "json");
+	}
+
+	public static RawPayload of(String json) {
+		return json == null ? null : new RawPayload(json);
+	}
+
+	/**
+	 * Tamaño en bytes UTF-8 (lo que ocupa en el body AMQP o en disco) sin codificar el texto.
+	 * Los umbrales de compresión y claim-check se comparan contra esto, no contra json.length()
+	 */
+	public int utf8Length() {
+		int bytes = json.length();
+		for (int i = 0; i < json.length(); i++) {
+			char c = json.charAt(i);
+			if (c >= 0x80) {
+				// 2 bytes hasta U+07FF, 3 el resto del BMP; cada mitad de un par surrogate suma 2 (4 el par)
+				bytes += c < 0x800 || Character.isSurrogate(c) ? 1 : 2;
+			}
+		}
+		return bytes;
+	}
+
+	@Override
+	public String toString() {
+		return "RawPayload[" + json.length() + " chars]";
+	}
+
+	public static class Serializer extends StdSerializer<RawPayload> {
+		public Serializer() {
+			super(RawPayload.class);
+		}
+
+		@Override
+		public void serialize(RawPayload value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+			gen.writeRawValue(value.json());
+		}
+	}
+
+	public static class Deserializer extends StdDeserializer<RawPayload> {
+		public Deserializer() {
+			super(RawPayload.class);
+		}
+
+		@Override
+		public RawPayload deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+			// Copia token a token del valor actual: una pasada de streaming, sin árbol intermedio
+			StringWriter out = new StringWriter();
+			try (JsonGenerator gen = JSON_FACTORY.createGenerator(out)) {
+				int depth = 0;
+				do {
+					JsonToken token = p.currentToken();
+					if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+						// El texto tal cual vino: copyCurrentStructure pasa por double y pierde precisión (o da Infinity)
+						gen.writeNumber(p.getText());
+					} else {
+						gen.copyCurrentEvent(p);
+					}
+					if (token.isStructStart()) {
+						depth++;
+					} else if (token.isStructEnd()) {
+						depth--;
+					}
+				} while (depth > 0 && p.nextToken() != null);
+			}
+			return new RawPayload(out.toString());
+		}
+	}
+}
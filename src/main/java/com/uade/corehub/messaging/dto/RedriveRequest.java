@@ -0,0 +1,55 @@
+package com.uade.corehub.messaging.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Pedido de redrive del parking lot: entregas estacionadas de un canal, filtradas por rango,
+ * messageIds y/o suscripción
+ */
+@Schema(
+    description = "Re-envía entregas estacionadas a su suscripción original o a otra URL",
+    example = """
+    {
+      "channel": "payments.order.created",
+      "subscriptionId": "550e8400-e29b-41d4-a716-446655440000",
+      "ratePerSecond": 20
+    }
+    """
+)
+public record RedriveRequest(
+    @Schema(description = "Canal de las entregas a re-enviar", example = "payments.order.created")
+    @NotBlank(message = "El canal es obligatorio")
+    String channel,
+
+    @Schema(description = "Inicio del rango (parked_at, inclusive). Por defecto, todas las estacionadas")
+    OffsetDateTime from,
+
+    @Schema(description = "Fin del rango (parked_at, exclusivo). Por defecto, el momento del pedido")
+    OffsetDateTime to,
+
+    @Schema(description = "messageIds puntuales a re-enviar (opcional)")
+    List<String> messageIds,
+
+    @Schema(description = "Sólo las entregas de esta suscripción (opcional)")
+    String subscriptionId,
+
+    @Schema(description = "URL a la que re-enviar en vez de la suscripción original (opcional)",
+            example = "https://payments-squad.com/webhook-v2", maxLength = 500)
+    @Pattern(
+            regexp = "^(https?://)(localhost|\\d{1,3}(?:\\.\\d{1,3}){3}|[\\w\\-]+(?:\\.[\\w\\-]+)+)(?::\\d+)?([\\w\\-.,@?^=%&:/~+#]*[\\w\\-@?^=%&/~+#])?$",
+            message = "targetUrl debe ser una URL válida"
+    )
+    @Size(max = 500, message = "targetUrl no puede exceder 500 caracteres")
+    String targetUrl,
+
+    @Schema(description = "Entregas por segundo (por defecto corehub.replay.default-rate)", example = "20")
+    @Positive(message = "ratePerSecond debe ser positivo")
+    Integer ratePerSecond
+) {}
@@ -0,0 +1,72 @@
+package com.uade.corehub.messaging.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.uade.corehub.messaging.store.ReplayJob;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Estado y progreso de un job de replay
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Estado y progreso de un job de replay")
+public record ReplayJobResponse(
+    String jobId,
+    String channel,
+    OffsetDateTime from,
+    OffsetDateTime to,
+    Integer messageIds,
+    String subscriptionId,
+
+    @Schema(description = "MESSAGE_LOG (replay) o PARKING_LOT (redrive)", example = "MESSAGE_LOG")
+    String source,
+    String targetUrl,
+    int ratePerSecond,
+
+    @Schema(description = "RUNNING, PAUSED, CANCELLED, COMPLETED o FAILED", example = "RUNNING")
+    String status,
+
+    @Schema(description = "Mensajes del rango (se calcula al arrancar el job)")
+    Long total,
+    long replayed,
+    long failed,
+
+    @Schema(description = "Porcentaje procesado sobre total", example = "42.5")
+    Double progress,
+
+    @Schema(description = "created_at (parked_at en un redrive) del último procesado; el job se reanuda desde ahí")
+    OffsetDateTime cursor,
+    String error,
+    OffsetDateTime createdAt,
+    OffsetDateTime updatedAt,
+    OffsetDateTime finishedAt
+) {
+    public static ReplayJobResponse fromJob(ReplayJob job) {
+        Double progress = null;
+        if (job.getTotal() != null) {
+            long done = job.getReplayed() + job.getFailed();
+            progress = job.getTotal() == 0 ? 100.0 : Math.min(100.0, Math.round(done * 1000.0 / job.getTotal()) / 10.0);
+        }
+        return new ReplayJobResponse(
+                job.getId(),
+                job.getChannel(),
+                job.getFromTs(),
+                job.getToTs(),
+                job.getMessageIds() == null ? null : job.getMessageIds().size(),
+                job.getSubscriptionId(),
+                job.getSource(),
+                job.getTargetUrl(),
+                job.getRatePerSecond(),
+                job.getStatus(),
+                job.getTotal(),
+                job.getReplayed(),
+                job.getFailed(),
+                progress,
+                job.getCursorCreatedAt(),
+                job.getErrorMessage(),
+                job.getCreatedAt(),
+                job.getUpdatedAt(),
+                job.getFinishedAt());
+    }
+}
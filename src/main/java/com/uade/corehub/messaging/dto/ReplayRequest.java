@@ -0,0 +1,45 @@
+package com.uade.corehub.messaging.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Pedido de replay: un canal y un rango de tiempo y/o una lista de messageIds
+ */
+@Schema(
+    description = "Re-envía mensajes almacenados de un canal al broker o a una suscripción puntual",
+    example = """
+    {
+      "channel": "payments.order.created",
+      "from": "2025-08-28T20:00:00Z",
+      "to": "2025-08-28T21:00:00Z",
+      "subscriptionId": "550e8400-e29b-41d4-a716-446655440000",
+      "ratePerSecond": 50
+    }
+    """
+)
+public record ReplayRequest(
+    @Schema(description = "Canal de los mensajes a re-enviar", example = "payments.order.created")
+    @NotBlank(message = "El canal es obligatorio")
+    String channel,
+
+    @Schema(description = "Inicio del rango (created_at, inclusive). Obligatorio si no se indican messageIds")
+    OffsetDateTime from,
+
+    @Schema(description = "Fin del rango (created_at, exclusivo). Por defecto, el momento del pedido")
+    OffsetDateTime to,
+
+    @Schema(description = "messageIds puntuales a re-enviar (opcional)")
+    List<String> messageIds,
+
+    @Schema(description = "Suscripción destino. Si se omite, los mensajes se re-publican al broker")
+    String subscriptionId,
+
+    @Schema(description = "Mensajes por segundo (por defecto corehub.replay.default-rate)", example = "50")
+    @Positive(message = "ratePerSecond debe ser positivo")
+    Integer ratePerSecond
+) {}
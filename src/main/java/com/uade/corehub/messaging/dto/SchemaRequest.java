@@ -0,0 +1,37 @@
+package com.uade.corehub.messaging.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Registro de una versión de JSON Schema para un canal
+ */
+@Schema(
+    description = "Versión de JSON Schema (draft 2020-12) que deben cumplir los payloads del canal",
+    example = """
+    {
+      "version": "1",
+      "schema": {
+        "type": "object",
+        "required": ["orderId", "amount"],
+        "properties": {
+          "orderId": {"type": "integer"},
+          "amount": {"type": "number", "minimum": 0}
+        }
+      }
+    }
+    """
+)
+public record SchemaRequest(
+    @Schema(description = "Versión referenciada desde schemaVersion en channels.yaml", example = "1")
+    @NotBlank(message = "La versión es obligatoria")
+    @Size(max = 32, message = "La versión no puede superar 32 caracteres")
+    String version,
+
+    @Schema(description = "Documento JSON Schema")
+    @NotNull(message = "El schema es obligatorio")
+    JsonNode schema
+) {}
@@ -0,0 +1,32 @@
+package com.uade.corehub.messaging.dto;
+
+import com.uade.corehub.messaging.store.ChannelSchemaStore;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Versión registrada de JSON Schema de un canal
+ */
+@Schema(description = "JSON Schema registrado para un canal")
+public record SchemaResponse(
+    @Schema(description = "Canal", example = "payments.order.created")
+    String channel,
+
+    @Schema(description = "Versión", example = "1")
+    String version,
+
+    @Schema(description = "Indica si es la versión que channels.yaml exige hoy para el canal")
+    boolean active,
+
+    @Schema(description = "Documento JSON Schema")
+    RawPayload schema,
+
+    @Schema(description = "Fecha de registro")
+    OffsetDateTime createdAt
+) {
+    public static SchemaResponse from(ChannelSchemaStore.ChannelSchema schema, String activeVersion) {
+        return new SchemaResponse(schema.channel(), schema.version(), schema.version().equals(activeVersion),
+                RawPayload.of(schema.schema()), schema.createdAt());
+    }
+}
@@ -91,7 +91,17 @@ public record SubscriptionRequest(
     @Size(min = 1, max = 100, message = "El nombre del evento debe tener entre 1 y 100 caracteres")
     @Pattern(regexp = "^[a-zA-Z0-9\\-_.#*]+$", 
              message = "El nombre del evento solo puede contener letras, números, guiones, puntos, # y *")
-    String eventName
+    String eventName,
+
+    /**
+     * El webhook acepta bodies comprimidos con Content-Encoding: gzip (opcional, false por defecto)
+     */
+    @JsonProperty("acceptGzip")
+    @Schema(
+        description = "Si es true, los envíos que superen el umbral del canal llegan con Content-Encoding: gzip",
+        example = "false"
+    )
+    Boolean acceptGzip
 ) {
     
     /**
@@ -0,0 +1,219 @@
+package com.uade.corehub.messaging.idempotency;
+
+import com.uade.corehub.config.PublishProperties;
+import com.uade.corehub.messaging.store.MessageLogRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Capa de idempotencia en memoria delante de message_log.
+ * Un Bloom filter con ventana de tiempo responde "seguro nuevo" sin ir a Postgres; un cache
+ * acotado de ids recientes responde "seguro duplicado". Sólo los posibles duplicados que
+ * ninguno resuelve se consultan en la base. El INSERT ... ON CONFLICT sobre
+ * message_dedupe sigue siendo la garantía final entre nodos (en modo directo, como reserva previa
+ * al envío al broker, ver PublishService#publish).
+ * <p>
+ * Hasta terminar la precarga desde message_log el Bloom no conoce los ids previos al arranque
+ * (justo los de los reintentos tras un reinicio): mientras tanto todo id que no esté en el
+ * cache de recientes se consulta en la base.
+ */
+@Slf4j
+@Component
+public class IdempotencyFilter {
+
+	public enum Verdict {
+		NEW,        // el filtro nunca vio el id: no hace falta consultar la base
+		DUPLICATE,  // el id está en el cache de recientes
+		UNKNOWN     // posible duplicado: consultar message_log
+	}
+
+	private final PublishProperties.Idempotency props;
+	private final MessageLogRepository messageLogRepo;
+	private final TransactionTemplate readOnlyTx;
+	private final TimeWindowedBloomFilter bloomFilter;
+	private final RecentIdCache recentIds;
+	private final ScheduledExecutorService rotation;
+
+	private final Counter filterNegatives;
+	private final Counter cacheHits;
+	private final Counter dbLookups;
+	private final Counter falsePositives;
+	private final AtomicLong checks = new AtomicLong();
+	private final AtomicLong skipped = new AtomicLong();
+	private final AtomicLong lookups = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private volatile boolean warm;
+
+	public IdempotencyFilter(PublishProperties publishProperties,
+							 MessageLogRepository messageLogRepo,
+							 PlatformTransactionManager transactionManager,
+							 MeterRegistry meterRegistry) {
+		this.props = publishProperties.getIdempotency();
+		this.messageLogRepo = messageLogRepo;
+		this.readOnlyTx = new TransactionTemplate(transactionManager);
+		this.readOnlyTx.setReadOnly(true);
+
+		int generations = Math.max(1, props.getGenerations());
+		this.bloomFilter = new TimeWindowedBloomFilter(
+				Math.max(1, props.getExpectedInsertions() / generations), props.getFalsePositiveRate(), generations + 1);
+		this.recentIds = new RecentIdCache(props.getRecentCacheSize());
+
+		this.filterNegatives = lookupCounter(meterRegistry, "filter_negative");
+		this.cacheHits = lookupCounter(meterRegistry, "cache_hit");
+		this.dbLookups = lookupCounter(meterRegistry, "db_lookup");
+		this.falsePositives = lookupCounter(meterRegistry, "false_positive");
+		Gauge.builder("corehub.idempotency.hit.ratio", this, f -> ratio(f.skipped.get(), f.checks.get()))
+				.description("Fracción de chequeos resueltos sin consultar message_log")
+				.register(meterRegistry);
+		Gauge.builder("corehub.idempotency.false.positive.ratio", this, f -> ratio(f.misses.get(), f.lookups.get()))
+				.description("Fracción de consultas a message_log que resultaron ser ids nuevos")
+				.register(meterRegistry);
+		Gauge.builder("corehub.idempotency.recent.size", recentIds, RecentIdCache::size)
+				.register(meterRegistry);
+
+		// Cada generación cubre window / generations; se mantiene una extra para no perder el borde
+		Duration step = props.getWindow().dividedBy(generations);
+		this.rotation = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "idempotency-filter-rotation");
+			t.setDaemon(true);
+			return t;
+		});
+		if (props.isEnabled()) {
+			long stepMillis = Math.max(1_000, step.toMillis());
+			rotation.scheduleAtFixedRate(bloomFilter::rotate, stepMillis, stepMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * La precarga corre en segundo plano desde que se crea el bean (antes de que el servidor web
+	 * acepte requests); hasta que termina check no responde NEW
+	 */
+	@PostConstruct
+	void init() {
+		if (!props.isEnabled()) {
+			return;
+		}
+		Thread warmUp = new Thread(this::warmUp, "idempotency-filter-warmup");
+		warmUp.setDaemon(true);
+		warmUp.start();
+	}
+
+	@PreDestroy
+	void shutdown() {
+		rotation.shutdownNow();
+	}
+
+	/**
+	 * Clasifica un messageId antes de consultar la base
+	 */
+	public Verdict check(String messageId) {
+		if (!props.isEnabled()) {
+			return Verdict.UNKNOWN;
+		}
+		checks.incrementAndGet();
+		if (recentIds.contains(messageId)) {
+			skipped.incrementAndGet();
+			cacheHits.increment();
+			return Verdict.DUPLICATE;
+		}
+		if (warm && !bloomFilter.mightContain(messageId)) {
+			skipped.incrementAndGet();
+			filterNegatives.increment();
+			return Verdict.NEW;
+		}
+		lookups.incrementAndGet();
+		dbLookups.increment();
+		return Verdict.UNKNOWN;
+	}
+
+	/**
+	 * Informa el resultado de una consulta a la base hecha por un veredicto UNKNOWN
+	 */
+	public void recordLookup(String messageId, boolean found) {
+		if (!props.isEnabled()) {
+			return;
+		}
+		if (found) {
+			recentIds.add(messageId);
+		} else {
+			misses.incrementAndGet();
+			falsePositives.increment();
+		}
+	}
+
+	/**
+	 * Registra un messageId persistido. Si hay una transacción activa se aplica tras el commit
+	 * para no marcar como conocido un id cuyo INSERT terminó en rollback.
+	 */
+	public void record(String messageId) {
+		if (!props.isEnabled()) {
+			return;
+		}
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					remember(messageId);
+				}
+			});
+		} else {
+			remember(messageId);
+		}
+	}
+
+	private void remember(String messageId) {
+		bloomFilter.add(messageId);
+		recentIds.add(messageId);
+	}
+
+	/**
+	 * Precarga el filtro con los ids de la ventana actual leyendo message_log en streaming
+	 */
+	void warmUp() {
+		OffsetDateTime since = OffsetDateTime.now().minus(props.getWindow());
+		try {
+			long loaded = readOnlyTx.execute(status -> {
+				long[] count = {0};
+				try (var ids = messageLogRepo.streamMessageIdsCreatedSince(since)) {
+					ids.forEach(id -> {
+						remember(id);
+						count[0]++;
+					});
+				}
+				return count[0];
+			});
+			warm = true;
+			log.info("Idempotency filter warmed up with {} message ids since {}", loaded, since);
+		} catch (Exception e) {
+			// Sin precarga el Bloom no puede descartar ids: se sigue consultando la base para todos
+			log.error("Idempotency filter warm-up failed, every check will query message_log: {}", e.getMessage(), e);
+		}
+	}
+
+	private static Counter lookupCounter(MeterRegistry registry, String result) {
+		return Counter.builder("corehub.idempotency.checks")
+				.description("Chequeos de idempotencia por resultado")
+				.tag("result", result)
+				.register(registry);
+	}
+
+	private static double ratio(long part, long total) {
+		return total == 0 ? 0.0 : (double) part / total;
+	}
+}
@@ -0,0 +1,40 @@
+package com.uade.corehub.messaging.idempotency;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Cache acotado de messageIds recientes con desalojo FIFO.
+ * Un anillo de slots indica qué id desalojar al insertar; todo sin locks.
+ */
+final class RecentIdCache {
+
+	private final Set<String> ids = ConcurrentHashMap.newKeySet();
+	private final AtomicReferenceArray<String> ring;
+	private final AtomicLong cursor = new AtomicLong();
+
+	RecentIdCache(int capacity) {
+		this.ring = new AtomicReferenceArray<>(Math.max(1, capacity));
+	}
+
+	void add(String id) {
+		if (!ids.add(id)) {
+			return;
+		}
+		int slot = (int) (cursor.getAndIncrement() % ring.length());
+		String evicted = ring.getAndSet(slot, id);
+		if (evicted != null) {
+			ids.remove(evicted);
+		}
+	}
+
+	boolean contains(String id) {
+		return ids.contains(id);
+	}
+
+	int size() {
+		return ids.size();
+	}
+}
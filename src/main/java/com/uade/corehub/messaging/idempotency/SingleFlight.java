@@ -0,0 +1,54 @@
+package com.uade.corehub.messaging.idempotency;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalescing en proceso de llamadas concurrentes con la misma clave: la primera ejecuta
+ * y las demás esperan y reciben su mismo resultado (o excepción), sin repetir el trabajo.
+ */
+public class SingleFlight<K, V> {
+
+	private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+	public Result<V> execute(K key, Supplier<V> work) {
+		CompletableFuture<V> mine = new CompletableFuture<>();
+		CompletableFuture<V> leader = inFlight.putIfAbsent(key, mine);
+		if (leader != null) {
+			return new Result<>(await(leader), true);
+		}
+		try {
+			V value = work.get();
+			mine.complete(value);
+			return new Result<>(value, false);
+		} catch (RuntimeException | Error e) {
+			mine.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, mine);
+		}
+	}
+
+	private V await(CompletableFuture<V> leader) {
+		try {
+			return leader.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException re) {
+				throw re;
+			}
+			if (e.getCause() instanceof Error err) {
+				throw err;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * @param value resultado de la ejecución
+	 * @param shared true si el llamador se sumó a una ejecución ya en curso
+	 */
+	public record Result<V>(V value, boolean shared) {}
+}
@@ -0,0 +1,118 @@
+package com.uade.corehub.messaging.idempotency;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Bloom filter con ventana de tiempo: la ventana se divide en generaciones y cada rotación
+ * descarta la más vieja. add/mightContain son lock-free (CAS sobre palabras de 64 bits);
+ * la rotación reemplaza el arreglo de generaciones de forma atómica, sin limpiar bits en uso.
+ */
+final class TimeWindowedBloomFilter {
+
+	private final int bitsPerGeneration;
+	private final int hashFunctions;
+	private final AtomicReference<AtomicLongArray[]> generations;
+
+	/**
+	 * @param expectedInsertions elementos esperados por generación
+	 * @param falsePositiveRate tasa de falsos positivos objetivo por generación
+	 * @param generationCount cantidad de generaciones que cubren la ventana
+	 */
+	TimeWindowedBloomFilter(long expectedInsertions, double falsePositiveRate, int generationCount) {
+		long n = Math.max(1, expectedInsertions);
+		double p = Math.min(0.5, Math.max(1e-9, falsePositiveRate));
+		long bits = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+		this.bitsPerGeneration = (int) Math.min(Integer.MAX_VALUE - 63L, Math.max(64, bits));
+		this.hashFunctions = Math.max(1, (int) Math.round((double) bitsPerGeneration / n * Math.log(2)));
+		AtomicLongArray[] initial = new AtomicLongArray[Math.max(1, generationCount)];
+		for (int i = 0; i < initial.length; i++) {
+			initial[i] = newGeneration();
+		}
+		this.generations = new AtomicReference<>(initial);
+	}
+
+	void add(String value) {
+		long hash = hash64(value);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		// Se escribe siempre en la generación más nueva (índice 0)
+		AtomicLongArray current = generations.get()[0];
+		for (int i = 1; i <= hashFunctions; i++) {
+			setBit(current, index(h1, h2, i));
+		}
+	}
+
+	boolean mightContain(String value) {
+		long hash = hash64(value);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (AtomicLongArray generation : generations.get()) {
+			if (containsAll(generation, h1, h2)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Abre una generación nueva y descarta la más vieja
+	 */
+	void rotate() {
+		AtomicLongArray[] current;
+		AtomicLongArray[] next;
+		do {
+			current = generations.get();
+			next = new AtomicLongArray[current.length];
+			next[0] = newGeneration();
+			System.arraycopy(current, 0, next, 1, current.length - 1);
+		} while (!generations.compareAndSet(current, next));
+	}
+
+	private boolean containsAll(AtomicLongArray generation, int h1, int h2) {
+		for (int i = 1; i <= hashFunctions; i++) {
+			int bit = index(h1, h2, i);
+			if ((generation.get(bit >>> 6) & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private int index(int h1, int h2, int i) {
+		// Kirsch-Mitzenmacher: k índices a partir de dos hashes
+		int combined = h1 + i * h2;
+		return (combined & Integer.MAX_VALUE) % bitsPerGeneration;
+	}
+
+	private static void setBit(AtomicLongArray words, int bit) {
+		int word = bit >>> 6;
+		long mask = 1L << bit;
+		long prev;
+		do {
+			prev = words.get(word);
+			if ((prev & mask) != 0) {
+				return;
+			}
+		} while (!words.compareAndSet(word, prev, prev | mask));
+	}
+
+	private AtomicLongArray newGeneration() {
+		return new AtomicLongArray((bitsPerGeneration + 63) >>> 6);
+	}
+
+	private static long hash64(String value) {
+		// FNV-1a de 64 bits + finalizador de MurmurHash3 para dispersar los bits altos
+		long h = 0xcbf29ce484222325L;
+		for (int i = 0; i < value.length(); i++) {
+			h ^= value.charAt(i);
+			h *= 0x100000001b3L;
+		}
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
@@ -0,0 +1,151 @@
+package com.uade.corehub.messaging.infrastructure;
+
+import com.rabbitmq.client.GetResponse;
+import com.uade.corehub.config.PublishProperties;
+import com.uade.corehub.config.RabbitMQInfrastructureProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * DLQs por canal declaradas en rabbitmq-infrastructure.yaml (deadLetterQueue de cada cola).
+ * Reciben los mensajes que el consumidor del canal rechaza sin requeue; desde acá se consultan
+ * y se devuelven a su cola original.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DeadLetterQueueService {
+
+    private final RabbitAdmin rabbitAdmin;
+    private final RabbitTemplate rabbitTemplate;
+    private final RabbitMQInfrastructureProperties infrastructureProperties;
+    private final PublishProperties publishProperties;
+    private final MessagePropertiesConverter propertiesConverter = new DefaultMessagePropertiesConverter();
+
+    /**
+     * @return la DLQ configurada para una cola, si tiene
+     */
+    public Optional<String> deadLetterQueueFor(String queueName) {
+        return queues().stream()
+                .filter(q -> q.getName().equals(queueName))
+                .map(RabbitMQInfrastructureProperties.Queue::getDeadLetterQueue)
+                .filter(dlq -> dlq != null && !dlq.isBlank())
+                .findFirst();
+    }
+
+    /**
+     * Mensajes en cada DLQ; messages es null si la DLQ no existe en el broker
+     */
+    public List<DeadLetterQueueStatus> list() {
+        return queues().stream()
+                .filter(q -> q.getDeadLetterQueue() != null && !q.getDeadLetterQueue().isBlank())
+                .map(q -> {
+                    QueueInformation info = rabbitAdmin.getQueueInfo(q.getDeadLetterQueue());
+                    return new DeadLetterQueueStatus(q.getName(), q.getDeadLetterQueue(),
+                            info == null ? null : (long) info.getMessageCount());
+                })
+                .toList();
+    }
+
+    /**
+     * Devuelve hasta limit mensajes de la DLQ a su cola, como mucho ratePerSecond por segundo.
+     * Cada mensaje se re-publica con publisher confirm y se confirma en la DLQ recién cuando el broker
+     * hizo ack (si algo falla a mitad puede quedar duplicado, nunca perdido). Un nack, return o timeout
+     * del confirm devuelve el mensaje a la DLQ y corta el redrive.
+     * @return mensajes movidos
+     * @throws IllegalArgumentException si la cola no tiene DLQ configurada o no existe en el broker
+     */
+    public int redrive(String queueName, int limit, int ratePerSecond) {
+        String deadLetterQueue = deadLetterQueueFor(queueName)
+                .orElseThrow(() -> new IllegalArgumentException("Queue has no dead-letter queue: " + queueName));
+        if (rabbitAdmin.getQueueInfo(queueName) == null) {
+            throw new IllegalArgumentException("Queue does not exist: " + queueName);
+        }
+        long intervalNanos = 1_000_000_000L / Math.max(1, ratePerSecond);
+        Integer moved = rabbitAdmin.getRabbitTemplate().execute(channel -> {
+            int count = 0;
+            long nextSend = System.nanoTime();
+            while (count < limit) {
+                long wait = nextSend - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                nextSend = Math.max(nextSend, System.nanoTime() - intervalNanos) + intervalNanos;
+
+                GetResponse message = channel.basicGet(deadLetterQueue, false);
+                if (message == null) {
+                    break;
+                }
+                long deliveryTag = message.getEnvelope().getDeliveryTag();
+                String failure = republish(queueName, message);
+                if (failure != null) {
+                    // Vuelve a la DLQ; lo que queda se intenta en el próximo redrive
+                    channel.basicNack(deliveryTag, false, true);
+                    log.warn("Redrive from dead-letter queue '{}' stopped, message not confirmed: {}", deadLetterQueue, failure);
+                    break;
+                }
+                channel.basicAck(deliveryTag, false);
+                count++;
+            }
+            return count;
+        });
+        int total = moved == null ? 0 : moved;
+        log.info("Redrove {} message(s) from dead-letter queue '{}' to '{}'", total, deadLetterQueue, queueName);
+        return total;
+    }
+
+    /**
+     * Re-publica por el exchange default directo a la cola (no depende de bindings) y espera el confirm
+     * @return null si el broker hizo ack, si no el motivo
+     */
+    private String republish(String queueName, GetResponse response) {
+        MessageProperties properties = propertiesConverter.toMessageProperties(
+                response.getProps(), response.getEnvelope(), StandardCharsets.UTF_8.name());
+        CorrelationData correlation = new CorrelationData(UUID.randomUUID().toString());
+        try {
+            rabbitTemplate.send("", queueName, new Message(response.getBody(), properties), correlation);
+            CorrelationData.Confirm confirm = correlation.getFuture()
+                    .get(publishProperties.getConfirms().getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            if (!confirm.isAck()) {
+                return "nack: " + confirm.getReason();
+            }
+            // Con CorrelationData el return llega antes que el confirm
+            if (correlation.getReturned() != null) {
+                return "returned: " + correlation.getReturned().getReplyText();
+            }
+            return null;
+        } catch (TimeoutException e) {
+            return "confirm timed out";
+        } catch (ExecutionException | AmqpException e) {
+            return e.getMessage();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "interrupted";
+        }
+    }
+
+    private List<RabbitMQInfrastructureProperties.Queue> queues() {
+        return infrastructureProperties.getQueues() == null ? List.of() : infrastructureProperties.getQueues();
+    }
+
+    public record DeadLetterQueueStatus(String queue, String deadLetterQueue, Long messages) {}
+}
@@ -1,5 +1,6 @@
 package com.uade.corehub.messaging.infrastructure;
 
+import com.uade.corehub.config.DispatchProperties;
 import com.uade.corehub.config.RabbitMQInfrastructureProperties;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -8,12 +9,14 @@ import org.springframework.amqp.rabbit.core.RabbitAdmin;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
 /**
  * Servicio para inicializar la infraestructura de RabbitMQ desde el archivo de configuración
- * Crea exchanges, colas y bindings definidos en rabbitmq-infrastructure.yaml
+ * Crea exchanges, colas y bindings definidos en rabbitmq-infrastructure.yaml,
+ * más las colas de espera de reintentos de webhooks (corehub.dispatch.retry.*)
  */
 @Slf4j
 @Service
@@ -22,6 +25,7 @@ public class RabbitMQInfrastructureInitializer implements CommandLineRunner {
 
     private final RabbitAdmin rabbitAdmin;
     private final RabbitMQInfrastructureProperties infrastructureProperties;
+    private final DispatchProperties dispatchProperties;
 
     private final ConcurrentMap<String, Boolean> createdExchanges = new ConcurrentHashMap<>();
     private final ConcurrentMap<String, Boolean> createdQueues = new ConcurrentHashMap<>();
@@ -48,6 +52,9 @@ public class RabbitMQInfrastructureInitializer implements CommandLineRunner {
             
             // 3. Crear bindings
             createBindings();
+
+            // 4. Colas de espera de reintentos
+            createRetryInfrastructure();
             
             log.info("RabbitMQ infrastructure initialization completed successfully");
             
@@ -107,18 +114,22 @@ public class RabbitMQInfrastructureInitializer implements CommandLineRunner {
                     continue;
                 }
 
-                Queue queue;
-                if (queueConfig.isAutoDelete()) {
-                    queue = QueueBuilder.nonDurable(queueConfig.getName()).autoDelete().build();
-                } else {
-                    queue = QueueBuilder.durable(queueConfig.getName()).build();
+                QueueBuilder builder = queueConfig.isAutoDelete()
+                        ? QueueBuilder.nonDurable(queueConfig.getName()).autoDelete()
+                        : QueueBuilder.durable(queueConfig.getName());
+
+                String deadLetterQueue = queueConfig.getDeadLetterQueue();
+                if (deadLetterQueue != null && !deadLetterQueue.isBlank()) {
+                    // DLQ del canal: los rechazos sin requeue van por el exchange default a esa cola
+                    rabbitAdmin.declareQueue(QueueBuilder.durable(deadLetterQueue).build());
+                    builder.deadLetterExchange("").deadLetterRoutingKey(deadLetterQueue);
                 }
 
-                rabbitAdmin.declareQueue(queue);
+                declareQueue(builder.build());
                 createdQueues.put(queueConfig.getName(), true);
                 
-                log.info("Created queue: {} (durable: {}, autoDelete: {})", 
-                        queueConfig.getName(), queueConfig.isDurable(), queueConfig.isAutoDelete());
+                log.info("Created queue: {} (durable: {}, autoDelete: {}, deadLetterQueue: {})", 
+                        queueConfig.getName(), queueConfig.isDurable(), queueConfig.isAutoDelete(), deadLetterQueue);
 
             } catch (Exception e) {
                 log.error("Failed to create queue: {}", queueConfig.getName(), e);
@@ -127,6 +138,23 @@ public class RabbitMQInfrastructureInitializer implements CommandLineRunner {
         }
     }
 
+    /**
+     * Una cola ya existente con otros argumentos (p. ej. creada antes de tener DLQ) no se puede
+     * redeclarar: se sigue usando tal cual y el dead-letter se aplica con una policy del broker
+     */
+    private void declareQueue(Queue queue) {
+        try {
+            rabbitAdmin.declareQueue(queue);
+        } catch (Exception e) {
+            if (rabbitAdmin.getQueueInfo(queue.getName()) == null) {
+                throw e;
+            }
+            log.warn("Queue {} already exists with different arguments {}; keeping it as is. "
+                    + "Apply a policy (dead-letter-exchange/dead-letter-routing-key) or recreate it.",
+                    queue.getName(), queue.getArguments());
+        }
+    }
+
     private void createBindings() {
         log.info("Creating {} bindings...", infrastructureProperties.getBindings().size());
         
@@ -171,6 +199,43 @@ public class RabbitMQInfrastructureInitializer implements CommandLineRunner {
         }
     }
 
+    /**
+     * Un exchange direct con una cola por demora (x-message-ttl, sin consumidores) cuyo dead-letter
+     * es un exchange fanout hacia la cola de reintentos vencidos. No cuentan en getInfrastructureStatus.
+     */
+    private void createRetryInfrastructure() {
+        DispatchProperties.Retry retry = dispatchProperties.getRetry();
+        if (!retry.isEnabled()) {
+            return;
+        }
+        try {
+            DirectExchange retryExchange = new DirectExchange(retry.getExchange(), true, false);
+            FanoutExchange dueExchange = new FanoutExchange(retry.getDueExchange(), true, false);
+            rabbitAdmin.declareExchange(retryExchange);
+            rabbitAdmin.declareExchange(dueExchange);
+
+            Queue due = QueueBuilder.durable(retry.getDueQueue()).build();
+            rabbitAdmin.declareQueue(due);
+            rabbitAdmin.declareBinding(BindingBuilder.bind(due).to(dueExchange));
+
+            for (Duration delay : retry.getDelays()) {
+                if (delay.toMillis() <= 0) {
+                    continue;
+                }
+                Queue waiting = QueueBuilder.durable(retry.queueFor(delay))
+                        .ttl((int) delay.toMillis())
+                        .deadLetterExchange(retry.getDueExchange())
+                        .build();
+                rabbitAdmin.declareQueue(waiting);
+                rabbitAdmin.declareBinding(BindingBuilder.bind(waiting).to(retryExchange).with(retry.routingKeyFor(delay)));
+            }
+            log.info("Created webhook retry infrastructure: exchange: {}, delays: {}, due queue: {}",
+                    retry.getExchange(), retry.getDelays(), retry.getDueQueue());
+        } catch (Exception e) {
+            log.error("Failed to create webhook retry infrastructure", e);
+        }
+    }
+
     /**
      * Obtiene el estado de la inicialización
      */
@@ -1,211 +1,236 @@
 package com.uade.corehub.messaging.infrastructure;
 
+import com.rabbitmq.client.Channel;
 import com.uade.corehub.channels.ChannelRegistry;
 import com.uade.corehub.channels.ChannelRegistryProperties;
-import com.uade.corehub.config.RabbitMQInfrastructureProperties;
-import lombok.RequiredArgsConstructor;
+import com.uade.corehub.config.InfrastructureValidationProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionListener;
 import org.springframework.amqp.rabbit.core.RabbitAdmin;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Servicio para validar la existencia de infraestructura de RabbitMQ
  * NO crea automáticamente, solo valida que exista
+ * <p>
+ * El resultado por canal se cachea con TTL (uno más corto para los negativos). Una entrada vencida
+ * se sigue sirviendo mientras un hilo propio la refresca, así el camino de publicación no espera
+ * al broker; sólo el primer pedido de un canal nunca validado espera la verificación.
+ * Al (re)crearse la conexión todas las entradas se vencen y se vuelven a verificar.
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class RabbitMQInfrastructureValidator {
 
     private final RabbitAdmin rabbitAdmin;
     private final ChannelRegistry channelRegistry;
-    private final RabbitMQInfrastructureProperties infrastructureProperties;
+    private final ConnectionFactory connectionFactory;
+    private final InfrastructureValidationProperties props;
+    private final ScheduledExecutorService refresher;
 
-    private final ConcurrentMap<String, Boolean> existingExchanges = new ConcurrentHashMap<>();
-    private final ConcurrentMap<String, Boolean> existingQueues = new ConcurrentHashMap<>();
-    private final ConcurrentMap<String, Boolean> existingBindings = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CachedResult> results = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<Boolean>> inFlight = new ConcurrentHashMap<>();
+
+    public RabbitMQInfrastructureValidator(RabbitAdmin rabbitAdmin,
+                                           ChannelRegistry channelRegistry,
+                                           ConnectionFactory connectionFactory,
+                                           InfrastructureValidationProperties props) {
+        this.rabbitAdmin = rabbitAdmin;
+        this.channelRegistry = channelRegistry;
+        this.connectionFactory = connectionFactory;
+        this.props = props;
+        this.refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "infrastructure-validator");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PostConstruct
+    void init() {
+        connectionFactory.addConnectionListener(new ConnectionListener() {
+            @Override
+            public void onCreate(Connection connection) {
+                // Conexión nueva (arranque o recuperación): lo cacheado puede no reflejar el broker actual
+                invalidateAll();
+            }
+        });
+        long interval = Math.max(500, props.getRefreshInterval().toMillis());
+        refresher.scheduleWithFixedDelay(this::refreshExpiring, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refresher.shutdownNow();
+    }
 
     /**
-     * Valida si la infraestructura existe para un canal específico
+     * Valida si la infraestructura existe para un canal específico, usando el resultado cacheado
      * @param channelName nombre del canal
      * @return true si existe, false si no existe
      */
     public boolean validateInfrastructureForChannel(String channelName) {
         return channelRegistry.find(channelName)
-                .map(this::validateInfrastructureForChannel)
+                .map(this::cachedValidation)
                 .orElse(false);
     }
 
     /**
-     * Valida si la infraestructura existe para un canal específico
-     * @param channel canal a validar
+     * Verifica contra el broker ignorando el cache (y lo actualiza)
+     * @param channelName nombre del canal
      * @return true si existe, false si no existe
      */
-    private boolean validateInfrastructureForChannel(ChannelRegistryProperties.Channel channel) {
-        try {
-            String exchangeName = channel.getExchange();
-            String queueName = channel.getName();
-            String routingKey = channel.getRoutingKey();
-
-            boolean exchangeExists = validateExchange(exchangeName);
-            boolean queueExists = validateQueue(queueName);
-            boolean bindingExists = validateBinding(exchangeName, queueName, routingKey);
-
-            boolean allExist = exchangeExists && queueExists && bindingExists;
-
-            if (allExist) {
-                log.debug("Infrastructure validated for channel: {} -> exchange: {}, queue: {}, routingKey: {}",
-                        channel.getName(), exchangeName, queueName, routingKey);
-            } else {
-                log.warn("Infrastructure missing for channel: {} -> exchange: {}, queue: {}, routingKey: {}",
-                        channel.getName(), exchangeName, queueName, routingKey);
-            }
-
-            return allExist;
-
-        } catch (Exception e) {
-            log.error("Failed to validate infrastructure for channel: {}", channel.getName(), e);
-            return false;
-        }
+    public boolean revalidate(String channelName) {
+        return channelRegistry.find(channelName)
+                .map(channel -> refresh(channel).join())
+                .orElse(false);
     }
 
     /**
-     * Valida si un exchange existe
+     * Vence el resultado de un canal para que se verifique en segundo plano
      */
-    private boolean validateExchange(String exchangeName) {
-        if (existingExchanges.containsKey(exchangeName)) {
-            return existingExchanges.get(exchangeName);
-        }
+    public void invalidate(String channelName) {
+        results.computeIfPresent(channelName, (name, cached) -> cached.expired());
+        channelRegistry.find(channelName).ifPresent(this::refresh);
+    }
 
-        try {
-            // Verificar si el exchange existe en RabbitMQ
-            boolean exists = rabbitAdmin.getRabbitTemplate().execute(channel -> {
-                try {
-                    channel.exchangeDeclarePassive(exchangeName);
-                    return true;
-                } catch (Exception e) {
-                    return false;
-                }
-            });
-
-            existingExchanges.put(exchangeName, exists);
-            
-            if (exists) {
-                log.debug("Exchange exists: {}", exchangeName);
-            } else {
-                log.warn("Exchange does not exist: {}", exchangeName);
-            }
-            
-            return exists;
+    /**
+     * Vence todos los resultados y los verifica en segundo plano
+     */
+    public void invalidateAll() {
+        results.replaceAll((name, cached) -> cached.expired());
+        channelRegistry.getAllChannels().values().forEach(this::refresh);
+    }
 
-        } catch (Exception e) {
-            log.error("Error validating exchange: {}", exchangeName, e);
-            existingExchanges.put(exchangeName, false);
-            return false;
+    private boolean cachedValidation(ChannelRegistryProperties.Channel channel) {
+        CachedResult cached = results.get(channel.getName());
+        if (cached == null) {
+            // Canal nunca validado (p. ej. agregado en caliente): se espera la primera verificación
+            return refresh(channel).join();
         }
+        if (cached.isExpired(System.nanoTime())) {
+            refresh(channel);
+        }
+        return cached.exists();
     }
 
     /**
-     * Valida si una cola existe
+     * Verificación en el hilo infrastructure-validator; los pedidos concurrentes de un canal comparten el resultado
      */
-    private boolean validateQueue(String queueName) {
-        if (existingQueues.containsKey(queueName)) {
-            return existingQueues.get(queueName);
-        }
+    private CompletableFuture<Boolean> refresh(ChannelRegistryProperties.Channel channel) {
+        return inFlight.computeIfAbsent(channel.getName(), name -> {
+            CompletableFuture<Boolean> future = new CompletableFuture<>();
+            try {
+                refresher.execute(() -> {
+                    // Se quita antes de completar: quien llegue después debe disparar una verificación nueva
+                    try {
+                        boolean exists = check(channel);
+                        inFlight.remove(name, future);
+                        future.complete(exists);
+                    } catch (Throwable e) {
+                        inFlight.remove(name, future);
+                        future.completeExceptionally(e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Apagándose: no se cachea nada más
+                future.complete(results.getOrDefault(name, CachedResult.MISSING).exists());
+                return future;
+            }
+            return future;
+        });
+    }
 
+    private void refreshExpiring() {
         try {
-            // Verificar si la cola existe en RabbitMQ
-            boolean exists = rabbitAdmin.getRabbitTemplate().execute(channel -> {
-                try {
-                    channel.queueDeclarePassive(queueName);
-                    return true;
-                } catch (Exception e) {
-                    return false;
+            // Refresca lo que vence antes del próximo barrido, así el camino de publicación casi nunca ve entradas vencidas
+            long horizon = System.nanoTime() + props.getRefreshInterval().toNanos();
+            for (var channel : channelRegistry.getAllChannels().values()) {
+                CachedResult cached = results.get(channel.getName());
+                if (cached == null || cached.isExpired(horizon)) {
+                    refresh(channel);
                 }
-            });
-
-            existingQueues.put(queueName, exists);
-            
-            if (exists) {
-                log.debug("Queue exists: {}", queueName);
-            } else {
-                log.warn("Queue does not exist: {}", queueName);
             }
-            
-            return exists;
-
         } catch (Exception e) {
-            log.error("Error validating queue: {}", queueName, e);
-            existingQueues.put(queueName, false);
-            return false;
+            log.error("Infrastructure validation refresh failed: {}", e.getMessage(), e);
         }
     }
 
     /**
-     * Valida si un binding existe
+     * Verifica exchange y cola con declaraciones pasivas en un único canal AMQP y actualiza el cache.
+     * Si el broker no responde se conserva el resultado anterior con la vigencia corta.
      */
-    private boolean validateBinding(String exchangeName, String queueName, String routingKey) {
-        String bindingKey = exchangeName + ":" + queueName + ":" + routingKey;
-        
-        if (existingBindings.containsKey(bindingKey)) {
-            return existingBindings.get(bindingKey);
+    private boolean check(ChannelRegistryProperties.Channel channel) {
+        String exchangeName = channel.getExchange();
+        String queueName = channel.getName();
+        String routingKey = channel.getRoutingKey();
+        boolean allExist;
+        try {
+            allExist = Boolean.TRUE.equals(rabbitAdmin.getRabbitTemplate().execute(amqp -> existsPassive(amqp, exchangeName, queueName)));
+        } catch (Exception e) {
+            boolean previous = results.getOrDefault(channel.getName(), CachedResult.MISSING).exists();
+            log.error("Failed to validate infrastructure for channel: {} ({}), keeping last result: {}",
+                    channel.getName(), e.getMessage(), previous);
+            results.put(channel.getName(), new CachedResult(previous, System.nanoTime() + props.getNegativeTtl().toNanos()));
+            return previous;
         }
 
-        try {
-            // Verificar si el binding existe en RabbitMQ
-            boolean exists = rabbitAdmin.getRabbitTemplate().execute(channel -> {
-                try {
-                    // Verificar que el exchange y la cola existan
-                    channel.exchangeDeclarePassive(exchangeName);
-                    channel.queueDeclarePassive(queueName);
-                    
-                    // Verificar que el binding existe
-                    // Nota: RabbitMQ no tiene un método directo para verificar bindings
-                    // Por ahora, asumimos que existe si el exchange y la cola existen
-                    return true;
-                } catch (Exception e) {
-                    return false;
-                }
-            });
-
-            existingBindings.put(bindingKey, exists);
-            
-            if (exists) {
-                log.debug("Binding exists: {} -> {} with routing key: {}", exchangeName, queueName, routingKey);
-            } else {
-                log.warn("Binding does not exist: {} -> {} with routing key: {}", exchangeName, queueName, routingKey);
-            }
-            
-            return exists;
+        CachedResult previous = results.put(channel.getName(), new CachedResult(allExist,
+                System.nanoTime() + (allExist ? props.getTtl() : props.getNegativeTtl()).toNanos()));
+        if (allExist) {
+            log.debug("Infrastructure validated for channel: {} -> exchange: {}, queue: {}, routingKey: {}",
+                    channel.getName(), exchangeName, queueName, routingKey);
+        } else if (previous == null || previous.exists()) {
+            // Sólo se loguea el cambio, no cada verificación negativa
+            log.warn("Infrastructure missing for channel: {} -> exchange: {}, queue: {}, routingKey: {}",
+                    channel.getName(), exchangeName, queueName, routingKey);
+        }
+        return allExist;
+    }
 
-        } catch (Exception e) {
-            log.error("Error validating binding: {} -> {} with routing key: {}", exchangeName, queueName, routingKey, e);
-            existingBindings.put(bindingKey, false);
+    private static boolean existsPassive(Channel amqp, String exchangeName, String queueName) {
+        try {
+            amqp.exchangeDeclarePassive(exchangeName);
+            amqp.queueDeclarePassive(queueName);
+            // RabbitMQ no tiene un método directo para verificar bindings:
+            // se asume que existe si el exchange y la cola existen
+            return true;
+        } catch (IOException e) {
+            // 404 del broker: el canal queda cerrado y RabbitTemplate lo descarta
             return false;
         }
     }
 
     /**
-     * Valida toda la infraestructura configurada
+     * Valida toda la infraestructura configurada contra el broker
      */
     public void validateAllInfrastructure() {
         log.info("Validating RabbitMQ infrastructure for all configured channels...");
-        
+
         var allChannels = channelRegistry.getAllChannels();
         int totalChannels = allChannels.size();
         int validChannels = 0;
 
         for (var channel : allChannels.values()) {
-            if (validateInfrastructureForChannel(channel)) {
+            if (refresh(channel).join()) {
                 validChannels++;
             }
         }
 
-        log.info("RabbitMQ infrastructure validation completed: {}/{} channels have valid infrastructure", 
+        log.info("RabbitMQ infrastructure validation completed: {}/{} channels have valid infrastructure",
                 validChannels, totalChannels);
     }
 
@@ -215,4 +240,17 @@ public class RabbitMQInfrastructureValidator {
     public boolean isInfrastructureReady(String channelName) {
         return validateInfrastructureForChannel(channelName);
     }
+
+    private record CachedResult(boolean exists, long expiresAtNanos) {
+
+        static final CachedResult MISSING = new CachedResult(false, 0);
+
+        boolean isExpired(long nanoTime) {
+            return nanoTime - expiresAtNanos >= 0;
+        }
+
+        CachedResult expired() {
+            return new CachedResult(exists, System.nanoTime());
+        }
+    }
 }
@@ -0,0 +1,156 @@
+package com.uade.corehub.messaging.outbox;
+
+import com.uade.corehub.channels.ChannelRegistry;
+import com.uade.corehub.config.PublishProperties;
+import com.uade.corehub.messaging.broker.OutboundMessage;
+import com.uade.corehub.messaging.broker.RabbitPublisher;
+import com.uade.corehub.messaging.dto.MessageEnvelope;
+import com.uade.corehub.messaging.store.MessageBatchWriter;
+import com.uade.corehub.messaging.store.OutboxStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Relay del outbox: drena las filas PENDING de message_log y las publica en RabbitMQ.
+ * Cada hilo reclama un lote con FOR UPDATE SKIP LOCKED, publica en pipeline y marca
+ * PUBLISHED (o PUBLISHING si hay publisher confirms) en la misma transacción, así varios hilos y nodos drenan en paralelo sin
+ * enviar dos veces la misma fila. Sólo arranca con corehub.publish.mode=outbox.
+ */
+@Slf4j
+@Component
+public class OutboxRelay implements SmartLifecycle {
+
+    private final PublishProperties publishProperties;
+    private final OutboxStore outboxStore;
+    private final MessageBatchWriter batchWriter;
+    private final RabbitPublisher rabbitPublisher;
+    private final ChannelRegistry channelRegistry;
+    private final TransactionTemplate transactionTemplate;
+
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    public OutboxRelay(PublishProperties publishProperties,
+                       OutboxStore outboxStore,
+                       MessageBatchWriter batchWriter,
+                       RabbitPublisher rabbitPublisher,
+                       ChannelRegistry channelRegistry,
+                       PlatformTransactionManager transactionManager) {
+        this.publishProperties = publishProperties;
+        this.outboxStore = outboxStore;
+        this.batchWriter = batchWriter;
+        this.rabbitPublisher = rabbitPublisher;
+        this.channelRegistry = channelRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running || !publishProperties.outboxMode()) {
+            return;
+        }
+        running = true;
+        int threads = Math.max(1, publishProperties.getOutbox().getRelayThreads());
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(this::relayLoop, "outbox-relay-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        log.info("Outbox relay started with {} thread(s)", threads);
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+        workers.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void relayLoop() {
+        long idleMillis = publishProperties.getOutbox().getPollInterval().toMillis();
+        while (running) {
+            try {
+                RelayResult result = transactionTemplate.execute(status -> relayBatch());
+                // Sin filas o con errores del broker: esperar antes de volver a reclamar
+                if (result == null || result.claimed() == 0 || result.failed() > 0) {
+                    Thread.sleep(idleMillis);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Outbox relay iteration failed: {}", e.getMessage(), e);
+                try {
+                    Thread.sleep(idleMillis);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reclama un lote, lo publica y actualiza estados. Corre dentro de la transacción del relay.
+     */
+    RelayResult relayBatch() {
+        var claimed = outboxStore.claimPending(publishProperties.getOutbox().getBatchSize());
+        if (claimed.isEmpty()) {
+            return new RelayResult(0, 0);
+        }
+
+        List<OutboundMessage> outbound = new ArrayList<>(claimed.size());
+        Map<String, String> failed = new LinkedHashMap<>();
+        for (OutboxStore.PendingMessage row : claimed) {
+            var channel = channelRegistry.find(row.channel());
+            if (channel.isEmpty()) {
+                failed.put(row.messageId(), "Channel not found: " + row.channel());
+                continue;
+            }
+            var envelope = new MessageEnvelope(
+                    row.messageId(),
+                    row.producedAt(),
+                    row.source(),
+                    new MessageEnvelope.Destination(row.channel(), row.eventName()),
+                    row.metadata(),
+                    row.payload());
+            outbound.add(new OutboundMessage(row.messageId(), channel.get().getExchange(), row.routingKey(), envelope));
+        }
+
+        rabbitPublisher.publishAll(outbound).forEach((messageId, error) -> failed.put(messageId, error.getMessage()));
+        List<String> published = outbound.stream()
+                .map(OutboundMessage::messageId)
+                .filter(id -> !failed.containsKey(id))
+                .toList();
+
+        if (rabbitPublisher.isConfirmTracking()) {
+            // PUBLISHING saca las filas del outbox; el ack las pasa a PUBLISHED tras el commit
+            batchWriter.markPublishing(published);
+        } else {
+            batchWriter.markPublished(published, OffsetDateTime.now());
+        }
+        if (!failed.isEmpty()) {
+            outboxStore.markForRetry(failed, publishProperties.getOutbox().getMaxAttempts());
+            log.warn("Outbox relay batch had {} failed message(s)", failed.size());
+        }
+        log.debug("Outbox relay batch - Claimed: {}, Published: {}", claimed.size(), published.size());
+        return new RelayResult(claimed.size(), failed.size());
+    }
+
+    record RelayResult(int claimed, int failed) {}
+}
@@ -0,0 +1,86 @@
+package com.uade.corehub.messaging.outbox;
+
+import com.uade.corehub.config.PublishProperties;
+import com.uade.corehub.messaging.store.OutboxStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recupera filas que quedaron PUBLISHING: sólo el PublisherConfirmTracker en memoria del nodo que
+ * las envió las resuelve si el confirm no llega, y si ese nodo cae antes del ack nadie más lo hace.
+ * En modo outbox vuelven a PENDING y el relay las re-envía (at-least-once); en modo directo no hay
+ * quien las re-envíe y pasan a FAILED, igual que con un timeout del tracker.
+ */
+@Slf4j
+@Component
+public class PublishingRecovery {
+
+    private final PublishProperties publishProperties;
+    private final OutboxStore outboxStore;
+    private final ScheduledExecutorService scheduler;
+
+    public PublishingRecovery(PublishProperties publishProperties, OutboxStore outboxStore) {
+        this.publishProperties = publishProperties;
+        this.outboxStore = outboxStore;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "publishing-recovery");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PostConstruct
+    void init() {
+        long interval = Math.max(1_000, publishProperties.getOutbox().getRecoveryInterval().toMillis());
+        // La primera pasada al arrancar: recupera lo que dejó un reinicio de este mismo nodo
+        scheduler.scheduleWithFixedDelay(this::runSafely, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * @return filas devueltas a PENDING o pasadas a FAILED
+     */
+    int recover() {
+        if (!publishProperties.outboxMode()) {
+            int failed = outboxStore.failStalePublishing(staleAfter());
+            if (failed > 0) {
+                log.warn("Marked {} message(s) FAILED whose publisher confirm never arrived", failed);
+            }
+            return failed;
+        }
+        int requeued = outboxStore.requeueStalePublishing(staleAfter(), publishProperties.getOutbox().getMaxAttempts());
+        if (requeued > 0) {
+            log.warn("Requeued {} outbox message(s) whose publisher confirm never arrived", requeued);
+        }
+        return requeued;
+    }
+
+    /**
+     * Más que el timeout del confirm (más una pasada): el tracker del nodo vivo ya las habría resuelto.
+     * En modo directo la fila se escribe recién después de persistAfter, contado desde created_at.
+     */
+    private Duration staleAfter() {
+        var confirms = publishProperties.getConfirms();
+        Duration staleAfter = confirms.getTimeout().plus(publishProperties.getOutbox().getRecoveryInterval());
+        return publishProperties.outboxMode() ? staleAfter : staleAfter.plus(confirms.getPersistAfter());
+    }
+
+    private void runSafely() {
+        try {
+            recover();
+        } catch (Exception e) {
+            log.error("Publishing recovery failed: {}", e.getMessage(), e);
+        }
+    }
+}
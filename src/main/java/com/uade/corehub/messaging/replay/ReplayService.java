@@ -0,0 +1,180 @@
+package com.uade.corehub.messaging.replay;
+
+import com.uade.corehub.channels.ChannelRegistry;
+import com.uade.corehub.config.ReplayProperties;
+import com.uade.corehub.messaging.dto.RedriveRequest;
+import com.uade.corehub.messaging.dto.ReplayRequest;
+import com.uade.corehub.messaging.store.ReplayJob;
+import com.uade.corehub.messaging.store.ReplayJobRepository;
+import com.uade.corehub.messaging.store.ReplayStore;
+import com.uade.corehub.messaging.store.SubscriptionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Alta y control de jobs de replay. La ejecución la hace ReplayWorker en cualquier nodo:
+ * pausar/cancelar sólo cambia el estado en la base y el worker lo ve en su próximo checkpoint.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReplayService {
+
+	// Sin rango explícito (replay por messageIds) se recorre desde el inicio del historial
+	private static final OffsetDateTime BEGINNING = OffsetDateTime.of(1970, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+	private final ReplayProperties props;
+	private final ReplayJobRepository jobRepository;
+	private final ReplayStore replayStore;
+	private final ChannelRegistry channelRegistry;
+	private final SubscriptionRepository subscriptionRepository;
+	private final ReplayWorker worker;
+
+	/**
+	 * Crea un job RUNNING; algún nodo lo toma en el próximo sondeo
+	 * @throws IllegalArgumentException si el pedido no es válido
+	 */
+	public ReplayJob create(ReplayRequest request) {
+		if (channelRegistry.find(request.channel()).isEmpty()) {
+			throw new IllegalArgumentException("Channel not found: " + request.channel());
+		}
+		List<String> messageIds = request.messageIds() == null || request.messageIds().isEmpty()
+				? null
+				: request.messageIds().stream().distinct().toList();
+		if (request.from() == null && messageIds == null) {
+			throw new IllegalArgumentException("Either 'from' or 'messageIds' is required");
+		}
+		if (messageIds != null && messageIds.size() > props.getMaxMessageIds()) {
+			throw new IllegalArgumentException("Too many messageIds (max " + props.getMaxMessageIds() + ")");
+		}
+		var now = OffsetDateTime.now();
+		var from = request.from() == null ? BEGINNING : request.from();
+		var to = request.to() == null ? now : request.to();
+		if (!from.isBefore(to)) {
+			throw new IllegalArgumentException("'from' must be before 'to'");
+		}
+		if (request.subscriptionId() != null && !subscriptionRepository.existsById(request.subscriptionId())) {
+			throw new IllegalArgumentException("Subscription not found: " + request.subscriptionId());
+		}
+		int rate = request.ratePerSecond() == null ? props.getDefaultRate() : request.ratePerSecond();
+		if (rate > props.getMaxRate()) {
+			throw new IllegalArgumentException("ratePerSecond exceeds the maximum of " + props.getMaxRate());
+		}
+
+		ReplayJob job = jobRepository.save(ReplayJob.builder()
+				.id(UUID.randomUUID().toString())
+				.channel(request.channel())
+				.fromTs(from)
+				.toTs(to)
+				.messageIds(messageIds)
+				.subscriptionId(request.subscriptionId())
+				.ratePerSecond(rate)
+				.status(ReplayJob.RUNNING)
+				.createdAt(now)
+				.updatedAt(now)
+				.build());
+		log.info("Replay job created - JobId: '{}', Channel: '{}', From: {}, To: {}, Target: {}",
+				job.getId(), job.getChannel(), from, to, job.getSubscriptionId() == null ? "broker" : job.getSubscriptionId());
+		return job;
+	}
+
+	/**
+	 * Crea un job de redrive del parking lot (source PARKING_LOT); se controla igual que un replay
+	 * @throws IllegalArgumentException si el pedido no es válido
+	 */
+	public ReplayJob createRedrive(RedriveRequest request) {
+		if (channelRegistry.find(request.channel()).isEmpty()) {
+			throw new IllegalArgumentException("Channel not found: " + request.channel());
+		}
+		List<String> messageIds = request.messageIds() == null || request.messageIds().isEmpty()
+				? null
+				: request.messageIds().stream().distinct().toList();
+		if (messageIds != null && messageIds.size() > props.getMaxMessageIds()) {
+			throw new IllegalArgumentException("Too many messageIds (max " + props.getMaxMessageIds() + ")");
+		}
+		var now = OffsetDateTime.now();
+		var from = request.from() == null ? BEGINNING : request.from();
+		var to = request.to() == null ? now : request.to();
+		if (!from.isBefore(to)) {
+			throw new IllegalArgumentException("'from' must be before 'to'");
+		}
+		if (request.subscriptionId() != null && !subscriptionRepository.existsById(request.subscriptionId())) {
+			throw new IllegalArgumentException("Subscription not found: " + request.subscriptionId());
+		}
+		int rate = request.ratePerSecond() == null ? props.getDefaultRate() : request.ratePerSecond();
+		if (rate > props.getMaxRate()) {
+			throw new IllegalArgumentException("ratePerSecond exceeds the maximum of " + props.getMaxRate());
+		}
+
+		ReplayJob job = jobRepository.save(ReplayJob.builder()
+				.id(UUID.randomUUID().toString())
+				.source(ReplayJob.SOURCE_PARKING_LOT)
+				.channel(request.channel())
+				.fromTs(from)
+				.toTs(to)
+				.messageIds(messageIds)
+				.subscriptionId(request.subscriptionId())
+				.targetUrl(request.targetUrl())
+				.ratePerSecond(rate)
+				.status(ReplayJob.RUNNING)
+				.createdAt(now)
+				.updatedAt(now)
+				.build());
+		log.info("Redrive job created - JobId: '{}', Channel: '{}', From: {}, To: {}, Target: {}",
+				job.getId(), job.getChannel(), from, to, job.getTargetUrl() == null ? "original subscriptions" : job.getTargetUrl());
+		return job;
+	}
+
+	public Optional<ReplayJob> find(String jobId) {
+		return jobRepository.findById(jobId);
+	}
+
+	public List<ReplayJob> list(int limit) {
+		return jobRepository.findAllByOrderByCreatedAtDesc(PageRequest.of(0, Math.max(1, Math.min(limit, 500))));
+	}
+
+	/**
+	 * @return false si el job no existe o no está RUNNING
+	 */
+	public boolean pause(String jobId) {
+		boolean paused = replayStore.transition(jobId, ReplayJob.PAUSED, false, ReplayJob.RUNNING);
+		if (paused) {
+			worker.stopLocal(jobId);
+			log.info("Replay job paused - JobId: '{}'", jobId);
+		}
+		return paused;
+	}
+
+	/**
+	 * Reanuda un job pausado o fallido desde su último checkpoint
+	 * @return false si el job no existe o no está PAUSED/FAILED
+	 */
+	public boolean resume(String jobId) {
+		boolean resumed = replayStore.transition(jobId, ReplayJob.RUNNING, false, ReplayJob.PAUSED, ReplayJob.FAILED);
+		if (resumed) {
+			log.info("Replay job resumed - JobId: '{}'", jobId);
+		}
+		return resumed;
+	}
+
+	/**
+	 * @return false si el job no existe o ya terminó
+	 */
+	public boolean cancel(String jobId) {
+		boolean cancelled = replayStore.transition(jobId, ReplayJob.CANCELLED, true,
+				ReplayJob.RUNNING, ReplayJob.PAUSED, ReplayJob.FAILED);
+		if (cancelled) {
+			worker.stopLocal(jobId);
+			log.info("Replay job cancelled - JobId: '{}'", jobId);
+		}
+		return cancelled;
+	}
+}
@@ -0,0 +1,319 @@
+package com.uade.corehub.messaging.replay;
+
+import com.uade.corehub.channels.ChannelRegistry;
+import com.uade.corehub.channels.ChannelRegistryProperties;
+import com.uade.corehub.config.ReplayProperties;
+import com.uade.corehub.messaging.broker.RabbitPublisher;
+import com.uade.corehub.messaging.dispatcher.WebhookDispatcherService;
+import com.uade.corehub.messaging.dto.MessageEnvelope;
+import com.uade.corehub.messaging.store.ParkingLotStore;
+import com.uade.corehub.messaging.store.ReplayJob;
+import com.uade.corehub.messaging.store.ReplayJobRepository;
+import com.uade.corehub.messaging.store.ReplayStore;
+import com.uade.corehub.messaging.store.Subscription;
+import com.uade.corehub.messaging.store.SubscriptionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ejecuta jobs de replay en segundo plano.
+ * Cada nodo sondea replay_jobs y toma jobs RUNNING sin dueño con un lease (SKIP LOCKED).
+ * El job recorre los mensajes por páginas keyset, los re-envía al ritmo configurado y cada
+ * tanto persiste cursor + contadores renovando el lease; ese checkpoint también trae el estado
+ * actual, así una pausa o cancelación hecha desde otro nodo se respeta. Si el nodo cae, otro
+ * retoma el job desde el último checkpoint (los mensajes posteriores se re-envían otra vez).
+ * Los jobs con source PARKING_LOT recorren parked_deliveries en vez de message_log (redrive).
+ */
+@Slf4j
+@Component
+public class ReplayWorker {
+
+	private final ReplayProperties props;
+	private final ReplayStore replayStore;
+	private final ParkingLotStore parkingLotStore;
+	private final ReplayJobRepository jobRepository;
+	private final ChannelRegistry channelRegistry;
+	private final SubscriptionRepository subscriptionRepository;
+	private final RabbitPublisher rabbitPublisher;
+	private final WebhookDispatcherService webhookDispatcher;
+	private final String owner;
+	private final ScheduledExecutorService poller;
+	private final ExecutorService runners;
+	private final Map<String, AtomicBoolean> running = new ConcurrentHashMap<>();
+
+	public ReplayWorker(ReplayProperties props,
+						ReplayStore replayStore,
+						ParkingLotStore parkingLotStore,
+						ReplayJobRepository jobRepository,
+						ChannelRegistry channelRegistry,
+						SubscriptionRepository subscriptionRepository,
+						RabbitPublisher rabbitPublisher,
+						WebhookDispatcherService webhookDispatcher) {
+		this.props = props;
+		this.replayStore = replayStore;
+		this.parkingLotStore = parkingLotStore;
+		this.jobRepository = jobRepository;
+		this.channelRegistry = channelRegistry;
+		this.subscriptionRepository = subscriptionRepository;
+		this.rabbitPublisher = rabbitPublisher;
+		this.webhookDispatcher = webhookDispatcher;
+		this.owner = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+		this.poller = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "replay-poller");
+			t.setDaemon(true);
+			return t;
+		});
+		this.runners = Executors.newFixedThreadPool(Math.max(1, props.getWorkers()), r -> {
+			Thread t = new Thread(r, "replay-worker");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	@PostConstruct
+	void init() {
+		long interval = Math.max(500, props.getPollInterval().toMillis());
+		poller.scheduleWithFixedDelay(this::claimJobs, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	void shutdown() {
+		poller.shutdownNow();
+		running.values().forEach(stop -> stop.set(true));
+		runners.shutdown();
+		try {
+			runners.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Detiene sin esperar al checkpoint un job que corre en este nodo (pausa/cancelación local)
+	 */
+	void stopLocal(String jobId) {
+		AtomicBoolean stop = running.get(jobId);
+		if (stop != null) {
+			stop.set(true);
+		}
+	}
+
+	private void claimJobs() {
+		try {
+			while (running.size() < Math.max(1, props.getWorkers())) {
+				var claimed = replayStore.claim(owner, leaseUntil());
+				if (claimed.isEmpty()) {
+					return;
+				}
+				String jobId = claimed.get();
+				AtomicBoolean stop = new AtomicBoolean();
+				running.put(jobId, stop);
+				runners.execute(() -> {
+					try {
+						run(jobId, stop);
+					} finally {
+						running.remove(jobId);
+					}
+				});
+			}
+		} catch (Exception e) {
+			log.error("Replay job polling failed: {}", e.getMessage(), e);
+		}
+	}
+
+	private void run(String jobId, AtomicBoolean stop) {
+		ReplayJob job = jobRepository.findById(jobId).orElse(null);
+		if (job == null) {
+			return;
+		}
+		try {
+			String outcome = replay(job, stop);
+			if (outcome != null) {
+				replayStore.finish(jobId, owner, outcome, null);
+				log.info("Replay job finished - JobId: '{}', Status: {}", jobId, outcome);
+			} else {
+				replayStore.release(jobId, owner);
+			}
+		} catch (Exception e) {
+			log.error("Replay job failed - JobId: '{}', Error: {}", jobId, e.getMessage(), e);
+			replayStore.finish(jobId, owner, ReplayJob.FAILED, e.getMessage());
+		}
+	}
+
+	/**
+	 * @return COMPLETED al agotar el rango, o null si el job se detuvo (pausa, cancelación, lease perdido)
+	 */
+	private String replay(ReplayJob job, AtomicBoolean stop) {
+		var channel = channelRegistry.find(job.getChannel())
+				.orElseThrow(() -> new IllegalStateException("Channel not found: " + job.getChannel()));
+		boolean parkingLot = job.isRedrive();
+		// En un redrive subscriptionId sólo filtra: cada entrega va a su propia suscripción (o a targetUrl)
+		Subscription subscription = parkingLot || job.getSubscriptionId() == null ? null
+				: subscriptionRepository.findById(job.getSubscriptionId())
+				.orElseThrow(() -> new IllegalStateException("Subscription not found: " + job.getSubscriptionId()));
+		Map<String, Optional<Subscription>> subscriptions = new HashMap<>();
+		if (job.getTotal() == null) {
+			replayStore.setTotal(job.getId(), parkingLot ? parkingLotStore.count(job) : replayStore.count(job));
+		}
+		log.info("Replay job started - JobId: '{}', Owner: '{}', Resuming from: {}", job.getId(), owner, job.getCursorCreatedAt());
+
+		OffsetDateTime cursorCreatedAt = job.getCursorCreatedAt() == null ? job.getFromTs() : job.getCursorCreatedAt();
+		long cursorId = job.getCursorId() == null ? 0 : job.getCursorId();
+		String correlationId = "replay-" + job.getId();
+		long intervalNanos = 1_000_000_000L / Math.max(1, job.getRatePerSecond());
+		long checkpointNanos = Math.max(1_000_000_000L, props.getLease().toNanos() / 3);
+		long nextSend = System.nanoTime();
+		long lastCheckpoint = System.nanoTime();
+		long replayed = 0;
+		long failed = 0;
+
+		while (true) {
+			int pageSize = Math.max(1, props.getPageSize());
+			List<? extends ReplayStore.Row> page = parkingLot
+					? parkingLotStore.page(job, cursorCreatedAt, cursorId, pageSize)
+					: replayStore.page(job, cursorCreatedAt, cursorId, pageSize);
+			for (ReplayStore.Row row : page) {
+				if (stop.get() || Thread.currentThread().isInterrupted()) {
+					checkpoint(job, cursorCreatedAt, cursorId, replayed, failed);
+					return null;
+				}
+				// Ritmo fijo: como máximo ratePerSecond envíos por segundo
+				long wait = nextSend - System.nanoTime();
+				if (wait > 0) {
+					LockSupport.parkNanos(wait);
+				}
+				nextSend = Math.max(nextSend, System.nanoTime() - intervalNanos) + intervalNanos;
+
+				boolean sent = row instanceof ParkingLotStore.ParkedDelivery parked
+						? redrive(job, parked, subscriptions)
+						: send(channel, subscription, (ReplayStore.StoredMessage) row, correlationId);
+				if (sent) {
+					replayed++;
+				} else {
+					failed++;
+				}
+				cursorCreatedAt = row.keysetAt();
+				cursorId = row.id();
+
+				if (System.nanoTime() - lastCheckpoint >= checkpointNanos) {
+					if (!checkpoint(job, cursorCreatedAt, cursorId, replayed, failed)) {
+						return null;
+					}
+					replayed = 0;
+					failed = 0;
+					lastCheckpoint = System.nanoTime();
+				}
+			}
+			if (!checkpoint(job, cursorCreatedAt, cursorId, replayed, failed)) {
+				return null;
+			}
+			replayed = 0;
+			failed = 0;
+			lastCheckpoint = System.nanoTime();
+			if (page.size() < props.getPageSize()) {
+				return ReplayJob.COMPLETED;
+			}
+		}
+	}
+
+	/**
+	 * @return true si el job sigue RUNNING y con lease de este nodo
+	 */
+	private boolean checkpoint(ReplayJob job, OffsetDateTime cursorCreatedAt, long cursorId, long replayed, long failed) {
+		var status = replayStore.checkpoint(job.getId(), owner, cursorCreatedAt, cursorId, replayed, failed, leaseUntil());
+		if (status.isEmpty()) {
+			log.warn("Replay job lease lost - JobId: '{}'", job.getId());
+			return false;
+		}
+		if (!ReplayJob.RUNNING.equals(status.get())) {
+			log.info("Replay job stopped - JobId: '{}', Status: {}", job.getId(), status.get());
+			return false;
+		}
+		return true;
+	}
+
+	private boolean send(ChannelRegistryProperties.Channel channel, Subscription subscription,
+						 ReplayStore.StoredMessage message, String correlationId) {
+		if (message.payload() == null) {
+			log.warn("Replay skipped message without payload - MessageId: '{}'", message.messageId());
+			return false;
+		}
+		var envelope = new MessageEnvelope(
+				message.messageId(),
+				message.producedAt(),
+				message.source(),
+				new MessageEnvelope.Destination(channel.getName(), message.eventName()),
+				message.metadata(),
+				message.payload());
+		try {
+			if (subscription != null) {
+				return webhookDispatcher.dispatchTo(subscription, envelope, correlationId);
+			}
+			rabbitPublisher.publish(channel.getExchange(), message.routingKey(), envelope);
+			return true;
+		} catch (Exception e) {
+			log.warn("Replay of message failed - MessageId: '{}', Error: {}", message.messageId(), e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Re-envía una entrega estacionada a su suscripción original (o a targetUrl) y la marca REDRIVEN;
+	 * si falla sigue PARKED con el nuevo error
+	 */
+	private boolean redrive(ReplayJob job, ParkingLotStore.ParkedDelivery parked, Map<String, Optional<Subscription>> subscriptions) {
+		String correlationId = parked.correlationId() == null ? "redrive-" + job.getId() : parked.correlationId();
+		String error;
+		try {
+			boolean ok;
+			if (job.getTargetUrl() != null) {
+				ok = webhookDispatcher.dispatchToUrl(job.getTargetUrl(), parked.subscriptionId(), parked.envelope(), correlationId);
+				error = "Delivery to target URL failed";
+			} else {
+				Subscription subscription = subscriptions
+						.computeIfAbsent(parked.subscriptionId(), subscriptionRepository::findById)
+						.orElse(null);
+				ok = subscription != null && webhookDispatcher.dispatchTo(subscription, parked.envelope(), correlationId);
+				error = subscription == null ? "Subscription not found" : subscription.getLastError();
+			}
+			if (ok) {
+				parkingLotStore.markRedriven(parked.id(), job.getId());
+				return true;
+			}
+		} catch (Exception e) {
+			error = e.getMessage();
+		}
+		log.warn("Redrive of parked delivery failed - Id: {}, MessageId: '{}', Error: {}", parked.id(), parked.messageId(), error);
+		parkingLotStore.markRedriveFailed(parked.id(), job.getId(), error);
+		return false;
+	}
+
+	private OffsetDateTime leaseUntil() {
+		return OffsetDateTime.now().plus(props.getLease());
+	}
+
+	private static String hostName() {
+		try {
+			return InetAddress.getLocalHost().getHostName();
+		} catch (Exception e) {
+			return "node";
+		}
+	}
+}
@@ -0,0 +1,11 @@
+package com.uade.corehub.messaging.schema;
+
+/**
+ * El payload no cumple el JSON Schema del canal (o la versión referenciada no está registrada)
+ */
+public class PayloadSchemaException extends RuntimeException {
+
+	public PayloadSchemaException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,55 @@
+package com.uade.corehub.messaging.schema;
+
+import com.networknt.schema.InputFormat;
+import com.networknt.schema.ValidationMessage;
+import com.uade.corehub.channels.ChannelRegistryProperties;
+import com.uade.corehub.messaging.dto.RawPayload;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Valida payloads contra el JSON Schema que declara su canal (schemaVersion en channels.yaml),
+ * antes de persistir o publicar. El costo de cada validación queda en corehub.schema.validation.
+ */
+@Component
+@RequiredArgsConstructor
+public class PayloadSchemaValidator {
+
+	private final SchemaRegistry schemaRegistry;
+
+	/**
+	 * @return la versión contra la que se validó (para payload_store.schema_ver), o null si el canal no declara schema
+	 * @throws PayloadSchemaException si el payload no cumple el schema o la versión no está registrada
+	 */
+	public String validate(ChannelRegistryProperties.Channel channel, RawPayload payload) {
+		String version = versionOf(channel);
+		if (version == null) {
+			return null;
+		}
+		SchemaRegistry.CompiledSchema compiled = schemaRegistry.compiled(channel.getName(), version);
+		if (compiled == null) {
+			throw new PayloadSchemaException("JSON Schema version '" + version + "' is not registered for channel: " + channel.getName());
+		}
+
+		long start = System.nanoTime();
+		// El texto se parsea una sola vez, directo al árbol que recorre el validador
+		Set<ValidationMessage> errors = compiled.schema().validate(payload.json(), InputFormat.JSON);
+		(errors.isEmpty() ? compiled.valid() : compiled.invalid()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		if (!errors.isEmpty()) {
+			throw new PayloadSchemaException("Payload does not match schema '" + channel.getName() + "' version '" + version + "': "
+					+ schemaRegistry.describe(errors));
+		}
+		return version;
+	}
+
+	/**
+	 * @return la versión de schema que declara el canal, o null si no declara ninguna
+	 */
+	public static String versionOf(ChannelRegistryProperties.Channel channel) {
+		String version = channel.getSchemaVersion();
+		return version == null || version.isBlank() ? null : version;
+	}
+}
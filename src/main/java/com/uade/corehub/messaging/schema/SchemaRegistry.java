@@ -0,0 +1,173 @@
+package com.uade.corehub.messaging.schema;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.JsonSchemaException;
+import com.networknt.schema.JsonSchemaFactory;
+import com.networknt.schema.SchemaId;
+import com.networknt.schema.SchemaLocation;
+import com.networknt.schema.SpecVersion;
+import com.networknt.schema.ValidationMessage;
+import com.networknt.schema.resource.AllowSchemaLoader;
+import com.uade.corehub.config.SchemaProperties;
+import com.uade.corehub.messaging.store.ChannelSchemaStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Registro de JSON Schema versionados por canal (channel_schemas) y cache LRU de validadores compilados.
+ * Una versión registrada es inmutable, así que un validador compilado nunca queda viejo; sólo se
+ * recuerda por corehub.schemas.missing-ttl que una versión todavía no existe.
+ */
+@Slf4j
+@Component
+public class SchemaRegistry {
+
+	private final ChannelSchemaStore store;
+	private final SchemaProperties props;
+	private final ObjectMapper objectMapper;
+	private final MeterRegistry meterRegistry;
+	private final JsonSchemaFactory factory;
+	private final Map<String, CompiledSchema> compiled;
+
+	public SchemaRegistry(ChannelSchemaStore store, SchemaProperties props, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+		this.store = store;
+		this.props = props;
+		this.objectMapper = objectMapper;
+		this.meterRegistry = meterRegistry;
+		// Sin $ref remotos: sólo se resuelven los meta-schemas que trae la librería
+		this.factory = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V202012, builder -> builder
+				.jsonMapper(objectMapper)
+				.schemaLoaders(loaders -> loaders.add(new AllowSchemaLoader(iri -> iri.toString().startsWith("classpath:")))));
+		int capacity = Math.max(1, props.getCacheSize());
+		this.compiled = new LinkedHashMap<>(capacity * 2, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CompiledSchema> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * Registra una versión del schema de un canal. Registrar otra vez el mismo contenido no hace nada.
+	 * @throws IllegalArgumentException si el documento no es un JSON Schema válido
+	 * @throws IllegalStateException si la versión ya existe con otro contenido
+	 */
+	public ChannelSchemaStore.ChannelSchema register(String channel, String version, JsonNode schema) {
+		Set<ValidationMessage> errors = factory.getSchema(SchemaLocation.of(SchemaId.V202012)).validate(schema);
+		if (!errors.isEmpty()) {
+			throw new IllegalArgumentException("Invalid JSON Schema: " + describe(errors));
+		}
+		try {
+			compile(schema);
+		} catch (JsonSchemaException e) {
+			// p. ej. un $ref a un documento que no se puede cargar
+			throw new IllegalArgumentException("Invalid JSON Schema: " + e.getMessage(), e);
+		}
+
+		if (store.insert(channel, version, schema.toString())) {
+			log.info("JSON Schema registered - Channel: '{}', Version: '{}'", channel, version);
+		}
+		ChannelSchemaStore.ChannelSchema stored = store.find(channel, version).orElseThrow();
+		if (!readTree(stored.schema()).equals(schema)) {
+			throw new IllegalStateException("Schema version '" + version + "' is already registered for channel '" + channel + "' with different content");
+		}
+		synchronized (compiled) {
+			// Puede haber quedado marcada como inexistente
+			compiled.remove(key(channel, version));
+		}
+		return stored;
+	}
+
+	public Optional<ChannelSchemaStore.ChannelSchema> find(String channel, String version) {
+		return store.find(channel, version);
+	}
+
+	public List<ChannelSchemaStore.ChannelSchema> list(String channel) {
+		return store.findByChannel(channel);
+	}
+
+	/**
+	 * Validador compilado de una versión; se compila una sola vez y queda en el LRU
+	 * @return el validador, o null si la versión no está registrada
+	 */
+	CompiledSchema compiled(String channel, String version) {
+		String key = key(channel, version);
+		CompiledSchema cached;
+		synchronized (compiled) {
+			cached = compiled.get(key);
+		}
+		if (cached != null && (cached.schema() != null || System.nanoTime() - cached.missingUntil() < 0)) {
+			return cached.schema() == null ? null : cached;
+		}
+
+		// La compilación corre fuera del lock; si dos hilos compilan a la vez gana el primero
+		CompiledSchema loaded = store.find(channel, version)
+				.map(s -> new CompiledSchema(compile(readTree(s.schema())),
+						timer(channel, version, "valid"), timer(channel, version, "invalid"), 0))
+				.orElseGet(() -> new CompiledSchema(null, null, null, System.nanoTime() + props.getMissingTtl().toNanos()));
+		if (loaded.schema() == null) {
+			log.warn("JSON Schema not registered - Channel: '{}', Version: '{}'", channel, version);
+		}
+		synchronized (compiled) {
+			CompiledSchema current = compiled.get(key);
+			if (current != null && current.schema() != null) {
+				return current;
+			}
+			compiled.put(key, loaded);
+		}
+		return loaded.schema() == null ? null : loaded;
+	}
+
+	private JsonSchema compile(JsonNode schema) {
+		JsonSchema jsonSchema = factory.getSchema(schema);
+		// Arma todos los validadores ahora y no en el primer mensaje
+		jsonSchema.initializeValidators();
+		return jsonSchema;
+	}
+
+	private Timer timer(String channel, String version, String result) {
+		return Timer.builder("corehub.schema.validation")
+				.description("Costo de validar un payload contra el JSON Schema del canal")
+				.tag("channel", channel)
+				.tag("version", version)
+				.tag("result", result)
+				.register(meterRegistry);
+	}
+
+	private JsonNode readTree(String json) {
+		try {
+			return objectMapper.readTree(json);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Stored JSON Schema is not valid JSON", e);
+		}
+	}
+
+	String describe(Set<ValidationMessage> errors) {
+		return errors.stream()
+				.map(ValidationMessage::getMessage)
+				.sorted()
+				.limit(Math.max(1, props.getMaxErrors()))
+				.collect(Collectors.joining("; "));
+	}
+
+	private static String key(String channel, String version) {
+		return channel + "@" + version;
+	}
+
+	/**
+	 * Validador compilado con sus timers, o marca de versión inexistente (schema null) hasta missingUntil
+	 */
+	record CompiledSchema(JsonSchema schema, Timer valid, Timer invalid, long missingUntil) {}
+}
@@ -0,0 +1,51 @@
+package com.uade.corehub.messaging.store;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JSON Schema registrados por canal y versión (tabla channel_schemas)
+ */
+@Repository
+@RequiredArgsConstructor
+public class ChannelSchemaStore {
+
+	private static final String COLUMNS = "SELECT channel, version, schema::text AS schema, created_at FROM channel_schemas";
+
+	// Versiones inmutables: si ya existe no se pisa, y quien registra compara el contenido
+	private static final String INSERT = """
+			INSERT INTO channel_schemas (channel, version, schema) VALUES (?, ?, ?::jsonb)
+			ON CONFLICT (channel, version) DO NOTHING""";
+
+	private static final RowMapper<ChannelSchema> MAPPER = (rs, i) -> new ChannelSchema(
+			rs.getString("channel"),
+			rs.getString("version"),
+			rs.getString("schema"),
+			rs.getObject("created_at", OffsetDateTime.class));
+
+	private final JdbcTemplate jdbcTemplate;
+
+	/**
+	 * @return true si se insertó, false si la versión ya existía
+	 */
+	public boolean insert(String channel, String version, String schema) {
+		return jdbcTemplate.update(INSERT, channel, version, schema) > 0;
+	}
+
+	public Optional<ChannelSchema> find(String channel, String version) {
+		return jdbcTemplate.query(COLUMNS + " WHERE channel = ? AND version = ?", MAPPER, channel, version)
+				.stream().findFirst();
+	}
+
+	public List<ChannelSchema> findByChannel(String channel) {
+		return jdbcTemplate.query(COLUMNS + " WHERE channel = ? ORDER BY created_at DESC", MAPPER, channel);
+	}
+
+	public record ChannelSchema(String channel, String version, String schema, OffsetDateTime createdAt) {}
+}
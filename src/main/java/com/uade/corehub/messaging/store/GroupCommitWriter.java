@@ -0,0 +1,261 @@
+package com.uade.corehub.messaging.store;
+
+import com.uade.corehub.config.PublishProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group commit de message_log + payload_store.
+ * Las escrituras de requests concurrentes se acumulan durante una ventana corta (o hasta maxRows)
+ * y se vuelcan en una sola transacción con INSERTs multi-fila (ids asignados por nextval en el
+ * servidor, sin round trips por fila); al commit se completa el future de cada llamador.
+ * Bajo carga, miles de transacciones chicas por segundo pasan a ser unas pocas decenas grandes.
+ * Una fila inválida no hace fallar al grupo: ver {@link #write}.
+ */
+@Slf4j
+@Component
+public class GroupCommitWriter implements SmartLifecycle {
+
+	private final PublishProperties.GroupCommit props;
+	private final MessageBatchWriter batchWriter;
+	private final TransactionTemplate transactionTemplate;
+	private final BlockingQueue<PendingWrite> queue;
+	private final List<Thread> flushers = new ArrayList<>();
+	private final DistributionSummary batchSizes;
+	private final Timer flushTimer;
+	private volatile boolean running;
+
+	public GroupCommitWriter(PublishProperties publishProperties,
+							 MessageBatchWriter batchWriter,
+							 PlatformTransactionManager transactionManager,
+							 MeterRegistry meterRegistry) {
+		this.props = publishProperties.getGroupCommit();
+		this.batchWriter = batchWriter;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.queue = new LinkedBlockingQueue<>(Math.max(1, props.getQueueCapacity()));
+		this.batchSizes = DistributionSummary.builder("corehub.groupcommit.batch.size")
+				.description("Mensajes por transacción del group commit")
+				.register(meterRegistry);
+		this.flushTimer = Timer.builder("corehub.groupcommit.flush")
+				.description("Duración de cada transacción del group commit")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Encola la fila de message_log y su payload para el próximo commit de grupo. Si el group commit
+	 * está deshabilitado (o detenido) la escritura se hace en el hilo del llamador, en su propia transacción.
+	 * @return future con true si se insertó, false si el messageId ya existía
+	 */
+	public CompletableFuture<Boolean> submit(MessageLog row, PayloadStore payload) {
+		return submit(new PendingWrite(row, payload, false, new CompletableFuture<>()));
+	}
+
+	/**
+	 * Como {@link #submit}, para un messageId ya reservado con MessageBatchWriter.reserveIds (modo directo):
+	 * la fila no pasa por message_dedupe
+	 * @return future con true cuando se insertó
+	 */
+	public CompletableFuture<Boolean> submitReserved(MessageLog row, PayloadStore payload) {
+		return submit(new PendingWrite(row, payload, true, new CompletableFuture<>()));
+	}
+
+	private CompletableFuture<Boolean> submit(PendingWrite write) {
+		if (!running) {
+			flush(List.of(write));
+			return write.result();
+		}
+		try {
+			if (!queue.offer(write, props.getWindow().toMillis() * 100 + 1_000, TimeUnit.MILLISECONDS)) {
+				write.result().completeExceptionally(new IllegalStateException("Group commit queue is full"));
+			} else if (!running && queue.remove(write)) {
+				// stop() pudo drenar la cola entre el chequeo y el offer: nadie más la va a escribir
+				flush(List.of(write));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			write.result().completeExceptionally(e);
+		}
+		return write.result();
+	}
+
+	@Override
+	public synchronized void start() {
+		if (running || !props.isEnabled()) {
+			return;
+		}
+		running = true;
+		int count = Math.max(1, props.getFlushers());
+		for (int i = 0; i < count; i++) {
+			Thread flusher = new Thread(this::flushLoop, "group-commit-" + i);
+			flusher.setDaemon(true);
+			flusher.start();
+			flushers.add(flusher);
+		}
+		log.info("Group commit writer started - Window: {}, MaxRows: {}, Flushers: {}", props.getWindow(), props.getMaxRows(), count);
+	}
+
+	@Override
+	public synchronized void stop() {
+		if (!running) {
+			return;
+		}
+		running = false;
+		flushers.forEach(Thread::interrupt);
+		for (Thread flusher : flushers) {
+			try {
+				flusher.join(5_000);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		flushers.clear();
+		// Lo que quedó encolado se escribe antes de cerrar
+		List<PendingWrite> remaining = new ArrayList<>();
+		queue.drainTo(remaining);
+		if (!remaining.isEmpty()) {
+			flush(remaining);
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	@Override
+	public int getPhase() {
+		// Arranca antes y se detiene después que el servidor web, así no se pierden escrituras en vuelo
+		return Integer.MAX_VALUE - 4096;
+	}
+
+	private void flushLoop() {
+		int maxRows = Math.max(1, props.getMaxRows());
+		long windowNanos = props.getWindow().toNanos();
+		List<PendingWrite> batch = new ArrayList<>(maxRows);
+		while (running) {
+			try {
+				PendingWrite first = queue.poll(1, TimeUnit.SECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				long deadline = System.nanoTime() + windowNanos;
+				while (batch.size() < maxRows) {
+					if (queue.drainTo(batch, maxRows - batch.size()) > 0) {
+						continue;
+					}
+					long remaining = deadline - System.nanoTime();
+					if (remaining <= 0) {
+						break;
+					}
+					PendingWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+					if (next == null) {
+						break;
+					}
+					batch.add(next);
+				}
+			} catch (InterruptedException e) {
+				// stop(): se vuelca lo ya tomado y el resto lo drena stop()
+			}
+			if (!batch.isEmpty()) {
+				flush(batch);
+				batch.clear();
+			}
+		}
+	}
+
+	private void flush(List<PendingWrite> batch) {
+		// Un mismo messageId dos veces en el grupo: sólo la primera aparición puede insertarse.
+		// Las reservadas no compiten: su id ya es suyo en message_dedupe
+		Map<String, PendingWrite> first = new HashMap<>(batch.size() * 2);
+		List<PendingWrite> candidates = new ArrayList<>(batch.size());
+		List<PendingWrite> repeated = new ArrayList<>();
+		for (PendingWrite write : batch) {
+			boolean unique = write.reserved() || first.putIfAbsent(write.row().getMessageId(), write) == null;
+			(unique ? candidates : repeated).add(write);
+		}
+
+		long start = System.nanoTime();
+		write(candidates);
+		flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		batchSizes.record(batch.size());
+
+		// Las repetidas son duplicados si la primera se escribió, y fallan con ella si no
+		repeated.forEach(w -> first.get(w.row().getMessageId()).result().whenComplete((inserted, error) -> {
+			if (error != null) {
+				w.result().completeExceptionally(error);
+			} else {
+				w.result().complete(false);
+			}
+		}));
+	}
+
+	/**
+	 * Escribe un grupo en una transacción. Si falla por una fila (constraint, dato inválido) se reintenta
+	 * en mitades hasta aislarla: sólo fallan las escrituras culpables. Una falla de la base o de la
+	 * conexión no se divide, fallaría igual en cada mitad.
+	 */
+	private void write(List<PendingWrite> writes) {
+		Set<PendingWrite> written;
+		try {
+			written = transactionTemplate.execute(status -> {
+				Set<PendingWrite> inserted = Collections.newSetFromMap(new IdentityHashMap<>());
+				inserted.addAll(insert(writes, false));
+				inserted.addAll(insert(writes, true));
+				batchWriter.insertPayloads(writes.stream()
+						.filter(inserted::contains)
+						.map(PendingWrite::payload)
+						.toList());
+				return inserted;
+			});
+		} catch (Exception e) {
+			if (writes.size() == 1 || e instanceof TransientDataAccessException || e instanceof DataAccessResourceFailureException) {
+				log.error("Group commit of {} message(s) failed: {}", writes.size(), e.getMessage(), e);
+				writes.forEach(w -> w.result().completeExceptionally(e));
+				return;
+			}
+			log.warn("Group commit of {} message(s) failed, retrying in halves: {}", writes.size(), e.getMessage());
+			int half = writes.size() / 2;
+			write(writes.subList(0, half));
+			write(writes.subList(half, writes.size()));
+			return;
+		}
+		writes.forEach(w -> w.result().complete(written.contains(w)));
+	}
+
+	/**
+	 * Inserta las filas de message_log de las escrituras con o sin reserva previa del messageId
+	 * @return las escrituras cuya fila se insertó
+	 */
+	private List<PendingWrite> insert(List<PendingWrite> writes, boolean reserved) {
+		List<PendingWrite> group = writes.stream().filter(w -> w.reserved() == reserved).toList();
+		if (group.isEmpty()) {
+			return List.of();
+		}
+		List<MessageLog> rows = group.stream().map(PendingWrite::row).toList();
+		Set<String> ids = reserved ? batchWriter.insertReservedMessageLogs(rows) : batchWriter.insertMessageLogsIfAbsent(rows);
+		return group.stream().filter(w -> ids.contains(w.row().getMessageId())).toList();
+	}
+
+	private record PendingWrite(MessageLog row, PayloadStore payload, boolean reserved, CompletableFuture<Boolean> result) {}
+}
@@ -0,0 +1,342 @@
+package com.uade.corehub.messaging.store;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uade.corehub.config.PublishProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Escrituras masivas sobre message_log y payload_store vía JDBC.
+ * IDENTITY impide el batching de Hibernate, por eso los lotes van por JdbcTemplate
+ * (con reWriteBatchedInserts el driver los convierte en INSERTs multi-fila).
+ */
+@Repository
+@RequiredArgsConstructor
+public class MessageBatchWriter {
+
+	private static final String INSERT_MESSAGE_LOG_PREFIX = """
+			WITH v (message_id, channel, routing_key, status, attempts, error_message,
+			        correlation_id, source, event_name, metadata, produced_at, published_at, created_at) AS (
+			    VALUES """;
+
+	private static final String MESSAGE_LOG_ROW =
+			"(?::varchar, ?::varchar, ?::varchar, ?::varchar, ?::int, ?::text, ?::varchar, ?::varchar, ?::varchar, ?::jsonb, ?::timestamptz, ?::timestamptz, ?::timestamptz)";
+
+	private static final int MESSAGE_LOG_PARAMS = 13;
+
+	// Tope de parámetros por sentencia del protocolo de Postgres (el driver los numera con un short)
+	private static final int MAX_BIND_PARAMETERS = Short.MAX_VALUE;
+
+	// Idempotencia en una sola sentencia: message_dedupe (message_id único global, message_log está
+	// particionada) filtra los duplicados y sólo los ids nuevos llegan a message_log
+	private static final String INSERT_MESSAGE_LOG_SUFFIX = """
+			),
+			fresh AS (
+			    INSERT INTO message_dedupe (message_id, created_at)
+			    SELECT message_id, created_at FROM v
+			    ON CONFLICT (message_id) DO NOTHING
+			    RETURNING message_id
+			)
+			INSERT INTO message_log (message_id, channel, routing_key, status, attempts, error_message,
+			                         correlation_id, source, event_name, metadata, produced_at, published_at, created_at)
+			SELECT DISTINCT ON (v.message_id) v.* FROM v JOIN fresh USING (message_id)
+			RETURNING message_id""";
+
+	// Ids ya reservados con reserveIds: message_dedupe ya tiene su fila, van directo a message_log
+	private static final String INSERT_RESERVED_MESSAGE_LOG_SUFFIX = """
+			)
+			INSERT INTO message_log (message_id, channel, routing_key, status, attempts, error_message,
+			                         correlation_id, source, event_name, metadata, produced_at, published_at, created_at)
+			SELECT DISTINCT ON (v.message_id) v.* FROM v
+			RETURNING message_id""";
+
+	// Modo directo: el id se reserva antes del envío al broker, así sólo un request (de cualquier nodo) lo publica
+	private static final String RESERVE_IDS = """
+			INSERT INTO message_dedupe (message_id, created_at)
+			SELECT id, ? FROM unnest(?::varchar[]) AS id
+			ON CONFLICT (message_id) DO NOTHING
+			RETURNING message_id""";
+
+	// Sólo se insertan payloads de ids devueltos por insertMessageLogsIfAbsent / insertReservedMessageLogs
+	private static final String INSERT_PAYLOAD = """
+			INSERT INTO payload_store (message_id, payload, payload_compressed, compression, payload_hash, schema_ver, created_at)
+			VALUES (?, ?::jsonb, ?, ?, ?, ?, ?)""";
+
+	// Contenido ya almacenado: sólo se suma la referencia, el payload no viaja ni se reescribe
+	private static final String REFERENCE_BLOB = """
+			UPDATE payload_blobs SET ref_count = ref_count + ?, last_referenced_at = now() WHERE hash = ?""";
+
+	// Contenido nuevo; ON CONFLICT cubre a otra transacción que lo insertó entre el UPDATE y este INSERT
+	private static final String INSERT_BLOB = """
+			INSERT INTO payload_blobs (hash, payload, payload_compressed, compression, ref_count)
+			VALUES (?, ?::jsonb, ?, ?, ?)
+			ON CONFLICT (hash) DO UPDATE
+			SET ref_count = payload_blobs.ref_count + EXCLUDED.ref_count, last_referenced_at = now()""";
+
+	private static final String SELECT_KNOWN_IDS = """
+			SELECT message_id FROM message_dedupe WHERE message_id = ANY (?)""";
+
+	private static final String UPDATE_PUBLISHED = """
+			UPDATE message_log SET status = 'PUBLISHED', attempts = attempts + 1, published_at = ?
+			WHERE message_id = ?""";
+
+	private static final String UPDATE_FAILED = """
+			UPDATE message_log SET status = 'FAILED', attempts = attempts + 1, error_message = ?
+			WHERE message_id = ?""";
+
+	private static final String UPDATE_UNROUTABLE = """
+			UPDATE message_log SET status = 'UNROUTABLE', attempts = attempts + 1, error_message = ?
+			WHERE message_id = ?""";
+
+	private static final String UPDATE_DLQ = """
+			UPDATE message_log SET status = 'DLQ', error_message = ?
+			WHERE message_id = ?""";
+
+	private static final String UPDATE_PUBLISHING = """
+			UPDATE message_log SET status = 'PUBLISHING', publishing_since = now() WHERE message_id = ?""";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final ObjectMapper objectMapper;
+	private final PublishProperties publishProperties;
+	private final MeterRegistry meterRegistry;
+
+	/**
+	 * Inserta una fila de message_log salvo que el messageId ya exista
+	 * @return true si la fila se insertó, false si era un duplicado
+	 */
+	public boolean insertMessageLogIfAbsent(MessageLog row) {
+		return !insertMessageLogsIfAbsent(List.of(row)).isEmpty();
+	}
+
+	/**
+	 * Inserta filas de message_log salvo los messageIds ya registrados en message_dedupe,
+	 * una sentencia multi-fila por bloque de jdbcBatchSize filas (a lo sumo MAX_BIND_PARAMETERS / 13)
+	 * @return messageIds efectivamente insertados (los ausentes eran duplicados)
+	 */
+	public Set<String> insertMessageLogsIfAbsent(List<MessageLog> rows) {
+		return insertMessageLogs(rows, INSERT_MESSAGE_LOG_SUFFIX);
+	}
+
+	/**
+	 * Inserta filas de message_log cuyos messageIds ya se reservaron con {@link #reserveIds}
+	 * @return messageIds insertados
+	 */
+	public Set<String> insertReservedMessageLogs(List<MessageLog> rows) {
+		return insertMessageLogs(rows, INSERT_RESERVED_MESSAGE_LOG_SUFFIX);
+	}
+
+	private Set<String> insertMessageLogs(List<MessageLog> rows, String suffix) {
+		Set<String> inserted = new HashSet<>(rows.size() * 2);
+		int chunk = messageLogChunk();
+		for (int from = 0; from < rows.size(); from += chunk) {
+			List<MessageLog> slice = rows.subList(from, Math.min(rows.size(), from + chunk));
+			String sql = INSERT_MESSAGE_LOG_PREFIX
+					+ String.join(", ", Collections.nCopies(slice.size(), MESSAGE_LOG_ROW))
+					+ suffix;
+			List<Object> args = new ArrayList<>(slice.size() * MESSAGE_LOG_PARAMS);
+			for (MessageLog m : slice) {
+				args.add(m.getMessageId());
+				args.add(m.getChannel());
+				args.add(m.getRoutingKey());
+				args.add(m.getStatus());
+				args.add(m.getAttempts());
+				args.add(m.getErrorMessage());
+				args.add(m.getCorrelationId());
+				args.add(m.getSource());
+				args.add(m.getEventName());
+				args.add(m.getMetadata() == null ? null : toJson(m.getMetadata()));
+				args.add(m.getProducedAt());
+				args.add(m.getPublishedAt());
+				args.add(m.getCreatedAt());
+			}
+			inserted.addAll(jdbcTemplate.queryForList(sql, String.class, args.toArray()));
+		}
+		return inserted;
+	}
+
+	/**
+	 * Reserva messageIds en message_dedupe sin escribir message_log (modo directo, antes de publicar al broker).
+	 * Un id reservado queda registrado aunque su fila de message_log no llegue a escribirse.
+	 * @return los messageIds reservados; los ausentes ya estaban registrados
+	 */
+	public Set<String> reserveIds(Collection<String> messageIds, OffsetDateTime createdAt) {
+		if (messageIds.isEmpty()) {
+			return Set.of();
+		}
+		return new HashSet<>(jdbcTemplate.query(RESERVE_IDS, ps -> {
+			ps.setObject(1, createdAt);
+			ps.setArray(2, ps.getConnection().createArrayOf("varchar", messageIds.toArray()));
+		}, (rs, i) -> rs.getString(1)));
+	}
+
+	/**
+	 * Consulta message_dedupe sin escribir (usado antes de publicar al broker)
+	 * @return los messageIds que ya están registrados
+	 */
+	public Set<String> findKnownIds(Collection<String> messageIds) {
+		if (messageIds.isEmpty()) {
+			return Set.of();
+		}
+		return new HashSet<>(jdbcTemplate.query(SELECT_KNOWN_IDS,
+				ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", messageIds.toArray())),
+				(rs, i) -> rs.getString(1)));
+	}
+
+	/**
+	 * Inserta filas de payload_store. Las que traen payloadHash (canales contentAddressed) guardan su
+	 * contenido en payload_blobs y la fila queda sólo con la referencia.
+	 */
+	public void insertPayloads(List<PayloadStore> rows) {
+		List<PayloadStore> addressed = rows.stream().filter(p -> p.getPayloadHash() != null).toList();
+		if (!addressed.isEmpty()) {
+			referenceBlobs(addressed);
+		}
+		jdbcTemplate.batchUpdate(INSERT_PAYLOAD, rows, batchSize(), (ps, p) -> {
+			boolean inline = p.getPayloadHash() == null;
+			ps.setString(1, p.getMessageId());
+			ps.setString(2, inline && p.getPayload() != null ? p.getPayload().json() : null);
+			ps.setBytes(3, inline ? p.getPayloadCompressed() : null);
+			ps.setString(4, inline ? p.getCompression() : null);
+			ps.setBytes(5, p.getPayloadHash());
+			ps.setString(6, p.getSchemaVer());
+			ps.setObject(7, p.getCreatedAt());
+		});
+	}
+
+	/**
+	 * Suma una referencia por fila a cada blob, insertando sólo los contenidos que todavía no existen.
+	 * Los hashes se procesan en orden fijo para que transacciones concurrentes no se bloqueen en cruz.
+	 */
+	private void referenceBlobs(List<PayloadStore> rows) {
+		Map<String, BlobRef> byHash = new TreeMap<>();
+		for (PayloadStore p : rows) {
+			byHash.computeIfAbsent(HexFormat.of().formatHex(p.getPayloadHash()), h -> new BlobRef(p)).refs++;
+		}
+		List<BlobRef> blobs = List.copyOf(byHash.values());
+		int[][] counts = jdbcTemplate.batchUpdate(REFERENCE_BLOB, blobs, batchSize(), (ps, b) -> {
+			ps.setLong(1, b.refs);
+			ps.setBytes(2, b.row.getPayloadHash());
+		});
+		List<BlobRef> missing = new ArrayList<>();
+		int i = 0;
+		for (int[] batch : counts) {
+			for (int count : batch) {
+				if (count == 0) {
+					missing.add(blobs.get(i));
+				}
+				i++;
+			}
+		}
+		if (!missing.isEmpty()) {
+			jdbcTemplate.batchUpdate(INSERT_BLOB, missing, batchSize(), (ps, b) -> {
+				ps.setBytes(1, b.row.getPayloadHash());
+				ps.setString(2, b.row.getPayload() == null ? null : b.row.getPayload().json());
+				ps.setBytes(3, b.row.getPayloadCompressed());
+				ps.setString(4, b.row.getCompression());
+				ps.setLong(5, b.refs);
+			});
+		}
+		meterRegistry.counter("corehub.payload.blobs", "result", "reused").increment(blobs.size() - missing.size());
+		meterRegistry.counter("corehub.payload.blobs", "result", "stored").increment(missing.size());
+	}
+
+	public void markPublished(Collection<String> messageIds, OffsetDateTime publishedAt) {
+		jdbcTemplate.batchUpdate(UPDATE_PUBLISHED, List.copyOf(messageIds), batchSize(), (ps, id) -> {
+			ps.setObject(1, publishedAt);
+			ps.setString(2, id);
+		});
+	}
+
+	/**
+	 * Marca filas como enviadas y pendientes de confirm (modo outbox con publisher confirms)
+	 */
+	public void markPublishing(Collection<String> messageIds) {
+		jdbcTemplate.batchUpdate(UPDATE_PUBLISHING, List.copyOf(messageIds), batchSize(),
+				(ps, id) -> ps.setString(1, id));
+	}
+
+	/**
+	 * @return messageIds sin fila en message_log (todavía no insertada o inexistente)
+	 */
+	public Set<String> markUnroutable(Map<String, String> errorsByMessageId) {
+		int[][] counts = updateWithError(UPDATE_UNROUTABLE, errorsByMessageId);
+		Set<String> missing = new HashSet<>();
+		int i = 0;
+		for (String messageId : errorsByMessageId.keySet()) {
+			int batch = i / batchSize();
+			if (counts[batch][i % batchSize()] == 0) {
+				missing.add(messageId);
+			}
+			i++;
+		}
+		return missing;
+	}
+
+	public void markFailed(Map<String, String> errorsByMessageId) {
+		updateWithError(UPDATE_FAILED, errorsByMessageId);
+	}
+
+	/**
+	 * El consumidor del canal no pudo procesar el mensaje y el broker lo pasó a la DLQ del canal
+	 */
+	public void markDeadLettered(Map<String, String> errorsByMessageId) {
+		updateWithError(UPDATE_DLQ, errorsByMessageId);
+	}
+
+	private int[][] updateWithError(String sql, Map<String, String> errorsByMessageId) {
+		return jdbcTemplate.batchUpdate(sql, List.copyOf(errorsByMessageId.entrySet()), batchSize(), (ps, e) -> {
+			if (e.getValue() == null) {
+				ps.setNull(1, Types.VARCHAR);
+			} else {
+				ps.setString(1, e.getValue());
+			}
+			ps.setString(2, e.getKey());
+		});
+	}
+
+	private int batchSize() {
+		return Math.max(1, publishProperties.getBatch().getJdbcBatchSize());
+	}
+
+	/**
+	 * Filas por INSERT multi-fila de message_log: jdbcBatchSize, sin pasar el tope de parámetros
+	 */
+	int messageLogChunk() {
+		return Math.min(batchSize(), MAX_BIND_PARAMETERS / MESSAGE_LOG_PARAMS);
+	}
+
+	private String toJson(Object value) {
+		try {
+			return objectMapper.writeValueAsString(value);
+		} catch (JsonProcessingException e) {
+			throw new IllegalArgumentException("Payload is not serializable as JSON", e);
+		}
+	}
+
+	/**
+	 * Contenido de un hash dentro del lote y cuántas filas lo referencian
+	 */
+	private static final class BlobRef {
+		private final PayloadStore row;
+		private long refs;
+
+		private BlobRef(PayloadStore row) {
+			this.row = row;
+		}
+	}
+}
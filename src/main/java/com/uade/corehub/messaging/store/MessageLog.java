@@ -2,17 +2,21 @@ package com.uade.corehub.messaging.store;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.OffsetDateTime;
+import java.util.Map;
 
 @Entity
 @Table(name = "message_log",
 				indexes = {
-								@Index(name="ix_message_log_channel", columnList = "channel"),
-								@Index(name="ix_message_log_status", columnList = "status"),
-								@Index(name="ix_message_log_created_at", columnList = "created_at DESC")
-				},
-				uniqueConstraints = @UniqueConstraint(name="ux_message_log_message_id", columnNames = "message_id")
+								@Index(name="ix_message_log_message_id", columnList = "message_id"),
+								@Index(name="ix_message_log_channel_created", columnList = "channel, created_at, id"),
+								@Index(name="ix_message_log_status_created", columnList = "status, created_at, id"),
+								@Index(name="ix_message_log_correlation_created", columnList = "correlation_id, created_at, id"),
+								@Index(name="ix_message_log_created_id", columnList = "created_at, id")
+				}
 )
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class MessageLog {
@@ -29,7 +33,7 @@ public class MessageLog {
 	private String routingKey;
 
 	@Column(nullable=false, length=24)
-	private String status; // PUBLISHED/FAILED/DLQ
+	private String status; // PENDING/PUBLISHING/PUBLISHED/FAILED/DLQ
 
 	@Column(nullable=false)
 	private int attempts;
@@ -43,6 +47,16 @@ public class MessageLog {
 	@Column(name="correlation_id", length=64)
 	private String correlationId;
 
+	@Column(length=120)
+	private String source;
+
+	@Column(name="event_name", length=120)
+	private String eventName;
+
+	@JdbcTypeCode(SqlTypes.JSON)
+	@Column(name="metadata", columnDefinition = "jsonb")
+	private Map<String, String> metadata;
+
 	@Column(name="produced_at", nullable=false)
 	private OffsetDateTime producedAt;
 
@@ -0,0 +1,111 @@
+package com.uade.corehub.messaging.store;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Consultas de lectura sobre message_log para operación (GET /messages, POST /messages/status).
+ * El SQL se arma sólo con los filtros presentes (nada de "? IS NULL OR ...") para que el planner
+ * use el índice (filtro, created_at, id) correspondiente; la paginación es keyset sobre
+ * (created_at, id) en orden descendente, así una página profunda cuesta lo mismo que la primera.
+ */
+@Repository
+@RequiredArgsConstructor
+public class MessageLogQueryStore {
+
+	private static final String COLUMNS = """
+			SELECT id, message_id, channel, routing_key, status, attempts, error_message, correlation_id,
+			       source, event_name, produced_at, published_at, created_at
+			FROM message_log""";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	/**
+	 * Página de mensajes, más nuevos primero
+	 * @param filter filtros opcionales y cursor (created_at, id) de la página anterior
+	 * @param limit filas a devolver
+	 */
+	public List<MessageLog> find(Filter filter, int limit) {
+		StringBuilder sql = new StringBuilder(COLUMNS).append(" WHERE true");
+		List<Object> args = new ArrayList<>();
+		if (filter.channel() != null) {
+			sql.append(" AND channel = ?");
+			args.add(filter.channel());
+		}
+		if (filter.status() != null) {
+			sql.append(" AND status = ?");
+			args.add(filter.status());
+		}
+		if (filter.correlationId() != null) {
+			sql.append(" AND correlation_id = ?");
+			args.add(filter.correlationId());
+		}
+		if (filter.from() != null) {
+			sql.append(" AND created_at >= ?");
+			args.add(filter.from());
+		}
+		if (filter.to() != null) {
+			sql.append(" AND created_at < ?");
+			args.add(filter.to());
+		}
+		if (filter.afterCreatedAt() != null) {
+			sql.append(" AND (created_at, id) < (?, ?)");
+			args.add(filter.afterCreatedAt());
+			args.add(filter.afterId());
+		}
+		sql.append(" ORDER BY created_at DESC, id DESC LIMIT ?");
+		args.add(limit);
+		return jdbcTemplate.query(sql.toString(), this::mapRow, args.toArray());
+	}
+
+	/**
+	 * Estados de muchos mensajes en una sola consulta (ix_message_log_message_id en cada partición)
+	 */
+	public List<MessageLog> findByMessageIds(Collection<String> messageIds) {
+		if (messageIds.isEmpty()) {
+			return List.of();
+		}
+		return jdbcTemplate.query(COLUMNS + " WHERE message_id = ANY (?)",
+				ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", messageIds.toArray())),
+				this::mapRow);
+	}
+
+	private MessageLog mapRow(ResultSet rs, int rowNum) throws SQLException {
+		return MessageLog.builder()
+				.id(rs.getLong("id"))
+				.messageId(rs.getString("message_id"))
+				.channel(rs.getString("channel"))
+				.routingKey(rs.getString("routing_key"))
+				.status(rs.getString("status"))
+				.attempts(rs.getInt("attempts"))
+				.errorMessage(rs.getString("error_message"))
+				.correlationId(rs.getString("correlation_id"))
+				.source(rs.getString("source"))
+				.eventName(rs.getString("event_name"))
+				.producedAt(rs.getObject("produced_at", OffsetDateTime.class))
+				.publishedAt(rs.getObject("published_at", OffsetDateTime.class))
+				.createdAt(rs.getObject("created_at", OffsetDateTime.class))
+				.build();
+	}
+
+	/**
+	 * Filtros de GET /messages; afterCreatedAt/afterId es el cursor (última fila de la página anterior)
+	 */
+	public record Filter(
+			String channel,
+			String status,
+			String correlationId,
+			OffsetDateTime from,
+			OffsetDateTime to,
+			OffsetDateTime afterCreatedAt,
+			Long afterId
+	) {}
+}
@@ -1,9 +1,22 @@
 package com.uade.corehub.messaging.store;
 
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.OffsetDateTime;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface MessageLogRepository extends JpaRepository<MessageLog, Long> {
 	Optional<MessageLog> findByMessageId(String messageId);
+
+	/**
+	 * Ids creados desde un instante, leídos con cursor (requiere transacción abierta)
+	 */
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE, value = "5000"))
+	@Query("SELECT m.messageId FROM MessageLog m WHERE m.createdAt >= :since")
+	Stream<String> streamMessageIdsCreatedSince(@Param("since") OffsetDateTime since);
 }
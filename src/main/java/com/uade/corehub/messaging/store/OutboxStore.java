@@ -0,0 +1,143 @@
+package com.uade.corehub.messaging.store;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uade.corehub.messaging.compression.PayloadCompressor;
+import com.uade.corehub.messaging.dto.RawPayload;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Acceso a las filas PENDING de message_log usadas como outbox transaccional.
+ * Los métodos deben invocarse dentro de una transacción: los locks de FOR UPDATE
+ * se mantienen hasta el commit del relay.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OutboxStore {
+
+	// SKIP LOCKED: cada hilo/nodo toma filas distintas sin bloquearse entre sí
+	private static final String CLAIM_PENDING = """
+			SELECT m.message_id, m.channel, m.routing_key, m.source, m.event_name, m.metadata::text AS metadata,
+			       m.correlation_id, m.produced_at, COALESCE(p.payload, b.payload)::text AS payload,
+			       COALESCE(p.payload_compressed, b.payload_compressed) AS payload_compressed,
+			       COALESCE(p.compression, b.compression) AS compression
+			FROM message_log m
+			JOIN payload_store p ON p.message_id = m.message_id AND p.created_at = m.created_at
+			LEFT JOIN payload_blobs b ON b.hash = p.payload_hash
+			WHERE m.status = 'PENDING'
+			ORDER BY m.id
+			LIMIT ?
+			FOR UPDATE OF m SKIP LOCKED""";
+
+	private static final String MARK_RETRY = """
+			UPDATE message_log
+			SET attempts = attempts + 1,
+			    error_message = ?,
+			    status = CASE WHEN attempts + 1 >= ? THEN 'FAILED' ELSE 'PENDING' END
+			WHERE message_id = ?""";
+
+	// Filas que quedaron esperando un confirm que ya no va a llegar (el nodo que las envió cayó)
+	private static final String REQUEUE_STALE_PUBLISHING = """
+			UPDATE message_log
+			SET attempts = attempts + 1,
+			    error_message = 'Publisher confirm not received',
+			    status = CASE WHEN attempts + 1 >= ? THEN 'FAILED' ELSE 'PENDING' END,
+			    publishing_since = NULL
+			WHERE status = 'PUBLISHING' AND publishing_since < now() - ? * INTERVAL '1 millisecond'""";
+
+	// Modo directo: la fila se escribe PUBLISHING al vencer persistAfter (sin publishing_since) y sólo el
+	// tracker del nodo que la envió la resuelve; no hay relay que la reenvíe
+	private static final String FAIL_STALE_PUBLISHING = """
+			UPDATE message_log
+			SET attempts = attempts + 1,
+			    error_message = 'Publisher confirm not received',
+			    status = 'FAILED',
+			    publishing_since = NULL
+			WHERE status = 'PUBLISHING' AND COALESCE(publishing_since, created_at) < now() - ? * INTERVAL '1 millisecond'""";
+
+	private static final TypeReference<Map<String, String>> METADATA_TYPE = new TypeReference<>() {};
+
+	private final JdbcTemplate jdbcTemplate;
+	private final ObjectMapper objectMapper;
+	private final PayloadCompressor payloadCompressor;
+
+	public List<PendingMessage> claimPending(int limit) {
+		return jdbcTemplate.query(CLAIM_PENDING, this::mapRow, limit);
+	}
+
+	/**
+	 * Registra un envío fallido: la fila vuelve a PENDING o pasa a FAILED al agotar intentos
+	 */
+	public void markForRetry(Map<String, String> errorsByMessageId, int maxAttempts) {
+		jdbcTemplate.batchUpdate(MARK_RETRY, List.copyOf(errorsByMessageId.entrySet()), errorsByMessageId.size(), (ps, e) -> {
+			ps.setString(1, e.getValue());
+			ps.setInt(2, maxAttempts);
+			ps.setString(3, e.getKey());
+		});
+	}
+
+	/**
+	 * Devuelve al outbox las filas PUBLISHING sin confirm desde hace más de olderThan
+	 * @return filas devueltas (o pasadas a FAILED al agotar intentos)
+	 */
+	public int requeueStalePublishing(Duration olderThan, int maxAttempts) {
+		return jdbcTemplate.update(REQUEUE_STALE_PUBLISHING, maxAttempts, olderThan.toMillis());
+	}
+
+	/**
+	 * Modo directo: marca FAILED las filas PUBLISHING sin confirm desde hace más de olderThan
+	 * @return filas marcadas
+	 */
+	public int failStalePublishing(Duration olderThan) {
+		return jdbcTemplate.update(FAIL_STALE_PUBLISHING, olderThan.toMillis());
+	}
+
+	private PendingMessage mapRow(ResultSet rs, int rowNum) throws SQLException {
+		return new PendingMessage(
+				rs.getString("message_id"),
+				rs.getString("channel"),
+				rs.getString("routing_key"),
+				rs.getString("source"),
+				rs.getString("event_name"),
+				fromJson(rs.getString("metadata"), METADATA_TYPE),
+				rs.getString("correlation_id"),
+				rs.getObject("produced_at", OffsetDateTime.class),
+				payloadCompressor.readStored(rs.getString("payload"), rs.getBytes("payload_compressed"), rs.getString("compression")));
+	}
+
+	private <T> T fromJson(String json, TypeReference<T> type) {
+		if (json == null) {
+			return null;
+		}
+		try {
+			return objectMapper.readValue(json, type);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Stored JSON could not be parsed", e);
+		}
+	}
+
+	/**
+	 * Fila reclamada del outbox con lo necesario para reconstruir el envelope
+	 */
+	public record PendingMessage(
+			String messageId,
+			String channel,
+			String routingKey,
+			String source,
+			String eventName,
+			Map<String, String> metadata,
+			String correlationId,
+			OffsetDateTime producedAt,
+			RawPayload payload
+	) {}
+}
@@ -0,0 +1,246 @@
+package com.uade.corehub.messaging.store;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uade.corehub.messaging.dto.MessageEnvelope;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Parking lot de entregas a webhooks (tabla parked_deliveries): un par (mensaje, suscripción) que
+ * agotó sus reintentos queda PARKED con el envelope completo hasta que se re-envía (REDRIVEN, por un
+ * job de replay con source PARKING_LOT) o se descarta (DISCARDED).
+ */
+@Repository
+@RequiredArgsConstructor
+public class ParkingLotStore {
+
+	public static final String PARKED = "PARKED";
+	public static final String REDRIVEN = "REDRIVEN";
+	public static final String DISCARDED = "DISCARDED";
+
+	private static final String SUMMARY_COLUMNS = """
+			SELECT id, message_id, channel, event_name, subscription_id, webhook_url, correlation_id,
+			       attempts, reason, last_error, status, first_failed_at, parked_at, redriven_at, redrive_job_id""";
+
+	// La misma entrega estacionada otra vez (p. ej. tras un replay) reemplaza a la anterior
+	private static final String PARK = """
+			INSERT INTO parked_deliveries (message_id, channel, event_name, subscription_id, webhook_url, correlation_id,
+			                               envelope, attempts, reason, last_error, status, first_failed_at, parked_at)
+			VALUES (?, ?, ?, ?, ?, ?, ?::jsonb, ?, ?, ?, 'PARKED', ?, now())
+			ON CONFLICT (message_id, subscription_id) DO UPDATE
+			SET channel = EXCLUDED.channel, event_name = EXCLUDED.event_name, webhook_url = EXCLUDED.webhook_url,
+			    correlation_id = EXCLUDED.correlation_id, envelope = EXCLUDED.envelope, attempts = EXCLUDED.attempts,
+			    reason = EXCLUDED.reason, last_error = EXCLUDED.last_error, status = 'PARKED',
+			    first_failed_at = EXCLUDED.first_failed_at, parked_at = now(), redriven_at = NULL""";
+
+	private static final String PAGE = SUMMARY_COLUMNS + """
+			, envelope::text AS envelope
+			FROM parked_deliveries
+			WHERE status = 'PARKED' AND channel = ? AND parked_at >= ? AND parked_at < ?
+			  AND (parked_at, id) > (?, ?)""";
+
+	private static final String COUNT = """
+			SELECT count(*) FROM parked_deliveries
+			WHERE status = 'PARKED' AND channel = ? AND parked_at >= ? AND parked_at < ?""";
+
+	private static final String BY_SUBSCRIPTION = " AND subscription_id = ?";
+
+	private static final String BY_IDS = " AND message_id = ANY (?)";
+
+	private static final String SUMMARY = """
+			SELECT channel, subscription_id, count(*) AS parked, min(parked_at) AS oldest, max(parked_at) AS newest
+			FROM parked_deliveries WHERE status = 'PARKED'
+			GROUP BY channel, subscription_id
+			ORDER BY parked DESC""";
+
+	private static final String MARK_REDRIVEN = """
+			UPDATE parked_deliveries SET status = 'REDRIVEN', redriven_at = now(), redrive_job_id = ?
+			WHERE id = ? AND status = 'PARKED'""";
+
+	private static final String MARK_REDRIVE_FAILED = """
+			UPDATE parked_deliveries SET attempts = attempts + 1, last_error = ?, redrive_job_id = ?
+			WHERE id = ? AND status = 'PARKED'""";
+
+	private static final String DISCARD = """
+			UPDATE parked_deliveries SET status = 'DISCARDED' WHERE id = ? AND status = 'PARKED'""";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final ObjectMapper objectMapper;
+
+	/**
+	 * Estaciona una entrega fallida (o reemplaza la estacionada para el mismo mensaje y suscripción)
+	 */
+	public void park(MessageEnvelope envelope, Subscription subscription, String correlationId, int attempts,
+					 String reason, String lastError, OffsetDateTime firstFailedAt) {
+		jdbcTemplate.update(PARK,
+				envelope.messageId(),
+				envelope.destination().channel(),
+				envelope.destination().eventName(),
+				subscription.getId(),
+				subscription.getWebhookUrl(),
+				correlationId,
+				toJson(envelope),
+				attempts,
+				reason,
+				lastError,
+				firstFailedAt);
+	}
+
+	/**
+	 * Entregas por id ascendente, sin el envelope
+	 */
+	public List<ParkedDelivery> list(String status, String channel, String subscriptionId, long afterId, int limit) {
+		StringBuilder sql = new StringBuilder(SUMMARY_COLUMNS).append(" FROM parked_deliveries WHERE status = ? AND id > ?");
+		List<Object> args = new ArrayList<>(List.of(status, afterId));
+		if (channel != null) {
+			sql.append(" AND channel = ?");
+			args.add(channel);
+		}
+		if (subscriptionId != null) {
+			sql.append(BY_SUBSCRIPTION);
+			args.add(subscriptionId);
+		}
+		sql.append(" ORDER BY id LIMIT ?");
+		args.add(limit);
+		return jdbcTemplate.query(sql.toString(), (rs, i) -> mapRow(rs, null), args.toArray());
+	}
+
+	public Optional<ParkedDelivery> find(long id) {
+		return jdbcTemplate.query(SUMMARY_COLUMNS + ", envelope::text AS envelope FROM parked_deliveries WHERE id = ?",
+				(rs, i) -> mapRow(rs, rs.getString("envelope")), id).stream().findFirst();
+	}
+
+	/**
+	 * Entregas pendientes agrupadas por canal y suscripción, las de más entregas primero
+	 */
+	public List<ParkedGroup> summary() {
+		return jdbcTemplate.query(SUMMARY, (rs, i) -> new ParkedGroup(
+				rs.getString("channel"),
+				rs.getString("subscription_id"),
+				rs.getLong("parked"),
+				rs.getObject("oldest", OffsetDateTime.class),
+				rs.getObject("newest", OffsetDateTime.class)));
+	}
+
+	/**
+	 * Página de entregas PARKED de un job de redrive siguiente al cursor (afterParkedAt, afterId)
+	 */
+	public List<ParkedDelivery> page(ReplayJob job, OffsetDateTime afterParkedAt, long afterId, int limit) {
+		List<Object> args = new ArrayList<>(List.of(job.getChannel(), job.getFromTs(), job.getToTs(), afterParkedAt, afterId));
+		String sql = PAGE + filters(job, args) + " ORDER BY parked_at, id LIMIT ?";
+		args.add(limit);
+		return jdbcTemplate.query(sql, (rs, i) -> mapRow(rs, rs.getString("envelope")), args.toArray());
+	}
+
+	public long count(ReplayJob job) {
+		List<Object> args = new ArrayList<>(List.of(job.getChannel(), job.getFromTs(), job.getToTs()));
+		Long total = jdbcTemplate.queryForObject(COUNT + filters(job, args), Long.class, args.toArray());
+		return total == null ? 0 : total;
+	}
+
+	public void markRedriven(long id, String jobId) {
+		jdbcTemplate.update(MARK_REDRIVEN, jobId, id);
+	}
+
+	/**
+	 * La entrega sigue PARKED con el error del redrive
+	 */
+	public void markRedriveFailed(long id, String jobId, String error) {
+		jdbcTemplate.update(MARK_REDRIVE_FAILED, error, jobId, id);
+	}
+
+	/**
+	 * @return false si no existe o ya no está PARKED
+	 */
+	public boolean discard(long id) {
+		return jdbcTemplate.update(DISCARD, id) > 0;
+	}
+
+	private String filters(ReplayJob job, List<Object> args) {
+		String sql = "";
+		if (job.getSubscriptionId() != null) {
+			sql += BY_SUBSCRIPTION;
+			args.add(job.getSubscriptionId());
+		}
+		if (job.getMessageIds() != null && !job.getMessageIds().isEmpty()) {
+			sql += BY_IDS;
+			args.add(job.getMessageIds().toArray(String[]::new));
+		}
+		return sql;
+	}
+
+	private ParkedDelivery mapRow(ResultSet rs, String envelope) throws SQLException {
+		return new ParkedDelivery(
+				rs.getLong("id"),
+				rs.getString("message_id"),
+				rs.getString("channel"),
+				rs.getString("event_name"),
+				rs.getString("subscription_id"),
+				rs.getString("webhook_url"),
+				rs.getString("correlation_id"),
+				envelope == null ? null : fromJson(envelope),
+				rs.getInt("attempts"),
+				rs.getString("reason"),
+				rs.getString("last_error"),
+				rs.getString("status"),
+				rs.getObject("first_failed_at", OffsetDateTime.class),
+				rs.getObject("parked_at", OffsetDateTime.class),
+				rs.getObject("redriven_at", OffsetDateTime.class),
+				rs.getString("redrive_job_id"));
+	}
+
+	private String toJson(MessageEnvelope envelope) {
+		try {
+			return objectMapper.writeValueAsString(envelope);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Envelope could not be serialized", e);
+		}
+	}
+
+	private MessageEnvelope fromJson(String json) {
+		try {
+			return objectMapper.readValue(json, MessageEnvelope.class);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Stored JSON could not be parsed", e);
+		}
+	}
+
+	/**
+	 * Entrega estacionada; envelope es null en los listados
+	 */
+	public record ParkedDelivery(
+			long id,
+			String messageId,
+			String channel,
+			String eventName,
+			String subscriptionId,
+			String webhookUrl,
+			String correlationId,
+			MessageEnvelope envelope,
+			int attempts,
+			String reason,
+			String lastError,
+			String status,
+			OffsetDateTime firstFailedAt,
+			OffsetDateTime parkedAt,
+			OffsetDateTime redrivenAt,
+			String redriveJobId
+	) implements ReplayStore.Row {
+
+		@Override
+		public OffsetDateTime keysetAt() {
+			return parkedAt;
+		}
+	}
+
+	public record ParkedGroup(String channel, String subscriptionId, long parked, OffsetDateTime oldest, OffsetDateTime newest) {}
+}
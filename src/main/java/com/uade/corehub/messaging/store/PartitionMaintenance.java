@@ -0,0 +1,377 @@
+package com.uade.corehub.messaging.store;
+
+import com.uade.corehub.channels.ChannelRegistry;
+import com.uade.corehub.channels.ChannelRegistryProperties;
+import com.uade.corehub.config.PartitioningProperties;
+import com.uade.corehub.messaging.archive.PayloadArchive;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mantenimiento de las particiones por created_at de message_log y payload_store (ver V6).
+ * Crea por adelantado las particiones de los próximos períodos y elimina con DROP TABLE
+ * (O(1), sin DELETE ni bloat) las que quedaron fuera de la retención más larga configurada
+ * entre los canales. Los canales con una retención más corta se podan antes con DELETE por lotes.
+ * También poda message_dedupe fuera de la ventana de deduplicación, los payload_blobs que
+ * quedaron sin referencias al eliminar filas o particiones de payload_store y los segmentos
+ * de PayloadArchive de los días que ya no tienen filas.
+ */
+@Slf4j
+@Component
+public class PartitionMaintenance {
+
+	static final List<String> PARTITIONED_TABLES = List.of("message_log", "payload_store");
+
+	private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+	// Un solo nodo hace DDL por vez (lock transaccional, se libera en el commit)
+	private static final long ADVISORY_LOCK_KEY = 0x636f7265687562L;
+
+	// Límites de cada partición; MINVALUE/MAXVALUE no matchean y quedan en null
+	private static final String LIST_PARTITIONS = """
+			SELECT c.relname AS name,
+			       (regexp_match(pg_get_expr(c.relpartbound, c.oid), 'FROM \\(''([^'']+)''\\)'))[1]::timestamptz AS lower_bound,
+			       (regexp_match(pg_get_expr(c.relpartbound, c.oid), 'TO \\(''([^'']+)''\\)'))[1]::timestamptz AS upper_bound
+			FROM pg_inherits i
+			JOIN pg_class c ON c.oid = i.inhrelid
+			JOIN pg_class p ON p.oid = i.inhparent
+			WHERE p.relname = ? AND p.relnamespace = (SELECT oid FROM pg_namespace WHERE nspname = current_schema())""";
+
+	// Antes de eliminar una partición de payload_store se descuentan sus referencias a payload_blobs.
+	// Los blobs se bloquean ordenados por hash, el mismo orden que usa MessageBatchWriter al referenciarlos.
+	private static final String RELEASE_BLOBS = """
+			WITH refs AS (
+			    SELECT payload_hash AS hash, count(*) AS refs FROM "%s"
+			    WHERE payload_hash IS NOT NULL
+			    GROUP BY payload_hash
+			),
+			locked AS (
+			    SELECT b.hash FROM payload_blobs b JOIN refs USING (hash)
+			    ORDER BY b.hash
+			    FOR UPDATE OF b
+			)
+			UPDATE payload_blobs b SET ref_count = b.ref_count - refs.refs
+			FROM refs
+			WHERE b.hash = refs.hash AND b.hash IN (SELECT hash FROM locked)""";
+
+	private static final String PURGE_BLOBS = """
+			DELETE FROM payload_blobs
+			WHERE hash IN (SELECT hash FROM payload_blobs WHERE ref_count <= 0 LIMIT ?)
+			  AND ref_count <= 0""";
+
+	// Retención por canal: los payloads se encuentran por su fila de message_log (payload_store no tiene canal)
+	private static final String DELETE_CHANNEL_PAYLOADS = """
+			DELETE FROM payload_store p
+			USING (
+			    SELECT s.id, s.created_at FROM payload_store s
+			    JOIN message_log m ON m.message_id = s.message_id AND m.created_at = s.created_at
+			    WHERE m.channel = ? AND m.created_at < ? AND s.created_at < ?
+			    LIMIT ?
+			) d
+			WHERE p.id = d.id AND p.created_at = d.created_at
+			RETURNING p.payload_hash""";
+
+	private static final String DELETE_CHANNEL_MESSAGES = """
+			DELETE FROM message_log
+			WHERE (id, created_at) IN (SELECT id, created_at FROM message_log WHERE channel = ? AND created_at < ? LIMIT ?)""";
+
+	private static final String RELEASE_BLOB = """
+			UPDATE payload_blobs SET ref_count = ref_count - ? WHERE hash = ?""";
+
+	private static final String PURGE_DEDUPE = """
+			DELETE FROM message_dedupe
+			WHERE message_id IN (SELECT message_id FROM message_dedupe WHERE created_at < ? LIMIT ?)""";
+
+	private final PartitioningProperties props;
+	private final ChannelRegistry channelRegistry;
+	private final JdbcTemplate jdbcTemplate;
+	private final PayloadArchive payloadArchive;
+	private final TransactionTemplate transactionTemplate;
+	private final ScheduledExecutorService scheduler;
+
+	public PartitionMaintenance(PartitioningProperties props,
+								ChannelRegistry channelRegistry,
+								JdbcTemplate jdbcTemplate,
+								PayloadArchive payloadArchive,
+								PlatformTransactionManager transactionManager) {
+		this.props = props;
+		this.channelRegistry = channelRegistry;
+		this.jdbcTemplate = jdbcTemplate;
+		this.payloadArchive = payloadArchive;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "partition-maintenance");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	@PostConstruct
+	void init() {
+		// La primera corrida es síncrona: las particiones del período actual deben existir antes de recibir tráfico
+		runSafely();
+		long interval = Math.max(60_000, props.getMaintenanceInterval().toMillis());
+		scheduler.scheduleWithFixedDelay(this::runSafely, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	void shutdown() {
+		scheduler.shutdownNow();
+	}
+
+	private void runSafely() {
+		try {
+			run();
+		} catch (Exception e) {
+			log.error("Partition maintenance failed: {}", e.getMessage(), e);
+		}
+	}
+
+	public void run() {
+		OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+		Duration longest = longestRetention();
+		OffsetDateTime cutoff = now.minus(longest);
+		Map<String, OffsetDateTime> purgedChannels = purgeChannels(now, longest);
+		OffsetDateTime retainedFrom = transactionTemplate.execute(status -> {
+			Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, ADVISORY_LOCK_KEY);
+			if (!Boolean.TRUE.equals(locked)) {
+				log.debug("Partition maintenance running on another node, skipping");
+				return null;
+			}
+			OffsetDateTime payloadsFrom = null;
+			for (String table : PARTITIONED_TABLES) {
+				List<Partition> partitions = listPartitions(table);
+				createAhead(table, partitions, now);
+				List<Partition> kept = dropExpired(table, partitions, cutoff);
+				if ("payload_store".equals(table)) {
+					payloadsFrom = oldestLowerBound(kept);
+				}
+			}
+			return payloadsFrom;
+		});
+		// Con las filas ya borradas (commit hecho), los segmentos de esos días no tienen quién los lea
+		int segments = payloadArchive.deleteSegmentsBefore(retainedFrom, purgedChannels);
+		if (segments > 0) {
+			log.info("Deleted {} expired archive segment(s)", segments);
+		}
+		purgeDedupe(now.minus(props.getDedupeWindow()));
+		purgeBlobs();
+	}
+
+	private List<Partition> listPartitions(String table) {
+		return jdbcTemplate.query(LIST_PARTITIONS, (rs, i) -> {
+			Timestamp lower = rs.getTimestamp("lower_bound");
+			Timestamp upper = rs.getTimestamp("upper_bound");
+			return new Partition(rs.getString("name"),
+					lower == null ? null : lower.toInstant().atOffset(ZoneOffset.UTC),
+					upper == null ? null : upper.toInstant().atOffset(ZoneOffset.UTC));
+		}, table);
+	}
+
+	/**
+	 * Crea particiones contiguas desde el último límite existente hasta premake períodos adelante.
+	 * Si la granularidad cambió, la primera puede ser parcial hasta alinearse con el nuevo período.
+	 */
+	private void createAhead(String table, List<Partition> partitions, OffsetDateTime now) {
+		OffsetDateTime start = partitions.stream()
+				.map(Partition::upperBound)
+				.filter(Objects::nonNull)
+				.max(Comparator.naturalOrder())
+				.orElse(periodStart(now));
+		OffsetDateTime horizon = periodStart(now).plus(period().multipliedBy(Math.max(0, props.getPremake()) + 1L));
+		while (start.isBefore(horizon)) {
+			OffsetDateTime end = periodStart(start).plus(period());
+			String name = table + "_p" + SUFFIX.format(start);
+			jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS \"" + name + "\" PARTITION OF " + table
+					+ " FOR VALUES FROM ('" + start + "') TO ('" + end + "')");
+			log.info("Created partition {} [{}, {})", name, start, end);
+			start = end;
+		}
+	}
+
+	/**
+	 * @return las particiones que quedan
+	 */
+	private List<Partition> dropExpired(String table, List<Partition> partitions, OffsetDateTime cutoff) {
+		List<Partition> kept = new ArrayList<>(partitions.size());
+		for (Partition partition : partitions) {
+			if (partition.upperBound() == null || partition.upperBound().isAfter(cutoff)) {
+				kept.add(partition);
+			} else {
+				if ("payload_store".equals(table)) {
+					int released = jdbcTemplate.update(RELEASE_BLOBS.formatted(partition.name()));
+					if (released > 0) {
+						log.info("Released references to {} payload blob(s) from partition {}", released, partition.name());
+					}
+				}
+				jdbcTemplate.execute("DROP TABLE IF EXISTS \"" + partition.name() + "\"");
+				log.info("Dropped expired partition {} of {} (upper bound {}, cutoff {})",
+						partition.name(), table, partition.upperBound(), cutoff);
+			}
+		}
+		return kept;
+	}
+
+	/**
+	 * @return desde dónde se conservan filas, o null si alguna partición empieza en MINVALUE
+	 */
+	private static OffsetDateTime oldestLowerBound(List<Partition> partitions) {
+		OffsetDateTime oldest = null;
+		for (Partition partition : partitions) {
+			if (partition.lowerBound() == null) {
+				return null;
+			}
+			if (oldest == null || partition.lowerBound().isBefore(oldest)) {
+				oldest = partition.lowerBound();
+			}
+		}
+		return oldest;
+	}
+
+	/**
+	 * Borra por lotes las filas de los canales cuya retención es más corta que la de las particiones.
+	 * Primero payload_store (se encuentra por message_log), cada lote en su transacción junto con la
+	 * baja de sus referencias a payload_blobs; después message_log.
+	 * @return el límite aplicado a cada canal podado
+	 */
+	private Map<String, OffsetDateTime> purgeChannels(OffsetDateTime now, Duration longest) {
+		int batch = Math.max(1, props.getDedupePurgeBatchSize());
+		Map<String, OffsetDateTime> purged = new HashMap<>();
+		for (ChannelRegistryProperties.Channel channel : channelRegistry.getAllChannels().values()) {
+			Duration retention = retentionOf(channel);
+			if (retention.compareTo(longest) >= 0) {
+				continue;
+			}
+			OffsetDateTime before = now.minus(retention);
+			long payloads = 0;
+			int deleted;
+			do {
+				deleted = transactionTemplate.execute(status -> deleteChannelPayloads(channel.getName(), before, batch));
+				payloads += deleted;
+			} while (deleted == batch);
+			long messages = 0;
+			do {
+				deleted = jdbcTemplate.update(DELETE_CHANNEL_MESSAGES, channel.getName(), before, batch);
+				messages += deleted;
+			} while (deleted == batch);
+			if (payloads > 0 || messages > 0) {
+				log.info("Purged {} message(s) and {} payload(s) of channel '{}' older than {} (retention {})",
+						messages, payloads, channel.getName(), before, retention);
+			}
+			purged.put(channel.getName(), before);
+		}
+		return purged;
+	}
+
+	private int deleteChannelPayloads(String channel, OffsetDateTime before, int batch) {
+		List<byte[]> hashes = jdbcTemplate.queryForList(DELETE_CHANNEL_PAYLOADS, byte[].class, channel, before, before, batch);
+		// Mismo orden de bloqueo que MessageBatchWriter al referenciar los blobs
+		Map<String, BlobRelease> released = new TreeMap<>();
+		for (byte[] hash : hashes) {
+			if (hash != null) {
+				released.computeIfAbsent(HexFormat.of().formatHex(hash), h -> new BlobRelease(hash)).refs++;
+			}
+		}
+		if (!released.isEmpty()) {
+			jdbcTemplate.batchUpdate(RELEASE_BLOB, List.copyOf(released.values()), released.size(), (ps, b) -> {
+				ps.setLong(1, b.refs);
+				ps.setBytes(2, b.hash);
+			});
+		}
+		return hashes.size();
+	}
+
+	private void purgeDedupe(OffsetDateTime before) {
+		int batch = Math.max(1, props.getDedupePurgeBatchSize());
+		long total = 0;
+		int deleted;
+		do {
+			deleted = jdbcTemplate.update(PURGE_DEDUPE, before, batch);
+			total += deleted;
+		} while (deleted == batch);
+		if (total > 0) {
+			log.info("Purged {} message ids from message_dedupe older than {}", total, before);
+		}
+	}
+
+	/**
+	 * Borra los blobs que ya nadie referencia. Si un publish concurrente vuelve a referenciar uno,
+	 * la condición se re-evalúa sobre la fila actualizada y el blob se conserva.
+	 */
+	private void purgeBlobs() {
+		int batch = Math.max(1, props.getDedupePurgeBatchSize());
+		long total = 0;
+		int deleted;
+		do {
+			deleted = jdbcTemplate.update(PURGE_BLOBS, batch);
+			total += deleted;
+		} while (deleted == batch);
+		if (total > 0) {
+			log.info("Purged {} unreferenced payload blob(s)", total);
+		}
+	}
+
+	/**
+	 * Una partición contiene todos los canales: se elimina cuando venció la retención más larga
+	 */
+	private Duration longestRetention() {
+		return channelRegistry.getAllChannels().values().stream()
+				.map(this::retentionOf)
+				.max(Comparator.naturalOrder())
+				.orElse(props.getDefaultRetention());
+	}
+
+	private Duration retentionOf(ChannelRegistryProperties.Channel channel) {
+		return channel.getRetention() == null ? props.getDefaultRetention() : channel.getRetention();
+	}
+
+	private OffsetDateTime periodStart(OffsetDateTime t) {
+		OffsetDateTime day = t.withOffsetSameInstant(ZoneOffset.UTC).truncatedTo(ChronoUnit.DAYS);
+		return props.getGranularity() == PartitioningProperties.Granularity.WEEKLY
+				? day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+				: day;
+	}
+
+	private Duration period() {
+		return props.getGranularity() == PartitioningProperties.Granularity.WEEKLY ? Duration.ofDays(7) : Duration.ofDays(1);
+	}
+
+	record Partition(String name, OffsetDateTime lowerBound, OffsetDateTime upperBound) {}
+
+	/**
+	 * Referencias a descontar de un blob por las filas borradas en un lote
+	 */
+	private static final class BlobRelease {
+		private final byte[] hash;
+		private long refs;
+
+		private BlobRelease(byte[] hash) {
+			this.hash = hash;
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package com.uade.corehub.messaging.store;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Forma canónica de un payload para direccionarlo por contenido (payload_blobs):
+ * sin espacios, claves de cada objeto ordenadas y números tal como vinieron.
+ * Dos payloads que sólo difieren en orden de claves o formato producen el mismo hash.
+ */
+@Component
+public class PayloadCanonicalizer {
+
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	/**
+	 * @return el JSON canónico
+	 */
+	public String canonicalize(String json) {
+		StringWriter out = new StringWriter(json.length());
+		try (JsonParser parser = JSON_FACTORY.createParser(json);
+			 JsonGenerator gen = JSON_FACTORY.createGenerator(out)) {
+			parser.nextToken();
+			write(read(parser), gen);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Payload is not valid JSON", e);
+		}
+		return out.toString();
+	}
+
+	/**
+	 * @return SHA-256 del JSON canónico
+	 */
+	public byte[] hash(String canonicalJson) {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(canonicalJson.getBytes(StandardCharsets.UTF_8));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Lee un valor a una estructura liviana: los escalares se guardan como su texto JSON ya escapado
+	 */
+	private static Object read(JsonParser parser) throws IOException {
+		JsonToken token = parser.currentToken();
+		if (token == JsonToken.START_OBJECT) {
+			List<Map.Entry<String, Object>> fields = new ArrayList<>();
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String name = parser.currentName();
+				parser.nextToken();
+				fields.add(Map.entry(name, read(parser)));
+			}
+			fields.sort(Map.Entry.comparingByKey(Comparator.naturalOrder()));
+			return fields;
+		}
+		if (token == JsonToken.START_ARRAY) {
+			List<Object> items = new ArrayList<>();
+			while (parser.nextToken() != JsonToken.END_ARRAY) {
+				items.add(read(parser));
+			}
+			return new Array(items);
+		}
+		if (token == JsonToken.VALUE_STRING) {
+			return new Str(parser.getText());
+		}
+		// Números, true/false/null: el texto original (sin normalizar 1.0 vs 1)
+		return new Raw(parser.getText());
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void write(Object value, JsonGenerator gen) throws IOException {
+		if (value instanceof List<?> fields) {
+			gen.writeStartObject();
+			for (Map.Entry<String, Object> field : (List<Map.Entry<String, Object>>) fields) {
+				gen.writeFieldName(field.getKey());
+				write(field.getValue(), gen);
+			}
+			gen.writeEndObject();
+		} else if (value instanceof Array array) {
+			gen.writeStartArray();
+			for (Object item : array.items()) {
+				write(item, gen);
+			}
+			gen.writeEndArray();
+		} else if (value instanceof Str str) {
+			gen.writeString(str.value());
+		} else {
+			gen.writeRawValue(((Raw) value).text());
+		}
+	}
+
+	private record Array(List<Object> items) {}
+
+	private record Str(String value) {}
+
+	private record Raw(String text) {}
+}
@@ -2,11 +2,11 @@ package com.uade.corehub.messaging.store;
 
 import jakarta.persistence.*;
 import lombok.*;
+import com.uade.corehub.messaging.dto.RawPayload;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
 import java.time.OffsetDateTime;
-import java.util.Map;
 
 @Entity
 @Table(name="payload_store",
@@ -22,9 +22,24 @@ public class PayloadStore {
 	@Column(name="message_id", nullable=false, length=64)
 	private String messageId;
 
+	// null cuando el canal comprime (el payload queda en payload_compressed) o cuando está en payload_blobs
 	@JdbcTypeCode(SqlTypes.JSON)
-	@Column(name="payload", nullable=false, columnDefinition = "jsonb")
-	private Map<String, Object> payload;
+	@Column(name="payload", columnDefinition = "jsonb")
+	private RawPayload payload;
+
+	@Column(name="payload_compressed")
+	private byte[] payloadCompressed;
+
+	@Column(name="compression", length=16)
+	private String compression;
+
+	// Puntero al segmento de PayloadArchive cuando el payload ya salió de la base
+	@Column(name="archive_segment")
+	private String archiveSegment;
+
+	// SHA-256 del JSON canónico en payload_blobs (canales contentAddressed); payload y payload_compressed quedan null
+	@Column(name="payload_hash")
+	private byte[] payloadHash;
 
 	@Column(name="schema_ver", length=32)
 	private String schemaVer;
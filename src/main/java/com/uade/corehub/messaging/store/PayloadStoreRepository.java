@@ -2,8 +2,8 @@ package com.uade.corehub.messaging.store;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 
-import java.util.Optional;
-
-public interface PayloadStoreRepository extends JpaRepository<PayloadStore, Long> {
-	Optional<PayloadStore> findByMessageId(String messageId);
+/**
+ * findByMessageId lo implementa PayloadStoreRepositoryImpl (lectura transparente del archivo frío)
+ */
+public interface PayloadStoreRepository extends JpaRepository<PayloadStore, Long>, PayloadStoreRepositoryCustom {
 }
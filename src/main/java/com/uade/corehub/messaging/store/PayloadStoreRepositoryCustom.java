@@ -0,0 +1,13 @@
+package com.uade.corehub.messaging.store;
+
+import java.util.Optional;
+
+public interface PayloadStoreRepositoryCustom {
+
+	/**
+	 * Busca el payload de un mensaje. Si fue archivado (o referencia payload_blobs) se lee del segmento
+	 * en disco (o del blob) y se devuelve una copia desacoplada de la sesión, con el payload cargado y
+	 * el puntero intacto.
+	 */
+	Optional<PayloadStore> findByMessageId(String messageId);
+}
@@ -0,0 +1,74 @@
+package com.uade.corehub.messaging.store;
+
+import com.uade.corehub.messaging.archive.PayloadArchive;
+import com.uade.corehub.messaging.dto.RawPayload;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.context.annotation.Lazy;
+
+import java.util.List;
+import java.util.Optional;
+
+class PayloadStoreRepositoryImpl implements PayloadStoreRepositoryCustom {
+
+	private static final String FIND_BLOB = """
+			SELECT payload::text, payload_compressed, compression FROM payload_blobs WHERE hash = ?1""";
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private final PayloadArchive payloadArchive;
+
+	PayloadStoreRepositoryImpl(@Lazy PayloadArchive payloadArchive) {
+		this.payloadArchive = payloadArchive;
+	}
+
+	@Override
+	public Optional<PayloadStore> findByMessageId(String messageId) {
+		Optional<PayloadStore> row = entityManager
+				.createQuery("SELECT p FROM PayloadStore p WHERE p.messageId = :messageId", PayloadStore.class)
+				.setParameter("messageId", messageId)
+				.setMaxResults(1)
+				.getResultStream()
+				.findFirst();
+		return row.map(p -> {
+			if (p.getArchiveSegment() != null) {
+				return detachedCopy(p)
+						.payload(payloadArchive.read(p.getArchiveSegment(), p.getMessageId()))
+						.build();
+			}
+			if (p.getPayloadHash() != null) {
+				return withBlob(p);
+			}
+			return p;
+		});
+	}
+
+	/**
+	 * Copia con el contenido de payload_blobs (jsonb o comprimido) en lugar de la referencia
+	 */
+	private PayloadStore withBlob(PayloadStore p) {
+		List<?> rows = entityManager.createNativeQuery(FIND_BLOB)
+				.setParameter(1, p.getPayloadHash())
+				.getResultList();
+		if (rows.isEmpty()) {
+			throw new IllegalStateException("Payload blob missing for message " + p.getMessageId());
+		}
+		Object[] blob = (Object[]) rows.get(0);
+		return detachedCopy(p)
+				.payload(RawPayload.of((String) blob[0]))
+				.payloadCompressed((byte[]) blob[1])
+				.compression((String) blob[2])
+				.build();
+	}
+
+	private static PayloadStore.PayloadStoreBuilder detachedCopy(PayloadStore p) {
+		return PayloadStore.builder()
+				.id(p.getId())
+				.messageId(p.getMessageId())
+				.schemaVer(p.getSchemaVer())
+				.archiveSegment(p.getArchiveSegment())
+				.payloadHash(p.getPayloadHash())
+				.createdAt(p.getCreatedAt());
+	}
+}
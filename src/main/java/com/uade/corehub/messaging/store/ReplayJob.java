@@ -0,0 +1,102 @@
+package com.uade.corehub.messaging.store;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Job de replay. El progreso (cursor, contadores, lease) lo escribe ReplayStore con UPDATEs
+ * puntuales; la entidad sólo se usa para crear y consultar jobs.
+ * Con source PARKING_LOT el job es un redrive: recorre parked_deliveries en lugar de message_log.
+ */
+@Entity
+@Table(name = "replay_jobs",
+				indexes = @Index(name = "ix_replay_jobs_status", columnList = "status"))
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class ReplayJob {
+
+	public static final String RUNNING = "RUNNING";
+	public static final String PAUSED = "PAUSED";
+	public static final String CANCELLED = "CANCELLED";
+	public static final String COMPLETED = "COMPLETED";
+	public static final String FAILED = "FAILED";
+
+	public static final String SOURCE_MESSAGE_LOG = "MESSAGE_LOG";
+	public static final String SOURCE_PARKING_LOT = "PARKING_LOT";
+
+	@Id
+	@Column(length=36)
+	private String id;
+
+	@Column(nullable=false, length=120)
+	private String channel;
+
+	@Column(name="from_ts", nullable=false)
+	private OffsetDateTime fromTs;
+
+	@Column(name="to_ts", nullable=false)
+	private OffsetDateTime toTs;
+
+	@JdbcTypeCode(SqlTypes.JSON)
+	@Column(name="message_ids", columnDefinition = "jsonb")
+	private List<String> messageIds;
+
+	@Column(nullable=false, length=16)
+	@Builder.Default
+	private String source = SOURCE_MESSAGE_LOG;
+
+	// null: re-publicar al broker; si no, entregar sólo a este webhook.
+	// En un redrive filtra las entregas estacionadas de esa suscripción (null: todas las del canal)
+	@Column(name="subscription_id")
+	private String subscriptionId;
+
+	// Redrive: entregar a esta URL en lugar de la de cada suscripción
+	@Column(name="target_url", length=500)
+	private String targetUrl;
+
+	@Column(name="rate_per_second", nullable=false)
+	private int ratePerSecond;
+
+	@Column(nullable=false, length=16)
+	private String status;
+
+	@Column(name="cursor_created_at")
+	private OffsetDateTime cursorCreatedAt;
+
+	@Column(name="cursor_id")
+	private Long cursorId;
+
+	private Long total;
+
+	@Column(nullable=false)
+	private long replayed;
+
+	@Column(nullable=false)
+	private long failed;
+
+	@Column(name="error_message")
+	private String errorMessage;
+
+	@Column(name="lease_owner", length=100)
+	private String leaseOwner;
+
+	@Column(name="lease_until")
+	private OffsetDateTime leaseUntil;
+
+	@Column(name="created_at", nullable=false)
+	private OffsetDateTime createdAt;
+
+	@Column(name="updated_at", nullable=false)
+	private OffsetDateTime updatedAt;
+
+	@Column(name="finished_at")
+	private OffsetDateTime finishedAt;
+
+	public boolean isRedrive() {
+		return SOURCE_PARKING_LOT.equals(source);
+	}
+}
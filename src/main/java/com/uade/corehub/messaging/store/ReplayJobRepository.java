@@ -0,0 +1,11 @@
+package com.uade.corehub.messaging.store;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface ReplayJobRepository extends JpaRepository<ReplayJob, String> {
+
+	List<ReplayJob> findAllByOrderByCreatedAtDesc(Pageable pageable);
+}
@@ -0,0 +1,219 @@
+package com.uade.corehub.messaging.store;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uade.corehub.messaging.archive.PayloadArchive;
+import com.uade.corehub.messaging.compression.PayloadCompressor;
+import com.uade.corehub.messaging.dto.RawPayload;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Lecturas y actualizaciones de progreso de los jobs de replay.
+ * Los mensajes se recorren con cursor keyset (created_at, id): cada página arranca donde
+ * terminó la anterior por índice, sin OFFSET, y el cursor persistido permite reanudar.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReplayStore {
+
+	private static final String PAGE = """
+			SELECT m.id, m.message_id, m.routing_key, m.source, m.event_name, m.metadata::text AS metadata,
+			       m.correlation_id, m.produced_at, m.created_at,
+			       COALESCE(p.payload, b.payload)::text AS payload, COALESCE(p.payload_compressed, b.payload_compressed) AS payload_compressed,
+			       COALESCE(p.compression, b.compression) AS compression, p.archive_segment
+			FROM message_log m
+			JOIN payload_store p ON p.message_id = m.message_id AND p.created_at = m.created_at
+			LEFT JOIN payload_blobs b ON b.hash = p.payload_hash
+			WHERE m.channel = ? AND m.created_at >= ? AND m.created_at < ?
+			  AND (m.created_at, m.id) > (?, ?)""";
+
+	private static final String COUNT = """
+			SELECT count(*) FROM message_log m
+			WHERE m.channel = ? AND m.created_at >= ? AND m.created_at < ?""";
+
+	private static final String BY_IDS = " AND m.message_id = ANY (?)";
+
+	private static final String PAGE_ORDER = " ORDER BY m.created_at, m.id LIMIT ?";
+
+	// SKIP LOCKED: dos nodos nunca toman el mismo job; un lease vencido indica un dueño caído
+	private static final String CLAIM = """
+			UPDATE replay_jobs SET lease_owner = ?, lease_until = ?, updated_at = now()
+			WHERE id = (
+			    SELECT id FROM replay_jobs
+			    WHERE status = 'RUNNING' AND (lease_until IS NULL OR lease_until < now())
+			    ORDER BY created_at
+			    LIMIT 1
+			    FOR UPDATE SKIP LOCKED)
+			RETURNING id""";
+
+	private static final String CHECKPOINT = """
+			UPDATE replay_jobs
+			SET cursor_created_at = ?, cursor_id = ?, replayed = replayed + ?, failed = failed + ?,
+			    lease_until = ?, updated_at = now()
+			WHERE id = ? AND lease_owner = ?
+			RETURNING status""";
+
+	private static final String SET_TOTAL = """
+			UPDATE replay_jobs SET total = ? WHERE id = ? AND total IS NULL""";
+
+	private static final String FINISH = """
+			UPDATE replay_jobs
+			SET status = ?, error_message = ?, finished_at = now(), lease_owner = NULL, lease_until = NULL, updated_at = now()
+			WHERE id = ? AND lease_owner = ? AND status = 'RUNNING'""";
+
+	private static final String RELEASE = """
+			UPDATE replay_jobs SET lease_owner = NULL, lease_until = NULL WHERE id = ? AND lease_owner = ?""";
+
+	private static final String TRANSITION = """
+			UPDATE replay_jobs
+			SET status = ?, error_message = NULL, updated_at = now(),
+			    finished_at = CASE WHEN ? THEN now() ELSE NULL END
+			WHERE id = ? AND status = ANY (?)""";
+
+	private static final TypeReference<Map<String, String>> METADATA_TYPE = new TypeReference<>() {};
+
+	private final JdbcTemplate jdbcTemplate;
+	private final ObjectMapper objectMapper;
+	private final PayloadCompressor payloadCompressor;
+	private final PayloadArchive payloadArchive;
+
+	/**
+	 * Página siguiente al cursor (afterCreatedAt, afterId) dentro del rango del job
+	 */
+	public List<StoredMessage> page(ReplayJob job, OffsetDateTime afterCreatedAt, long afterId, int limit) {
+		List<Object> args = new ArrayList<>(List.of(job.getChannel(), job.getFromTs(), job.getToTs(), afterCreatedAt, afterId));
+		String sql = PAGE + byIds(job, args) + PAGE_ORDER;
+		args.add(limit);
+		return jdbcTemplate.query(sql, this::mapRow, args.toArray());
+	}
+
+	public long count(ReplayJob job) {
+		List<Object> args = new ArrayList<>(List.of(job.getChannel(), job.getFromTs(), job.getToTs()));
+		Long total = jdbcTemplate.queryForObject(COUNT + byIds(job, args), Long.class, args.toArray());
+		return total == null ? 0 : total;
+	}
+
+	/**
+	 * Toma un job RUNNING sin dueño (o con el lease vencido)
+	 * @return el id del job tomado, si había alguno
+	 */
+	public Optional<String> claim(String owner, OffsetDateTime leaseUntil) {
+		return jdbcTemplate.queryForList(CLAIM, String.class, owner, leaseUntil).stream().findFirst();
+	}
+
+	/**
+	 * Persiste el cursor y los contadores y renueva el lease
+	 * @return el estado actual del job, o vacío si el lease ya no es de este nodo
+	 */
+	public Optional<String> checkpoint(String jobId, String owner, OffsetDateTime cursorCreatedAt, long cursorId,
+									   long replayed, long failed, OffsetDateTime leaseUntil) {
+		return jdbcTemplate.queryForList(CHECKPOINT, String.class,
+				cursorCreatedAt, cursorId, replayed, failed, leaseUntil, jobId, owner).stream().findFirst();
+	}
+
+	public void setTotal(String jobId, long total) {
+		jdbcTemplate.update(SET_TOTAL, total, jobId);
+	}
+
+	public void finish(String jobId, String owner, String status, String error) {
+		jdbcTemplate.update(FINISH, status, error, jobId, owner);
+	}
+
+	public void release(String jobId, String owner) {
+		jdbcTemplate.update(RELEASE, jobId, owner);
+	}
+
+	/**
+	 * Cambia el estado sólo si el actual está en from
+	 * @return true si se aplicó
+	 */
+	public boolean transition(String jobId, String to, boolean finished, String... from) {
+		return jdbcTemplate.update(TRANSITION, ps -> {
+			ps.setString(1, to);
+			ps.setBoolean(2, finished);
+			ps.setString(3, jobId);
+			ps.setArray(4, ps.getConnection().createArrayOf("varchar", from));
+		}) > 0;
+	}
+
+	private String byIds(ReplayJob job, List<Object> args) {
+		if (job.getMessageIds() == null || job.getMessageIds().isEmpty()) {
+			return "";
+		}
+		args.add(job.getMessageIds().toArray(String[]::new));
+		return BY_IDS;
+	}
+
+	private StoredMessage mapRow(ResultSet rs, int rowNum) throws SQLException {
+		String messageId = rs.getString("message_id");
+		String archiveSegment = rs.getString("archive_segment");
+		RawPayload payload = archiveSegment != null
+				? payloadArchive.read(archiveSegment, messageId)
+				: payloadCompressor.readStored(rs.getString("payload"), rs.getBytes("payload_compressed"), rs.getString("compression"));
+		return new StoredMessage(
+				rs.getLong("id"),
+				messageId,
+				rs.getString("routing_key"),
+				rs.getString("source"),
+				rs.getString("event_name"),
+				fromJson(rs.getString("metadata")),
+				rs.getString("correlation_id"),
+				rs.getObject("produced_at", OffsetDateTime.class),
+				rs.getObject("created_at", OffsetDateTime.class),
+				payload);
+	}
+
+	private Map<String, String> fromJson(String json) {
+		if (json == null) {
+			return null;
+		}
+		try {
+			return objectMapper.readValue(json, METADATA_TYPE);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Stored JSON could not be parsed", e);
+		}
+	}
+
+	/**
+	 * Fila recorrida por un job de replay: el cursor keyset es (keysetAt, id)
+	 */
+	public interface Row {
+
+		long id();
+
+		OffsetDateTime keysetAt();
+	}
+
+	/**
+	 * Mensaje almacenado con lo necesario para reconstruir el envelope
+	 */
+	public record StoredMessage(
+			long id,
+			String messageId,
+			String routingKey,
+			String source,
+			String eventName,
+			Map<String, String> metadata,
+			String correlationId,
+			OffsetDateTime producedAt,
+			OffsetDateTime createdAt,
+			RawPayload payload
+	) implements Row {
+
+		@Override
+		public OffsetDateTime keysetAt() {
+			return createdAt;
+		}
+	}
+}
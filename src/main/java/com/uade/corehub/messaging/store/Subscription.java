@@ -81,6 +81,13 @@ public class Subscription {
     @Builder.Default
     private Integer failedAttempts = 0;
 
+    /**
+     * El webhook acepta bodies comprimidos (Content-Encoding: gzip)
+     */
+    @Column(name = "accept_gzip", nullable = false)
+    @Builder.Default
+    private Boolean acceptGzip = false;
+
     /**
      * Último error de entrega del webhook
      */
@@ -93,6 +100,13 @@ public class Subscription {
     @Column(name = "last_successful_delivery")
     private OffsetDateTime lastSuccessfulDelivery;
 
+    /**
+     * Con status SUSPENDED: circuito abierto por el circuit breaker hasta esta hora (luego se prueba el webhook).
+     * Null si la suscripción no fue suspendida por el breaker
+     */
+    @Column(name = "circuit_open_until")
+    private OffsetDateTime circuitOpenUntil;
+
     /**
      * Pre-persist: Generar ID único y establecer fechas
      */
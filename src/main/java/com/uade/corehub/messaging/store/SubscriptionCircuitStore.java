@@ -0,0 +1,99 @@
+package com.uade.corehub.messaging.store;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+/**
+ * Estado del circuit breaker y estadísticas de entrega de las suscripciones (tabla subscriptions).
+ * Son UPDATEs condicionales de sólo esas columnas: varios nodos entregan a la misma suscripción y
+ * guardar la entidad completa pisaría el estado que otro nodo acaba de cambiar.
+ * Las horas se calculan con el reloj de la base, el mismo para todos los nodos.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SubscriptionCircuitStore {
+
+	private static final String RECORD_SUCCESS = """
+			UPDATE subscriptions SET failed_attempts = 0, last_error = NULL, last_successful_delivery = now()
+			WHERE id = ?""";
+
+	private static final String RECORD_FAILURE = """
+			UPDATE subscriptions SET failed_attempts = failed_attempts + 1, last_error = ?
+			WHERE id = ?""";
+
+	private static final String OPEN = """
+			UPDATE subscriptions SET status = 'SUSPENDED', circuit_open_until = now() + ? * INTERVAL '1 millisecond', updated_at = now()
+			WHERE id = ? AND status = 'ACTIVE'
+			RETURNING circuit_open_until""";
+
+	// Una sola prueba por período entre todos los nodos: quien la toma corre circuit_open_until
+	private static final String CLAIM_PROBE = """
+			UPDATE subscriptions SET circuit_open_until = now() + ? * INTERVAL '1 millisecond'
+			WHERE id = ? AND status = 'SUSPENDED' AND circuit_open_until <= now()
+			RETURNING circuit_open_until""";
+
+	private static final String CLOSE = """
+			UPDATE subscriptions SET status = 'ACTIVE', circuit_open_until = NULL, updated_at = now()
+			WHERE id = ? AND status = 'SUSPENDED' AND circuit_open_until IS NOT NULL""";
+
+	private static final String OPEN_UNTIL = """
+			SELECT circuit_open_until FROM subscriptions
+			WHERE id = ? AND status = 'SUSPENDED' AND circuit_open_until IS NOT NULL""";
+
+	private static final int MAX_ERROR_LENGTH = 1000;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public void recordSuccess(String subscriptionId) {
+		jdbcTemplate.update(RECORD_SUCCESS, subscriptionId);
+	}
+
+	public void recordFailure(String subscriptionId, String error) {
+		jdbcTemplate.update(RECORD_FAILURE, truncate(error), subscriptionId);
+	}
+
+	/**
+	 * ACTIVE → SUSPENDED con el circuito abierto por openDuration
+	 * @return hasta cuándo queda abierto; vacío si la suscripción ya no estaba ACTIVE
+	 */
+	public Optional<OffsetDateTime> open(String subscriptionId, Duration openDuration) {
+		return returning(OPEN, openDuration.toMillis(), subscriptionId);
+	}
+
+	/**
+	 * Toma la prueba half-open si venció circuit_open_until, y lo corre otro openDuration
+	 * @return el nuevo circuit_open_until; vacío si otro nodo ya la tomó o el circuito no está abierto
+	 */
+	public Optional<OffsetDateTime> claimProbe(String subscriptionId, Duration openDuration) {
+		return returning(CLAIM_PROBE, openDuration.toMillis(), subscriptionId);
+	}
+
+	/**
+	 * SUSPENDED por el breaker → ACTIVE
+	 * @return false si ya estaba cerrado (o la suspensión es manual)
+	 */
+	public boolean close(String subscriptionId) {
+		return jdbcTemplate.update(CLOSE, subscriptionId) > 0;
+	}
+
+	/**
+	 * @return hasta cuándo está abierto el circuito; vacío si está cerrado
+	 */
+	public Optional<OffsetDateTime> openUntil(String subscriptionId) {
+		return jdbcTemplate.query(OPEN_UNTIL, (rs, i) -> rs.getObject(1, OffsetDateTime.class), subscriptionId)
+				.stream().findFirst();
+	}
+
+	private Optional<OffsetDateTime> returning(String sql, Object... args) {
+		return jdbcTemplate.query(sql, (rs, i) -> rs.getObject(1, OffsetDateTime.class), args).stream().findFirst();
+	}
+
+	private static String truncate(String error) {
+		return error == null || error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+	}
+}
@@ -28,6 +28,13 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, Stri
      */
     List<Subscription> findByStatus(Subscription.SubscriptionStatus status);
 
+    /**
+     * Suscripciones con estado status o con estado suspended y el circuito abierto por el breaker
+     * (usar con ACTIVE y SUSPENDED: las suscripciones a las que se entregan eventos)
+     */
+    List<Subscription> findByStatusOrStatusAndCircuitOpenUntilIsNotNull(Subscription.SubscriptionStatus status,
+                                                                        Subscription.SubscriptionStatus suspended);
+
     /**
      * Busca suscripciones por nombre del squad
      * @param squadName nombre del squad
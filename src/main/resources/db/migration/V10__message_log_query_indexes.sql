@@ -0,0 +1,13 @@
+-- GET /messages: paginación keyset sobre (created_at, id) con filtro opcional por canal, estado o
+-- correlation_id. Cada filtro tiene su índice (filtro, created_at, id) para que la consulta sea un
+-- range scan (hacia atrás) sin sort, sea cual sea la profundidad de la página.
+-- ix_message_log_channel_created (V9) cubre el filtro por canal.
+CREATE INDEX IF NOT EXISTS ix_message_log_status_created      ON message_log (status, created_at, id);
+CREATE INDEX IF NOT EXISTS ix_message_log_correlation_created ON message_log (correlation_id, created_at, id)
+    WHERE correlation_id IS NOT NULL;
+CREATE INDEX IF NOT EXISTS ix_message_log_created_id          ON message_log (created_at, id);
+
+-- Quedan cubiertos por los anteriores (mismo prefijo): menos índices que mantener en cada INSERT
+DROP INDEX IF EXISTS ix_message_log_channel;
+DROP INDEX IF EXISTS ix_message_log_status;
+DROP INDEX IF EXISTS ix_message_log_created_at;
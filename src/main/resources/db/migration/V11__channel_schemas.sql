@@ -0,0 +1,9 @@
+-- JSON Schema versionados por canal (schemaVersion en channels.yaml). Una versión registrada no cambia.
+CREATE TABLE IF NOT EXISTS channel_schemas (
+    id          BIGSERIAL    PRIMARY KEY,
+    channel     VARCHAR(120) NOT NULL,
+    version     VARCHAR(32)  NOT NULL,
+    schema      JSONB        NOT NULL,
+    created_at  TIMESTAMPTZ  NOT NULL DEFAULT now(),
+    CONSTRAINT uq_channel_schemas_channel_version UNIQUE (channel, version)
+);
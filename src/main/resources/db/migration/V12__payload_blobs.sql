@@ -0,0 +1,25 @@
+-- Payloads direccionados por contenido (contentAddressed en channels.yaml): el JSON canónico se guarda
+-- una sola vez por hash y payload_store sólo referencia el hash. ref_count = filas de payload_store que
+-- lo referencian; PartitionMaintenance lo descuenta al eliminar particiones y borra los huérfanos.
+CREATE TABLE IF NOT EXISTS payload_blobs (
+    hash               BYTEA        PRIMARY KEY,     -- SHA-256 del JSON canónico
+    payload            JSONB,                        -- null si está comprimido
+    payload_compressed BYTEA,
+    compression        VARCHAR(16),
+    ref_count          BIGINT       NOT NULL,
+    created_at         TIMESTAMPTZ  NOT NULL DEFAULT now(),
+    last_referenced_at TIMESTAMPTZ  NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS ix_payload_blobs_orphans ON payload_blobs (hash) WHERE ref_count <= 0;
+
+-- Se propaga a todas las particiones
+ALTER TABLE payload_store ADD COLUMN IF NOT EXISTS payload_hash BYTEA;
+
+-- Las filas direccionadas no llevan el payload: alcanza con la referencia al blob
+ALTER TABLE payload_store DROP CONSTRAINT IF EXISTS chk_payload_store_payload;
+ALTER TABLE payload_store ADD CONSTRAINT chk_payload_store_payload
+    CHECK (payload IS NOT NULL
+        OR (payload_compressed IS NOT NULL AND compression IS NOT NULL)
+        OR archive_segment IS NOT NULL
+        OR payload_hash IS NOT NULL);
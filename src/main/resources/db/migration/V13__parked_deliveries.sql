@@ -0,0 +1,29 @@
+-- Parking lot: entregas (mensaje, suscripción) que no se pudieron completar con reintentos (ver ParkingLotStore).
+-- Guarda el envelope completo, así el redrive no depende de la retención de payload_store.
+CREATE TABLE IF NOT EXISTS parked_deliveries (
+    id               BIGSERIAL    PRIMARY KEY,
+    message_id       VARCHAR(64)  NOT NULL,
+    channel          VARCHAR(120) NOT NULL,
+    event_name       VARCHAR(120),
+    subscription_id  VARCHAR(255) NOT NULL,
+    webhook_url      VARCHAR(500) NOT NULL,         -- URL de la suscripción al momento del fallo
+    correlation_id   VARCHAR(64),
+    envelope         JSONB        NOT NULL,
+    attempts         INT          NOT NULL,
+    reason           VARCHAR(32)  NOT NULL,         -- EXHAUSTED / NOT_SCHEDULED / DISABLED / SUBSCRIPTION_<status>
+    last_error       TEXT,
+    status           VARCHAR(16)  NOT NULL,         -- PARKED / REDRIVEN / DISCARDED
+    first_failed_at  TIMESTAMPTZ  NOT NULL,
+    parked_at        TIMESTAMPTZ  NOT NULL,
+    redriven_at      TIMESTAMPTZ,
+    redrive_job_id   VARCHAR(36),                   -- último job de redrive que la procesó
+    CONSTRAINT uq_parked_deliveries_message_subscription UNIQUE (message_id, subscription_id)
+);
+
+-- Cursor keyset del redrive (canal + (parked_at, id)) y consultas por suscripción, sólo sobre lo pendiente
+CREATE INDEX IF NOT EXISTS ix_parked_deliveries_channel ON parked_deliveries (channel, parked_at, id) WHERE status = 'PARKED';
+CREATE INDEX IF NOT EXISTS ix_parked_deliveries_subscription ON parked_deliveries (subscription_id) WHERE status = 'PARKED';
+
+-- Los jobs de replay también re-envían entregas del parking lot (redrive)
+ALTER TABLE replay_jobs ADD COLUMN IF NOT EXISTS source VARCHAR(16) NOT NULL DEFAULT 'MESSAGE_LOG';  -- MESSAGE_LOG / PARKING_LOT
+ALTER TABLE replay_jobs ADD COLUMN IF NOT EXISTS target_url VARCHAR(500);                           -- redrive a una URL nueva
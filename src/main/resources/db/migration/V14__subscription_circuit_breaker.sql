@@ -0,0 +1,6 @@
+-- Circuit breaker por suscripción (ver SubscriptionCircuitBreaker).
+-- SUSPENDED con circuit_open_until: suspendida por el breaker; desde esa hora un nodo prueba el webhook
+-- y si responde la suscripción vuelve a ACTIVE. SUSPENDED sin circuit_open_until: suspensión manual.
+ALTER TABLE subscriptions ADD COLUMN IF NOT EXISTS circuit_open_until TIMESTAMP WITH TIME ZONE;
+
+COMMENT ON COLUMN subscriptions.circuit_open_until IS 'Circuito abierto hasta (próxima prueba del webhook); NULL si no lo suspendió el breaker';
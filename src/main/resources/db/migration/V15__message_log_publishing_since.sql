@@ -0,0 +1,5 @@
+-- Desde cuándo una fila del outbox espera el confirm del broker (status PUBLISHING).
+-- Si el nodo que la envió cae antes del ack, PublishingRecovery la devuelve a PENDING.
+ALTER TABLE message_log ADD COLUMN IF NOT EXISTS publishing_since TIMESTAMPTZ;
+
+CREATE INDEX IF NOT EXISTS ix_message_log_publishing ON message_log (created_at) WHERE status = 'PUBLISHING';
@@ -0,0 +1,7 @@
+-- Modo outbox: el envelope debe poder reconstruirse desde la base para que el relay lo publique
+ALTER TABLE message_log ADD COLUMN IF NOT EXISTS source     VARCHAR(120);   -- sistema productor
+ALTER TABLE message_log ADD COLUMN IF NOT EXISTS event_name VARCHAR(120);   -- destination.eventName
+ALTER TABLE message_log ADD COLUMN IF NOT EXISTS metadata   JSONB;          -- metadata del envelope
+
+-- Índice parcial: el relay sólo recorre las filas PENDING (en orden de llegada)
+CREATE INDEX IF NOT EXISTS ix_message_log_pending ON message_log (id) WHERE status = 'PENDING';
@@ -0,0 +1,3 @@
+-- Un payload por mensaje: permite INSERT ... ON CONFLICT (message_id) DO NOTHING en payload_store
+CREATE UNIQUE INDEX IF NOT EXISTS ux_payload_store_message_id ON payload_store (message_id);
+DROP INDEX IF EXISTS ix_payload_store_message_id;
@@ -0,0 +1,10 @@
+-- Variante comprimida del payload para canales con compression en channels.yaml
+ALTER TABLE payload_store ADD COLUMN IF NOT EXISTS payload_compressed BYTEA;
+ALTER TABLE payload_store ADD COLUMN IF NOT EXISTS compression        VARCHAR(16);   -- gzip / zstd
+ALTER TABLE payload_store ALTER COLUMN payload DROP NOT NULL;
+ALTER TABLE payload_store ADD CONSTRAINT chk_payload_store_payload
+    CHECK (payload IS NOT NULL OR (payload_compressed IS NOT NULL AND compression IS NOT NULL));
+
+-- Suscriptores que aceptan webhooks con Content-Encoding: gzip
+ALTER TABLE subscriptions ADD COLUMN IF NOT EXISTS accept_gzip BOOLEAN NOT NULL DEFAULT FALSE;
+COMMENT ON COLUMN subscriptions.accept_gzip IS 'El webhook acepta bodies con Content-Encoding: gzip';
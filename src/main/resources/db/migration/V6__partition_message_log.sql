@@ -0,0 +1,100 @@
+-- Particionado por rango de created_at para message_log y payload_store.
+-- En una tabla particionada los índices únicos deben incluir la clave de partición, así que la
+-- unicidad global de message_id pasa a message_dedupe (ver MessageBatchWriter).
+
+-- 1) Deduplicación global de message_id (se poda según corehub.partitioning.dedupe-window)
+CREATE TABLE IF NOT EXISTS message_dedupe (
+    message_id  VARCHAR(64)  PRIMARY KEY,
+    created_at  TIMESTAMPTZ  NOT NULL
+);
+CREATE INDEX IF NOT EXISTS ix_message_dedupe_created_at ON message_dedupe (created_at);
+
+INSERT INTO message_dedupe (message_id, created_at)
+SELECT message_id, created_at FROM message_log
+ON CONFLICT (message_id) DO NOTHING;
+
+-- 2) Las tablas actuales quedan como legacy hasta copiar los datos
+ALTER TABLE payload_store DROP CONSTRAINT IF EXISTS payload_store_message_id_fkey;
+ALTER TABLE payload_store DROP CONSTRAINT IF EXISTS chk_payload_store_payload;
+ALTER SEQUENCE message_log_id_seq OWNED BY NONE;
+ALTER SEQUENCE payload_store_id_seq OWNED BY NONE;
+ALTER TABLE message_log RENAME TO message_log_legacy;
+ALTER TABLE payload_store RENAME TO payload_store_legacy;
+
+-- 3) Tablas particionadas (la PK incluye created_at)
+CREATE TABLE message_log (
+    id               BIGINT       NOT NULL DEFAULT nextval('message_log_id_seq'),
+    message_id       VARCHAR(64)  NOT NULL,
+    channel          VARCHAR(120) NOT NULL,
+    routing_key      VARCHAR(120) NOT NULL,
+    status           VARCHAR(24)  NOT NULL,
+    attempts         INT          NOT NULL DEFAULT 0,
+    error_code       VARCHAR(64),
+    error_message    TEXT,
+    correlation_id   VARCHAR(64),
+    produced_at      TIMESTAMPTZ  NOT NULL,
+    published_at     TIMESTAMPTZ,
+    created_at       TIMESTAMPTZ  NOT NULL DEFAULT NOW(),
+    source           VARCHAR(120),
+    event_name       VARCHAR(120),
+    metadata         JSONB,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE payload_store (
+    id                  BIGINT       NOT NULL DEFAULT nextval('payload_store_id_seq'),
+    message_id          VARCHAR(64)  NOT NULL,
+    payload             JSONB,
+    schema_ver          VARCHAR(32),
+    created_at          TIMESTAMPTZ  NOT NULL DEFAULT NOW(),
+    payload_compressed  BYTEA,
+    compression         VARCHAR(16),
+    PRIMARY KEY (id, created_at),
+    CONSTRAINT chk_payload_store_payload
+        CHECK (payload IS NOT NULL OR (payload_compressed IS NOT NULL AND compression IS NOT NULL))
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE message_log_id_seq OWNED BY message_log.id;
+ALTER SEQUENCE payload_store_id_seq OWNED BY payload_store.id;
+
+-- 4) Una partición con los datos existentes + particiones diarias iniciales (en UTC).
+--    PartitionMaintenance crea las siguientes por adelantado y borra las vencidas.
+DO $$
+DECLARE
+    today TIMESTAMPTZ := date_trunc('day', now() AT TIME ZONE 'UTC') AT TIME ZONE 'UTC';
+    t     TEXT;
+    d     INT;
+BEGIN
+    FOREACH t IN ARRAY ARRAY['message_log', 'payload_store'] LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (MINVALUE) TO (%L)',
+                       t || '_p_legacy', t, today);
+        FOR d IN 0..7 LOOP
+            EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                           t || '_p' || to_char((today + d * INTERVAL '24 hours') AT TIME ZONE 'UTC', 'YYYYMMDD'), t,
+                           today + d * INTERVAL '24 hours', today + (d + 1) * INTERVAL '24 hours');
+        END LOOP;
+    END LOOP;
+END $$;
+
+-- 5) Copia de los datos existentes y baja de las tablas legacy
+INSERT INTO message_log (id, message_id, channel, routing_key, status, attempts, error_code, error_message,
+                         correlation_id, produced_at, published_at, created_at, source, event_name, metadata)
+SELECT id, message_id, channel, routing_key, status, attempts, error_code, error_message,
+       correlation_id, produced_at, published_at, created_at, source, event_name, metadata
+FROM message_log_legacy;
+
+INSERT INTO payload_store (id, message_id, payload, schema_ver, created_at, payload_compressed, compression)
+SELECT id, message_id, payload, schema_ver, created_at, payload_compressed, compression
+FROM payload_store_legacy;
+
+DROP TABLE payload_store_legacy;
+DROP TABLE message_log_legacy;
+
+-- 6) Índices particionados (message_id no es único por tabla: lo garantiza message_dedupe)
+CREATE INDEX ix_message_log_message_id  ON message_log (message_id);
+CREATE INDEX ix_message_log_channel     ON message_log (channel);
+CREATE INDEX ix_message_log_status      ON message_log (status);
+CREATE INDEX ix_message_log_created_at  ON message_log (created_at DESC);
+CREATE INDEX ix_message_log_pending     ON message_log (id) WHERE status = 'PENDING';
+CREATE INDEX ix_payload_store_message_id ON payload_store (message_id);
+CREATE INDEX ix_payload_store_created_at ON payload_store (created_at DESC);
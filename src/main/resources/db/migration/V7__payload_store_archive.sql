@@ -0,0 +1,11 @@
+-- Payloads archivados: la fila queda como puntero al segmento en disco (ver PayloadArchive)
+ALTER TABLE payload_store ADD COLUMN IF NOT EXISTS archive_segment VARCHAR(255);   -- {canal}/{yyyyMMdd}/{segmento}
+
+ALTER TABLE payload_store DROP CONSTRAINT IF EXISTS chk_payload_store_payload;
+ALTER TABLE payload_store ADD CONSTRAINT chk_payload_store_payload
+    CHECK (payload IS NOT NULL
+        OR (payload_compressed IS NOT NULL AND compression IS NOT NULL)
+        OR archive_segment IS NOT NULL);
+
+-- El archivador recorre sólo las filas que todavía tienen el payload en la base
+CREATE INDEX IF NOT EXISTS ix_payload_store_unarchived ON payload_store (created_at) WHERE archive_segment IS NULL;
@@ -0,0 +1,5 @@
+-- Group commit: cada sesión reserva ids de a 100, así un INSERT multi-fila no pide nextval uno por uno
+-- a la secuencia compartida. Los ids siguen siendo únicos pero pueden quedar huecos y no respetan
+-- el orden de inserción entre conexiones (el orden lo da created_at).
+ALTER SEQUENCE message_log_id_seq CACHE 100;
+ALTER SEQUENCE payload_store_id_seq CACHE 100;
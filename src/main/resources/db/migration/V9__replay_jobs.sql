@@ -0,0 +1,27 @@
+-- Jobs de replay: re-publican mensajes almacenados al broker o a un webhook puntual (ver ReplayWorker)
+CREATE TABLE IF NOT EXISTS replay_jobs (
+    id                VARCHAR(36)  PRIMARY KEY,
+    channel           VARCHAR(120) NOT NULL,
+    from_ts           TIMESTAMPTZ  NOT NULL,
+    to_ts             TIMESTAMPTZ  NOT NULL,
+    message_ids       JSONB,                         -- opcional: sólo estos messageIds dentro del rango
+    subscription_id   VARCHAR(255),                  -- null: se re-publica al broker
+    rate_per_second   INT          NOT NULL,
+    status            VARCHAR(16)  NOT NULL,         -- RUNNING/PAUSED/CANCELLED/COMPLETED/FAILED
+    cursor_created_at TIMESTAMPTZ,                   -- último (created_at, id) procesado
+    cursor_id         BIGINT,
+    total             BIGINT,
+    replayed          BIGINT       NOT NULL DEFAULT 0,
+    failed            BIGINT       NOT NULL DEFAULT 0,
+    error_message     TEXT,
+    lease_owner       VARCHAR(100),
+    lease_until       TIMESTAMPTZ,
+    created_at        TIMESTAMPTZ  NOT NULL,
+    updated_at        TIMESTAMPTZ  NOT NULL,
+    finished_at       TIMESTAMPTZ
+);
+
+CREATE INDEX IF NOT EXISTS ix_replay_jobs_status ON replay_jobs (status);
+
+-- Cursor keyset del replay: canal + (created_at, id) sin OFFSET
+CREATE INDEX IF NOT EXISTS ix_message_log_channel_created ON message_log (channel, created_at, id);
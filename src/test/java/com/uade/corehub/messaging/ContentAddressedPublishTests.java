@@ -0,0 +1,85 @@
+package com.uade.corehub.messaging;
+
+import com.uade.corehub.messaging.dto.MessageEnvelope;
+import com.uade.corehub.messaging.dto.RawPayload;
+import com.uade.corehub.messaging.store.PayloadStoreRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.RabbitMQContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Publicación en un canal contentAddressed (inventory.stock.low) contra Postgres y RabbitMQ reales
+ */
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class ContentAddressedPublishTests {
+
+	@Container
+	static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	@Container
+	static final RabbitMQContainer RABBIT = new RabbitMQContainer("rabbitmq:3.13-alpine");
+
+	@DynamicPropertySource
+	static void connections(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+		registry.add("spring.datasource.username", POSTGRES::getUsername);
+		registry.add("spring.datasource.password", POSTGRES::getPassword);
+		registry.add("spring.rabbitmq.host", RABBIT::getHost);
+		registry.add("spring.rabbitmq.port", RABBIT::getAmqpPort);
+		registry.add("spring.rabbitmq.username", RABBIT::getAdminUsername);
+		registry.add("spring.rabbitmq.password", RABBIT::getAdminPassword);
+	}
+
+	@Autowired
+	PublishService publishService;
+
+	@Autowired
+	PayloadStoreRepository payloadStoreRepository;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Test
+	void identicalPayloadsAreStoredOnceAndReadBack() {
+		String first = "m-" + UUID.randomUUID();
+		String second = "m-" + UUID.randomUUID();
+		String sku = UUID.randomUUID().toString();
+
+		publishService.publish(envelope(first, "{\"sku\":\"" + sku + "\",\"qty\":3}"), null);
+		publishService.publish(envelope(second, "{ \"qty\": 3, \"sku\": \"" + sku + "\" }"), null);
+
+		assertThat(jdbcTemplate.queryForObject(
+				"SELECT count(*) FROM payload_store WHERE message_id IN (?, ?) AND payload_hash IS NOT NULL AND payload IS NULL",
+				Integer.class, first, second)).isEqualTo(2);
+		assertThat(jdbcTemplate.queryForObject(
+				"SELECT count(DISTINCT payload_hash) FROM payload_store WHERE message_id IN (?, ?)",
+				Integer.class, first, second)).isEqualTo(1);
+		assertThat(jdbcTemplate.queryForObject(
+				"SELECT b.ref_count FROM payload_blobs b JOIN payload_store p ON p.payload_hash = b.hash WHERE p.message_id = ?",
+				Long.class, first)).isEqualTo(2);
+		assertThat(jdbcTemplate.queryForObject(
+				"SELECT count(*) FROM message_log WHERE message_id IN (?, ?)", Integer.class, first, second)).isEqualTo(2);
+
+		assertThat(payloadStoreRepository.findByMessageId(second))
+				.hasValueSatisfying(p -> assertThat(p.getPayload().json()).contains(sku));
+	}
+
+	private static MessageEnvelope envelope(String messageId, String payload) {
+		return new MessageEnvelope(messageId, OffsetDateTime.now(), "inventory-service",
+				new MessageEnvelope.Destination("inventory.stock.low", "stock.low"), Map.of(), RawPayload.of(payload));
+	}
+}
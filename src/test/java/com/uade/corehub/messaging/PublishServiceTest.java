@@ -0,0 +1,136 @@
+package com.uade.corehub.messaging;
+
+import com.uade.corehub.channels.ChannelRegistry;
+import com.uade.corehub.channels.ChannelRegistryProperties;
+import com.uade.corehub.config.PublishProperties;
+import com.uade.corehub.messaging.broker.OutboundMessage;
+import com.uade.corehub.messaging.broker.PublisherConfirmTracker;
+import com.uade.corehub.messaging.broker.RabbitPublisher;
+import com.uade.corehub.messaging.compression.PayloadCompressor;
+import com.uade.corehub.messaging.dto.BatchPublishResult;
+import com.uade.corehub.messaging.dto.MessageEnvelope;
+import com.uade.corehub.messaging.dto.RawPayload;
+import com.uade.corehub.messaging.idempotency.IdempotencyFilter;
+import com.uade.corehub.messaging.infrastructure.RabbitMQInfrastructureValidator;
+import com.uade.corehub.messaging.schema.PayloadSchemaValidator;
+import com.uade.corehub.messaging.store.GroupCommitWriter;
+import com.uade.corehub.messaging.store.MessageBatchWriter;
+import com.uade.corehub.messaging.store.MessageLog;
+import com.uade.corehub.messaging.store.MessageLogRepository;
+import com.uade.corehub.messaging.store.PayloadCanonicalizer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PublishServiceTest {
+
+	private final ChannelRegistry channelRegistry = mock(ChannelRegistry.class);
+	private final RabbitPublisher rabbitPublisher = mock(RabbitPublisher.class);
+	private final RabbitMQInfrastructureValidator infrastructureValidator = mock(RabbitMQInfrastructureValidator.class);
+	private final MessageBatchWriter batchWriter = mock(MessageBatchWriter.class);
+	private final GroupCommitWriter groupCommitWriter = mock(GroupCommitWriter.class);
+	private final IdempotencyFilter idempotencyFilter = mock(IdempotencyFilter.class);
+	private final EnvelopeValidator envelopeValidator = mock(EnvelopeValidator.class);
+	private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+	private final ChannelRegistryProperties.Channel channel = new ChannelRegistryProperties.Channel();
+	private PublishService publishService;
+
+	@BeforeEach
+	void setUp() {
+		channel.setName("orders.created");
+		channel.setExchange("corehub.x.orders");
+		channel.setRoutingKey("orders.created");
+		when(channelRegistry.find("orders.created")).thenReturn(Optional.of(channel));
+		when(infrastructureValidator.validateInfrastructureForChannel("orders.created")).thenReturn(true);
+		when(idempotencyFilter.check(anyString())).thenReturn(IdempotencyFilter.Verdict.NEW);
+		when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+		when(rabbitPublisher.publishDeferred(anyString(), anyString(), anyString(), any()))
+				.thenReturn(CompletableFuture.completedFuture(PublisherConfirmTracker.Confirmation.ACKED));
+		when(groupCommitWriter.submitReserved(any(), any())).thenReturn(CompletableFuture.completedFuture(true));
+		publishService = new PublishService(channelRegistry, rabbitPublisher, infrastructureValidator,
+				mock(MessageLogRepository.class), batchWriter, groupCommitWriter, new PublishProperties(), idempotencyFilter,
+				new TransactionTemplate(transactionManager), envelopeValidator, new PayloadCompressor(new SimpleMeterRegistry()),
+				mock(PayloadSchemaValidator.class), mock(PayloadCanonicalizer.class));
+	}
+
+	@Test
+	void directModeReservesTheIdBeforeSending() {
+		when(batchWriter.reserveIds(eq(List.of("m-1")), any())).thenReturn(Set.of("m-1"));
+
+		publishService.publish(envelope("m-1"), channel, "corr-1");
+
+		InOrder order = inOrder(batchWriter, rabbitPublisher, groupCommitWriter);
+		order.verify(batchWriter).reserveIds(eq(List.of("m-1")), any());
+		order.verify(rabbitPublisher).publishDeferred(eq("m-1"), eq("corehub.x.orders"), eq("orders.created"), any());
+		ArgumentCaptor<MessageLog> row = ArgumentCaptor.forClass(MessageLog.class);
+		order.verify(groupCommitWriter).submitReserved(row.capture(), any());
+		assertThat(row.getValue().getStatus()).isEqualTo("PUBLISHED");
+		verify(groupCommitWriter, never()).submit(any(), any());
+		verify(batchWriter, never()).findKnownIds(any());
+		verify(rabbitPublisher).settleDeferred("m-1");
+		verify(idempotencyFilter).record("m-1");
+	}
+
+	@Test
+	void idReservedByAnotherRequestIsNotSent() {
+		when(batchWriter.reserveIds(any(), any())).thenReturn(Set.of());
+
+		publishService.publish(envelope("m-1"), channel, "corr-1");
+
+		verify(rabbitPublisher, never()).publishDeferred(anyString(), anyString(), anyString(), any());
+		verify(groupCommitWriter, never()).submitReserved(any(), any());
+		verify(idempotencyFilter).recordLookup("m-1", true);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void batchInDirectModeOnlySendsReservedIds() {
+		when(batchWriter.reserveIds(any(), any())).thenReturn(Set.of("m-1"));
+		doAnswer(inv -> {
+			List<OutboundMessage> messages = inv.getArgument(0);
+			Map<String, CompletableFuture<PublisherConfirmTracker.Confirmation>> confirmations = inv.getArgument(1);
+			messages.forEach(m -> confirmations.put(m.messageId(), CompletableFuture.completedFuture(PublisherConfirmTracker.Confirmation.ACKED)));
+			return Map.of();
+		}).when(rabbitPublisher).publishAllDeferred(anyList(), anyMap());
+		when(batchWriter.insertReservedMessageLogs(anyList())).thenReturn(Set.of("m-1"));
+
+		List<BatchPublishResult> results = publishService.publishBatch(List.of(envelope("m-1"), envelope("m-2")), "corr-1");
+
+		assertThat(results).extracting(BatchPublishResult::status).containsExactly("PUBLISHED", "DUPLICATE");
+		ArgumentCaptor<List<OutboundMessage>> sent = ArgumentCaptor.forClass(List.class);
+		verify(rabbitPublisher).publishAllDeferred(sent.capture(), anyMap());
+		assertThat(sent.getValue()).extracting(OutboundMessage::messageId).containsExactly("m-1");
+		verify(batchWriter, never()).insertMessageLogsIfAbsent(any());
+		verify(batchWriter, never()).findKnownIds(any());
+	}
+
+	private static MessageEnvelope envelope(String messageId) {
+		return new MessageEnvelope(messageId, OffsetDateTime.now(), "orders-service",
+				new MessageEnvelope.Destination("orders.created", "order.created"), Map.of(), RawPayload.of("{\"id\":1}"));
+	}
+}
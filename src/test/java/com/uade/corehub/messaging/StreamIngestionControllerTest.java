@@ -0,0 +1,128 @@
+package com.uade.corehub.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uade.corehub.config.PublishProperties;
+import com.uade.corehub.messaging.dto.BatchPublishResult;
+import com.uade.corehub.messaging.dto.MessageEnvelope;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StreamIngestionControllerTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+	private final PublishService service = mock(PublishService.class);
+	private final PublishProperties publishProperties = new PublishProperties();
+	private final StreamIngestionController controller = new StreamIngestionController(service, objectMapper, publishProperties);
+	private final List<List<String>> chunks = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		publishProperties.getStream().setChunkSize(2);
+		when(service.publishBatch(anyList(), any())).thenAnswer(inv -> {
+			List<MessageEnvelope> chunk = inv.getArgument(0);
+			chunks.add(chunk.stream().map(MessageEnvelope::messageId).toList());
+			return chunk.stream().map(env -> BatchPublishResult.published(env.messageId())).toList();
+		});
+	}
+
+	@Test
+	void publishesInChunksAndAnswersOneLinePerEnvelopeInOrder() throws Exception {
+		List<BatchPublishResult> results = stream(line("m-1"), line("m-2"), line("m-3"), line("m-4"), line("m-5"));
+
+		assertThat(chunks).containsExactly(List.of("m-1", "m-2"), List.of("m-3", "m-4"), List.of("m-5"));
+		assertThat(results).containsExactly(
+				BatchPublishResult.published("m-1"), BatchPublishResult.published("m-2"),
+				BatchPublishResult.published("m-3"), BatchPublishResult.published("m-4"),
+				BatchPublishResult.published("m-5"));
+	}
+
+	@Test
+	void bindingErrorIsReportedInPlaceAndTheStreamContinues() throws Exception {
+		String badTimestamp = line("m-2").replace("2026-10-17T10:00:00Z", "yesterday");
+
+		List<BatchPublishResult> results = stream(line("m-1"), badTimestamp, line("m-3"));
+
+		assertThat(chunks).containsExactly(List.of("m-1"), List.of("m-3"));
+		assertThat(results).extracting(BatchPublishResult::status).containsExactly("PUBLISHED", "INVALID", "PUBLISHED");
+		assertThat(results.get(1).messageId()).isNull();
+		assertThat(results.get(1).error()).isNotBlank();
+	}
+
+	@Test
+	void syntaxErrorStopsTheStreamAfterReportingIt() throws Exception {
+		List<BatchPublishResult> results = stream(line("m-1"), "{\"messageId\": \"m-2\", ", line("m-3"));
+
+		assertThat(chunks).containsExactly(List.of("m-1"));
+		assertThat(results).extracting(BatchPublishResult::status).containsExactly("PUBLISHED", "INVALID");
+	}
+
+	@Test
+	void failedChunkIsReportedPerLineWithoutAbortingTheStream() throws Exception {
+		when(service.publishBatch(anyList(), any()))
+				.thenThrow(new IllegalStateException("database down"))
+				.thenAnswer(inv -> {
+					List<MessageEnvelope> chunk = inv.getArgument(0);
+					return chunk.stream().map(env -> BatchPublishResult.published(env.messageId())).toList();
+				});
+
+		List<BatchPublishResult> results = stream(line("m-1"), line("m-2"), line("m-3"));
+
+		assertThat(results).containsExactly(
+				BatchPublishResult.failed("m-1", "database down"),
+				BatchPublishResult.failed("m-2", "database down"),
+				BatchPublishResult.published("m-3"));
+	}
+
+	@Test
+	void passesTheCorrelationIdToEveryChunk() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		controller.publishStream(request(line("m-1"), line("m-2"), line("m-3")), response, "corr-1");
+
+		verify(service, times(2)).publishBatch(anyList(), eq("corr-1"));
+		assertThat(response.getContentType()).startsWith(MediaType.APPLICATION_NDJSON_VALUE);
+	}
+
+	private List<BatchPublishResult> stream(String... lines) throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		controller.publishStream(request(lines), response, null);
+		assertThat(response.getStatus()).isEqualTo(200);
+		List<BatchPublishResult> results = new ArrayList<>();
+		for (String l : response.getContentAsString(StandardCharsets.UTF_8).split("\n")) {
+			if (!l.isBlank()) {
+				results.add(objectMapper.readValue(l, BatchPublishResult.class));
+			}
+		}
+		return results;
+	}
+
+	private static MockHttpServletRequest request(String... lines) {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/publish/stream");
+		request.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+		request.setContent(String.join("\n", Arrays.asList(lines)).getBytes(StandardCharsets.UTF_8));
+		return request;
+	}
+
+	private static String line(String messageId) {
+		return """
+				{"messageId": "%s", "timestamp": "2026-10-17T10:00:00Z", "source": "orders-service", \
+				"destination": {"channel": "orders.created", "eventName": "created"}, "payload": {"id": 1}}"""
+				.formatted(messageId);
+	}
+}
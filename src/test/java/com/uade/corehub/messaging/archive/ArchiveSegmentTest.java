@@ -0,0 +1,67 @@
+package com.uade.corehub.messaging.archive;
+
+import com.uade.corehub.messaging.compression.PayloadCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArchiveSegmentTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void findsEveryWrittenPayload() throws Exception {
+		List<ArchiveSegment.ArchivedPayload> entries = new ArrayList<>();
+		for (int i = 0; i < 1_000; i++) {
+			// El segmento guarda los bytes tal cual: el codec sólo se registra para descomprimir al leer
+			byte[] data = ("{\"n\":" + i + "}").repeat(i % 7 + 1).getBytes(StandardCharsets.UTF_8);
+			entries.add(new ArchiveSegment.ArchivedPayload("msg-" + i, i % 2 == 0 ? PayloadCodec.NONE : PayloadCodec.ZSTD, data));
+		}
+		Path base = dir.resolve("orders/20250101/000001");
+		ArchiveSegment.write(base, entries);
+
+		ArchiveSegment segment = ArchiveSegment.open(base);
+		for (ArchiveSegment.ArchivedPayload expected : entries) {
+			ArchiveSegment.ArchivedPayload found = segment.find(expected.messageId());
+			assertThat(found).isNotNull();
+			assertThat(found.messageId()).isEqualTo(expected.messageId());
+			assertThat(found.codec()).isEqualTo(expected.codec());
+			assertThat(found.data()).isEqualTo(expected.data());
+		}
+	}
+
+	@Test
+	void missingIdIsNotFound() throws Exception {
+		Path base = dir.resolve("seg");
+		ArchiveSegment.write(base, List.of(new ArchiveSegment.ArchivedPayload("a", PayloadCodec.NONE, new byte[]{'1'})));
+
+		assertThat(ArchiveSegment.open(base).find("b")).isNull();
+	}
+
+	@Test
+	void emptySegmentFindsNothing() throws Exception {
+		Path base = dir.resolve("empty");
+		ArchiveSegment.write(base, List.of());
+
+		assertThat(ArchiveSegment.open(base).find("a")).isNull();
+	}
+
+	@Test
+	void leavesNoTemporaryFiles() throws Exception {
+		Path base = dir.resolve("seg");
+		ArchiveSegment.write(base, List.of(new ArchiveSegment.ArchivedPayload("ñandú-1", PayloadCodec.GZIP, new byte[]{1, 2, 3})));
+
+		try (var files = Files.list(dir)) {
+			assertThat(files.map(p -> p.getFileName().toString())).containsExactlyInAnyOrder("seg.seg", "seg.idx");
+		}
+		assertThat(ArchiveSegment.open(base).find("ñandú-1").codec()).isEqualTo(PayloadCodec.GZIP);
+	}
+}
@@ -0,0 +1,82 @@
+package com.uade.corehub.messaging.archive;
+
+import com.uade.corehub.config.ArchiveProperties;
+import com.uade.corehub.messaging.compression.PayloadCodec;
+import com.uade.corehub.messaging.compression.PayloadCompressor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PayloadArchiveTest {
+
+	private static final OffsetDateTime DAY_1 = OffsetDateTime.parse("2026-09-01T10:00:00Z");
+	private static final OffsetDateTime DAY_2 = OffsetDateTime.parse("2026-09-02T10:00:00Z");
+
+	@TempDir
+	Path dir;
+
+	private PayloadArchive archive;
+
+	@BeforeEach
+	void setUp() {
+		ArchiveProperties props = new ArchiveProperties();
+		props.setDirectory(dir.toString());
+		archive = new PayloadArchive(props, new PayloadCompressor(new SimpleMeterRegistry()));
+	}
+
+	@Test
+	void deletesOnlyDaysThatEndBeforeTheBound() {
+		String old = write("orders.created", DAY_1, "m-1");
+		String current = write("orders.created", DAY_2, "m-2");
+		// El segmento viejo queda en el cache de índices abiertos
+		assertThat(archive.read(old, "m-1").json()).isEqualTo("{\"id\":\"m-1\"}");
+
+		int deleted = archive.deleteSegmentsBefore(OffsetDateTime.parse("2026-09-02T12:00:00Z"), Map.of());
+
+		assertThat(deleted).isEqualTo(1);
+		assertThat(dir.resolve("orders.created/20260901")).doesNotExist();
+		assertThat(archive.read(current, "m-2").json()).isEqualTo("{\"id\":\"m-2\"}");
+		assertThatThrownBy(() -> archive.read(old, "m-1")).isInstanceOf(UncheckedIOException.class);
+	}
+
+	@Test
+	void channelBoundAppliesOnlyToItsChannel() {
+		write("audit/events", DAY_1, "a-1");
+		write("orders.created", DAY_1, "m-1");
+
+		int deleted = archive.deleteSegmentsBefore(null, Map.of("audit/events", DAY_2));
+
+		assertThat(deleted).isEqualTo(1);
+		assertThat(dir.resolve("audit_events/20260901")).doesNotExist();
+		assertThat(dir.resolve("orders.created/20260901")).isDirectory();
+	}
+
+	@Test
+	void ignoresMissingDirectoryAndForeignEntries() throws Exception {
+		assertThat(archive.deleteSegmentsBefore(DAY_2, Map.of())).isZero();
+
+		Files.createDirectories(dir.resolve("orders.created/not-a-day"));
+		Files.writeString(dir.resolve("README"), "x", StandardCharsets.UTF_8);
+
+		assertThat(archive.deleteSegmentsBefore(DAY_2.plusDays(10), Map.of())).isZero();
+		assertThat(dir.resolve("orders.created/not-a-day")).isDirectory();
+	}
+
+	private String write(String channel, OffsetDateTime createdAt, String messageId) {
+		byte[] json = ("{\"id\":\"" + messageId + "\"}").getBytes(StandardCharsets.UTF_8);
+		return archive.writeSegment(channel, createdAt,
+				List.of(new ArchiveSegment.ArchivedPayload(messageId, PayloadCodec.NONE, json)));
+	}
+}
@@ -0,0 +1,121 @@
+package com.uade.corehub.messaging.async;
+
+import com.uade.corehub.channels.ChannelRegistryProperties;
+import com.uade.corehub.config.PublishProperties;
+import com.uade.corehub.messaging.PublishService;
+import com.uade.corehub.messaging.dto.MessageEnvelope;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class AsyncPublishQueueTest {
+
+    private final PublishService publishService = mock(PublishService.class);
+    private final ChannelRegistryProperties.Channel channel = new ChannelRegistryProperties.Channel();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private AsyncPublishQueue queue;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (queue != null) {
+            queue.stop();
+        }
+    }
+
+    @Test
+    void duplicateIdStaysQueuedUntilEveryCopyIsProcessed() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        doAnswer(inv -> {
+            started.countDown();
+            release.await();
+            return null;
+        }).when(publishService).publish(any(), any(), any());
+        queue = newQueue(1, Duration.ofSeconds(5));
+        queue.start();
+
+        assertThat(queue.offer(envelope("m-1"), channel, null)).isTrue();
+        assertThat(queue.offer(envelope("m-1"), channel, null)).isTrue();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(queue.isQueued("m-1")).isTrue();
+
+        release.countDown();
+        queue.stop();
+        assertThat(queue.isQueued("m-1")).isFalse();
+        verify(publishService, times(2)).publish(any(), eq(channel), any());
+    }
+
+    @Test
+    void stopDrainsAcceptedEnvelopesWithoutInterruptingWorkers() throws Exception {
+        AtomicBoolean interrupted = new AtomicBoolean();
+        doAnswer(inv -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+            return null;
+        }).when(publishService).publish(any(), any(), any());
+        queue = newQueue(2, Duration.ofSeconds(10));
+        queue.start();
+        for (int i = 0; i < 10; i++) {
+            assertThat(queue.offer(envelope("m-" + i), channel, null)).isTrue();
+        }
+
+        queue.stop();
+
+        assertThat(interrupted).isFalse();
+        verify(publishService, times(10)).publish(any(), eq(channel), any());
+        assertThat(queue.offer(envelope("late"), channel, null)).isFalse();
+    }
+
+    @Test
+    void stopInterruptsWorkersStillBusyAfterTheTimeout() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        doAnswer(inv -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+            return null;
+        }).when(publishService).publish(any(), any(), any());
+        queue = newQueue(1, Duration.ofMillis(200));
+        queue.start();
+        queue.offer(envelope("m-1"), channel, null);
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        queue.stop();
+
+        Thread.sleep(100);
+        assertThat(interrupted).isTrue();
+    }
+
+    private AsyncPublishQueue newQueue(int workers, Duration shutdownTimeout) {
+        PublishProperties props = new PublishProperties();
+        props.getAsync().setEnabled(true);
+        props.getAsync().setBufferSize(100);
+        props.getAsync().setWorkers(workers);
+        props.getAsync().setShutdownTimeout(shutdownTimeout);
+        return new AsyncPublishQueue(publishService, props, new SimpleMeterRegistry());
+    }
+
+    private static MessageEnvelope envelope(String messageId) {
+        return new MessageEnvelope(messageId, null, null, null, null, null);
+    }
+}
@@ -0,0 +1,70 @@
+package com.uade.corehub.messaging.broker;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.uade.corehub.channels.ChannelRegistry;
+import com.uade.corehub.channels.ChannelRegistryProperties;
+import com.uade.corehub.config.PublishProperties;
+import com.uade.corehub.messaging.compression.PayloadCompressor;
+import com.uade.corehub.messaging.dto.MessageEnvelope;
+import com.uade.corehub.messaging.dto.RawPayload;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CompressingMessageConverterTest {
+
+	private static final String LARGE = "{\"data\":\"" + "x".repeat(2_000) + "\"}";
+
+	private final ChannelRegistry channelRegistry = mock(ChannelRegistry.class);
+	private final PublishProperties publishProperties = new PublishProperties();
+	private CompressingMessageConverter converter;
+
+	@BeforeEach
+	void setUp() {
+		ChannelRegistryProperties.Channel channel = new ChannelRegistryProperties.Channel();
+		channel.setName("media.uploaded");
+		channel.setClaimCheckThreshold(1_024);
+		when(channelRegistry.find("media.uploaded")).thenReturn(Optional.of(channel));
+		ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+		converter = new CompressingMessageConverter(new Jackson2JsonMessageConverter(mapper), channelRegistry,
+				new PayloadCompressor(new SimpleMeterRegistry()), publishProperties);
+	}
+
+	@Test
+	void outboxModeSendsLargePayloadsAsAReference() {
+		publishProperties.setMode(PublishProperties.Mode.OUTBOX);
+
+		Message message = converter.toMessage(envelope(LARGE), new MessageProperties());
+
+		assertThat((String) message.getMessageProperties().getHeader(ClaimCheck.HEADER)).isEqualTo("m-1");
+		assertThat(new String(message.getBody(), StandardCharsets.UTF_8)).doesNotContain("xxxx");
+	}
+
+	@Test
+	void directModeSendsThePayloadInlineBecauseItsRowIsNotWrittenYet() {
+		publishProperties.setMode(PublishProperties.Mode.DIRECT);
+
+		Message message = converter.toMessage(envelope(LARGE), new MessageProperties());
+
+		assertThat((String) message.getMessageProperties().getHeader(ClaimCheck.HEADER)).isNull();
+		assertThat(new String(message.getBody(), StandardCharsets.UTF_8)).contains("x".repeat(2_000));
+	}
+
+	private static MessageEnvelope envelope(String payload) {
+		return new MessageEnvelope("m-1", OffsetDateTime.now(), "media-service",
+				new MessageEnvelope.Destination("media.uploaded", "media.uploaded"), Map.of(), RawPayload.of(payload));
+	}
+}
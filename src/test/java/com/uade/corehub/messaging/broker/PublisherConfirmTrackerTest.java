@@ -0,0 +1,217 @@
+package com.uade.corehub.messaging.broker;
+
+import com.uade.corehub.config.PublishProperties;
+import com.uade.corehub.messaging.store.MessageBatchWriter;
+import com.uade.corehub.messaging.store.OutboxStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class PublisherConfirmTrackerTest {
+
+	private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+	private final MessageBatchWriter batchWriter = mock(MessageBatchWriter.class);
+	private final OutboxStore outboxStore = mock(OutboxStore.class);
+	private final PublishProperties publishProperties = new PublishProperties();
+	private PublisherConfirmTracker tracker;
+	private RabbitTemplate.ConfirmCallback confirmCallback;
+
+	@AfterEach
+	void tearDown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		if (tracker != null) {
+			tracker.shutdown();
+		}
+	}
+
+	@Test
+	void ackMarksPublished() {
+		start();
+
+		confirm(tracker.track("m-1"), true, null);
+
+		verify(batchWriter, timeout(2000)).markPublished(eq(List.of("m-1")), any());
+	}
+
+	@Test
+	void returnedMessageIsMarkedUnroutable() {
+		start();
+
+		CorrelationData correlation = tracker.track("m-1");
+		correlation.setReturned(new ReturnedMessage(new Message(new byte[0], new MessageProperties()),
+				312, "NO_ROUTE", "corehub.x.orders", "orders.created"));
+		confirm(correlation, true, null);
+
+		verify(batchWriter, timeout(2000)).markUnroutable(Map.of("m-1", "312 NO_ROUTE"));
+		verify(batchWriter, never()).markPublished(anyCollection(), any());
+	}
+
+	@Test
+	void nackMarksFailedInDirectMode() {
+		start();
+
+		confirm(tracker.track("m-1"), false, "disk alarm");
+
+		verify(batchWriter, timeout(2000)).markFailed(Map.of("m-1", "disk alarm"));
+	}
+
+	@Test
+	void nackSendsOutboxRowBackToRetry() {
+		publishProperties.setMode(PublishProperties.Mode.OUTBOX);
+		publishProperties.getOutbox().setMaxAttempts(4);
+		start();
+
+		confirm(tracker.track("m-1"), false, "disk alarm");
+
+		verify(outboxStore, timeout(2000)).markForRetry(Map.of("m-1", "disk alarm"), 4);
+		verify(batchWriter, never()).markFailed(any());
+	}
+
+	@Test
+	void confirmWaitsForTheInsertingTransactionToCommit() {
+		start();
+		TransactionSynchronizationManager.initSynchronization();
+
+		confirm(tracker.track("m-1"), true, null);
+		verify(batchWriter, after(300).never()).markPublished(anyCollection(), any());
+
+		complete(TransactionSynchronization.STATUS_COMMITTED);
+		verify(batchWriter, timeout(2000)).markPublished(eq(List.of("m-1")), any());
+	}
+
+	@Test
+	void rollbackReleasesTheInFlightPermit() {
+		publishProperties.getConfirms().setMaxInFlight(1);
+		publishProperties.getConfirms().setTimeout(Duration.ofMillis(100));
+		start();
+		TransactionSynchronizationManager.initSynchronization();
+
+		tracker.track("m-1");
+		complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+		assertThat(tracker.track("m-2").getId()).isEqualTo("m-2");
+		verify(batchWriter, after(300).never()).markPublished(anyCollection(), any());
+	}
+
+	@Test
+	void trackBlocksWhenMaxInFlightIsReached() {
+		publishProperties.getConfirms().setMaxInFlight(1);
+		publishProperties.getConfirms().setTimeout(Duration.ofMillis(100));
+		start();
+
+		tracker.track("m-1");
+
+		assertThatThrownBy(() -> tracker.track("m-2")).isInstanceOf(AmqpException.class);
+		tracker.cancel("m-1");
+		assertThat(tracker.track("m-2").getId()).isEqualTo("m-2");
+	}
+
+	@Test
+	void unconfirmedSendIsFailedAfterTimeout() {
+		publishProperties.getConfirms().setTimeout(Duration.ofMillis(50));
+		start();
+
+		tracker.track("m-1");
+
+		verify(batchWriter, timeout(3000)).markFailed(Map.of("m-1", "Publisher confirm timeout"));
+	}
+
+	@Test
+	void deferredConfirmCompletesTheFutureWithoutTouchingMessageLog() throws Exception {
+		publishProperties.getConfirms().setMaxInFlight(1);
+		publishProperties.getConfirms().setTimeout(Duration.ofMillis(100));
+		start();
+		CompletableFuture<PublisherConfirmTracker.Confirmation> confirmation = new CompletableFuture<>();
+
+		confirm(tracker.trackDeferred("m-1", confirmation), true, null);
+
+		assertThat(confirmation.get(1, TimeUnit.SECONDS)).isEqualTo(PublisherConfirmTracker.Confirmation.ACKED);
+		tracker.settle("m-1");
+		assertThat(tracker.track("m-2").getId()).isEqualTo("m-2");
+		verify(batchWriter, after(300).never()).markPublished(eq(List.of("m-1")), any());
+	}
+
+	@Test
+	void handOffAfterTheConfirmAppliesItToMessageLog() {
+		start();
+		CompletableFuture<PublisherConfirmTracker.Confirmation> confirmation = new CompletableFuture<>();
+
+		confirm(tracker.trackDeferred("m-1", confirmation), true, null);
+		tracker.handOff("m-1");
+
+		verify(batchWriter, timeout(2000)).markPublished(eq(List.of("m-1")), any());
+	}
+
+	@Test
+	void handOffBeforeTheConfirmWaitsForIt() {
+		start();
+		CompletableFuture<PublisherConfirmTracker.Confirmation> confirmation = new CompletableFuture<>();
+
+		CorrelationData correlation = tracker.trackDeferred("m-1", confirmation);
+		tracker.handOff("m-1");
+		verify(batchWriter, after(300).never()).markFailed(any());
+
+		confirm(correlation, false, "disk alarm");
+		verify(batchWriter, timeout(2000)).markFailed(Map.of("m-1", "disk alarm"));
+		assertThat(confirmation).isCompletedWithValue(
+				new PublisherConfirmTracker.Confirmation(PublisherConfirmTracker.Outcome.NACKED, "disk alarm"));
+	}
+
+	@Test
+	void deferredSendIsNotExpiredUntilHandedOff() {
+		publishProperties.getConfirms().setTimeout(Duration.ofMillis(50));
+		start();
+
+		tracker.trackDeferred("m-1", new CompletableFuture<>());
+		verify(batchWriter, after(1500).never()).markFailed(any());
+
+		tracker.handOff("m-1");
+		verify(batchWriter, timeout(3000)).markFailed(Map.of("m-1", "Publisher confirm timeout"));
+	}
+
+	private void start() {
+		tracker = new PublisherConfirmTracker(rabbitTemplate, batchWriter, outboxStore, publishProperties, new SimpleMeterRegistry());
+		tracker.init();
+		ArgumentCaptor<RabbitTemplate.ConfirmCallback> callback = ArgumentCaptor.forClass(RabbitTemplate.ConfirmCallback.class);
+		verify(rabbitTemplate).setConfirmCallback(callback.capture());
+		confirmCallback = callback.getValue();
+	}
+
+	private void confirm(CorrelationData correlation, boolean ack, String cause) {
+		confirmCallback.confirm(correlation, ack, cause);
+	}
+
+	private static void complete(int status) {
+		List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+		TransactionSynchronizationManager.clearSynchronization();
+		synchronizations.forEach(s -> s.afterCompletion(status));
+	}
+}
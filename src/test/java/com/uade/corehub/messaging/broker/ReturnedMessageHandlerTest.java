@@ -0,0 +1,187 @@
+package com.uade.corehub.messaging.broker;
+
+import com.uade.corehub.channels.ChannelRegistry;
+import com.uade.corehub.channels.ChannelRegistryProperties;
+import com.uade.corehub.config.PublishProperties;
+import com.uade.corehub.messaging.dto.MessageEnvelope;
+import com.uade.corehub.messaging.dto.RawPayload;
+import com.uade.corehub.messaging.infrastructure.RabbitMQInfrastructureValidator;
+import com.uade.corehub.messaging.store.MessageBatchWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.connection.PublisherCallbackChannel;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReturnedMessageHandlerTest {
+
+	private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+	private final RabbitAdmin rabbitAdmin = mock(RabbitAdmin.class);
+	private final MessageConverter messageConverter = mock(MessageConverter.class);
+	private final MessageBatchWriter batchWriter = mock(MessageBatchWriter.class);
+	private final PublisherConfirmTracker confirmTracker = mock(PublisherConfirmTracker.class);
+	private final RabbitMQInfrastructureValidator infrastructureValidator = mock(RabbitMQInfrastructureValidator.class);
+	private final PublishProperties publishProperties = new PublishProperties();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private ReturnedMessageHandler handler;
+	private RabbitTemplate.ReturnsCallback returnsCallback;
+
+	@AfterEach
+	void tearDown() {
+		if (handler != null) {
+			handler.shutdown();
+		}
+	}
+
+	@Test
+	void untrackedReturnMarksTheRowUnroutableAndExpiresTheChannelValidation() {
+		start();
+		when(messageConverter.fromMessage(any())).thenReturn(envelope("m-1"));
+
+		returnsCallback.returnedMessage(returned(new MessageProperties()));
+
+		verify(batchWriter, timeout(3000)).markUnroutable(Map.of("m-1", "312 NO_ROUTE"));
+		assertThat(meterRegistry.get("corehub.publisher.returns").tag("channel", "orders.created").counter().count())
+				.isEqualTo(1);
+		verify(infrastructureValidator).invalidate("orders.created");
+		verify(rabbitTemplate, never()).send(eq(""), any(), any(Message.class));
+	}
+
+	@Test
+	void trackedReturnIsLeftToTheConfirmAndParkedWithItsOriginalRoute() {
+		publishProperties.getReturns().setParkEnabled(true);
+		start();
+		MessageProperties properties = new MessageProperties();
+		properties.setHeader(PublisherCallbackChannel.RETURNED_MESSAGE_CORRELATION_KEY, "m-1");
+
+		returnsCallback.returnedMessage(returned(properties));
+
+		ArgumentCaptor<Message> parked = ArgumentCaptor.forClass(Message.class);
+		verify(rabbitTemplate, timeout(3000)).send(eq(""), eq("corehub.q.unroutable"), parked.capture());
+		MessageProperties headers = parked.getValue().getMessageProperties();
+		assertThat((String) headers.getHeader(ReturnedMessageHandler.ORIGINAL_EXCHANGE)).isEqualTo("corehub.x.orders");
+		assertThat((String) headers.getHeader(ReturnedMessageHandler.ORIGINAL_ROUTING_KEY)).isEqualTo("orders.created");
+		assertThat((String) headers.getHeader(ReturnedMessageHandler.ORIGINAL_MESSAGE_ID)).isEqualTo("m-1");
+		assertThat(headers.getHeaders()).doesNotContainKey(PublisherCallbackChannel.RETURNED_MESSAGE_CORRELATION_KEY);
+		verify(batchWriter, after(200).never()).markUnroutable(anyMap());
+	}
+
+	@Test
+	void redeliverSendsParkedMessagesBackToTheirRouteAndMarksThemPublished() {
+		publishProperties.getReturns().setParkEnabled(true);
+		handler = newHandler();
+		parkedMessages(parked("m-1"), parked("m-2"));
+
+		assertThat(handler.redeliver()).isEqualTo(2);
+
+		ArgumentCaptor<Message> sent = ArgumentCaptor.forClass(Message.class);
+		verify(rabbitTemplate, times(2)).send(eq("corehub.x.orders"), eq("orders.created"), sent.capture());
+		assertThat(sent.getAllValues()).allSatisfy(m -> assertThat(m.getMessageProperties().getHeaders())
+				.doesNotContainKeys(ReturnedMessageHandler.ORIGINAL_EXCHANGE, ReturnedMessageHandler.ORIGINAL_ROUTING_KEY,
+						ReturnedMessageHandler.ORIGINAL_MESSAGE_ID));
+		verify(batchWriter).markPublished(eq(List.of("m-1")), any(OffsetDateTime.class));
+		verify(batchWriter).markPublished(eq(List.of("m-2")), any(OffsetDateTime.class));
+	}
+
+	@Test
+	void redeliverWithConfirmsLeavesTheStatusToTheTracker() {
+		publishProperties.getReturns().setParkEnabled(true);
+		handler = newHandler();
+		when(confirmTracker.isEnabled()).thenReturn(true);
+		CorrelationData correlation = new CorrelationData("m-1");
+		when(confirmTracker.track("m-1")).thenReturn(correlation);
+		parkedMessages(parked("m-1"));
+
+		assertThat(handler.redeliver()).isEqualTo(1);
+
+		verify(rabbitTemplate).send(eq("corehub.x.orders"), eq("orders.created"), any(Message.class), eq(correlation));
+		verify(batchWriter, never()).markPublished(any(), any());
+	}
+
+	@Test
+	void redeliverOnlyTakesWhatWasParkedAtTheStartOfThePass() {
+		publishProperties.getReturns().setParkEnabled(true);
+		handler = newHandler();
+		Properties queue = new Properties();
+		queue.put(RabbitAdmin.QUEUE_MESSAGE_COUNT, 1);
+		when(rabbitAdmin.getQueueProperties("corehub.q.unroutable")).thenReturn(queue);
+		when(rabbitTemplate.receive("corehub.q.unroutable")).thenReturn(parked("m-1"), parked("m-2"));
+
+		assertThat(handler.redeliver()).isEqualTo(1);
+	}
+
+	private void start() {
+		handler = newHandler();
+		handler.init();
+		ArgumentCaptor<RabbitTemplate.ReturnsCallback> callback = ArgumentCaptor.forClass(RabbitTemplate.ReturnsCallback.class);
+		verify(rabbitTemplate).setReturnsCallback(callback.capture());
+		returnsCallback = callback.getValue();
+	}
+
+	private ReturnedMessageHandler newHandler() {
+		return new ReturnedMessageHandler(rabbitTemplate, rabbitAdmin, messageConverter, batchWriter,
+				new ChannelRegistry(channels()), confirmTracker, infrastructureValidator, publishProperties, meterRegistry);
+	}
+
+	private void parkedMessages(Message... messages) {
+		Properties queue = new Properties();
+		queue.put(RabbitAdmin.QUEUE_MESSAGE_COUNT, messages.length);
+		when(rabbitAdmin.getQueueProperties("corehub.q.unroutable")).thenReturn(queue);
+		var stub = when(rabbitTemplate.receive("corehub.q.unroutable"));
+		for (Message m : messages) {
+			stub = stub.thenReturn(m);
+		}
+		stub.thenReturn(null);
+	}
+
+	private static Message parked(String messageId) {
+		MessageProperties properties = new MessageProperties();
+		properties.setHeader(ReturnedMessageHandler.ORIGINAL_EXCHANGE, "corehub.x.orders");
+		properties.setHeader(ReturnedMessageHandler.ORIGINAL_ROUTING_KEY, "orders.created");
+		properties.setHeader(ReturnedMessageHandler.ORIGINAL_MESSAGE_ID, messageId);
+		return new Message("{}".getBytes(), properties);
+	}
+
+	private static ReturnedMessage returned(MessageProperties properties) {
+		return new ReturnedMessage(new Message("{}".getBytes(), properties), 312, "NO_ROUTE", "corehub.x.orders", "orders.created");
+	}
+
+	private static MessageEnvelope envelope(String messageId) {
+		return new MessageEnvelope(messageId, OffsetDateTime.now(), "orders-service",
+				new MessageEnvelope.Destination("orders.created", "created"), Map.of(), RawPayload.of("{}"));
+	}
+
+	private static ChannelRegistryProperties channels() {
+		ChannelRegistryProperties.Channel orders = new ChannelRegistryProperties.Channel();
+		orders.setName("orders.created");
+		orders.setExchange("corehub.x.orders");
+		orders.setRoutingKey("orders.created");
+		ChannelRegistryProperties props = new ChannelRegistryProperties();
+		props.setChannels(List.of(orders));
+		return props;
+	}
+}
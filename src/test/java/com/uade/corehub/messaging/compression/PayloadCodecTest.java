@@ -0,0 +1,59 @@
+package com.uade.corehub.messaging.compression;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PayloadCodecTest {
+
+	private static final byte[] JSON = "{\"sku\":\"ABC-123\",\"qty\":5,\"note\":\"ñandú €\"}".repeat(200)
+			.getBytes(StandardCharsets.UTF_8);
+
+	@ParameterizedTest
+	@EnumSource(PayloadCodec.class)
+	void roundTripsPayload(PayloadCodec codec) {
+		assertThat(codec.decompress(codec.compress(JSON))).isEqualTo(JSON);
+	}
+
+	@ParameterizedTest
+	@EnumSource(PayloadCodec.class)
+	void roundTripsEmptyAndIncompressibleData(PayloadCodec codec) {
+		byte[] random = new byte[4096];
+		new Random(42).nextBytes(random);
+
+		assertThat(codec.decompress(codec.compress(new byte[0]))).isEmpty();
+		assertThat(codec.decompress(codec.compress(random))).isEqualTo(random);
+	}
+
+	@Test
+	void repetitiveJsonShrinks() {
+		assertThat(PayloadCodec.GZIP.compress(JSON).length).isLessThan(JSON.length / 10);
+		assertThat(PayloadCodec.ZSTD.compress(JSON).length).isLessThan(JSON.length / 10);
+	}
+
+	@Test
+	void noneReturnsTheSameArray() {
+		assertThat(PayloadCodec.NONE.compress(JSON)).isSameAs(JSON);
+		assertThat(PayloadCodec.NONE.decompress(JSON)).isSameAs(JSON);
+	}
+
+	@Test
+	void resolvesEncodingNames() {
+		assertThat(PayloadCodec.fromEncoding("gzip")).isEqualTo(PayloadCodec.GZIP);
+		assertThat(PayloadCodec.fromEncoding(" ZSTD ")).isEqualTo(PayloadCodec.ZSTD);
+		assertThat(PayloadCodec.fromEncoding("br")).isNull();
+		assertThat(PayloadCodec.fromEncoding(null)).isNull();
+		assertThat(PayloadCodec.NONE.encoding()).isNull();
+	}
+
+	@Test
+	void rejectsDataThatIsNotAZstdFrame() {
+		assertThatThrownBy(() -> PayloadCodec.ZSTD.decompress(JSON)).isInstanceOf(RuntimeException.class);
+	}
+}
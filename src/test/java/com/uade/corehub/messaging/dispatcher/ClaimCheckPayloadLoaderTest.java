@@ -0,0 +1,66 @@
+package com.uade.corehub.messaging.dispatcher;
+
+import com.uade.corehub.config.ClaimCheckProperties;
+import com.uade.corehub.messaging.compression.PayloadCompressor;
+import com.uade.corehub.messaging.dto.MessageEnvelope;
+import com.uade.corehub.messaging.dto.RawPayload;
+import com.uade.corehub.messaging.store.PayloadStore;
+import com.uade.corehub.messaging.store.PayloadStoreRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ClaimCheckPayloadLoaderTest {
+
+    private final PayloadStoreRepository repository = mock(PayloadStoreRepository.class);
+    private final ClaimCheckPayloadLoader loader = new ClaimCheckPayloadLoader(repository,
+            new PayloadCompressor(new SimpleMeterRegistry()), new ClaimCheckProperties(), new SimpleMeterRegistry());
+
+    @Test
+    void loadsThePayloadOnceAndServesRepeatsFromTheCache() {
+        when(repository.findByMessageId("m-1"))
+                .thenReturn(Optional.of(PayloadStore.builder().messageId("m-1").payload(RawPayload.of("{\"n\":1}")).build()));
+
+        MessageEnvelope first = loader.resolve(envelope("m-1"));
+        MessageEnvelope second = loader.resolve(envelope("m-1"));
+
+        assertThat(first.payload().json()).isEqualTo("{\"n\":1}");
+        assertThat(second.payload().json()).isEqualTo("{\"n\":1}");
+        verify(repository, times(1)).findByMessageId("m-1");
+    }
+
+    @Test
+    void missingRowIsRejectedWithoutWaiting() {
+        when(repository.findByMessageId("m-2")).thenReturn(Optional.empty());
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> loader.resolve(envelope("m-2"))).isInstanceOf(AmqpRejectAndDontRequeueException.class);
+
+        assertThat(System.nanoTime() - start).isLessThan(1_000_000_000L);
+        verify(repository, times(1)).findByMessageId("m-2");
+    }
+
+    @Test
+    void envelopeWithPayloadIsReturnedAsIs() {
+        MessageEnvelope inline = new MessageEnvelope("m-3", OffsetDateTime.now(), "orders-service",
+                new MessageEnvelope.Destination("orders.created", "order.created"), Map.of(), RawPayload.of("{}"));
+
+        assertThat(loader.resolve(inline)).isSameAs(inline);
+    }
+
+    private static MessageEnvelope envelope(String messageId) {
+        return new MessageEnvelope(messageId, OffsetDateTime.now(), "media-service",
+                new MessageEnvelope.Destination("media.uploaded", "media.uploaded"), Map.of(), null);
+    }
+}
@@ -0,0 +1,84 @@
+package com.uade.corehub.messaging.dispatcher;
+
+import com.uade.corehub.config.DispatchProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class DeliveryRetrySchedulerTest {
+
+    private final DispatchProperties dispatchProperties = new DispatchProperties();
+
+    @Test
+    void delayGrowsExponentiallyUpToTheLargestQueue() {
+        dispatchProperties.getRetry().setJitter(0);
+        DeliveryRetryScheduler scheduler = newScheduler();
+
+        assertThat(scheduler.nextDelay(1)).isEqualTo(1_000);
+        assertThat(scheduler.nextDelay(2)).isEqualTo(2_000);
+        assertThat(scheduler.nextDelay(5)).isEqualTo(16_000);
+        assertThat(scheduler.nextDelay(13)).isEqualTo(3_600_000);
+        assertThat(scheduler.nextDelay(100)).isEqualTo(3_600_000);
+    }
+
+    @Test
+    void jitterStaysWithinBoundsAndNeverExceedsTheMaximum() {
+        dispatchProperties.getRetry().setJitter(0.2);
+        DeliveryRetryScheduler scheduler = newScheduler();
+
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(scheduler.nextDelay(4)).isBetween(6_400L, 9_600L);
+            assertThat(scheduler.nextDelay(30)).isBetween(2_880_000L, 3_600_000L);
+        }
+    }
+
+    @Test
+    void outOfRangeSettingsAreClamped() {
+        dispatchProperties.getRetry().setJitter(5);
+        dispatchProperties.getRetry().setMultiplier(0.5);
+        dispatchProperties.getRetry().setInitialDelay(Duration.ZERO);
+        DeliveryRetryScheduler scheduler = newScheduler();
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(scheduler.nextDelay(0)).isBetween(1L, 3_600_000L);
+        }
+    }
+
+    @Test
+    void picksTheSmallestQueueCoveringTheDelay() {
+        DeliveryRetryScheduler scheduler = newScheduler();
+
+        assertThat(scheduler.queueFor(1)).isEqualTo(Duration.ofSeconds(1));
+        assertThat(scheduler.queueFor(1_000)).isEqualTo(Duration.ofSeconds(1));
+        assertThat(scheduler.queueFor(1_001)).isEqualTo(Duration.ofSeconds(5));
+        assertThat(scheduler.queueFor(45_000)).isEqualTo(Duration.ofMinutes(2));
+        assertThat(scheduler.queueFor(7_200_000)).isEqualTo(Duration.ofHours(1));
+    }
+
+    @Test
+    void queuesAreSortedAndZeroDelaysIgnored() {
+        dispatchProperties.getRetry().setDelays(List.of(Duration.ofMinutes(1), Duration.ZERO, Duration.ofSeconds(10)));
+        DeliveryRetryScheduler scheduler = newScheduler();
+
+        assertThat(scheduler.queueFor(5_000)).isEqualTo(Duration.ofSeconds(10));
+        assertThat(scheduler.queueFor(20_000)).isEqualTo(Duration.ofMinutes(1));
+        assertThat(scheduler.isEnabled()).isTrue();
+    }
+
+    @Test
+    void disabledWithoutPositiveDelays() {
+        dispatchProperties.getRetry().setDelays(List.of(Duration.ZERO));
+
+        assertThat(newScheduler().isEnabled()).isFalse();
+    }
+
+    private DeliveryRetryScheduler newScheduler() {
+        return new DeliveryRetryScheduler(mock(RabbitTemplate.class), dispatchProperties, new SimpleMeterRegistry());
+    }
+}
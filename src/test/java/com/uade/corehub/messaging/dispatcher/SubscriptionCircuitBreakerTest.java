@@ -0,0 +1,172 @@
+package com.uade.corehub.messaging.dispatcher;
+
+import com.uade.corehub.config.DispatchProperties;
+import com.uade.corehub.messaging.dispatcher.SubscriptionCircuitBreaker.CircuitStateChange;
+import com.uade.corehub.messaging.dispatcher.SubscriptionCircuitBreaker.Permit;
+import com.uade.corehub.messaging.store.Subscription;
+import com.uade.corehub.messaging.store.SubscriptionCircuitStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SubscriptionCircuitBreakerTest {
+
+    private final SubscriptionCircuitStore store = mock(SubscriptionCircuitStore.class);
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private final DispatchProperties dispatchProperties = new DispatchProperties();
+    private final Subscription subscription = Subscription.builder()
+            .id("sub-1")
+            .webhookUrl("http://hook")
+            .status(Subscription.SubscriptionStatus.ACTIVE)
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        when(store.open(anyString(), any())).thenAnswer(inv -> Optional.of(OffsetDateTime.now().plusMinutes(1)));
+        when(store.close(anyString())).thenReturn(true);
+        when(store.openUntil(anyString())).thenReturn(Optional.empty());
+        when(store.claimProbe(anyString(), any())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void opensOnceMinimumCallsReachTheFailureRate() {
+        SubscriptionCircuitBreaker breaker = newBreaker(4, 4, 50);
+
+        recordAll(breaker, false, false, false);
+        verify(store, never()).open(anyString(), any());
+
+        recordAll(breaker, false);
+        verify(store).open("sub-1", dispatchProperties.getBreaker().getOpenDuration());
+        assertThat(subscription.getStatus()).isEqualTo(Subscription.SubscriptionStatus.SUSPENDED);
+        assertThat(breaker.acquire(subscription)).isEqualTo(Permit.OPEN);
+    }
+
+    @Test
+    void minimumCallsAboveTheWindowSizeIsClamped() {
+        SubscriptionCircuitBreaker breaker = newBreaker(3, 10, 50);
+
+        recordAll(breaker, false, false, false);
+
+        verify(store).open(anyString(), any());
+    }
+
+    @Test
+    void staysClosedBelowTheThreshold() {
+        SubscriptionCircuitBreaker breaker = newBreaker(4, 4, 60);
+
+        for (int i = 0; i < 10; i++) {
+            recordAll(breaker, true, false);
+        }
+
+        verify(store, never()).open(anyString(), any());
+        assertThat(breaker.acquire(subscription)).isEqualTo(Permit.CLOSED);
+    }
+
+    @Test
+    void oldResultsSlideOutOfTheWindow() {
+        SubscriptionCircuitBreaker breaker = newBreaker(4, 4, 75);
+
+        recordAll(breaker, true, true, true, false, false);
+        verify(store, never()).open(anyString(), any());
+
+        // Ventana: [true, false, false, false] -> 75%
+        recordAll(breaker, false);
+        verify(store).open(anyString(), any());
+    }
+
+    @Test
+    void successfulProbeClosesTheCircuit() {
+        SubscriptionCircuitBreaker breaker = newBreaker(4, 4, 50);
+        suspend(OffsetDateTime.now().minusSeconds(1));
+        when(store.claimProbe(anyString(), any())).thenReturn(Optional.of(OffsetDateTime.now().plusMinutes(1)));
+
+        Permit permit = breaker.acquire(subscription);
+        assertThat(permit).isEqualTo(Permit.PROBE);
+        breaker.record(subscription, permit, true);
+
+        verify(store).close("sub-1");
+        assertThat(subscription.getStatus()).isEqualTo(Subscription.SubscriptionStatus.ACTIVE);
+        assertThat(breaker.acquire(subscription)).isEqualTo(Permit.CLOSED);
+    }
+
+    @Test
+    void failedProbeKeepsTheCircuitOpen() {
+        SubscriptionCircuitBreaker breaker = newBreaker(4, 4, 50);
+        suspend(OffsetDateTime.now().minusSeconds(1));
+        when(store.claimProbe(anyString(), any())).thenReturn(Optional.of(OffsetDateTime.now().plusMinutes(1)));
+
+        breaker.record(subscription, breaker.acquire(subscription), false);
+
+        verify(store, never()).close(anyString());
+        assertThat(breaker.acquire(subscription)).isEqualTo(Permit.OPEN);
+        verify(store, times(1)).claimProbe(anyString(), any());
+    }
+
+    @Test
+    void probeTakenByAnotherNodeIsNotRepeated() {
+        SubscriptionCircuitBreaker breaker = newBreaker(4, 4, 50);
+        suspend(OffsetDateTime.now().minusSeconds(1));
+        when(store.openUntil("sub-1")).thenReturn(Optional.of(OffsetDateTime.now().plusMinutes(1)));
+
+        assertThat(breaker.acquire(subscription)).isEqualTo(Permit.OPEN);
+
+        // El otro nodo cerró el circuito
+        when(store.openUntil("sub-1")).thenReturn(Optional.empty());
+        breaker.onStateChange(new CircuitStateChange("sub-1", null, "other-node"));
+        subscription.setStatus(Subscription.SubscriptionStatus.ACTIVE);
+        subscription.setCircuitOpenUntil(null);
+        assertThat(breaker.acquire(subscription)).isEqualTo(Permit.CLOSED);
+    }
+
+    @Test
+    void circuitOpenedOnAnotherNodeRejectsDeliveries() {
+        SubscriptionCircuitBreaker breaker = newBreaker(4, 4, 50);
+
+        breaker.onStateChange(new CircuitStateChange("sub-1", OffsetDateTime.now().plusMinutes(1), "other-node"));
+
+        assertThat(breaker.acquire(subscription)).isEqualTo(Permit.OPEN);
+    }
+
+    @Test
+    void disabledBreakerAlwaysDelivers() {
+        dispatchProperties.getBreaker().setEnabled(false);
+        SubscriptionCircuitBreaker breaker = newBreaker(1, 1, 1);
+
+        recordAll(breaker, false, false, false);
+
+        verify(store, never()).open(anyString(), any());
+        assertThat(breaker.acquire(subscription)).isEqualTo(Permit.CLOSED);
+    }
+
+    private SubscriptionCircuitBreaker newBreaker(int windowSize, int minimumCalls, double failureRateThreshold) {
+        DispatchProperties.Breaker props = dispatchProperties.getBreaker();
+        props.setWindowSize(windowSize);
+        props.setMinimumCalls(minimumCalls);
+        props.setFailureRateThreshold(failureRateThreshold);
+        return new SubscriptionCircuitBreaker(dispatchProperties, store, rabbitTemplate, new SimpleMeterRegistry());
+    }
+
+    private void recordAll(SubscriptionCircuitBreaker breaker, boolean... results) {
+        for (boolean success : results) {
+            breaker.record(subscription, Permit.CLOSED, success);
+        }
+    }
+
+    private void suspend(OffsetDateTime openUntil) {
+        subscription.setStatus(Subscription.SubscriptionStatus.SUSPENDED);
+        subscription.setCircuitOpenUntil(openUntil);
+    }
+}
@@ -0,0 +1,112 @@
+package com.uade.corehub.messaging.dispatcher;
+
+import com.uade.corehub.config.DispatchProperties;
+import com.uade.corehub.messaging.store.Subscription;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WebhookFanOutTest {
+
+    private final DispatchProperties props = new DispatchProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WebhookFanOut fanOut = new WebhookFanOut(props, meterRegistry);
+
+    @AfterEach
+    void tearDown() {
+        fanOut.shutdown();
+    }
+
+    @Test
+    void inFlightDeliveriesNeverExceedMaxConcurrency() {
+        props.setMaxConcurrency(3);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        int delivered = fanOut.deliverAll(subscriptions(12), sub -> {
+            peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(30);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            return true;
+        });
+
+        assertThat(delivered).isEqualTo(12);
+        assertThat(peak.get()).isBetween(2, 3);
+    }
+
+    @Test
+    void deliveriesRunInParallelSoLatencyIsTheSlowestOne() {
+        props.setMaxConcurrency(16);
+        long start = System.nanoTime();
+
+        fanOut.deliverAll(subscriptions(8), sub -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        });
+
+        assertThat((System.nanoTime() - start) / 1_000_000).isLessThan(8 * 200);
+        assertThat(meterRegistry.get("corehub.dispatch.fanout").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void crashedDeliveryCountsAsFailureWithoutAffectingTheOthers() {
+        int delivered = fanOut.deliverAll(subscriptions(4), sub -> {
+            if (sub.getId().equals("sub-1")) {
+                throw new IllegalStateException("boom");
+            }
+            return !sub.getId().equals("sub-2");
+        });
+
+        assertThat(delivered).isEqualTo(2);
+    }
+
+    @Test
+    void singleSubscriptionIsDeliveredInline() {
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+        int delivered = fanOut.deliverAll(subscriptions(1), sub -> threads.add(Thread.currentThread()));
+
+        assertThat(delivered).isEqualTo(1);
+        assertThat(threads).containsExactly(Thread.currentThread());
+        assertThat(meterRegistry.find("corehub.dispatch.fanout").timer().count()).isZero();
+    }
+
+    @Test
+    void waitsForEveryOutcomeBeforeReturning() {
+        Set<String> finished = ConcurrentHashMap.newKeySet();
+
+        fanOut.deliverAll(subscriptions(5), sub -> {
+            try {
+                Thread.sleep(20L * (1 + Integer.parseInt(sub.getId().substring(4))));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return finished.add(sub.getId());
+        });
+
+        assertThat(finished).hasSize(5);
+    }
+
+    private static List<Subscription> subscriptions(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> Subscription.builder().id("sub-" + i).build())
+                .toList();
+    }
+}
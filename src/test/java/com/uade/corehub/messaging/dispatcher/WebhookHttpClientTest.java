@@ -0,0 +1,123 @@
+package com.uade.corehub.messaging.dispatcher;
+
+import com.sun.net.httpserver.HttpServer;
+import com.uade.corehub.config.DispatchProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WebhookHttpClientTest {
+
+    private final DispatchProperties props = new DispatchProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Received> received = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+    private WebhookHttpClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        props.getHttp().setResponseTimeout(Duration.ofSeconds(2));
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            received.add(new Received(exchange.getRequestURI().getPath(), exchange.getRequestHeaders().getFirst("Content-Type"),
+                    exchange.getRequestHeaders().getFirst("X-Subscription-Id"), new String(body, StandardCharsets.UTF_8),
+                    exchange.getRemoteAddress().getPort()));
+            int status = Integer.parseInt(exchange.getRequestURI().getPath().substring(1));
+            if (status == 302) {
+                exchange.getResponseHeaders().add("Location", "/200");
+            }
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        server.start();
+        client = new WebhookHttpClient(props, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void successfulResponseIsMappedWithItsProtocol() throws Exception {
+        var response = post("/204");
+
+        assertThat(response.status()).isEqualTo(204);
+        assertThat(response.protocol()).isEqualTo("HTTP/1.1");
+        assertThat(response.isSuccess()).isTrue();
+        assertThat(received).singleElement().satisfies(r -> {
+            assertThat(r.contentType()).startsWith("application/json");
+            assertThat(r.subscriptionId()).isEqualTo("sub-1");
+            assertThat(r.body()).isEqualTo("{\"id\":1}");
+        });
+        assertThat(meterRegistry.get("corehub.webhook.request").tags("protocol", "HTTP/1.1", "status", "2xx").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void clientAndServerErrorsAreFailures() throws Exception {
+        assertThat(post("/404").isSuccess()).isFalse();
+        assertThat(post("/503").isSuccess()).isFalse();
+
+        assertThat(meterRegistry.get("corehub.webhook.request").tag("status", "4xx").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("corehub.webhook.request").tag("status", "5xx").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void redirectsAreNotFollowed() throws Exception {
+        var response = post("/302");
+
+        assertThat(response.status()).isEqualTo(302);
+        assertThat(received).hasSize(1);
+    }
+
+    @Test
+    void sequentialPostsToOneHostReuseThePooledConnection() throws Exception {
+        post("/200");
+        // La conexión vuelve al pool después de completar la respuesta
+        Thread.sleep(200);
+        post("/200");
+
+        assertThat(received).hasSize(2);
+        assertThat(received.get(1).remotePort()).isEqualTo(received.get(0).remotePort());
+        assertThat(meterRegistry.get("corehub.webhook.connection.acquire").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void noResponseFailsTheFuture() throws Exception {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+
+        var future = client.post("http://127.0.0.1:" + closedPort + "/200", Map.of(), new byte[0]);
+
+        assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+        assertThat(meterRegistry.get("corehub.webhook.request").tags("protocol", "none", "status", "error").timer().count())
+                .isEqualTo(1);
+    }
+
+    private WebhookHttpClient.WebhookResponse post(String path) throws Exception {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + path;
+        return client.post(url, Map.of("X-Subscription-Id", "sub-1"), "{\"id\":1}".getBytes(StandardCharsets.UTF_8))
+                .get(5, TimeUnit.SECONDS);
+    }
+
+    private record Received(String path, String contentType, String subscriptionId, String body, int remotePort) {}
+}
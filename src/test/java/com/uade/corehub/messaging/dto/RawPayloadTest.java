@@ -0,0 +1,56 @@
+package com.uade.corehub.messaging.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RawPayloadTest {
+
+	private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+	@Test
+	void keepsBigAndHighPrecisionNumbersVerbatim() throws Exception {
+		String json = "{\"amount\":12345678901234567.89,\"x\":0.1000000000000000000001,\"b\":1e400,"
+				+ "\"big\":123456789012345678901234567890,\"neg\":-0.0,\"list\":[1.10,2E-5,{\"n\":9007199254740993}]}";
+
+		assertThat(mapper.readValue(json, RawPayload.class).json()).isEqualTo(json);
+	}
+
+	@Test
+	void copiesOnlyThePayloadValueOfAnEnvelope() throws Exception {
+		String payload = "{\"amount\":12345678901234567.89,\"tags\":[\"a\",null,true],\"nested\":{\"s\":\"ñ \\\"q\\\"\"}}";
+		String envelope = "{\"messageId\":\"m-1\",\"timestamp\":\"2025-01-01T00:00:00Z\",\"source\":\"test\","
+				+ "\"payload\":" + payload + ",\"destination\":{\"channel\":\"orders\",\"eventName\":\"created\"}}";
+
+		MessageEnvelope env = mapper.readValue(envelope, MessageEnvelope.class);
+
+		assertThat(env.payload().json()).isEqualTo(payload);
+		assertThat(env.destination().channel()).isEqualTo("orders");
+	}
+
+	@Test
+	void copiesScalarPayloads() throws Exception {
+		assertThat(mapper.readValue("1e400", RawPayload.class).json()).isEqualTo("1e400");
+		assertThat(mapper.readValue("\"text\"", RawPayload.class).json()).isEqualTo("\"text\"");
+	}
+
+	@Test
+	void serializesTheStoredTextAsIs() throws Exception {
+		String json = "{\"x\":0.1000000000000000000001}";
+
+		assertThat(mapper.writeValueAsString(RawPayload.of(json))).isEqualTo(json);
+	}
+
+	@Test
+	void utf8LengthCountsEncodedBytes() {
+		for (String json : new String[]{"{}", "{\"a\":\"ñandú\"}", "{\"a\":\"€ 10\"}", "{\"a\":\"🚀\"}", ""}) {
+			assertThat(RawPayload.of(json).utf8Length())
+					.as(json)
+					.isEqualTo(json.getBytes(StandardCharsets.UTF_8).length);
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package com.uade.corehub.messaging.idempotency;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecentIdCacheTest {
+
+	@Test
+	void evictsOldestFirstOnceFull() {
+		RecentIdCache cache = new RecentIdCache(3);
+		cache.add("a");
+		cache.add("b");
+		cache.add("c");
+		cache.add("d");
+
+		assertThat(cache.contains("a")).isFalse();
+		assertThat(cache.contains("b")).isTrue();
+		assertThat(cache.contains("c")).isTrue();
+		assertThat(cache.contains("d")).isTrue();
+		assertThat(cache.size()).isEqualTo(3);
+	}
+
+	@Test
+	void duplicateAddDoesNotTakeASlot() {
+		RecentIdCache cache = new RecentIdCache(2);
+		cache.add("a");
+		cache.add("a");
+		cache.add("b");
+
+		assertThat(cache.contains("a")).isTrue();
+		assertThat(cache.contains("b")).isTrue();
+		assertThat(cache.size()).isEqualTo(2);
+	}
+
+	@Test
+	void sizeNeverExceedsCapacityUnderConcurrentAdds() throws InterruptedException {
+		RecentIdCache cache = new RecentIdCache(100);
+		Thread[] writers = new Thread[4];
+		for (int t = 0; t < writers.length; t++) {
+			int offset = t * 10_000;
+			writers[t] = new Thread(() -> {
+				for (int i = 0; i < 10_000; i++) {
+					cache.add("msg-" + (offset + i));
+				}
+			});
+			writers[t].start();
+		}
+		for (Thread writer : writers) {
+			writer.join();
+		}
+		assertThat(cache.size()).isEqualTo(100);
+	}
+}
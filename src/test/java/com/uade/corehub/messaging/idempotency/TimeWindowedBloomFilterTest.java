@@ -0,0 +1,62 @@
+package com.uade.corehub.messaging.idempotency;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeWindowedBloomFilterTest {
+
+	@Test
+	void addedIdsAreAlwaysFound() {
+		TimeWindowedBloomFilter filter = new TimeWindowedBloomFilter(10_000, 0.01, 3);
+		for (int i = 0; i < 10_000; i++) {
+			filter.add("msg-" + i);
+		}
+		for (int i = 0; i < 10_000; i++) {
+			assertThat(filter.mightContain("msg-" + i)).isTrue();
+		}
+	}
+
+	@Test
+	void falsePositiveRateStaysNearTarget() {
+		TimeWindowedBloomFilter filter = new TimeWindowedBloomFilter(10_000, 0.01, 1);
+		for (int i = 0; i < 10_000; i++) {
+			filter.add("msg-" + i);
+		}
+		int falsePositives = 0;
+		for (int i = 0; i < 100_000; i++) {
+			if (filter.mightContain("other-" + i)) {
+				falsePositives++;
+			}
+		}
+		assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+	}
+
+	@Test
+	void idsSurviveUntilTheirGenerationIsDropped() {
+		TimeWindowedBloomFilter filter = new TimeWindowedBloomFilter(1_000, 0.001, 3);
+		filter.add("old");
+		filter.rotate();
+		filter.add("newer");
+		filter.rotate();
+
+		assertThat(filter.mightContain("old")).isTrue();
+		assertThat(filter.mightContain("newer")).isTrue();
+
+		filter.rotate();
+		assertThat(filter.mightContain("old")).isFalse();
+		assertThat(filter.mightContain("newer")).isTrue();
+
+		filter.rotate();
+		assertThat(filter.mightContain("newer")).isFalse();
+	}
+
+	@Test
+	void degenerateSettingsAreClamped() {
+		TimeWindowedBloomFilter filter = new TimeWindowedBloomFilter(0, 0, 0);
+		filter.add("a");
+		assertThat(filter.mightContain("a")).isTrue();
+		filter.rotate();
+		assertThat(filter.mightContain("a")).isFalse();
+	}
+}
@@ -0,0 +1,117 @@
+package com.uade.corehub.messaging.infrastructure;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.GetResponse;
+import com.uade.corehub.config.PublishProperties;
+import com.uade.corehub.config.RabbitMQInfrastructureProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.ChannelCallback;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class DeadLetterQueueServiceTest {
+
+    private final RabbitAdmin rabbitAdmin = mock(RabbitAdmin.class);
+    private final RabbitTemplate adminTemplate = mock(RabbitTemplate.class);
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private final Channel channel = mock(Channel.class);
+    private final PublishProperties publishProperties = new PublishProperties();
+    private DeadLetterQueueService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        RabbitMQInfrastructureProperties.Queue queue = new RabbitMQInfrastructureProperties.Queue();
+        queue.setName("orders.q");
+        queue.setDeadLetterQueue("orders.q.dlq");
+        RabbitMQInfrastructureProperties infrastructureProperties = new RabbitMQInfrastructureProperties();
+        infrastructureProperties.setQueues(List.of(queue));
+        publishProperties.getConfirms().setTimeout(Duration.ofMillis(200));
+
+        when(rabbitAdmin.getRabbitTemplate()).thenReturn(adminTemplate);
+        when(rabbitAdmin.getQueueInfo("orders.q")).thenReturn(new QueueInformation("orders.q", 0, 1));
+        when(adminTemplate.execute(any())).thenAnswer(inv -> inv.<ChannelCallback<?>>getArgument(0).doInRabbit(channel));
+        when(channel.basicGet("orders.q.dlq", false)).thenReturn(deadLetter(1), deadLetter(2), null);
+
+        service = new DeadLetterQueueService(rabbitAdmin, rabbitTemplate, infrastructureProperties, publishProperties);
+    }
+
+    @Test
+    void acksTheDeadLetterOnlyAfterTheBrokerConfirmsTheRepublish() throws Exception {
+        confirmWith(new CorrelationData.Confirm(true, null));
+
+        int moved = service.redrive("orders.q", 10, 1000);
+
+        assertThat(moved).isEqualTo(2);
+        InOrder order = inOrder(rabbitTemplate, channel);
+        order.verify(rabbitTemplate).send(eq(""), eq("orders.q"), any(Message.class), any(CorrelationData.class));
+        order.verify(channel).basicAck(1L, false);
+        order.verify(rabbitTemplate).send(eq(""), eq("orders.q"), any(Message.class), any(CorrelationData.class));
+        order.verify(channel).basicAck(2L, false);
+    }
+
+    @Test
+    void nackRequeuesTheDeadLetterAndStops() throws Exception {
+        confirmWith(new CorrelationData.Confirm(false, "internal error"));
+
+        int moved = service.redrive("orders.q", 10, 1000);
+
+        assertThat(moved).isZero();
+        verify(channel).basicNack(1L, false, true);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+        verify(channel, never()).basicGet("orders.q.dlq", true);
+    }
+
+    @Test
+    void confirmTimeoutRequeuesTheDeadLetter() throws Exception {
+        int moved = service.redrive("orders.q", 10, 1000);
+
+        assertThat(moved).isZero();
+        verify(channel).basicNack(1L, false, true);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+    }
+
+    @Test
+    void rejectsAQueueMissingFromTheBroker() {
+        when(rabbitAdmin.getQueueInfo("orders.q")).thenReturn(null);
+
+        assertThatThrownBy(() -> service.redrive("orders.q", 10, 1000))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(adminTemplate, rabbitTemplate);
+    }
+
+    private void confirmWith(CorrelationData.Confirm confirm) {
+        doAnswer(inv -> {
+            inv.<CorrelationData>getArgument(3).getFuture().complete(confirm);
+            return null;
+        }).when(rabbitTemplate).send(eq(""), eq("orders.q"), any(Message.class), any(CorrelationData.class));
+    }
+
+    private static GetResponse deadLetter(long deliveryTag) {
+        Envelope envelope = new Envelope(deliveryTag, false, "", "orders.q.dlq");
+        return new GetResponse(envelope, new AMQP.BasicProperties(), "{}".getBytes(), 0);
+    }
+}
@@ -0,0 +1,161 @@
+package com.uade.corehub.messaging.infrastructure;
+
+import com.rabbitmq.client.Channel;
+import com.uade.corehub.channels.ChannelRegistry;
+import com.uade.corehub.channels.ChannelRegistryProperties;
+import com.uade.corehub.config.InfrastructureValidationProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionListener;
+import org.springframework.amqp.rabbit.core.ChannelCallback;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RabbitMQInfrastructureValidatorTest {
+
+    private final RabbitAdmin rabbitAdmin = mock(RabbitAdmin.class);
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private final Channel amqp = mock(Channel.class);
+    private final ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+    private final InfrastructureValidationProperties props = new InfrastructureValidationProperties();
+    private RabbitMQInfrastructureValidator validator;
+
+    @BeforeEach
+    void setUp() {
+        props.setRefreshInterval(Duration.ofMinutes(1));
+        when(rabbitAdmin.getRabbitTemplate()).thenReturn(rabbitTemplate);
+        brokerAnswers();
+        validator = new RabbitMQInfrastructureValidator(rabbitAdmin, new ChannelRegistry(channels()), connectionFactory, props);
+    }
+
+    @AfterEach
+    void tearDown() {
+        validator.shutdown();
+    }
+
+    @Test
+    void firstCheckWaitsForTheBrokerAndLaterOnesUseTheCache() throws Exception {
+        assertThat(validator.validateInfrastructureForChannel("orders.created")).isTrue();
+        assertThat(validator.validateInfrastructureForChannel("orders.created")).isTrue();
+
+        verify(rabbitTemplate, times(1)).execute(any());
+        verify(amqp).exchangeDeclarePassive("corehub.x.orders");
+        verify(amqp).queueDeclarePassive("orders.created");
+    }
+
+    @Test
+    void unknownChannelIsNeverValid() {
+        assertThat(validator.validateInfrastructureForChannel("nope")).isFalse();
+        verify(rabbitTemplate, times(0)).execute(any());
+    }
+
+    @Test
+    void missingQueueIsCachedWithTheNegativeTtl() throws Exception {
+        props.setNegativeTtl(Duration.ofMillis(50));
+        doThrow(new IOException("404 NOT_FOUND")).when(amqp).queueDeclarePassive("orders.created");
+
+        assertThat(validator.validateInfrastructureForChannel("orders.created")).isFalse();
+
+        // Vencida: se sirve el resultado anterior y se re-verifica en segundo plano
+        reset(amqp);
+        Thread.sleep(100);
+        assertThat(validator.validateInfrastructureForChannel("orders.created")).isFalse();
+        verify(rabbitTemplate, timeout(2000).times(2)).execute(any());
+        await().atMost(2, TimeUnit.SECONDS)
+                .until(() -> validator.validateInfrastructureForChannel("orders.created"));
+    }
+
+    @Test
+    void unreachableBrokerKeepsThePreviousResult() {
+        assertThat(validator.validateInfrastructureForChannel("orders.created")).isTrue();
+
+        doThrow(new AmqpConnectException(new IOException("connection refused"))).when(rabbitTemplate).execute(any());
+
+        assertThat(validator.revalidate("orders.created")).isTrue();
+    }
+
+    @Test
+    void revalidateBypassesTheCache() throws Exception {
+        assertThat(validator.validateInfrastructureForChannel("orders.created")).isTrue();
+        doThrow(new IOException("404 NOT_FOUND")).when(amqp).exchangeDeclarePassive("corehub.x.orders");
+
+        assertThat(validator.revalidate("orders.created")).isFalse();
+        assertThat(validator.validateInfrastructureForChannel("orders.created")).isFalse();
+    }
+
+    @Test
+    void concurrentFirstChecksShareOneBrokerRoundTrip() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(inv -> {
+            release.await(2, TimeUnit.SECONDS);
+            ChannelCallback<?> callback = inv.getArgument(0);
+            return callback.doInRabbit(amqp);
+        }).when(rabbitTemplate).execute(any());
+
+        var first = CompletableFuture.supplyAsync(() -> validator.validateInfrastructureForChannel("orders.created"));
+        var second = CompletableFuture.supplyAsync(() -> validator.validateInfrastructureForChannel("orders.created"));
+        Thread.sleep(100);
+        release.countDown();
+
+        assertThat(first.get(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(second.get(2, TimeUnit.SECONDS)).isTrue();
+        verify(rabbitTemplate, times(1)).execute(any());
+    }
+
+    @Test
+    void newConnectionExpiresAndRefreshesEveryChannel() {
+        validator.init();
+        ArgumentCaptor<ConnectionListener> listener = ArgumentCaptor.forClass(ConnectionListener.class);
+        verify(connectionFactory).addConnectionListener(listener.capture());
+        assertThat(validator.validateInfrastructureForChannel("orders.created")).isTrue();
+
+        listener.getValue().onCreate(mock(Connection.class));
+
+        verify(rabbitTemplate, timeout(2000).times(3)).execute(any());
+    }
+
+    private void brokerAnswers() {
+        when(rabbitTemplate.execute(any())).thenAnswer(inv -> {
+            ChannelCallback<?> callback = inv.getArgument(0);
+            return callback.doInRabbit(amqp);
+        });
+    }
+
+    private static ChannelRegistryProperties channels() {
+        ChannelRegistryProperties props = new ChannelRegistryProperties();
+        props.setChannels(List.of(channel("orders.created", "corehub.x.orders"), channel("payments.settled", "corehub.x.payments")));
+        return props;
+    }
+
+    private static ChannelRegistryProperties.Channel channel(String name, String exchange) {
+        ChannelRegistryProperties.Channel channel = new ChannelRegistryProperties.Channel();
+        channel.setName(name);
+        channel.setExchange(exchange);
+        channel.setRoutingKey(name);
+        return channel;
+    }
+}
@@ -0,0 +1,124 @@
+package com.uade.corehub.messaging.outbox;
+
+import com.uade.corehub.channels.ChannelRegistry;
+import com.uade.corehub.channels.ChannelRegistryProperties;
+import com.uade.corehub.config.PublishProperties;
+import com.uade.corehub.messaging.broker.OutboundMessage;
+import com.uade.corehub.messaging.broker.RabbitPublisher;
+import com.uade.corehub.messaging.dto.MessageEnvelope;
+import com.uade.corehub.messaging.dto.RawPayload;
+import com.uade.corehub.messaging.store.MessageBatchWriter;
+import com.uade.corehub.messaging.store.OutboxStore;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxRelayTest {
+
+    private final OutboxStore outboxStore = mock(OutboxStore.class);
+    private final MessageBatchWriter batchWriter = mock(MessageBatchWriter.class);
+    private final RabbitPublisher rabbitPublisher = mock(RabbitPublisher.class);
+    private final PublishProperties publishProperties = new PublishProperties();
+    private final OutboxRelay relay = new OutboxRelay(publishProperties, outboxStore, batchWriter, rabbitPublisher,
+            new ChannelRegistry(channels()), mock(PlatformTransactionManager.class));
+
+    @Test
+    void emptyClaimPublishesNothing() {
+        when(outboxStore.claimPending(anyInt())).thenReturn(List.of());
+
+        assertThat(relay.relayBatch()).isEqualTo(new OutboxRelay.RelayResult(0, 0));
+        verify(rabbitPublisher, never()).publishAll(any());
+    }
+
+    @Test
+    void claimsUpToBatchSizeAndMarksPublished() {
+        publishProperties.getOutbox().setBatchSize(50);
+        when(outboxStore.claimPending(50)).thenReturn(List.of(pending("m-1", "orders.created"), pending("m-2", "orders.created")));
+        when(rabbitPublisher.publishAll(any())).thenReturn(Map.of());
+
+        OutboxRelay.RelayResult result = relay.relayBatch();
+
+        assertThat(result).isEqualTo(new OutboxRelay.RelayResult(2, 0));
+        List<OutboundMessage> sent = captureSent();
+        assertThat(sent).extracting(OutboundMessage::messageId).containsExactly("m-1", "m-2");
+        assertThat(sent).allSatisfy(m -> {
+            assertThat(m.exchange()).isEqualTo("corehub.x.orders");
+            assertThat(m.routingKey()).isEqualTo("orders.created");
+            assertThat(((MessageEnvelope) m.payload()).destination().channel()).isEqualTo("orders.created");
+        });
+        verify(batchWriter).markPublished(eq(List.of("m-1", "m-2")), any());
+        verify(outboxStore, never()).markForRetry(anyMap(), anyInt());
+    }
+
+    @Test
+    void brokerFailureRequeuesOnlyTheFailedRows() {
+        publishProperties.getOutbox().setMaxAttempts(3);
+        when(outboxStore.claimPending(anyInt())).thenReturn(List.of(pending("m-1", "orders.created"), pending("m-2", "orders.created")));
+        when(rabbitPublisher.publishAll(any())).thenReturn(Map.of("m-2", new IllegalStateException("channel closed")));
+
+        assertThat(relay.relayBatch()).isEqualTo(new OutboxRelay.RelayResult(2, 1));
+
+        verify(batchWriter).markPublished(eq(List.of("m-1")), any());
+        verify(outboxStore).markForRetry(Map.of("m-2", "channel closed"), 3);
+    }
+
+    @Test
+    void rowOfAnUnknownChannelIsRequeuedWithoutSending() {
+        when(outboxStore.claimPending(anyInt())).thenReturn(List.of(pending("m-1", "orders.created"), pending("m-2", "gone")));
+        when(rabbitPublisher.publishAll(any())).thenReturn(Map.of());
+
+        relay.relayBatch();
+
+        assertThat(captureSent()).extracting(OutboundMessage::messageId).containsExactly("m-1");
+        verify(outboxStore).markForRetry(eq(Map.of("m-2", "Channel not found: gone")), anyInt());
+    }
+
+    @Test
+    void startsOnlyInOutboxMode() {
+        relay.start();
+        assertThat(relay.isRunning()).isFalse();
+
+        publishProperties.setMode(PublishProperties.Mode.OUTBOX);
+        when(outboxStore.claimPending(anyInt())).thenReturn(List.of());
+        relay.start();
+        assertThat(relay.isRunning()).isTrue();
+        relay.stop();
+        assertThat(relay.isRunning()).isFalse();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<OutboundMessage> captureSent() {
+        ArgumentCaptor<List<OutboundMessage>> sent = ArgumentCaptor.forClass(List.class);
+        verify(rabbitPublisher).publishAll(sent.capture());
+        return sent.getValue();
+    }
+
+    private static OutboxStore.PendingMessage pending(String messageId, String channel) {
+        return new OutboxStore.PendingMessage(messageId, channel, channel, "orders-service", "created",
+                Map.of(), null, OffsetDateTime.now(), RawPayload.of("{\"id\":\"" + messageId + "\"}"));
+    }
+
+    private static ChannelRegistryProperties channels() {
+        ChannelRegistryProperties.Channel orders = new ChannelRegistryProperties.Channel();
+        orders.setName("orders.created");
+        orders.setExchange("corehub.x.orders");
+        orders.setRoutingKey("orders.created");
+        ChannelRegistryProperties props = new ChannelRegistryProperties();
+        props.setChannels(List.of(orders));
+        return props;
+    }
+}
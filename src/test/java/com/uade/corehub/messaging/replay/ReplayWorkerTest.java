@@ -0,0 +1,223 @@
+package com.uade.corehub.messaging.replay;
+
+import com.uade.corehub.channels.ChannelRegistry;
+import com.uade.corehub.channels.ChannelRegistryProperties;
+import com.uade.corehub.config.ReplayProperties;
+import com.uade.corehub.messaging.broker.RabbitPublisher;
+import com.uade.corehub.messaging.dispatcher.WebhookDispatcherService;
+import com.uade.corehub.messaging.dto.MessageEnvelope;
+import com.uade.corehub.messaging.dto.RawPayload;
+import com.uade.corehub.messaging.store.ParkingLotStore;
+import com.uade.corehub.messaging.store.ReplayJob;
+import com.uade.corehub.messaging.store.ReplayJobRepository;
+import com.uade.corehub.messaging.store.ReplayStore;
+import com.uade.corehub.messaging.store.Subscription;
+import com.uade.corehub.messaging.store.SubscriptionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReplayWorkerTest {
+
+	private static final OffsetDateTime FROM = OffsetDateTime.parse("2026-10-01T00:00:00Z");
+
+	private final ReplayProperties props = new ReplayProperties();
+	private final ReplayStore replayStore = mock(ReplayStore.class);
+	private final ReplayJobRepository jobRepository = mock(ReplayJobRepository.class);
+	private final RabbitPublisher rabbitPublisher = mock(RabbitPublisher.class);
+	private final ParkingLotStore parkingLotStore = mock(ParkingLotStore.class);
+	private final SubscriptionRepository subscriptionRepository = mock(SubscriptionRepository.class);
+	private final WebhookDispatcherService webhookDispatcher = mock(WebhookDispatcherService.class);
+	private ReplayWorker worker;
+
+	@BeforeEach
+	void setUp() {
+		props.setPageSize(2);
+		props.setPollInterval(Duration.ofMillis(500));
+		when(replayStore.claim(anyString(), any())).thenReturn(Optional.of("job-1"), Optional.empty());
+		when(replayStore.count(any())).thenReturn(3L);
+		when(replayStore.checkpoint(eq("job-1"), anyString(), any(), anyLong(), anyLong(), anyLong(), any()))
+				.thenReturn(Optional.of(ReplayJob.RUNNING));
+		worker = new ReplayWorker(props, replayStore, parkingLotStore, jobRepository, new ChannelRegistry(channels()),
+				subscriptionRepository, rabbitPublisher, webhookDispatcher);
+	}
+
+	@AfterEach
+	void tearDown() {
+		worker.shutdown();
+	}
+
+	@Test
+	void walksPagesByKeysetCursorAndCompletes() {
+		ReplayJob job = job(null, null);
+		when(jobRepository.findById("job-1")).thenReturn(Optional.of(job));
+		when(replayStore.page(eq(job), any(), anyLong(), anyInt()))
+				.thenReturn(List.of(stored(1), stored(2)), List.of(stored(3)));
+
+		worker.init();
+
+		verify(replayStore, timeout(3000)).finish(eq("job-1"), anyString(), eq(ReplayJob.COMPLETED), eq(null));
+		verify(replayStore).page(job, FROM, 0, 2);
+		verify(replayStore).page(job, at(2), 2, 2);
+		verify(replayStore).checkpoint(eq("job-1"), anyString(), eq(at(2)), eq(2L), eq(2L), eq(0L), any());
+		verify(replayStore).checkpoint(eq("job-1"), anyString(), eq(at(3)), eq(3L), eq(1L), eq(0L), any());
+		verify(replayStore).setTotal("job-1", 3);
+		verify(rabbitPublisher, times(3)).publish(eq("corehub.x.orders"), eq("orders.created"), any(MessageEnvelope.class));
+	}
+
+	@Test
+	void resumesFromThePersistedCheckpoint() {
+		ReplayJob job = job(at(7), 7L);
+		job.setTotal(10L);
+		when(jobRepository.findById("job-1")).thenReturn(Optional.of(job));
+		when(replayStore.page(eq(job), any(), anyLong(), anyInt())).thenReturn(List.of(stored(8)));
+
+		worker.init();
+
+		verify(replayStore, timeout(3000)).finish(eq("job-1"), anyString(), eq(ReplayJob.COMPLETED), eq(null));
+		verify(replayStore).page(job, at(7), 7, 2);
+		verify(replayStore, never()).setTotal(anyString(), anyLong());
+	}
+
+	@Test
+	void pausedJobReleasesTheLeaseWithoutFinishing() {
+		ReplayJob job = job(null, null);
+		when(jobRepository.findById("job-1")).thenReturn(Optional.of(job));
+		when(replayStore.page(eq(job), any(), anyLong(), anyInt())).thenReturn(List.of(stored(1), stored(2)));
+		when(replayStore.checkpoint(eq("job-1"), anyString(), any(), anyLong(), anyLong(), anyLong(), any()))
+				.thenReturn(Optional.of(ReplayJob.PAUSED));
+
+		worker.init();
+
+		verify(replayStore, timeout(3000)).release(eq("job-1"), anyString());
+		verify(replayStore, after(200).never()).finish(anyString(), anyString(), anyString(), any());
+		verify(replayStore, times(1)).page(any(), any(), anyLong(), anyInt());
+	}
+
+	@Test
+	void lostLeaseStopsTheJob() {
+		ReplayJob job = job(null, null);
+		when(jobRepository.findById("job-1")).thenReturn(Optional.of(job));
+		when(replayStore.page(eq(job), any(), anyLong(), anyInt())).thenReturn(List.of(stored(1), stored(2)));
+		when(replayStore.checkpoint(eq("job-1"), anyString(), any(), anyLong(), anyLong(), anyLong(), any()))
+				.thenReturn(Optional.empty());
+
+		worker.init();
+
+		verify(replayStore, timeout(3000)).release(eq("job-1"), anyString());
+		verify(replayStore, after(200).never()).finish(anyString(), anyString(), anyString(), any());
+	}
+
+	@Test
+	void messagesWithoutPayloadAreCountedAsFailed() {
+		ReplayJob job = job(null, null);
+		when(jobRepository.findById("job-1")).thenReturn(Optional.of(job));
+		ReplayStore.StoredMessage archivedAway = new ReplayStore.StoredMessage(2, "m-2", "orders.created", "orders-service",
+				"created", Map.of(), null, at(2), at(2), null);
+		when(replayStore.page(eq(job), any(), anyLong(), anyInt())).thenReturn(List.of(stored(1), archivedAway));
+		when(replayStore.page(eq(job), eq(at(2)), eq(2L), anyInt())).thenReturn(List.of());
+
+		worker.init();
+
+		verify(replayStore, timeout(3000)).finish(eq("job-1"), anyString(), eq(ReplayJob.COMPLETED), eq(null));
+		verify(replayStore).checkpoint(eq("job-1"), anyString(), eq(at(2)), eq(2L), eq(1L), eq(1L), any());
+	}
+
+	@Test
+	void parkingLotRedriveDeliversToTheOriginalSubscriptionAndMarksTheOutcome() {
+		ReplayJob job = job(null, null);
+		job.setSource(ReplayJob.SOURCE_PARKING_LOT);
+		when(jobRepository.findById("job-1")).thenReturn(Optional.of(job));
+		when(parkingLotStore.count(job)).thenReturn(2L);
+		when(parkingLotStore.page(eq(job), any(), anyLong(), anyInt())).thenReturn(List.of(parked(1, "sub-a"), parked(2, "sub-b")), List.of());
+		Subscription subA = Subscription.builder().id("sub-a").build();
+		Subscription subB = Subscription.builder().id("sub-b").lastError("503").build();
+		when(subscriptionRepository.findById("sub-a")).thenReturn(Optional.of(subA));
+		when(subscriptionRepository.findById("sub-b")).thenReturn(Optional.of(subB));
+		when(webhookDispatcher.dispatchTo(eq(subA), any(), any())).thenReturn(true);
+		when(webhookDispatcher.dispatchTo(eq(subB), any(), any())).thenReturn(false);
+
+		worker.init();
+
+		verify(replayStore, timeout(3000)).finish(eq("job-1"), anyString(), eq(ReplayJob.COMPLETED), eq(null));
+		verify(parkingLotStore).markRedriven(1, "job-1");
+		verify(parkingLotStore).markRedriveFailed(2, "job-1", "503");
+		verify(replayStore).setTotal("job-1", 2);
+		verify(replayStore, never()).page(any(), any(), anyLong(), anyInt());
+		verify(rabbitPublisher, never()).publish(any(), any(), any());
+	}
+
+	@Test
+	void redriveWithTargetUrlOverridesTheSubscription() {
+		ReplayJob job = job(null, null);
+		job.setSource(ReplayJob.SOURCE_PARKING_LOT);
+		job.setTargetUrl("http://fixed.example/hook");
+		when(jobRepository.findById("job-1")).thenReturn(Optional.of(job));
+		when(parkingLotStore.page(eq(job), any(), anyLong(), anyInt())).thenReturn(List.of(parked(1, "sub-a")));
+		when(webhookDispatcher.dispatchToUrl(eq("http://fixed.example/hook"), eq("sub-a"), any(), any())).thenReturn(true);
+
+		worker.init();
+
+		verify(parkingLotStore, timeout(3000)).markRedriven(1, "job-1");
+		verify(subscriptionRepository, never()).findById(anyString());
+	}
+
+	private static ParkingLotStore.ParkedDelivery parked(long id, String subscriptionId) {
+		MessageEnvelope envelope = new MessageEnvelope("m-" + id, at(id), "orders-service",
+				new MessageEnvelope.Destination("orders.created", "created"), Map.of(), RawPayload.of("{}"));
+		return new ParkingLotStore.ParkedDelivery(id, "m-" + id, "orders.created", "created", subscriptionId,
+				"http://subscriber.example/hook", null, envelope, 3, "RETRIES_EXHAUSTED", "timeout", "PARKED",
+				at(id), at(id), null, null);
+	}
+
+	private static ReplayJob job(OffsetDateTime cursorCreatedAt, Long cursorId) {
+		return ReplayJob.builder()
+				.id("job-1")
+				.channel("orders.created")
+				.fromTs(FROM)
+				.toTs(FROM.plusDays(1))
+				.ratePerSecond(1_000)
+				.status(ReplayJob.RUNNING)
+				.cursorCreatedAt(cursorCreatedAt)
+				.cursorId(cursorId)
+				.build();
+	}
+
+	private static ReplayStore.StoredMessage stored(long id) {
+		return new ReplayStore.StoredMessage(id, "m-" + id, "orders.created", "orders-service", "created",
+				Map.of(), null, at(id), at(id), RawPayload.of("{\"id\":" + id + "}"));
+	}
+
+	private static OffsetDateTime at(long id) {
+		return FROM.plusMinutes(id);
+	}
+
+	private static ChannelRegistryProperties channels() {
+		ChannelRegistryProperties.Channel orders = new ChannelRegistryProperties.Channel();
+		orders.setName("orders.created");
+		orders.setExchange("corehub.x.orders");
+		orders.setRoutingKey("orders.created");
+		ChannelRegistryProperties props = new ChannelRegistryProperties();
+		props.setChannels(List.of(orders));
+		return props;
+	}
+}
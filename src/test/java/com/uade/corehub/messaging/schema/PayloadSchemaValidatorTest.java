@@ -0,0 +1,87 @@
+package com.uade.corehub.messaging.schema;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uade.corehub.channels.ChannelRegistryProperties;
+import com.uade.corehub.config.SchemaProperties;
+import com.uade.corehub.messaging.dto.RawPayload;
+import com.uade.corehub.messaging.store.ChannelSchemaStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PayloadSchemaValidatorTest {
+
+	private final ChannelSchemaStore store = mock(ChannelSchemaStore.class);
+	private final SchemaProperties props = new SchemaProperties();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final PayloadSchemaValidator validator = new PayloadSchemaValidator(
+			new SchemaRegistry(store, props, new ObjectMapper(), meterRegistry));
+
+	@BeforeEach
+	void setUp() {
+		when(store.find(anyString(), anyString())).thenReturn(Optional.empty());
+		when(store.find("orders.created", "1")).thenReturn(Optional.of(
+				new ChannelSchemaStore.ChannelSchema("orders.created", "1", SchemaRegistryTest.ORDER_SCHEMA, OffsetDateTime.now())));
+	}
+
+	@Test
+	void channelWithoutSchemaIsNotValidated() {
+		assertThat(validator.validate(channel(null), RawPayload.of("[1, 2]"))).isNull();
+		assertThat(validator.validate(channel(" "), RawPayload.of("[1, 2]"))).isNull();
+		verify(store, never()).find(anyString(), anyString());
+	}
+
+	@Test
+	void matchingPayloadReturnsTheVersionAndRecordsTheCost() {
+		assertThat(validator.validate(channel("1"), RawPayload.of("{\"id\": 7, \"note\": \"ok\"}"))).isEqualTo("1");
+
+		assertThat(meterRegistry.get("corehub.schema.validation")
+				.tags("channel", "orders.created", "version", "1", "result", "valid").timer().count()).isEqualTo(1);
+	}
+
+	@Test
+	void violationsAreReportedSortedAndCapped() {
+		props.setMaxErrors(1);
+
+		assertThatThrownBy(() -> validator.validate(channel("1"), RawPayload.of("{\"id\": \"seven\", \"note\": 3}")))
+				.isInstanceOf(PayloadSchemaException.class)
+				.hasMessageStartingWith("Payload does not match schema 'orders.created' version '1': ")
+				.hasMessageContaining("$.id")
+				.hasMessageNotContaining("$.note");
+		assertThat(meterRegistry.get("corehub.schema.validation").tag("result", "invalid").timer().count()).isEqualTo(1);
+	}
+
+	@Test
+	void missingRequiredFieldIsReported() {
+		assertThatThrownBy(() -> validator.validate(channel("1"), RawPayload.of("{\"note\": \"no id\"}")))
+				.isInstanceOf(PayloadSchemaException.class)
+				.hasMessageContaining("id");
+	}
+
+	@Test
+	void unregisteredVersionIsRejected() {
+		assertThatThrownBy(() -> validator.validate(channel("9"), RawPayload.of("{\"id\": 1}")))
+				.isInstanceOf(PayloadSchemaException.class)
+				.hasMessage("JSON Schema version '9' is not registered for channel: orders.created");
+	}
+
+	private static ChannelRegistryProperties.Channel channel(String schemaVersion) {
+		ChannelRegistryProperties.Channel channel = new ChannelRegistryProperties.Channel();
+		channel.setName("orders.created");
+		channel.setExchange("corehub.x.orders");
+		channel.setRoutingKey("orders.created");
+		channel.setSchemaVersion(schemaVersion);
+		return channel;
+	}
+}
@@ -0,0 +1,118 @@
+package com.uade.corehub.messaging.schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uade.corehub.config.SchemaProperties;
+import com.uade.corehub.messaging.store.ChannelSchemaStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SchemaRegistryTest {
+
+	static final String ORDER_SCHEMA = """
+			{"type": "object", "required": ["id"], "properties": {"id": {"type": "integer"}, "note": {"type": "string"}}}""";
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final ChannelSchemaStore store = mock(ChannelSchemaStore.class);
+	private final SchemaProperties props = new SchemaProperties();
+	private final Map<String, String> rows = new HashMap<>();
+	private SchemaRegistry registry;
+
+	@BeforeEach
+	void setUp() {
+		when(store.insert(anyString(), anyString(), anyString()))
+				.thenAnswer(inv -> rows.putIfAbsent(inv.getArgument(0) + "@" + inv.getArgument(1), inv.getArgument(2)) == null);
+		when(store.find(anyString(), anyString())).thenAnswer(inv -> {
+			String channel = inv.getArgument(0);
+			String version = inv.getArgument(1);
+			return Optional.ofNullable(rows.get(channel + "@" + version))
+					.map(s -> new ChannelSchemaStore.ChannelSchema(channel, version, s, OffsetDateTime.now()));
+		});
+		registry = new SchemaRegistry(store, props, objectMapper, new SimpleMeterRegistry());
+	}
+
+	@Test
+	void registeringTheSameContentTwiceIsIdempotent() throws Exception {
+		registry.register("orders.created", "1", json(ORDER_SCHEMA));
+		var again = registry.register("orders.created", "1", json(ORDER_SCHEMA));
+
+		assertThat(again.version()).isEqualTo("1");
+		assertThat(json(again.schema())).isEqualTo(json(ORDER_SCHEMA));
+	}
+
+	@Test
+	void registeredVersionIsImmutable() throws Exception {
+		registry.register("orders.created", "1", json(ORDER_SCHEMA));
+
+		assertThatThrownBy(() -> registry.register("orders.created", "1", json("{\"type\": \"array\"}")))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("different content");
+	}
+
+	@Test
+	void invalidSchemaIsRejectedBeforeStoring() {
+		assertThatThrownBy(() -> registry.register("orders.created", "1", json("{\"type\": 5}")))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageStartingWith("Invalid JSON Schema");
+		verify(store, never()).insert(anyString(), anyString(), anyString());
+	}
+
+	@Test
+	void compiledSchemaIsLoadedOnce() throws Exception {
+		registry.register("orders.created", "1", json(ORDER_SCHEMA));
+
+		var first = registry.compiled("orders.created", "1");
+		var second = registry.compiled("orders.created", "1");
+
+		assertThat(first).isNotNull().isSameAs(second);
+		// una lectura en register y una sola al compilar
+		verify(store, times(2)).find("orders.created", "1");
+	}
+
+	@Test
+	void missingVersionIsRememberedUntilItIsRegistered() throws Exception {
+		props.setMissingTtl(Duration.ofMinutes(1));
+
+		assertThat(registry.compiled("orders.created", "2")).isNull();
+		assertThat(registry.compiled("orders.created", "2")).isNull();
+		verify(store, times(1)).find("orders.created", "2");
+
+		registry.register("orders.created", "2", json(ORDER_SCHEMA));
+		assertThat(registry.compiled("orders.created", "2")).isNotNull();
+	}
+
+	@Test
+	void leastRecentlyUsedSchemaIsEvicted() throws Exception {
+		props.setCacheSize(1);
+		registry = new SchemaRegistry(store, props, objectMapper, new SimpleMeterRegistry());
+		rows.put("orders.created@1", ORDER_SCHEMA);
+		rows.put("orders.created@2", ORDER_SCHEMA);
+
+		registry.compiled("orders.created", "1");
+		registry.compiled("orders.created", "2");
+		registry.compiled("orders.created", "1");
+
+		verify(store, times(2)).find("orders.created", "1");
+		verify(store, times(1)).find("orders.created", "2");
+	}
+
+	private JsonNode json(String text) throws Exception {
+		return objectMapper.readTree(text);
+	}
+}
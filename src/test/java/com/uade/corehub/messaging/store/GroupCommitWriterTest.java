@@ -0,0 +1,234 @@
+package com.uade.corehub.messaging.store;
+
+import com.uade.corehub.config.PublishProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GroupCommitWriterTest {
+
+	private final MessageBatchWriter batchWriter = mock(MessageBatchWriter.class);
+	private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+	private final Set<String> stored = Collections.synchronizedSet(new HashSet<>());
+	private final List<Integer> transactionSizes = Collections.synchronizedList(new ArrayList<>());
+	private GroupCommitWriter writer;
+
+	@AfterEach
+	void tearDown() {
+		if (writer != null) {
+			writer.stop();
+		}
+	}
+
+	@Test
+	void writesConcurrentSubmissionsInOneTransaction() throws Exception {
+		stubInserts(Set.of(), false);
+		writer = startedWriter(4);
+
+		List<CompletableFuture<Boolean>> results = submitAll("a", "b", "c", "d");
+
+		for (CompletableFuture<Boolean> result : results) {
+			assertThat(result.get(5, TimeUnit.SECONDS)).isTrue();
+		}
+		assertThat(transactionSizes).containsExactly(4);
+	}
+
+	@Test
+	void repeatedIdInTheSameGroupIsADuplicate() throws Exception {
+		stubInserts(Set.of(), false);
+		writer = startedWriter(3);
+
+		List<CompletableFuture<Boolean>> results = submitAll("a", "a", "b");
+
+		assertThat(results.get(0).get(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(results.get(1).get(5, TimeUnit.SECONDS)).isFalse();
+		assertThat(results.get(2).get(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(transactionSizes).containsExactly(2);
+	}
+
+	@Test
+	void existingIdIsReportedAsNotInserted() throws Exception {
+		stored.add("a");
+		stubInserts(Set.of(), false);
+		writer = startedWriter(2);
+
+		List<CompletableFuture<Boolean>> results = submitAll("a", "b");
+
+		assertThat(results.get(0).get(5, TimeUnit.SECONDS)).isFalse();
+		assertThat(results.get(1).get(5, TimeUnit.SECONDS)).isTrue();
+	}
+
+	@Test
+	void failingRowOnlyFailsItsOwnWrite() throws Exception {
+		stubInserts(Set.of("bad"), false);
+		writer = startedWriter(5);
+
+		List<CompletableFuture<Boolean>> results = submitAll("a", "b", "bad", "c", "bad");
+
+		assertThat(results.get(0).get(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(results.get(1).get(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(results.get(3).get(5, TimeUnit.SECONDS)).isTrue();
+		assertFailed(results.get(2), DataIntegrityViolationException.class);
+		// La repetida falla con la primera aparición
+		assertFailed(results.get(4), DataIntegrityViolationException.class);
+		assertThat(stored).containsExactlyInAnyOrder("a", "b", "c");
+	}
+
+	@Test
+	void transientFailureFailsTheWholeGroupWithoutSplitting() throws Exception {
+		stubInserts(Set.of(), true);
+		writer = startedWriter(4);
+
+		List<CompletableFuture<Boolean>> results = submitAll("a", "b", "c", "d");
+
+		for (CompletableFuture<Boolean> result : results) {
+			assertFailed(result, CannotAcquireLockException.class);
+		}
+		assertThat(transactionSizes).containsExactly(4);
+	}
+
+	@Test
+	void reservedWriteSkipsTheDedupeInsert() throws Exception {
+		stubInserts(Set.of(), false);
+		when(batchWriter.insertReservedMessageLogs(any())).thenAnswer(inv -> {
+			List<MessageLog> rows = inv.getArgument(0);
+			Set<String> inserted = new HashSet<>();
+			rows.forEach(r -> inserted.add(r.getMessageId()));
+			return inserted;
+		});
+		writer = startedWriter(2);
+
+		// Un submit sin reserva con el mismo id no lo vuelve repetido: pierde contra la reserva en message_dedupe
+		stored.add("a");
+		CompletableFuture<Boolean> plain = writer.submit(MessageLog.builder().messageId("a").build(),
+				PayloadStore.builder().messageId("a").build());
+		CompletableFuture<Boolean> reserved = writer.submitReserved(MessageLog.builder().messageId("a").build(),
+				PayloadStore.builder().messageId("a").build());
+
+		assertThat(reserved.get(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(plain.get(5, TimeUnit.SECONDS)).isFalse();
+		verify(batchWriter).insertReservedMessageLogs(argThat(rows -> rows.size() == 1));
+	}
+
+	@Test
+	void writeQueuedWhileStoppingIsNotLeftBehind() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicBoolean firstWrite = new AtomicBoolean(true);
+		when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+		when(batchWriter.insertMessageLogsIfAbsent(any())).thenAnswer(inv -> {
+			if (firstWrite.getAndSet(false)) {
+				// El flusher queda ocupado con la primera escritura (stop() lo interrumpe, pero termina igual)
+				while (true) {
+					try {
+						release.await();
+						break;
+					} catch (InterruptedException ignored) {
+					}
+				}
+			}
+			List<MessageLog> rows = inv.getArgument(0);
+			Set<String> inserted = new HashSet<>();
+			rows.forEach(r -> inserted.add(r.getMessageId()));
+			return inserted;
+		});
+		PublishProperties props = new PublishProperties();
+		props.getGroupCommit().setWindow(Duration.ofSeconds(5));
+		props.getGroupCommit().setMaxRows(1);
+		props.getGroupCommit().setFlushers(1);
+		props.getGroupCommit().setQueueCapacity(1);
+		writer = new GroupCommitWriter(props, batchWriter, transactionManager, new SimpleMeterRegistry());
+		writer.start();
+
+		List<CompletableFuture<Boolean>> accepted = submitAll("a", "b");
+		await().until(() -> !firstWrite.get());
+		// Con la cola llena el tercer submit queda bloqueado en el offer mientras stop() drena
+		AtomicReference<CompletableFuture<Boolean>> late = new AtomicReference<>();
+		Thread submitter = new Thread(() -> late.set(submitAll("c").get(0)));
+		submitter.start();
+		await().until(() -> submitter.getState() == Thread.State.TIMED_WAITING);
+		Thread stopper = new Thread(writer::stop);
+		stopper.start();
+		await().until(() -> !writer.isRunning());
+		release.countDown();
+		stopper.join(10_000);
+		submitter.join(10_000);
+
+		assertThat(accepted.get(0).get(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(accepted.get(1).get(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(late.get().get(5, TimeUnit.SECONDS)).isTrue();
+	}
+
+	private void stubInserts(Set<String> invalidIds, boolean transientFailure) {
+		when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+		when(batchWriter.insertMessageLogsIfAbsent(any())).thenAnswer(inv -> {
+			List<MessageLog> rows = inv.getArgument(0);
+			transactionSizes.add(rows.size());
+			if (transientFailure) {
+				throw new CannotAcquireLockException("lock timeout");
+			}
+			if (rows.stream().anyMatch(r -> invalidIds.contains(r.getMessageId()))) {
+				throw new DataIntegrityViolationException("check constraint");
+			}
+			Set<String> inserted = new HashSet<>();
+			for (MessageLog row : rows) {
+				if (!stored.contains(row.getMessageId())) {
+					inserted.add(row.getMessageId());
+				}
+			}
+			// Sin rollback real: las filas se dan por guardadas sólo si la transacción no falla
+			stored.addAll(inserted);
+			return inserted;
+		});
+	}
+
+	private GroupCommitWriter startedWriter(int maxRows) {
+		PublishProperties props = new PublishProperties();
+		props.getGroupCommit().setWindow(Duration.ofSeconds(5));
+		props.getGroupCommit().setMaxRows(maxRows);
+		props.getGroupCommit().setFlushers(1);
+		GroupCommitWriter groupCommitWriter = new GroupCommitWriter(props, batchWriter, transactionManager, new SimpleMeterRegistry());
+		groupCommitWriter.start();
+		return groupCommitWriter;
+	}
+
+	private List<CompletableFuture<Boolean>> submitAll(String... messageIds) {
+		List<CompletableFuture<Boolean>> results = new ArrayList<>();
+		for (String messageId : messageIds) {
+			results.add(writer.submit(MessageLog.builder().messageId(messageId).build(),
+					PayloadStore.builder().messageId(messageId).build()));
+		}
+		return results;
+	}
+
+	private static void assertFailed(CompletableFuture<Boolean> result, Class<? extends Throwable> cause) {
+		assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+				.isInstanceOf(ExecutionException.class)
+				.hasCauseInstanceOf(cause);
+	}
+}
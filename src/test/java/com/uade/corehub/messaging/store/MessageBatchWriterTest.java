@@ -0,0 +1,77 @@
+package com.uade.corehub.messaging.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uade.corehub.config.PublishProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class MessageBatchWriterTest {
+
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+	private final PublishProperties props = new PublishProperties();
+	private final MessageBatchWriter writer = new MessageBatchWriter(jdbcTemplate, new ObjectMapper(), props, new SimpleMeterRegistry());
+
+	@Test
+	void messageLogChunkStaysUnderTheBindParameterLimit() {
+		props.getBatch().setJdbcBatchSize(10_000);
+		assertThat(writer.messageLogChunk()).isEqualTo(Short.MAX_VALUE / 13);
+
+		props.getBatch().setJdbcBatchSize(500);
+		assertThat(writer.messageLogChunk()).isEqualTo(500);
+
+		props.getBatch().setJdbcBatchSize(0);
+		assertThat(writer.messageLogChunk()).isEqualTo(1);
+	}
+
+	@Test
+	void reservedRowsDoNotGoThroughMessageDedupe() {
+		when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class))).thenReturn(List.of("m-1"));
+
+		assertThat(writer.insertReservedMessageLogs(List.of(MessageLog.builder().messageId("m-1").build()))).containsExactly("m-1");
+		writer.insertMessageLogsIfAbsent(List.of(MessageLog.builder().messageId("m-2").build()));
+
+		ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+		verify(jdbcTemplate, times(2)).queryForList(sql.capture(), eq(String.class), any(Object[].class));
+		assertThat(sql.getAllValues().get(0)).doesNotContain("message_dedupe").contains("INSERT INTO message_log");
+		assertThat(sql.getAllValues().get(1)).contains("INSERT INTO message_dedupe");
+	}
+
+	@Test
+	void reservingNoIdsSkipsTheDatabase() {
+		assertThat(writer.reserveIds(List.of(), OffsetDateTime.now())).isEmpty();
+		verifyNoInteractions(jdbcTemplate);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void largeInsertIsSplitIntoStatementsWithinTheLimit() {
+		props.getBatch().setJdbcBatchSize(10_000);
+		when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class))).thenReturn(List.of());
+		List<MessageLog> rows = IntStream.range(0, 6_000)
+				.mapToObj(i -> MessageLog.builder().messageId("m-" + i).build())
+				.toList();
+
+		writer.insertMessageLogsIfAbsent(rows);
+
+		ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+		verify(jdbcTemplate, times(3)).queryForList(anyString(), eq(String.class), args.capture());
+		assertThat(args.getAllValues()).allSatisfy(a -> assertThat(a.length).isLessThanOrEqualTo(Short.MAX_VALUE));
+		assertThat(args.getAllValues().stream().mapToInt(a -> a.length).sum()).isEqualTo(6_000 * 13);
+	}
+}
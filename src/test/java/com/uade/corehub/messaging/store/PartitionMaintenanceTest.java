@@ -0,0 +1,152 @@
+package com.uade.corehub.messaging.store;
+
+import com.uade.corehub.channels.ChannelRegistry;
+import com.uade.corehub.channels.ChannelRegistryProperties;
+import com.uade.corehub.config.PartitioningProperties;
+import com.uade.corehub.messaging.archive.PayloadArchive;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PartitionMaintenanceTest {
+
+	private static final byte[] HASH = {1, 2, 3};
+
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+	private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+	private final ChannelRegistry channelRegistry = mock(ChannelRegistry.class);
+	private final PayloadArchive payloadArchive = mock(PayloadArchive.class);
+	private final PartitioningProperties props = new PartitioningProperties();
+	private final Map<String, ChannelRegistryProperties.Channel> channels = new LinkedHashMap<>();
+
+	@BeforeEach
+	void setUp() {
+		props.setDedupePurgeBatchSize(2);
+		when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+		when(channelRegistry.getAllChannels()).thenReturn(channels);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void channelWithShorterRetentionIsPurgedInBatches() {
+		channel("orders.created", null);
+		channel("audit.events", Duration.ofDays(1));
+		when(jdbcTemplate.queryForList(contains("DELETE FROM payload_store"), eq(byte[].class), any(Object[].class)))
+				.thenReturn(Arrays.asList(HASH, null), List.<byte[]>of(HASH));
+		when(jdbcTemplate.update(contains("DELETE FROM message_log"), any(Object[].class))).thenReturn(2, 0);
+		List<Long> releasedRefs = new ArrayList<>();
+		when(jdbcTemplate.batchUpdate(contains("UPDATE payload_blobs"), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+				.thenAnswer(inv -> {
+					List<?> releases = inv.getArgument(1);
+					releasedRefs.add((long) releases.size());
+					return new int[0][];
+				});
+		OffsetDateTime before = OffsetDateTime.now().minusDays(1);
+
+		newMaintenance().run();
+
+		ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+		verify(jdbcTemplate, times(2)).queryForList(contains("DELETE FROM payload_store"), eq(byte[].class), args.capture());
+		assertThat(args.getAllValues()).allSatisfy(a -> {
+			assertThat(a[0]).isEqualTo("audit.events");
+			assertThat((OffsetDateTime) a[1]).isCloseTo(before, within(Duration.ofMinutes(1)));
+			assertThat(a[3]).isEqualTo(2);
+		});
+		verify(jdbcTemplate, times(2)).update(contains("DELETE FROM message_log"), any(Object[].class));
+		// Un blob por lote: el null (payload inline) no descuenta referencias
+		assertThat(releasedRefs).containsExactly(1L, 1L);
+		// Sus segmentos archivados se borran hasta el mismo límite
+		ArgumentCaptor<Map<String, OffsetDateTime>> bounds = ArgumentCaptor.forClass(Map.class);
+		verify(payloadArchive).deleteSegmentsBefore(isNull(), bounds.capture());
+		assertThat(bounds.getValue()).containsOnlyKeys("audit.events");
+		assertThat(bounds.getValue().get("audit.events")).isEqualTo(args.getValue()[1]);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void archiveSegmentsAreDeletedUpToTheOldestKeptPartition() {
+		channel("orders.created", Duration.ofDays(30));
+		OffsetDateTime today = OffsetDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.DAYS);
+		OffsetDateTime expired = today.minusDays(40);
+		OffsetDateTime kept = today.minusDays(10);
+		when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), any(Object[].class))).thenReturn(true);
+		when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class))).thenReturn(List.of(
+				new PartitionMaintenance.Partition("p_expired", expired, expired.plusDays(1)),
+				new PartitionMaintenance.Partition("p_kept", kept, kept.plusDays(1))));
+
+		newMaintenance().run();
+
+		verify(jdbcTemplate, times(2)).execute(contains("DROP TABLE IF EXISTS \"p_expired\""));
+		verify(jdbcTemplate, never()).execute(contains("DROP TABLE IF EXISTS \"p_kept\""));
+		verify(payloadArchive).deleteSegmentsBefore(kept, Map.of());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void partitionFromMinValueKeepsEveryArchiveSegment() {
+		channel("orders.created", Duration.ofDays(30));
+		OffsetDateTime today = OffsetDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.DAYS);
+		when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), any(Object[].class))).thenReturn(true);
+		when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class))).thenReturn(List.of(
+				new PartitionMaintenance.Partition("p_legacy", null, today.minusDays(5)),
+				new PartitionMaintenance.Partition("p_today", today.minusDays(5), today)));
+
+		newMaintenance().run();
+
+		verify(payloadArchive).deleteSegmentsBefore(null, Map.of());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void channelsAtTheLongestRetentionAreLeftToThePartitionDrop() {
+		channel("orders.created", null);
+		channel("billing.invoices", Duration.ofDays(30));
+
+		newMaintenance().run();
+
+		verify(jdbcTemplate, never()).queryForList(contains("DELETE FROM payload_store"), eq(byte[].class), any(Object[].class));
+		verify(jdbcTemplate, never()).update(contains("DELETE FROM message_log"), any(Object[].class));
+		verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+	}
+
+	private PartitionMaintenance newMaintenance() {
+		return new PartitionMaintenance(props, channelRegistry, jdbcTemplate, payloadArchive, transactionManager);
+	}
+
+	private void channel(String name, Duration retention) {
+		ChannelRegistryProperties.Channel channel = new ChannelRegistryProperties.Channel();
+		channel.setName(name);
+		channel.setRetention(retention);
+		channels.put(name, channel);
+	}
+}
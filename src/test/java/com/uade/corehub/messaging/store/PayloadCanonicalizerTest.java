@@ -0,0 +1,54 @@
+package com.uade.corehub.messaging.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.UncheckedIOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PayloadCanonicalizerTest {
+
+	private final PayloadCanonicalizer canonicalizer = new PayloadCanonicalizer();
+
+	@Test
+	void sortsKeysAtEveryLevelAndDropsWhitespace() {
+		String json = "{ \"b\": [ {\"y\":1, \"x\":2} ], \"a\": {\"d\": null, \"c\": true} }";
+
+		assertThat(canonicalizer.canonicalize(json)).isEqualTo("{\"a\":{\"c\":true,\"d\":null},\"b\":[{\"x\":2,\"y\":1}]}");
+	}
+
+	@Test
+	void keepsArrayOrderAndNumberText() {
+		assertThat(canonicalizer.canonicalize("[3, 1.0, 1e400, 12345678901234567.89, -0]"))
+				.isEqualTo("[3,1.0,1e400,12345678901234567.89,-0]");
+	}
+
+	@Test
+	void normalizesStringEscapes() {
+		assertThat(canonicalizer.canonicalize("{\"s\":\"\\u00f1 \\/ \\\"q\\\"\"}"))
+				.isEqualTo(canonicalizer.canonicalize("{\"s\":\"ñ / \\\"q\\\"\"}"));
+	}
+
+	@Test
+	void equivalentPayloadsHashTheSame() {
+		String first = canonicalizer.canonicalize("{\"sku\":\"A-1\",\"qty\":3}");
+		String second = canonicalizer.canonicalize("{ \"qty\" : 3 , \"sku\" : \"A-1\" }");
+		String other = canonicalizer.canonicalize("{\"sku\":\"A-1\",\"qty\":4}");
+
+		assertThat(canonicalizer.hash(first)).isEqualTo(canonicalizer.hash(second)).hasSize(32);
+		assertThat(canonicalizer.hash(first)).isNotEqualTo(canonicalizer.hash(other));
+	}
+
+	@Test
+	void canonicalFormIsStable() {
+		String canonical = canonicalizer.canonicalize("{\"z\":[1,{\"b\":2,\"a\":1}],\"a\":\"x\"}");
+
+		assertThat(canonicalizer.canonicalize(canonical)).isEqualTo(canonical);
+	}
+
+	@Test
+	void rejectsInvalidJson() {
+		assertThatThrownBy(() -> canonicalizer.canonicalize("{\"a\":")).isInstanceOf(UncheckedIOException.class);
+	}
+}
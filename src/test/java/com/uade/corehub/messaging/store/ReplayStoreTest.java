@@ -0,0 +1,102 @@
+package com.uade.corehub.messaging.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uade.corehub.messaging.archive.PayloadArchive;
+import com.uade.corehub.messaging.compression.PayloadCompressor;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReplayStoreTest {
+
+	private static final OffsetDateTime FROM = OffsetDateTime.parse("2026-10-01T00:00:00Z");
+
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+	private final ReplayStore store = new ReplayStore(jdbcTemplate, new ObjectMapper(),
+			mock(PayloadCompressor.class), mock(PayloadArchive.class));
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void pageSeeksPastTheCursorWithoutOffset() {
+		ReplayJob job = job(null);
+		OffsetDateTime cursor = FROM.plusMinutes(5);
+
+		store.page(job, cursor, 42, 500);
+
+		ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+		ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+		verify(jdbcTemplate).query(sql.capture(), any(RowMapper.class), args.capture());
+		assertThat(sql.getValue())
+				.contains("(m.created_at, m.id) > (?, ?)")
+				.endsWith("ORDER BY m.created_at, m.id LIMIT ?")
+				.doesNotContain("OFFSET")
+				.doesNotContain("ANY");
+		assertThat(args.getValue()).containsExactly("orders.created", FROM, FROM.plusDays(1), cursor, 42L, 500);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void pageFiltersByExplicitMessageIds() {
+		ReplayJob job = job(List.of("m-1", "m-2"));
+
+		store.page(job, FROM, 0, 10);
+
+		ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+		ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+		verify(jdbcTemplate).query(sql.capture(), any(RowMapper.class), args.capture());
+		assertThat(sql.getValue()).contains("m.message_id = ANY (?)");
+		assertThat(args.getValue()).hasSize(7);
+		assertThat((String[]) args.getValue()[5]).containsExactly("m-1", "m-2");
+		assertThat(args.getValue()[6]).isEqualTo(10);
+	}
+
+	@Test
+	void checkpointReportsTheCurrentStatusOrALostLease() {
+		OffsetDateTime lease = FROM.plusMinutes(1);
+		when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class)))
+				.thenReturn(List.of(ReplayJob.PAUSED), List.of());
+
+		assertThat(store.checkpoint("job-1", "node-a", FROM, 9, 3, 1, lease)).contains(ReplayJob.PAUSED);
+		assertThat(store.checkpoint("job-1", "node-a", FROM, 9, 0, 0, lease)).isEmpty();
+
+		ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+		verify(jdbcTemplate).queryForList(sql.capture(), eq(String.class), eq(FROM), eq(9L), eq(3L), eq(1L), eq(lease), eq("job-1"), eq("node-a"));
+		assertThat(sql.getValue()).contains("WHERE id = ? AND lease_owner = ?").contains("RETURNING status");
+	}
+
+	@Test
+	void claimTakesAnUnleasedJobWithSkipLocked() {
+		OffsetDateTime lease = FROM.plusMinutes(1);
+		when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class))).thenReturn(List.of("job-1"));
+
+		Optional<String> claimed = store.claim("node-a", lease);
+
+		assertThat(claimed).contains("job-1");
+		ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+		verify(jdbcTemplate).queryForList(sql.capture(), eq(String.class), eq("node-a"), eq(lease));
+		assertThat(sql.getValue()).contains("FOR UPDATE SKIP LOCKED").contains("lease_until < now()");
+	}
+
+	private static ReplayJob job(List<String> messageIds) {
+		return ReplayJob.builder()
+				.id("job-1")
+				.channel("orders.created")
+				.fromTs(FROM)
+				.toTs(FROM.plusDays(1))
+				.messageIds(messageIds)
+				.build();
+	}
+}